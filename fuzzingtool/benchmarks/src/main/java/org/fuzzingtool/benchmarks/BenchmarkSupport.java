@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.components.BranchingNode;
+import org.fuzzingtool.core.components.BranchingNodeAttribute;
+import org.fuzzingtool.core.components.VariableIdentifier;
+import org.fuzzingtool.core.symbolic.ExpressionType;
+import org.fuzzingtool.core.symbolic.LanguageSemantic;
+import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.arithmetic.Addition;
+import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
+import org.fuzzingtool.core.symbolic.basic.SymbolicVariable;
+import org.fuzzingtool.core.symbolic.logical.LessThan;
+
+import java.io.OutputStream;
+
+/**
+ * Synthetic inputs shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+	static final LanguageSemantic JS = LanguageSemantic.JAVASCRIPT;
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * @return A logger that discards all messages
+	 */
+	static Logger nullLogger() {
+		return new Logger(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+	}
+
+	static VariableIdentifier integerVariable(String unique_id) {
+		return new VariableIdentifier(ExpressionType.NUMBER_INTEGER, unique_id);
+	}
+
+	/**
+	 * Builds the left-deep expression {@code ((x + 1) + 2) + ... + depth}.
+	 *
+	 * @param depth Number of additions
+	 * @return The expression
+	 */
+	static SymbolicNode additionChain(int depth) {
+		SymbolicNode expression = new SymbolicVariable(JS, integerVariable("benchmark"));
+		for (int i = 1; i <= depth; i++) {
+			expression = new Addition(JS, expression, new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, i));
+		}
+		return expression;
+	}
+
+	/**
+	 * Builds a path of branching nodes, the branch at depth {@code i} is {@code x < i} and always taken.
+	 *
+	 * @param depth Number of branches
+	 * @return The (unexplored) leaf at the end of the path
+	 */
+	static BranchingNode branchingPath(int depth) {
+		SymbolicVariable variable = new SymbolicVariable(JS, integerVariable("benchmark"));
+		BranchingNode node = new BranchingNode();
+		for (int i = 0; i < depth; i++) {
+			SymbolicConstant bound = new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, i);
+			node.setProperties(new LessThan(JS, variable, bound), i, BranchingNodeAttribute.BRANCH);
+			node.initializeChildren();
+			node = node.getChildBranch(true);
+		}
+		return node;
+	}
+
+	/**
+	 * Builds a complete binary execution graph with {@code 2^(height + 1) - 1} nodes. All leaves
+	 * are terminated, except the last one in pre-order (always not taken), which is unexplored.
+	 * Therefore the tactics have to visit (almost) the whole graph to find it.
+	 *
+	 * @param height Height of the graph
+	 * @return The root node
+	 */
+	static BranchingNode completeTree(int height) {
+		SymbolicVariable variable = new SymbolicVariable(JS, integerVariable("benchmark"));
+		BranchingNode root = new BranchingNode();
+		expand(root, variable, height, true);
+		return root;
+	}
+
+	private static void expand(BranchingNode node, SymbolicVariable variable, int remaining, boolean last) {
+		if (remaining == 0) {
+			node.setBranchingNodeAttribute(last ? BranchingNodeAttribute.UNKNOWN : BranchingNodeAttribute.TERMINATE);
+			return;
+		}
+		SymbolicConstant bound = new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, remaining);
+		node.setProperties(new LessThan(JS, variable, bound), remaining, BranchingNodeAttribute.BRANCH);
+		node.initializeChildren();
+		expand(node.getChildBranch(true), variable, remaining - 1, false);
+		expand(node.getChildBranch(false), variable, remaining - 1, last);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import com.microsoft.z3.Context;
+import org.fuzzingtool.core.components.BranchingNode;
+import org.fuzzingtool.core.symbolic.SymbolicException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path expressions and program paths of {@link BranchingNode}s at different depths.
+ * <p>
+ * The "cold" benchmarks use a fresh path for every invocation, so the caches of all nodes
+ * on the path are empty, as for a newly discovered node. The "cached" benchmarks query
+ * the same leaf again, as the tactics do for nodes that were visited before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchingNodeBenchmark {
+	@Param({"8", "64", "512"})
+	public int depth;
+
+	private Context ctx;
+	private BranchingNode cached_leaf;
+	private BranchingNode fresh_leaf;
+
+	@Setup(Level.Trial)
+	public void setup() throws SymbolicException.NotImplemented, SymbolicException.UndecidableExpression {
+		ctx = new Context();
+		cached_leaf = BenchmarkSupport.branchingPath(depth);
+		cached_leaf.getSymbolicPathZ3Expression(ctx);
+		cached_leaf.getProgramPath();
+	}
+
+	@Setup(Level.Invocation)
+	public void buildPath() {
+		fresh_leaf = BenchmarkSupport.branchingPath(depth);
+	}
+
+	@TearDown(Level.Trial)
+	public void closeContext() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public Object pathZ3ExpressionCold() throws SymbolicException.NotImplemented,
+			SymbolicException.UndecidableExpression {
+		return fresh_leaf.getSymbolicPathZ3Expression(ctx);
+	}
+
+	@Benchmark
+	public Object pathZ3ExpressionCached() throws SymbolicException.NotImplemented,
+			SymbolicException.UndecidableExpression {
+		return cached_leaf.getSymbolicPathZ3Expression(ctx);
+	}
+
+	@Benchmark
+	public Object programPathCold() throws SymbolicException.NotImplemented {
+		return fresh_leaf.getProgramPath();
+	}
+
+	@Benchmark
+	public Object programPathCached() throws SymbolicException.NotImplemented {
+		return cached_leaf.getProgramPath();
+	}
+}
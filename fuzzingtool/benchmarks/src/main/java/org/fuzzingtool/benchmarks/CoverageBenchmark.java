@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import org.fuzzingtool.core.components.Coverage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coverage snapshot after an execution that took {@code branches} branches. The edges of the
+ * execution are recorded before every invocation, so only the snapshot (edge classification
+ * and percentages) is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoverageBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int branches;
+
+	private Coverage coverage;
+	private int[] branch_indices;
+	private int execution = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		coverage = new Coverage(BenchmarkSupport.nullLogger());
+		branch_indices = new int[branches];
+		for (int i = 0; i < branches; i++) {
+			coverage.registerBranch(i + 1);
+			branch_indices[i] = coverage.getBranchIndex(i + 1);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void execute() {
+		// Alternate the outcome of some branches, so that not every snapshot is free of new edges
+		execution++;
+		for (int i = 0; i < branches; i++) {
+			coverage.addBranchTaken(branch_indices[i], ((i ^ execution) & 7) != 0);
+		}
+	}
+
+	@Benchmark
+	public void saveSnapshot() {
+		coverage.saveSnapshot();
+	}
+}
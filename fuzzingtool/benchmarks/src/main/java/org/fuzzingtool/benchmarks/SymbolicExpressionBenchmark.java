@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import com.microsoft.z3.Context;
+import org.fuzzingtool.core.symbolic.SymbolicException;
+import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translation of symbolic expressions into Z3 expressions. The translation result is cached
+ * in every node, therefore a fresh expression chain is built before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolicExpressionBenchmark {
+	@Param({"16", "128", "1024"})
+	public int depth;
+
+	private Context ctx;
+	private SymbolicNode expression;
+
+	@Setup(Level.Trial)
+	public void createContext() {
+		ctx = new Context();
+	}
+
+	@Setup(Level.Invocation)
+	public void buildExpression() {
+		expression = BenchmarkSupport.additionChain(depth);
+	}
+
+	@TearDown(Level.Trial)
+	public void closeContext() {
+		ctx.close();
+	}
+
+	@Benchmark
+	public Object toZ3Expr() throws SymbolicException.NotImplemented, SymbolicException.UndecidableExpression {
+		return expression.toZ3Expr(ctx);
+	}
+}
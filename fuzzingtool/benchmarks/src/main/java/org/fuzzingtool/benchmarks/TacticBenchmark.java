@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.components.BranchingNode;
+import org.fuzzingtool.core.tactics.DepthSearchTactic;
+import org.fuzzingtool.core.tactics.FuzzingTactic;
+import org.fuzzingtool.core.tactics.InOrderSearchTactic;
+import org.fuzzingtool.core.tactics.RandomSearchTactic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search for the next unexplored node with every tactic, on complete binary execution graphs
+ * from about 10^3 (height 9) to 10^6 (height 19) nodes, see {@link BenchmarkSupport#completeTree(int)}.
+ * The depth search keeps state between searches, therefore every invocation uses a new tactic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xss16m", "-Xmx4g"})
+public class TacticBenchmark {
+	@Param({"9", "13", "16", "19"})
+	public int tree_height;
+
+	private Logger logger;
+	private BranchingNode root;
+
+	@Setup
+	public void setup() {
+		logger = BenchmarkSupport.nullLogger();
+		root = BenchmarkSupport.completeTree(tree_height);
+	}
+
+	@Benchmark
+	public BranchingNode depthSearch() {
+		return new DepthSearch(root, logger, tree_height).find();
+	}
+
+	@Benchmark
+	public BranchingNode inOrderSearch() {
+		return new InOrderSearch(root, logger, tree_height).find();
+	}
+
+	@Benchmark
+	public BranchingNode randomSearch() {
+		return new RandomSearch(root, logger, tree_height).find();
+	}
+
+	// The tactics are only called through calculate(), which includes solving, the subclasses expose the search
+
+	private static final class DepthSearch extends DepthSearchTactic {
+		DepthSearch(BranchingNode root, Logger logger, int height) {
+			super(root, null, logger);
+			setOption("max_depth", height);
+		}
+
+		BranchingNode find() {
+			return findUnexplored();
+		}
+	}
+
+	private static final class InOrderSearch extends InOrderSearchTactic {
+		InOrderSearch(BranchingNode root, Logger logger, int height) {
+			super(root, null, logger);
+			setOption("max_depth", height);
+		}
+
+		BranchingNode find() {
+			return findUnexplored();
+		}
+	}
+
+	private static final class RandomSearch extends RandomSearchTactic {
+		RandomSearch(BranchingNode root, Logger logger, int height) {
+			super(root, null, logger);
+			setOption("max_depth", height);
+		}
+
+		BranchingNode find() {
+			return findUnexplored();
+		}
+	}
+}
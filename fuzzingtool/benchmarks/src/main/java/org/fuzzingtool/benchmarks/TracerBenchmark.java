@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.benchmarks;
+
+import org.fuzzingtool.core.components.Tracer;
+import org.fuzzingtool.core.symbolic.ExpressionType;
+import org.fuzzingtool.core.symbolic.Operation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the intermediate results of the {@link Tracer}, i.e. the work done
+ * by the instrumentation for every executed node.
+ * <p>
+ * Every invocation simulates a straight-line program of {@value #OPERATIONS} binary
+ * operations, either on concrete values only or on a chain depending on an input variable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracerBenchmark {
+	static final int OPERATIONS = 1024;
+
+	private Tracer tracer;
+
+	@Setup
+	public void setup() {
+		tracer = new Tracer(BenchmarkSupport.nullLogger());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public void addConstant(Blackhole bh) {
+		tracer.clearAll();
+		for (int i = 0; i < OPERATIONS; i++) {
+			tracer.addConstant(i, BenchmarkSupport.JS, ExpressionType.NUMBER_INTEGER, i);
+		}
+		bh.consume(tracer.getIntermediate(OPERATIONS - 1));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public void addOperationConcrete(Blackhole bh) {
+		tracer.clearAll();
+		tracer.addConcrete(0, 0);
+		for (int i = 1; i <= OPERATIONS; i++) {
+			tracer.addConcrete(2 * i - 1, i);
+			tracer.addOperation(2 * i, BenchmarkSupport.JS, Operation.ADDITION, 2 * i - 2, 2 * i - 1, i);
+		}
+		bh.consume(tracer.getIntermediate(2 * OPERATIONS));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public void addOperationSymbolic(Blackhole bh) {
+		tracer.clearAll();
+		tracer.addVariable(0, BenchmarkSupport.JS, BenchmarkSupport.integerVariable("benchmark"));
+		for (int i = 1; i <= OPERATIONS; i++) {
+			tracer.addConstant(2 * i - 1, BenchmarkSupport.JS, ExpressionType.NUMBER_INTEGER, i);
+			tracer.addOperation(2 * i, BenchmarkSupport.JS, Operation.ADDITION, 2 * i - 2, 2 * i - 1, i);
+		}
+		bh.consume(tracer.getIntermediate(2 * OPERATIONS));
+	}
+}
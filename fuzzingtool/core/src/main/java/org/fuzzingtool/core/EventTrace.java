@@ -0,0 +1,219 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records node events into a preallocated ring buffer of fixed-size binary records.
+ * Recording an event does not allocate, the records are only converted to text if they are printed.
+ * The buffer is either kept in memory or mapped to a file, which can be read with {@link EventTraceDecoder}.
+ * Node names are registered once per node and written to a separate text file next to the trace.
+ */
+public class EventTrace {
+	// Header: magic, record size, capacity, iteration of the last record, number of records (long)
+	static final int MAGIC = 0x414d4554;
+	static final int HEADER_SIZE = 24;
+	static final int RECORD_SIZE = 20;
+	private static final int NUM_RECORDS_OFFSET = 16;
+	static final String NODES_FILE_SUFFIX = ".nodes";
+	// A buffer is indexed with int positions
+	public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+	private final ByteBuffer buffer;
+	private final int capacity;
+	private long num_records = 0;
+	private int iteration = 0;
+	private final Map<Integer, String> node_names = new HashMap<>();
+	private Writer node_writer = null;
+
+	/**
+	 * Creates an in-memory trace.
+	 *
+	 * @param capacity Maximum number of records, older records are overwritten
+	 */
+	public EventTrace(int capacity) {
+		this(ByteBuffer.allocateDirect(bufferSize(capacity)), capacity);
+	}
+
+	private EventTrace(ByteBuffer buffer, int capacity) {
+		this.buffer = buffer;
+		this.capacity = capacity;
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, RECORD_SIZE);
+		buffer.putInt(8, capacity);
+		buffer.putInt(12, 0);
+		buffer.putLong(NUM_RECORDS_OFFSET, 0);
+	}
+
+	/**
+	 * Creates a trace that is mapped to a file, so the records survive a crash of the process.
+	 *
+	 * @param path     Path of the trace file, node names are written to the same path with suffix ".nodes"
+	 * @param capacity Maximum number of records, older records are overwritten
+	 * @return The new trace
+	 * @throws IOException If the file cannot be created
+	 */
+	public static EventTrace mapFile(Path path, int capacity) throws IOException {
+		int size = bufferSize(capacity);
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		EventTrace trace = new EventTrace(mapped, capacity);
+		trace.node_writer = new FileWriter(Paths.get(path.toString() + NODES_FILE_SUFFIX).toFile());
+		return trace;
+	}
+
+	/**
+	 * Computes the size of the buffer in bytes.
+	 *
+	 * @param capacity Maximum number of records
+	 * @return The size of the header and all records
+	 * @throws IllegalArgumentException If the capacity is not positive or the buffer would exceed Integer.MAX_VALUE bytes
+	 */
+	static int bufferSize(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Event trace capacity must be positive, but is " + capacity);
+		}
+		long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Event trace capacity " + capacity + " needs " + size +
+					" bytes, but a buffer holds at most " + MAX_CAPACITY + " records");
+		}
+		return (int) size;
+	}
+
+	public void setIteration(int iteration) {
+		this.iteration = iteration;
+		buffer.putInt(12, iteration);
+	}
+
+	/**
+	 * Saves a readable name of a node, should be called once per node.
+	 *
+	 * @param node_slot The slot of the node
+	 * @param name      The name of the node, e.g. type and source code
+	 */
+	public void registerNode(int node_slot, String name) {
+		if (node_names.put(node_slot, name) == null && node_writer != null) {
+			try {
+				node_writer.write(node_slot + "\t" + name + "\n");
+				node_writer.flush();
+			} catch (IOException ioe) {
+				node_writer = null;
+			}
+		}
+	}
+
+	/**
+	 * Adds a record to the ring buffer.
+	 *
+	 * @param node_slot The slot of the node
+	 * @param kind      The kind of the event
+	 */
+	public void record(int node_slot, EventKind kind) {
+		int position = HEADER_SIZE + (int) (num_records % capacity) * RECORD_SIZE;
+		buffer.putLong(position, System.nanoTime());
+		buffer.putInt(position + 8, node_slot);
+		buffer.putInt(position + 12, iteration);
+		buffer.putInt(position + 16, kind.ordinal());
+		num_records++;
+		buffer.putLong(NUM_RECORDS_OFFSET, num_records);
+	}
+
+	public long getNumRecords() {
+		return this.num_records;
+	}
+
+	/**
+	 * Decodes the most recent records.
+	 *
+	 * @param max_events Maximum number of records
+	 * @return Readable representations of the records, oldest first
+	 */
+	public List<String> lastEvents(int max_events) {
+		return decode(buffer, node_names, max_events);
+	}
+
+	/**
+	 * Writes the mapped buffer to the disk.
+	 */
+	public void close() {
+		if (buffer instanceof MappedByteBuffer) {
+			((MappedByteBuffer) buffer).force();
+		}
+		if (node_writer != null) {
+			try {
+				node_writer.close();
+			} catch (IOException ignored) {
+			}
+			node_writer = null;
+		}
+	}
+
+	static List<String> decode(ByteBuffer buffer, Map<Integer, String> node_names, int max_events) {
+		int buffer_capacity = buffer.getInt(8);
+		long buffer_records = buffer.getLong(NUM_RECORDS_OFFSET);
+		long first = Math.max(0, buffer_records - Math.min(max_events, buffer_capacity));
+		List<String> events = new ArrayList<>();
+		EventKind[] kinds = EventKind.values();
+		for (long i = first; i < buffer_records; i++) {
+			int position = HEADER_SIZE + (int) (i % buffer_capacity) * RECORD_SIZE;
+			long timestamp = buffer.getLong(position);
+			int node_slot = buffer.getInt(position + 8);
+			int record_iteration = buffer.getInt(position + 12);
+			int kind = buffer.getInt(position + 16);
+			String name = node_names.getOrDefault(node_slot, "[slot " + node_slot + "]");
+			String symbol = kind >= 0 && kind < kinds.length ? kinds[kind].getSymbol() : "?";
+			events.add(record_iteration + " " + timestamp + " " + name + " " + symbol);
+		}
+		return events;
+	}
+
+	public enum EventKind {
+		ENTER("\033[32m→\033[0m"),
+		INPUT_VALUE("\033[34m•\033[0m"),
+		RETURN_VALUE("\033[31m↵\033[0m"),
+		RETURN_EXCEPTIONAL("\033[33m↯\033[0m"),
+		UNWIND("\033[35m↺\033[0m"),
+		DISPOSE("\033[36m×\033[0m");
+
+		private final String symbol;
+
+		EventKind(String symbol) {
+			this.symbol = symbol;
+		}
+
+		public String getSymbol() {
+			return this.symbol;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints an event trace file written by {@link EventTrace} in a readable form.
+ * Usage: EventTraceDecoder &lt;trace file&gt; [max events]
+ */
+public class EventTraceDecoder {
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.out.println("ERROR: Wrong number of options");
+			return;
+		}
+		int max_events = args.length == 2 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+		try {
+			for (String event: decodeFile(Paths.get(args[0]), max_events)) {
+				System.out.println(event);
+			}
+		} catch (IOException | IllegalArgumentException ex) {
+			System.out.println("ERROR: Cannot decode event trace. Reason: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Reads an event trace file and the corresponding node names.
+	 *
+	 * @param path       Path of the trace file
+	 * @param max_events Maximum number of records, the most recent records are returned
+	 * @return Readable representations of the records, oldest first
+	 * @throws IOException If the file cannot be read
+	 */
+	public static List<String> decodeFile(Path path, int max_events) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < EventTrace.HEADER_SIZE || buffer.getInt(0) != EventTrace.MAGIC) {
+			throw new IllegalArgumentException("'" + path + "' is not an event trace");
+		}
+		if (buffer.getInt(4) != EventTrace.RECORD_SIZE) {
+			throw new IllegalArgumentException("Unsupported record size " + buffer.getInt(4));
+		}
+
+		Map<Integer, String> node_names = new HashMap<>();
+		Path nodes_path = Paths.get(path.toString() + EventTrace.NODES_FILE_SUFFIX);
+		if (Files.exists(nodes_path)) {
+			for (String line: Files.readAllLines(nodes_path)) {
+				int separator = line.indexOf('\t');
+				if (separator > 0) {
+					node_names.put(Integer.parseInt(line.substring(0, separator)), line.substring(separator + 1));
+				}
+			}
+		}
+		return EventTrace.decode(buffer, node_names, max_events);
+	}
+}
@@ -16,21 +16,36 @@
 
 package org.fuzzingtool.core;
 
-import org.apache.commons.collections4.queue.CircularFifoQueue;
-
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 
 public class Logger {
-	final PrintStream out_stream;
-	final Queue<String> aggregate_queue = new CircularFifoQueue<>(8);
+	private final PrintStream out_stream;
+	// Optional machine-readable output, one JSON object per line
+	private PrintStream json_stream = null;
+	// Most recent node events, printed before every critical message
+	private EventTrace event_trace = null;
+	private static final int EVENT_CONTEXT = 8;
+
+	// Messages below this level are dropped, use isEnabled() to avoid building them
+	private volatile Level level = Level.DEBUG;
+
+	// Asynchronous writer, null if messages are written by the calling thread
+	private volatile BlockingQueue<LogRecord> pending_records = null;
+	private Thread writer_thread = null;
+	private static final int QUEUE_CAPACITY = 65536;
+	private static final int MAX_BATCH_SIZE = 1024;
 
 	// logging statistics
 	private static final boolean SHOW_DEBUGGING_STATS = true;
-	private static final boolean AGGREGATE_EVENTS = true;
 	private int num_log = 0;
-	private int num_event = 0;
 	private int num_debug = 0;
 	private int num_info = 0;
 	private int num_warning = 0;
@@ -47,73 +62,298 @@ public class Logger {
 		this.out_stream = new PrintStream(os);
 	}
 
-	public void log(String msg) {
-		out_stream.println(msg);
-		num_log++;
+	public void setLevel(Level new_level) {
+		this.level = new_level;
+	}
+
+	public boolean isEnabled(Level message_level) {
+		return message_level.ordinal() >= level.ordinal();
+	}
+
+	public boolean isDebugEnabled() {
+		return isEnabled(Level.DEBUG);
+	}
+
+	public boolean isInfoEnabled() {
+		return isEnabled(Level.INFO);
+	}
+
+	public boolean isWarningEnabled() {
+		return isEnabled(Level.WARNING);
+	}
+
+	public boolean isCriticalEnabled() {
+		return isEnabled(Level.CRITICAL);
+	}
+
+	/**
+	 * Writes every message additionally as JSON object to the given stream.
+	 *
+	 * @param os The output stream, or null to disable JSON output
+	 */
+	public void setJsonSink(OutputStream os) {
+		flush();
+		synchronized (this) {
+			if (this.json_stream != null) {
+				this.json_stream.close();
+			}
+			this.json_stream = os != null ? new PrintStream(os) : null;
+		}
+	}
+
+	/**
+	 * Starts a background thread which writes the messages in batches.
+	 * The calling thread only enqueues the messages, {@link #flush()} waits until all of them are written.
+	 */
+	public synchronized void enableAsync() {
+		if (writer_thread != null) {
+			return;
+		}
+		this.pending_records = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		this.writer_thread = new Thread(this::writeLoop, "fuzzingtool-logger");
+		this.writer_thread.setDaemon(true);
+		this.writer_thread.start();
 	}
 
-	public void event(String msg) {
-		if (AGGREGATE_EVENTS) {
-			aggregate_queue.offer(msg);
+	/**
+	 * Waits until all enqueued messages are written.
+	 */
+	public void flush() {
+		BlockingQueue<LogRecord> queue = this.pending_records;
+		if (queue != null) {
+			CountDownLatch latch = new CountDownLatch(1);
+			// Whichever thread writes the marker counts the latch down
+			enqueue(queue, new LogRecord(latch));
+			try {
+				latch.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
 		} else {
-			out_stream.println(msg);
+			out_stream.flush();
+			if (json_stream != null) {
+				json_stream.flush();
+			}
 		}
-		num_event++;
+	}
+
+	/**
+	 * Stops the background thread and writes all pending messages. Messages enqueued
+	 * concurrently are written by their calling thread (see {@link #enqueue(BlockingQueue, LogRecord)}).
+	 */
+	public void close() {
+		BlockingQueue<LogRecord> queue;
+		Thread thread;
+		synchronized (this) {
+			queue = this.pending_records;
+			thread = this.writer_thread;
+			this.pending_records = null;
+			this.writer_thread = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			writeQueued(queue);
+		}
+		synchronized (this) {
+			out_stream.flush();
+			if (json_stream != null) {
+				json_stream.close();
+				json_stream = null;
+			}
+		}
+	}
+
+	public void log(String msg) {
+		emit("LOG", "", msg, "");
+		num_log++;
+	}
+
+	public void setEventTrace(EventTrace trace) {
+		this.event_trace = trace;
 	}
 
 	public void debug(String msg) {
-		out_stream.println("\033[35m[DEBUG]\033[0m " + msg);
-		num_debug++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[35m[DEBUG]\033[0m ", msg, "");
+			num_debug++;
+		}
 	}
 
 	public void info(String msg) {
-		out_stream.println("\033[34m[INFO]\033[0m " + msg);
-		num_info++;
+		if (isEnabled(Level.INFO)) {
+			emit("INFO", "\033[34m[INFO]\033[0m ", msg, "");
+			num_info++;
+		}
 	}
 
 	public void warning(String msg) {
-		out_stream.println("\033[33m[WARNING]\033[0m " + msg);
-		num_warning++;
+		if (isEnabled(Level.WARNING)) {
+			emit("WARNING", "\033[33m[WARNING]\033[0m ", msg, "");
+			num_warning++;
+		}
 	}
 
 	public void critical(String msg) {
-		if (AGGREGATE_EVENTS) {
-			for (String message: aggregate_queue) {
-				out_stream.println(message);
+		if (isEnabled(Level.CRITICAL)) {
+			if (event_trace != null) {
+				for (String message: event_trace.lastEvents(EVENT_CONTEXT)) {
+					emit("EVENT", "", message, "");
+				}
 			}
+			emit("CRITICAL", "\033[31m[CRITICAL]\033[0m ", msg, "");
+			num_critical++;
 		}
-		out_stream.println("\033[31m[CRITICAL]\033[0m " + msg);
-		num_critical++;
 	}
 
 	public void alert(String msg) {
-		out_stream.println("\033[41m" + msg + "\033[0m");
-		num_alert++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[41m", msg, "\033[0m");
+			num_alert++;
+		}
 	}
 
 	public void mesmerize(String msg) {
-		out_stream.println("\033[42m" + msg + "\033[0m");
-		num_mesmerize++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[42m", msg, "\033[0m");
+			num_mesmerize++;
+		}
 	}
 
 	public void shock(String msg) {
-		out_stream.println("\033[43m" + msg + "\033[0m");
-		num_shock++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[43m", msg, "\033[0m");
+			num_shock++;
+		}
 	}
 
 	public void highlight(String msg) {
-		out_stream.println("\033[44m" + msg + "\033[0m");
-		num_highlight++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[44m", msg, "\033[0m");
+			num_highlight++;
+		}
 	}
 
 	public void hypnotize(String msg) {
-		out_stream.println("\033[45m" + msg + "\033[0m");
-		num_hypnotize++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[45m", msg, "\033[0m");
+			num_hypnotize++;
+		}
 	}
 
 	public void fascinate(String msg) {
-		out_stream.println("\033[46m" + msg + "\033[0m");
-		num_fascinate++;
+		if (isEnabled(Level.DEBUG)) {
+			emit("DEBUG", "\033[46m", msg, "\033[0m");
+			num_fascinate++;
+		}
+	}
+
+	private void emit(String level_name, String prefix, String msg, String suffix) {
+		LogRecord record = new LogRecord(level_name, prefix, msg, suffix);
+		BlockingQueue<LogRecord> queue = this.pending_records;
+		if (queue == null) {
+			synchronized (this) {
+				write(record);
+			}
+		} else {
+			enqueue(queue, record);
+		}
+	}
+
+	/**
+	 * Enqueues a record for the background thread. If the queue is full, or if it was swapped out by
+	 * {@link #close()} in the meantime, the calling thread writes the queued records itself.
+	 */
+	private void enqueue(BlockingQueue<LogRecord> queue, LogRecord record) {
+		if (!queue.offer(record)) {
+			writeQueued(queue);
+			writeBatch(Collections.singletonList(record));
+		} else if (this.pending_records != queue) {
+			writeQueued(queue);
+		}
+	}
+
+	private void writeQueued(BlockingQueue<LogRecord> queue) {
+		List<LogRecord> batch = new ArrayList<>();
+		queue.drainTo(batch);
+		writeBatch(batch);
+	}
+
+	private void writeLoop() {
+		List<LogRecord> batch = new ArrayList<>();
+		BlockingQueue<LogRecord> queue = this.pending_records;
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException ie) {
+				return;
+			}
+			queue.drainTo(batch, MAX_BATCH_SIZE);
+			writeBatch(batch);
+			batch.clear();
+		}
+	}
+
+	private void writeBatch(List<LogRecord> batch) {
+		synchronized (this) {
+			for (LogRecord record: batch) {
+				if (record.latch == null) {
+					write(record);
+				}
+			}
+			out_stream.flush();
+			if (json_stream != null) {
+				json_stream.flush();
+			}
+		}
+		for (LogRecord record: batch) {
+			if (record.latch != null) {
+				record.latch.countDown();
+			}
+		}
+	}
+
+	private void write(LogRecord record) {
+		out_stream.println(record.prefix + record.message + record.suffix);
+		if (json_stream != null) {
+			json_stream.println("{\"time\":" + record.timestamp + ",\"level\":\"" + record.level_name +
+										"\",\"message\":\"" + escapeJson(record.message) + "\"}");
+		}
+	}
+
+	public static String escapeJson(String str) {
+		StringBuilder builder = new StringBuilder(str.length() + 16);
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			switch (c) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						builder.append(String.format(Locale.US, "\\u%04x", (int) c));
+					} else {
+						builder.append(c);
+					}
+			}
+		}
+		return builder.toString();
 	}
 
 	public static String capBack(String str, int max_size) {
@@ -131,21 +371,63 @@ public class Logger {
 	}
 
 	public void printStatistics() {
-		out_stream.println("===MESSAGE STATISTICS===");
-		out_stream.println("LOG: " + num_log);
-		out_stream.println("EVENT: " + num_event);
-		out_stream.println("DEBUG: " + num_debug);
-		out_stream.println("INFO: " + num_info);
-		out_stream.println("WARNING: " + num_warning);
-		out_stream.println("CRITICAL: " + num_critical);
+		print("===MESSAGE STATISTICS===");
+		print("LOG: " + num_log);
+		if (event_trace != null) {
+			print("EVENT: " + event_trace.getNumRecords());
+		}
+		print("DEBUG: " + num_debug);
+		print("INFO: " + num_info);
+		print("WARNING: " + num_warning);
+		print("CRITICAL: " + num_critical);
 		if (SHOW_DEBUGGING_STATS) {
-			out_stream.println("ALERT: " + num_alert);
-			out_stream.println("MESMERIZE: " + num_mesmerize);
-			out_stream.println("SHOCK: " + num_shock);
-			out_stream.println("HIGHLIGHT: " + num_highlight);
-			out_stream.println("HYPNOTIZE: " + num_hypnotize);
-			out_stream.println("FASCINATE: " + num_fascinate);
-		}
-		out_stream.println("");
+			print("ALERT: " + num_alert);
+			print("MESMERIZE: " + num_mesmerize);
+			print("SHOCK: " + num_shock);
+			print("HIGHLIGHT: " + num_highlight);
+			print("HYPNOTIZE: " + num_hypnotize);
+			print("FASCINATE: " + num_fascinate);
+		}
+		print("");
+	}
+
+	private void print(String msg) {
+		emit("LOG", "", msg, "");
+	}
+
+	public enum Level {
+		DEBUG,
+		INFO,
+		WARNING,
+		CRITICAL,
+		OFF
+	}
+
+	private static final class LogRecord {
+		final long timestamp;
+		final String level_name;
+		final String prefix;
+		final String message;
+		final String suffix;
+		// Marker for flush(), counted down when all earlier records are written
+		final CountDownLatch latch;
+
+		LogRecord(String level_name, String prefix, String message, String suffix) {
+			this.timestamp = System.currentTimeMillis();
+			this.level_name = level_name;
+			this.prefix = prefix;
+			this.message = message;
+			this.suffix = suffix;
+			this.latch = null;
+		}
+
+		LogRecord(CountDownLatch latch) {
+			this.timestamp = System.currentTimeMillis();
+			this.level_name = null;
+			this.prefix = null;
+			this.message = null;
+			this.suffix = null;
+			this.latch = latch;
+		}
 	}
 }
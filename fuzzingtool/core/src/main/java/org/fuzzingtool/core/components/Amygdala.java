@@ -18,65 +18,121 @@ package org.fuzzingtool.core.components;
 
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Version;
+import com.oracle.truffle.api.nodes.Node;
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
+import org.fuzzingtool.core.EventTrace;
 import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.symbolic.ExpressionType;
 import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.SymbolicNodeSerializer;
 import org.fuzzingtool.core.tactics.DepthSearchTactic;
 import org.fuzzingtool.core.tactics.FuzzingTactic;
 import org.fuzzingtool.core.tactics.InOrderSearchTactic;
 import org.fuzzingtool.core.tactics.RandomSearchTactic;
+import org.fuzzingtool.core.visualization.ASTRenderQueue;
+import org.fuzzingtool.core.visualization.BranchingRenderer;
 import org.fuzzingtool.core.visualization.BranchingVisualizer;
 import org.graalvm.collections.Pair;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Central class for managing execution flow events and fuzzing attempts
  * The class is designed as a state-machine. Methods
- * like {@link #branchingEvent(Integer, BranchingNodeAttribute, Integer, Boolean, String)} modify said machine.
+ * like {@link #branchingEvent(Integer, BranchingNodeAttribute, int, Boolean, String)} modify said machine.
  */
 public class Amygdala {
 	public final Logger logger;
 	public final Tracer tracer;
 	public final Coverage coverage;
 	public final CustomError custom_error;
+	public final InstrumentationProfiler profiler;
+	public final Metrics metrics;
 	public TimeProbe probe;
 	private FuzzingTactic tactic;
 	private final BranchingNode branching_root_node;
 	private BranchingNode current_branch;
 	private final Context z3_ctx;
 	private Queue<Pair<Integer, Boolean>> next_program_path = new LinkedList<>();
+	// Sample values (first) and the most recent assignments, the last one is the input of the current iteration
 	private final List<Map<VariableIdentifier, Object>> variable_values;
-	private final List<Pair<Boolean, String>> iteration_information;
-	private final List<Long> runtime_nanos;
-	private final List<Pair<Integer, Integer>> execution_graph_statistics;
-	private final List<Map<BranchingNodeAttribute, Integer>> execution_graph_component_statistics;
+	// Outcome of the last iteration, written to the results by snapshot()
+	private boolean last_iteration_successful = true;
+	private String last_iteration_error = "";
+	private long last_runtime_nanos = 0;
+	private ResultWriter result_writer = null;
+	// Length of result.yaml at the checkpoint a campaign was resumed from
+	private long results_offset = -1;
 	private final BidiMap<VariableIdentifier, Integer> variable_lines;
 	private final Map<VariableIdentifier, String> variable_names;
 	private Boolean fuzzing_finished = false;
 	private int fuzzing_iterations = 0;
 	private int max_iterations = 1024;
 	private boolean function_visualization = false;
+	private boolean function_visualization_deferred = false;
+	private ASTRenderQueue ast_render_queue = null;
 	private boolean branching_visualization = false;
+	private BranchingRenderer branching_renderer = null;
 	private boolean event_logging = true;
+	private int event_trace_capacity = 65536;
+	private String event_trace_file = null;
+	private EventTrace event_trace = null;
 	private String program_path = "";
 	private String results_path = "";
 	private double min_coverage_root = 100.0;
 	private double min_coverage_statement = 100.0;
 	private double min_coverage_branch = 100.0;
-	private boolean timeout_reached = false;
+	private volatile boolean timeout_reached = false;
 	private long timeout_millis = 10000;
 
+	// Hybrid mode: mutated inputs are executed without symbolic tracing,
+	// only inputs reaching new coverage are queued for a concolic execution
+	public final CoverageTrace coverage_trace;
+	private final CoverageTrace hybrid_pending;
+	// Inputs found by mutation with their coverage traces, hybrid_pending is the union of the traces
+	private final Queue<Pair<Map<VariableIdentifier, Object>, CoverageTrace>> hybrid_inputs = new LinkedList<>();
+	private Map<VariableIdentifier, Object> current_mutant = new HashMap<>();
+	private Mutator mutator = null;
+	private boolean hybrid_mode = false;
+	private int hybrid_mutations = 64;
+	private int hybrid_executions = 0;
+	private int hybrid_novel_inputs = 0;
+
+	// Off-heap execution graph: closed subtrees are moved to a memory-mapped file if the heap holds too many nodes
+	private BranchingNodeStore tree_store = null;
+	private long max_heap_nodes = 1000000;
+
+	// Corpus: inputs of earlier runs are replayed without solving before the exploration continues
+	private Corpus corpus = null;
+	private boolean corpus_save = true;
+	private final Queue<Map<VariableIdentifier, Object>> corpus_inputs = new LinkedList<>();
+	private int corpus_replayed = 0;
+
+	// Selective instrumentation: only functions reached by symbolic values are traced
+	private boolean selective_instrumentation = false;
+
 	// Experimental
 	// This option advises JSReadCurrent/ScopeFrameSlotNodeGen to fill in values if they are not found.
 	public static final boolean EXPERIMENTAL_FRAMESLOT_FILL_IN_NONEXISTENT = false;
@@ -86,21 +142,31 @@ public class Amygdala {
 	// This option measures size and depth of the execution graph after every iteration
 	public static final boolean EXECUTION_GRAPH_STATISTICS = true;
 
-	// Debugging Bits: is node executed, onEnter (E), onInputValue (I), OnReturn (R), onReturnExceptional (X), onUnwind (U), onDispose (D)
-	public final HashMap<String, BitSet> node_type_instrumented = new HashMap<>();
+	// Checkpoints: the exploration state is written every checkpoint_interval iterations
+	private static final int CHECKPOINT_MAGIC = 0x414d4744;
+	private static final int CHECKPOINT_VERSION = 4;
+	// Number of assignments kept in variable_values, they are the seeds of the mutator
+	private static final int MAX_VARIABLE_VALUES = 64;
+	private int checkpoint_interval = 0;
+	private String checkpoint_file = "checkpoint.bin";
+	private boolean resume = false;
+	private boolean resumed = false;
+
+	// Sort order of the instrumentation statistics
+	private InstrumentationProfiler.SortKey profile_sort = InstrumentationProfiler.SortKey.TIME;
 
 	public Amygdala(Logger lgr) {
 		this.tracer = new Tracer(lgr);
 		this.coverage = new Coverage(lgr);
 		this.custom_error = new CustomError(lgr);
+		this.profiler = new InstrumentationProfiler(this.tracer);
+		this.metrics = new Metrics();
 		this.logger = lgr;
 		this.variable_values = new ArrayList<>();
 		this.variable_names = new HashMap<>();
 		this.variable_lines = new DualHashBidiMap<>();
-		this.runtime_nanos = new ArrayList<>();
-		this.execution_graph_statistics = new ArrayList<>();
-		this.execution_graph_component_statistics = new ArrayList<>();
-		this.iteration_information = new ArrayList<>();
+		this.coverage_trace = new CoverageTrace();
+		this.hybrid_pending = new CoverageTrace();
 
 		com.microsoft.z3.Global.ToggleWarningMessages(true);
 		com.microsoft.z3.Global.setParameter("smt.string_solver", "z3str3");
@@ -127,7 +193,7 @@ public class Amygdala {
 	 * @param taken                 Result of the evaluated expression
 	 * @param vis_predicate_string  String representation of the expression for visualization
 	 */
-	public void branchingEvent(Integer branching_node_hash, BranchingNodeAttribute bt, Integer predicate_interim_key,
+	public void branchingEvent(Integer branching_node_hash, BranchingNodeAttribute bt, int predicate_interim_key,
 							   Boolean taken, String vis_predicate_string) {
 		if (next_program_path.peek() != null) {
 			Pair<Integer, Boolean> expected_behavior = next_program_path.poll();
@@ -154,9 +220,14 @@ public class Amygdala {
 		logger.info("Program terminated without error");
 		current_branch.setBranchingNodeAttribute(BranchingNodeAttribute.TERMINATE);
 		current_branch = branching_root_node;
-		iteration_information.add(Pair.create(true, ""));
-		runtime_nanos.add(runtime);
+		last_iteration_successful = true;
+		last_iteration_error = "";
+		last_runtime_nanos = runtime;
+		metrics.iterationFinished(true);
 		fuzzing_iterations += 1;
+		if (event_trace != null) {
+			event_trace.setIteration(fuzzing_iterations);
+		}
 	}
 
 	/**
@@ -167,9 +238,23 @@ public class Amygdala {
 		logger.info("Program fault detected: " + reason);
 		current_branch.setBranchingNodeAttribute(BranchingNodeAttribute.ERROR);
 		current_branch = branching_root_node;
-		iteration_information.add(Pair.create(false, reason));
-		runtime_nanos.add(runtime);
+		last_iteration_successful = false;
+		last_iteration_error = reason;
+		last_runtime_nanos = runtime;
+		metrics.iterationFinished(false);
 		this.fuzzing_iterations += 1;
+		if (event_trace != null) {
+			event_trace.setIteration(fuzzing_iterations);
+		}
+	}
+
+	/**
+	 * Returns the input assignment of the last completed iteration.
+	 *
+	 * @return Values of all input variables
+	 */
+	public Map<VariableIdentifier, Object> getLastInput() {
+		return variable_values.get(variable_values.size() - 1);
 	}
 
 	/**
@@ -181,10 +266,6 @@ public class Amygdala {
 		return this.fuzzing_iterations;
 	}
 
-	public List<Long> getRuntimes() {
-		return this.runtime_nanos;
-	}
-
 	public List<Map<VariableIdentifier, Object>> getVariableValues() {
 		return this.variable_values;
 	}
@@ -199,6 +280,7 @@ public class Amygdala {
 
 	public void setTimeProbe(TimeProbe tp) {
 		this.probe = tp;
+		this.metrics.setTimeProbe(tp);
 	}
 
 	public void setTimeoutReached(boolean value) {
@@ -223,12 +305,26 @@ public class Amygdala {
 		if (fuzzing_iterations < max_iterations) {
 			if (!coverage.coverageReached(this.min_coverage_root, this.min_coverage_statement, this.min_coverage_branch)) {
 				if (!LOCK_VALUES) {
+					if (!corpus_inputs.isEmpty()) {
+						logger.info("Replaying input from corpus (" + corpus_inputs.size() + " queued)");
+						addVariableValues(corpus_inputs.poll());
+						next_program_path = new LinkedList<>();
+						corpus_replayed += 1;
+						return true;
+					}
+					if (!hybrid_inputs.isEmpty()) {
+						logger.info("Using input found by mutation (" + hybrid_inputs.size() + " queued)");
+						addVariableValues(hybrid_inputs.poll().getLeft());
+						rebuildHybridPending();
+						next_program_path = new LinkedList<>();
+						return true;
+					}
 					probe.switchState(TimeProbe.ProgramState.TACTIC);
 					logger.info("Finding next path...");
 					boolean res = this.tactic.calculate();
 					probe.switchState(TimeProbe.ProgramState.MANAGE);
 					if (res) {
-						variable_values.add(this.tactic.getNextValues());
+						addVariableValues(this.tactic.getNextValues());
 						next_program_path = this.tactic.getNextPath();
 						return true;
 					} else {
@@ -248,6 +344,19 @@ public class Amygdala {
 		}
 	}
 
+	/**
+	 * Appends the assignment of the next iteration. The sample values are kept, of the
+	 * other assignments only the most recent ones.
+	 *
+	 * @param values Values of the input variables
+	 */
+	private void addVariableValues(Map<VariableIdentifier, Object> values) {
+		variable_values.add(values);
+		if (variable_values.size() > MAX_VARIABLE_VALUES) {
+			variable_values.remove(1);
+		}
+	}
+
 	/**
 	 * The method returns the next fuzzing-input value for a given identifier.
 	 *
@@ -257,38 +366,110 @@ public class Amygdala {
 	public Object getNextInputValue(VariableIdentifier var_id) {
 		if (variable_values.get(variable_values.size() - 1).containsKey(var_id)) {
 			Object next_input = variable_values.get(variable_values.size() - 1).get(var_id);
-			if (var_id.getVariableType() == ExpressionType.STRING) {
-				logger.info("Next input value for variable '" + variable_names.get(var_id) + "': '" + next_input + "' [STRING]");
-			} else {
-				logger.info("Next input value for variable '" + variable_names.get(var_id) + "': " + next_input + " [" + var_id.getVariableType().name() + "]");
+			if (logger.isInfoEnabled()) {
+				if (var_id.getVariableType() == ExpressionType.STRING) {
+					logger.info("Next input value for variable '" + variable_names.get(var_id) + "': '" + next_input + "' [STRING]");
+				} else {
+					logger.info("Next input value for variable '" + variable_names.get(var_id) + "': " + next_input + " [" + var_id.getVariableType().name() + "]");
+				}
 			}
 			return next_input;
 		} else {
 			logger.info("No new value for variable: '" + variable_names.get(var_id) + "'");
-			switch (var_id.getVariableType()) {
-				case BOOLEAN:
-					return true;
-				case STRING:
-					return "abc";
-				case BIGINT:
-				case NUMBER_INTEGER:
-					return 1;
-				case NUMBER_REAL:
-					return 1.5;
-				default:
-					logger.critical("Variable '" + variable_names.get(var_id) + "' has not allowed type '" +
-											var_id.getVariableType().toString() + "'");
-					return null;
-			}
+			return getDefaultInputValue(var_id);
+		}
+	}
+
+	private Object getDefaultInputValue(VariableIdentifier var_id) {
+		switch (var_id.getVariableType()) {
+			case BOOLEAN:
+				return true;
+			case STRING:
+				return "abc";
+			case BIGINT:
+			case NUMBER_INTEGER:
+				return 1;
+			case NUMBER_REAL:
+				return 1.5;
+			default:
+				logger.critical("Variable '" + variable_names.get(var_id) + "' has not allowed type '" +
+										var_id.getVariableType().toString() + "'");
+				return null;
+		}
+	}
+
+	/**
+	 * Derives a new input assignment for a coverage-only execution (hybrid mode).
+	 * Seeds are the sample values and all assignments computed by the solver.
+	 * The coverage trace is reset.
+	 *
+	 * @return The new assignment
+	 */
+	public Map<VariableIdentifier, Object> nextMutant() {
+		Map<VariableIdentifier, Object> seed = new HashMap<>(variable_values.get(0));
+		seed.putAll(variable_values.get(mutator.nextIndex(variable_values.size())));
+		if (variable_values.size() > 1 && mutator.nextIndex(8) == 0) {
+			seed = mutator.splice(seed, variable_values.get(mutator.nextIndex(variable_values.size())));
+		}
+		this.current_mutant = mutator.mutate(seed);
+		this.coverage_trace.clear();
+		this.hybrid_executions += 1;
+		return this.current_mutant;
+	}
+
+	/**
+	 * Returns the input value of the current mutant, used by the coverage-only instrumentation.
+	 * In contrast to {@link #getNextInputValue(VariableIdentifier)} nothing is logged.
+	 *
+	 * @param var_id The variable identifier
+	 * @return An object which contains the input value
+	 */
+	public Object getMutantInputValue(VariableIdentifier var_id) {
+		Object value = current_mutant.get(var_id);
+		if (value != null) {
+			return value;
+		}
+		return getDefaultInputValue(var_id);
+	}
+
+	/**
+	 * Queues the current mutant for a concolic execution if its coverage trace reached something new.
+	 *
+	 * @return true, if the mutant was queued
+	 */
+	public boolean submitMutant() {
+		if (coverage_trace.isNovel(coverage, hybrid_pending)) {
+			coverage_trace.mergeInto(hybrid_pending);
+			hybrid_inputs.add(Pair.create(current_mutant, coverage_trace.copy()));
+			hybrid_novel_inputs += 1;
+			logger.info("Mutation found new coverage, input queued for concolic execution");
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Recomputes the pending coverage from the queued inputs, the coverage of a consumed input is
+	 * only counted once its concolic execution actually reaches it.
+	 */
+	private void rebuildHybridPending() {
+		hybrid_pending.clear();
+		for (Pair<Map<VariableIdentifier, Object>, CoverageTrace> input: hybrid_inputs) {
+			input.getRight().mergeInto(hybrid_pending);
 		}
 	}
 
 	/**
 	 * Visualize and save the complete program-flow tree to a file.
+	 * If the background renderer is running, the call waits until the image is rendered.
 	 *
 	 * @param name Name of the .svg file, saved into results directory
 	 */
 	public void visualizeProgramFlow(String name) {
+		if (branching_renderer != null) {
+			branching_renderer.submitAndWait(branching_root_node, name);
+			return;
+		}
 		String save_name = Paths.get(this.results_path, "trace_tree", name).toString();
 		File save_path = new File(save_name);
 		if (!save_path.exists()) {
@@ -297,6 +478,20 @@ public class Amygdala {
 		}
 	}
 
+	/**
+	 * Queues the visualization of a function AST. Only a snapshot of the AST is taken here, the image
+	 * is rendered on a background thread or, if the option "function_visualization_deferred" is set, after the campaign.
+	 *
+	 * @param root_node Root of the function AST
+	 * @param name      Name of the .svg file, saved into the "ast" directory of the results
+	 */
+	public void visualizeFunction(Node root_node, String name) {
+		if (ast_render_queue == null) {
+			ast_render_queue = new ASTRenderQueue(Paths.get(this.results_path, "ast"), this.function_visualization_deferred, logger);
+		}
+		ast_render_queue.submit(root_node, name);
+	}
+
 	/**
 	 * Load fuzzing options from YAML file.
 	 *
@@ -329,6 +524,10 @@ public class Amygdala {
 		this.results_path = Paths.get(this.results_path).normalize().toString();
 		logger.info("Results are written to '" + this.results_path + "'");
 
+		if (map.containsKey("logging") && map.get("logging") instanceof Map) {
+			loadLoggingParameters((Map<String, Object>) map.get("logging"));
+		}
+
 		if (map.containsKey("variables") && map.get("variables") instanceof List) {
 			loadVariables((List<Map<String, Object>>) map.get("variables"));
 		} else {
@@ -352,6 +551,27 @@ public class Amygdala {
 		} else {
 			logger.info("No custom error configuration found");
 		}
+
+		initializeEventTrace();
+
+		if (map.containsKey("execution_tree") && map.get("execution_tree") instanceof Map) {
+			loadExecutionTreeParameters((Map<String, Object>) map.get("execution_tree"));
+		}
+
+		if (map.containsKey("checkpoint") && map.get("checkpoint") instanceof Map) {
+			loadCheckpointParameters((Map<String, Object>) map.get("checkpoint"));
+		}
+		if (this.resume) {
+			loadCheckpoint();
+		}
+
+		if (map.containsKey("metrics") && map.get("metrics") instanceof Map) {
+			loadMetricsParameters((Map<String, Object>) map.get("metrics"));
+		}
+
+		if (map.containsKey("corpus") && map.get("corpus") instanceof Map) {
+			loadCorpusParameters((Map<String, Object>) map.get("corpus"), config_file_path_abs);
+		}
 	}
 
 	/**
@@ -452,6 +672,22 @@ public class Amygdala {
 				this.tactic = new InOrderSearchTactic(this.branching_root_node, this.z3_ctx, this.logger);
 		}
 		this.tactic.setTimeProbe(this.probe);
+		this.tactic.setMetrics(this.metrics);
+
+		this.hybrid_mode = (boolean) parameters.getOrDefault("hybrid_mode", this.hybrid_mode);
+		if (this.hybrid_mode) {
+			this.hybrid_mutations = (int) parameters.getOrDefault("hybrid_mutations", this.hybrid_mutations);
+			long hybrid_seed = ((Number) parameters.getOrDefault("hybrid_seed", System.nanoTime())).longValue();
+			this.mutator = new Mutator(hybrid_seed);
+			logger.info("Hybrid mode enabled, " + this.hybrid_mutations + " mutations per iteration");
+		}
+
+		this.selective_instrumentation = (boolean) parameters.getOrDefault("selective_instrumentation", this.selective_instrumentation);
+		this.tracer.setSelectiveInstrumentation(this.selective_instrumentation);
+		if (this.selective_instrumentation) {
+			logger.info("Selective instrumentation enabled");
+		}
+
 		if (parameters.containsKey("tactic_options")) {
 			Map<String, Object> ds_params = (Map<String, Object>) parameters.get("tactic_options");
 			if (ds_params.containsKey("max_loop_unrolling")) {
@@ -466,6 +702,170 @@ public class Amygdala {
 		}
 	}
 
+	/**
+	 * Load logging options from the YAML file.
+	 *
+	 * @param parameters YAML-Map of the options
+	 */
+	private void loadLoggingParameters(Map<String, Object> parameters) {
+		if (parameters.containsKey("level") && parameters.get("level") instanceof String) {
+			String level_name = (String) parameters.get("level");
+			try {
+				logger.setLevel(Logger.Level.valueOf(level_name.toUpperCase()));
+			} catch (IllegalArgumentException iae) {
+				logger.warning("Unknown logging level '" + level_name + "'");
+			}
+		}
+		this.profiler.setEnabled((boolean) parameters.getOrDefault("profile", this.profiler.isEnabled()));
+		if (parameters.containsKey("profile_sort") && parameters.get("profile_sort") instanceof String) {
+			String sort_name = (String) parameters.get("profile_sort");
+			try {
+				this.profile_sort = InstrumentationProfiler.SortKey.valueOf(sort_name.toUpperCase());
+			} catch (IllegalArgumentException iae) {
+				logger.warning("Unknown sort key for instrumentation statistics '" + sort_name + "'");
+			}
+		}
+		if ((boolean) parameters.getOrDefault("async", false)) {
+			logger.enableAsync();
+		}
+		if (parameters.containsKey("json_file") && parameters.get("json_file") instanceof String) {
+			Path json_path = Paths.get(this.results_path, (String) parameters.get("json_file"));
+			try {
+				Files.createDirectories(json_path.getParent());
+				logger.setJsonSink(new FileOutputStream(json_path.toFile()));
+				logger.info("Structured log is written to '" + json_path + "'");
+			} catch (IOException ioe) {
+				logger.warning("Cannot create structured log file '" + json_path + "'. Reason: " + ioe.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Load the storage options of the execution graph from the YAML file.
+	 *
+	 * @param parameters YAML-Map of the options
+	 */
+	private void loadExecutionTreeParameters(Map<String, Object> parameters) {
+		if (!(boolean) parameters.getOrDefault("mapped", false)) {
+			return;
+		}
+		this.max_heap_nodes = ((Number) parameters.getOrDefault("max_heap_nodes", this.max_heap_nodes)).longValue();
+		int predicate_cache = (int) parameters.getOrDefault("predicate_cache", 65536);
+		Path store_path = Paths.get(this.results_path, (String) parameters.getOrDefault("file", "execution_tree.bin"));
+		try {
+			this.tree_store = new BranchingNodeStore(store_path, predicate_cache);
+			branching_root_node.setStore(this.tree_store);
+			logger.info("Execution graph is moved to '" + store_path + "' above " + this.max_heap_nodes + " nodes on the heap");
+		} catch (IOException ioe) {
+			logger.warning("Cannot create execution graph store '" + store_path + "', keeping graph on the heap. Reason: " + ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Load the options of the live metrics from the YAML file.
+	 *
+	 * @param parameters YAML-Map of the options
+	 */
+	private void loadMetricsParameters(Map<String, Object> parameters) {
+		if ((boolean) parameters.getOrDefault("jmx", false)) {
+			metrics.registerMBean(logger);
+		}
+		if (parameters.containsKey("http_port") && parameters.get("http_port") instanceof Integer) {
+			String host = (String) parameters.getOrDefault("http_host", "127.0.0.1");
+			metrics.startServer(host, (Integer) parameters.get("http_port"), logger);
+		}
+	}
+
+	/**
+	 * Load checkpoint options from the YAML file.
+	 *
+	 * @param parameters YAML-Map of the options
+	 */
+	private void loadCheckpointParameters(Map<String, Object> parameters) {
+		this.checkpoint_interval = (int) parameters.getOrDefault("interval", this.checkpoint_interval);
+		if (parameters.containsKey("file") && parameters.get("file") instanceof String) {
+			this.checkpoint_file = (String) parameters.get("file");
+		}
+		this.resume = (boolean) parameters.getOrDefault("resume", this.resume);
+		if (this.checkpoint_interval > 0) {
+			logger.info("Checkpoint is written every " + this.checkpoint_interval + " iterations to '" + getCheckpointPath() + "'");
+		}
+	}
+
+	/**
+	 * Load corpus options from the YAML file and queue the inputs for the warm start.
+	 *
+	 * @param parameters           YAML-Map of the options
+	 * @param config_file_path_abs Directory of the configuration file, relative paths are resolved against it
+	 */
+	@SuppressWarnings("unchecked")
+	private void loadCorpusParameters(Map<String, Object> parameters, String config_file_path_abs) {
+		Path corpus_directory = null;
+		if (parameters.containsKey("directory") && parameters.get("directory") instanceof String) {
+			corpus_directory = Paths.get(config_file_path_abs).resolve((String) parameters.get("directory")).normalize();
+		}
+		this.corpus = new Corpus(logger, corpus_directory);
+		this.corpus_save = (boolean) parameters.getOrDefault("save", this.corpus_save);
+
+		List<Map<Integer, Object>> assignments = new ArrayList<>(corpus.loadDirectory());
+		Object previous_results = parameters.get("previous_results");
+		if (previous_results instanceof String) {
+			previous_results = Collections.singletonList(previous_results);
+		}
+		if (previous_results instanceof List) {
+			for (Object results_file: (List<Object>) previous_results) {
+				assignments.addAll(corpus.loadFile(Paths.get(config_file_path_abs).resolve(results_file.toString()).normalize()));
+			}
+		}
+		if (this.resumed) {
+			logger.info("Campaign resumed from checkpoint, corpus is not replayed");
+			return;
+		}
+		for (Map<Integer, Object> assignment: assignments) {
+			Map<VariableIdentifier, Object> values = new HashMap<>();
+			for (Map.Entry<Integer, Object> entry: assignment.entrySet()) {
+				VariableIdentifier identifier = variable_lines.getKey(entry.getKey());
+				if (identifier != null) {
+					Object value = convertCorpusValue(identifier, entry.getValue());
+					if (value != null) {
+						values.put(identifier, value);
+					}
+				}
+			}
+			if (!values.isEmpty()) {
+				corpus_inputs.add(values);
+			}
+		}
+		logger.info("Warm start with " + corpus_inputs.size() + " inputs from corpus");
+	}
+
+	/**
+	 * Converts a value of a corpus file to the type of the variable.
+	 *
+	 * @param var_id The variable identifier
+	 * @param value  Value as loaded from YAML
+	 * @return The converted value, null if the value does not fit the variable
+	 */
+	private Object convertCorpusValue(VariableIdentifier var_id, Object value) {
+		switch (var_id.getVariableType()) {
+			case BOOLEAN:
+				return value instanceof Boolean ? value : null;
+			case STRING:
+				return value != null ? value.toString() : null;
+			case BIGINT:
+			case NUMBER_INTEGER:
+				return value instanceof Number ? ((Number) value).intValue() : null;
+			case NUMBER_REAL:
+				return value instanceof Number ? ((Number) value).doubleValue() : null;
+			default:
+				return null;
+		}
+	}
+
+	private Path getCheckpointPath() {
+		return Paths.get(this.results_path).resolve(this.checkpoint_file);
+	}
+
 	/**
 	 * Load visualization options from the YAML file.
 	 *
@@ -476,6 +876,7 @@ public class Amygdala {
 		if (this.function_visualization) {
 			logger.info("Function visualization enabled");
 		}
+		this.function_visualization_deferred = (boolean) parameters.getOrDefault("function_visualization_deferred", this.function_visualization_deferred);
 		this.branching_visualization = (boolean) parameters.getOrDefault("branching_visualization", this.branching_visualization);
 		if (this.branching_visualization) {
 			logger.info("Branching visualization enabled");
@@ -484,6 +885,56 @@ public class Amygdala {
 		if (this.event_logging) {
 			logger.info("Event logging enabled");
 		}
+		int capacity = (int) parameters.getOrDefault("event_trace_capacity", this.event_trace_capacity);
+		if (capacity > 0 && capacity <= EventTrace.MAX_CAPACITY) {
+			this.event_trace_capacity = capacity;
+		} else {
+			logger.warning("Option event_trace_capacity must be between 1 and " + EventTrace.MAX_CAPACITY +
+								   ", keeping " + this.event_trace_capacity);
+		}
+		if (parameters.containsKey("event_trace_file") && parameters.get("event_trace_file") instanceof String) {
+			this.event_trace_file = (String) parameters.get("event_trace_file");
+		}
+	}
+
+	/**
+	 * Creates the event trace if event logging is enabled. The trace is mapped
+	 * to a file in the results directory if the option "event_trace_file" is set.
+	 */
+	private void initializeEventTrace() {
+		if (!this.event_logging) {
+			return;
+		}
+		if (this.event_trace_file != null) {
+			Path trace_path = Paths.get(this.results_path, this.event_trace_file);
+			try {
+				Files.createDirectories(trace_path.getParent());
+				this.event_trace = EventTrace.mapFile(trace_path, this.event_trace_capacity);
+				logger.info("Event trace is written to '" + trace_path + "'");
+			} catch (IOException ioe) {
+				logger.warning("Cannot create event trace file '" + trace_path + "', keeping events in memory. Reason: " + ioe.getMessage());
+			}
+		}
+		if (this.event_trace == null) {
+			this.event_trace = new EventTrace(this.event_trace_capacity);
+		}
+		logger.setEventTrace(this.event_trace);
+	}
+
+	/**
+	 * @return The event trace, null if event logging is disabled
+	 */
+	public EventTrace getEventTrace() {
+		return this.event_trace;
+	}
+
+	/**
+	 * Writes all pending events of the event trace.
+	 */
+	public void closeEventTrace() {
+		if (this.event_trace != null) {
+			this.event_trace.close();
+		}
 	}
 
 	/**
@@ -524,6 +975,27 @@ public class Amygdala {
 		return this.branching_visualization;
 	}
 
+	/**
+	 * @return true, if the hybrid mode is enabled, false otherwise
+	 */
+	public boolean isHybridModeEnabled() {
+		return this.hybrid_mode && !LOCK_VALUES;
+	}
+
+	/**
+	 * @return true, if only functions reached by symbolic values should be instrumented
+	 */
+	public boolean isSelectiveInstrumentationEnabled() {
+		return this.selective_instrumentation;
+	}
+
+	/**
+	 * @return Number of coverage-only executions after every concolic iteration
+	 */
+	public int getHybridMutations() {
+		return this.hybrid_mutations;
+	}
+
 	/**
 	 * @return true, if event logging is enabled, false otherwise
 	 */
@@ -552,6 +1024,17 @@ public class Amygdala {
 			stat_str.append("Finished: no\n");
 		}
 		stat_str.append("Iterations: ").append(this.fuzzing_iterations).append(" of ").append(this.max_iterations).append("\n");
+		if (isHybridModeEnabled()) {
+			stat_str.append("Mutations: ").append(this.hybrid_executions).append(" (")
+					.append(this.hybrid_novel_inputs).append(" with new coverage)\n");
+		}
+		if (tree_store != null) {
+			stat_str.append(tree_store.getStatisticsString());
+		}
+		if (corpus != null) {
+			stat_str.append("Corpus: ").append(this.corpus_replayed).append(" inputs replayed, ")
+					.append(corpus.getNumSaved()).append(" inputs saved\n");
+		}
 		return stat_str.toString();
 	}
 
@@ -562,15 +1045,33 @@ public class Amygdala {
 		logger.log(getInstrumentationString());
 	}
 
+	/**
+	 * Saves coverage and statistics of the last iteration and appends them to the results file.
+	 */
 	public void snapshot() {
 		coverage.saveSnapshot();
+		if (coverage.isLastExecutionNovel()) {
+			logger.info("Iteration reached new edges, " + coverage.getNumEdges() + " edges in total");
+		}
 		if (this.branching_visualization) {
-			visualizeProgramFlow("trace_tree_" + getIteration() + ".svg");
+			if (branching_renderer == null) {
+				branching_renderer = new BranchingRenderer(Paths.get(this.results_path, "trace_tree"), "trace_tree.dot", logger);
+			}
+			branching_renderer.submit(branching_root_node, "trace_tree_" + getIteration() + ".svg");
 		}
+		Map<String, Object> iteration = new HashMap<>();
+		iteration.put("iteration", fuzzing_iterations);
+		iteration.put("successful", last_iteration_successful);
+		if (!last_iteration_successful) {
+			iteration.put("error_message", last_iteration_error);
+		}
+		iteration.put("runtime", last_runtime_nanos / 1000000);
+
 		if (EXECUTION_GRAPH_STATISTICS) {
-			int graph_size = branching_root_node.getTreeSize();
-			int graph_height = branching_root_node.getTreeHeight();
-			execution_graph_statistics.add(Pair.create(graph_size, graph_height));
+			int tree_height = branching_root_node.getTreeHeight();
+			int tree_size = branching_root_node.getTreeSize();
+			iteration.put("execution_graph_height", tree_height);
+			iteration.put("execution_graph_size", tree_size);
 			Map<BranchingNodeAttribute, Integer> components = new HashMap<>();
 			components.put(BranchingNodeAttribute.BRANCH, 0);
 			components.put(BranchingNodeAttribute.LOOP, 0);
@@ -579,118 +1080,121 @@ public class Amygdala {
 			components.put(BranchingNodeAttribute.TERMINATE, 0);
 			components.put(BranchingNodeAttribute.ERROR, 0);
 			branching_root_node.getComponents(components);
-			execution_graph_component_statistics.add(components);
+			Map<String, Integer> converted_components = new HashMap<>();
+			for (Map.Entry<BranchingNodeAttribute, Integer> entry: components.entrySet()) {
+				converted_components.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			iteration.put("execution_graph_components", converted_components);
+			metrics.setTreeStatistics(tree_size, tree_height, components.get(BranchingNodeAttribute.UNKNOWN));
+		}
+		metrics.setCoverage(coverage.getRootPercentage(), coverage.getStatementPercentage(), coverage.getBranchPercentage(),
+							coverage.getNumEdges());
+		FlightRecorderEvents.coverageSnapshot(fuzzing_iterations, coverage.getRootPercentage(),
+											  coverage.getStatementPercentage(), coverage.getBranchPercentage(),
+											  coverage.getNumEdges(), coverage.isLastExecutionNovel());
+		if (tree_store != null) {
+			metrics.setCacheStatistics(BranchingNode.getZ3CacheHits(), BranchingNode.getZ3CacheMisses(),
+									   tree_store.getPredicateCacheHits(), tree_store.getPredicateCacheMisses());
+		} else {
+			metrics.setCacheStatistics(BranchingNode.getZ3CacheHits(), BranchingNode.getZ3CacheMisses(), 0, 0);
+		}
+
+		List<Map<String, Object>> variables = new ArrayList<>();
+		Map<VariableIdentifier, Object> values = getLastInput();
+		for (Map.Entry<VariableIdentifier, Object> entry: values.entrySet()) {
+			addVariableResult(variables, entry);
+		}
+		iteration.put("assignments", variables);
+
+		if (corpus != null && corpus_save && coverage.isLastExecutionNovel()) {
+			Map<Integer, Object> assignment = new HashMap<>();
+			for (Map.Entry<VariableIdentifier, Object> entry: values.entrySet()) {
+				assignment.put(variable_lines.get(entry.getKey()), entry.getValue());
+			}
+			corpus.save(assignment, fuzzing_iterations);
+		}
+
+		iteration.put("coverage", coverage.getCoverageObject());
+
+		getResultWriter().write(iteration);
+
+		if (tree_store != null && tree_store.getHeapNodes() > max_heap_nodes) {
+			branching_root_node.evictClosed();
+			logger.info("Closed subtrees of the execution graph moved to store, " + tree_store.getHeapNodes() + " nodes left on heap");
 		}
 	}
 
+	private ResultWriter getResultWriter() {
+		if (result_writer == null) {
+			result_writer = new ResultWriter(logger, Paths.get(this.results_path, "result.yaml"), this.results_offset);
+		}
+		return result_writer;
+	}
+
 	/**
 	 * Returns a string-representation of the instrumentation statistics
 	 *
 	 * @return A string-representation of the statistics
 	 */
 	public String getInstrumentationString() {
-		int NAME_WIDTH = 36;
-		StringBuilder stat_str = new StringBuilder();
-		stat_str.append("===NODE INSTRUMENTATION INSIGHT===\n");
-		stat_str.append(String.format("%-" + NAME_WIDTH + "s", "NODE NAME")).append("E I R X  U D\n");
-		for (String key : node_type_instrumented.keySet()) {
-			BitSet curr_set = node_type_instrumented.get(key);
-			boolean executed = curr_set.get(0);
-			boolean instrumented = curr_set.get(1) || curr_set.get(2) || curr_set.get(3) || curr_set.get(4);
-
-			String node_name = key;
-			node_name = Logger.capBack(node_name, NAME_WIDTH - 1);
-			node_name = String.format("%-" + NAME_WIDTH + "s", node_name);
-
-			if (executed) {
-				if (instrumented) {
-					stat_str.append(node_name);
-				} else {
-					stat_str.append("\033[41m").append(node_name).append("\033[0m");
-				}
-			} else {
-				stat_str.append("\033[43m").append(node_name).append("\033[0m");
-			}
+		return profiler.getNodeTypeString(profile_sort);
+	}
 
-			if (curr_set.get(1)) {
-				stat_str.append("✔ ");
-			} else {
-				stat_str.append("✗ ");
-			}
-			if (curr_set.get(2)) {
-				stat_str.append("✔ ");
-			} else {
-				stat_str.append("✗ ");
-			}
-			if (curr_set.get(3)) {
-				stat_str.append("✔ ");
-			} else {
-				stat_str.append("✗ ");
-			}
-			if (curr_set.get(4)) {
-				stat_str.append("✔  ");
-			} else {
-				stat_str.append("✗  ");
-			}
-			if (curr_set.get(5)) {
-				stat_str.append("✔ ");
-			} else {
-				stat_str.append("✗ ");
-			}
-			if (curr_set.get(6)) {
-				stat_str.append("✔");
-			} else {
-				stat_str.append("✗");
-			}
-			stat_str.append("\n");
+	/**
+	 * Writes the instrumentation statistics as CSV and JSON files into the results directory.
+	 * Does nothing unless the profiler is enabled with the logging option "profile".
+	 */
+	public void saveProfile() {
+		if (!profiler.isEnabled()) {
+			return;
+		}
+		Path node_types_path = Paths.get(this.results_path, "profile_node_types.csv");
+		Path locations_path = Paths.get(this.results_path, "profile_locations.csv");
+		Path json_path = Paths.get(this.results_path, "profile.json");
+		try {
+			profiler.saveCSV(node_types_path, locations_path);
+			profiler.saveJSON(json_path);
+			logger.info("Instrumentation profile written to '" + json_path + "'");
+		} catch (IOException ioe) {
+			logger.critical("Cannot write instrumentation profile. Reason: " + ioe.getMessage());
 		}
-		return stat_str.toString();
 	}
 
-	public Map<String, Object> getResults() {
+	/**
+	 * Appends the summary of the campaign to the results file and closes it.
+	 * The results of the single iterations are already written by {@link #snapshot()}.
+	 */
+	public void finishResults() {
 		Map<String, Object> result_map = new HashMap<>();
 		result_map.put("fuzzing_finished", fuzzing_finished);
 		result_map.put("num_iterations", fuzzing_iterations);
-		List<Map<String, Object>> iterations = new ArrayList<>();
-		for (int i = 0; i < fuzzing_iterations; i++) {
-			Map<String, Object> iteration = new HashMap<>();
-
-			iteration.put("successful", iteration_information.get(i).getLeft());
-			if (!iteration_information.get(i).getLeft()) {
-				iteration.put("error_message", iteration_information.get(i).getRight());
-			}
-			iteration.put("runtime", runtime_nanos.get(i) / 1000000);
-
-			if (EXECUTION_GRAPH_STATISTICS) {
-				Pair<Integer, Integer> graph_stat = execution_graph_statistics.get(i);
-				iteration.put("execution_graph_height", graph_stat.getRight());
-				iteration.put("execution_graph_size", graph_stat.getLeft());
-				Map<String, Integer> converted_components = new HashMap<>();
-				for (Map.Entry<BranchingNodeAttribute, Integer> entry: execution_graph_component_statistics.get(i).entrySet()) {
-					converted_components.put(String.valueOf(entry.getKey()), entry.getValue());
-				}
-				iteration.put("execution_graph_components", converted_components);
-			}
+		ResultWriter writer = getResultWriter();
+		writer.write(result_map);
+		writer.close();
+		logger.info("Results written to '" + writer.getPath() + "'");
+	}
 
-			List<Map<String, Object>> variables = new ArrayList<>();
-			if (LOCK_VALUES) {
-				for (Map.Entry<VariableIdentifier, Object> entry: variable_values.get(0).entrySet()) {
-					addVariableResult(variables, entry);
-				}
-			} else {
-				for (Map.Entry<VariableIdentifier, Object> entry: variable_values.get(i).entrySet()) {
-					addVariableResult(variables, entry);
-				}
+	/**
+	 * Finishes the visualizations and releases the files held by the execution graph store.
+	 */
+	public void close() {
+		metrics.close();
+		if (ast_render_queue != null) {
+			ast_render_queue.close();
+			ast_render_queue = null;
+		}
+		if (branching_renderer != null) {
+			branching_renderer.close();
+			branching_renderer = null;
+		}
+		if (tree_store != null) {
+			try {
+				tree_store.close();
+			} catch (IOException ioe) {
+				logger.warning("Cannot close execution graph store. Reason: " + ioe.getMessage());
 			}
-			iteration.put("assignments", variables);
-
-			iteration.put("coverage", coverage.getCoverageObject(i));
-
-			iterations.add(iteration);
+			tree_store = null;
 		}
-		result_map.put("iterations", iterations);
-
-		return result_map;
 	}
 
 	private void addVariableResult(List<Map<String, Object>> variables, Map.Entry<VariableIdentifier, Object> entry) {
@@ -702,4 +1206,188 @@ public class Amygdala {
 		variable.put("value", value);
 		variables.add(variable);
 	}
+
+	/**
+	 * Writes a checkpoint if the configured interval has passed. Must be called after
+	 * {@link #calculateNextPath()}, so that the checkpoint contains the next input.
+	 */
+	public void checkpoint() {
+		if (checkpoint_interval > 0 && fuzzing_iterations % checkpoint_interval == 0) {
+			saveCheckpoint();
+		}
+	}
+
+	/**
+	 * Writes the exploration state to the checkpoint file. The file is written to a
+	 * temporary file first and then moved, so an interrupted write keeps the previous checkpoint.
+	 * <p>
+	 * Z3 expressions, cached program paths and the instrumentation are not written,
+	 * they are rebuilt from the restored symbolic expressions. The length of the results file
+	 * is stored as well, a resumed campaign drops the iterations written after the checkpoint.
+	 */
+	public void saveCheckpoint() {
+		Path checkpoint_path = getCheckpointPath();
+		Path tmp_path = checkpoint_path.resolveSibling(checkpoint_path.getFileName() + ".tmp");
+		try {
+			if (checkpoint_path.getParent() != null) {
+				Files.createDirectories(checkpoint_path.getParent());
+			}
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp_path))))) {
+				out.writeInt(CHECKPOINT_MAGIC);
+				out.writeInt(CHECKPOINT_VERSION);
+				SymbolicNodeSerializer.writeString(out, program_path);
+				SymbolicNodeSerializer.writeString(out, tactic.getTactic());
+				out.writeInt(fuzzing_iterations);
+				out.writeLong(getResultWriter().getLength());
+
+				out.writeInt(variable_lines.size());
+				for (Map.Entry<VariableIdentifier, Integer> entry: variable_lines.entrySet()) {
+					SymbolicNodeSerializer.writeString(out, entry.getKey().getIdentifierString());
+					out.writeInt(entry.getValue());
+					SymbolicNodeSerializer.writeString(out, variable_names.get(entry.getKey()));
+				}
+
+				out.writeLong(last_runtime_nanos);
+				out.writeInt(variable_values.size());
+				for (Map<VariableIdentifier, Object> values: variable_values) {
+					writeValues(out, values);
+				}
+				out.writeInt(next_program_path.size());
+				for (Pair<Integer, Boolean> step: next_program_path) {
+					out.writeInt(step.getLeft());
+					out.writeBoolean(step.getRight());
+				}
+
+				Map<BranchingNode, Integer> node_ids = new IdentityHashMap<>();
+				branching_root_node.writeTree(out, 0, node_ids);
+				tactic.writeState(out, node_ids);
+				coverage.writeState(out);
+
+				out.writeInt(hybrid_inputs.size());
+				for (Pair<Map<VariableIdentifier, Object>, CoverageTrace> input: hybrid_inputs) {
+					writeValues(out, input.getLeft());
+					input.getRight().writeState(out);
+				}
+				out.writeInt(hybrid_executions);
+				out.writeInt(hybrid_novel_inputs);
+				out.writeBoolean(mutator != null);
+				if (mutator != null) {
+					mutator.writeState(out);
+				}
+			}
+			try {
+				Files.move(tmp_path, checkpoint_path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(tmp_path, checkpoint_path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.info("Checkpoint written after iteration " + fuzzing_iterations);
+		} catch (IOException ioe) {
+			logger.critical("Cannot write checkpoint to '" + checkpoint_path + "'. Reason: " + ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Restores the exploration state from the checkpoint file. The input variables keep
+	 * the identifiers of the checkpoint, because the symbolic expressions in the execution graph refer to them.
+	 */
+	private void loadCheckpoint() {
+		Path checkpoint_path = getCheckpointPath();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(checkpoint_path))))) {
+			if (in.readInt() != CHECKPOINT_MAGIC) {
+				throw new IOException("Not a checkpoint file");
+			}
+			int version = in.readInt();
+			if (version != CHECKPOINT_VERSION) {
+				throw new IOException("Unsupported checkpoint version " + version);
+			}
+			String checkpoint_program = SymbolicNodeSerializer.readString(in);
+			if (!checkpoint_program.equals(program_path)) {
+				logger.warning("Checkpoint was written for program '" + checkpoint_program + "'");
+			}
+			String checkpoint_tactic = SymbolicNodeSerializer.readString(in);
+			if (!checkpoint_tactic.equals(tactic.getTactic())) {
+				throw new IOException("Checkpoint was written with tactic " + checkpoint_tactic);
+			}
+			this.fuzzing_iterations = in.readInt();
+			this.results_offset = in.readLong();
+
+			int num_variables = in.readInt();
+			if (num_variables != variable_lines.size()) {
+				logger.warning("Number of variables in checkpoint (" + num_variables + ") differs from configuration");
+			}
+			variable_lines.clear();
+			variable_names.clear();
+			for (int i = 0; i < num_variables; i++) {
+				VariableIdentifier identifier = VariableIdentifier.fromString(SymbolicNodeSerializer.readString(in));
+				variable_lines.put(identifier, in.readInt());
+				variable_names.put(identifier, SymbolicNodeSerializer.readString(in));
+			}
+
+			this.last_runtime_nanos = in.readLong();
+			variable_values.clear();
+			int num_values = in.readInt();
+			for (int i = 0; i < num_values; i++) {
+				addVariableValues(readValues(in));
+			}
+			next_program_path = new LinkedList<>();
+			int path_length = in.readInt();
+			for (int i = 0; i < path_length; i++) {
+				next_program_path.add(Pair.create(in.readInt(), in.readBoolean()));
+			}
+
+			List<BranchingNode> nodes = new ArrayList<>();
+			branching_root_node.readTree(in, nodes);
+			tactic.readState(in, nodes);
+			coverage.readState(in);
+
+			hybrid_inputs.clear();
+			int num_hybrid_inputs = in.readInt();
+			for (int i = 0; i < num_hybrid_inputs; i++) {
+				Map<VariableIdentifier, Object> values = readValues(in);
+				CoverageTrace trace = new CoverageTrace();
+				trace.readState(in);
+				hybrid_inputs.add(Pair.create(values, trace));
+			}
+			rebuildHybridPending();
+			this.hybrid_executions = in.readInt();
+			this.hybrid_novel_inputs = in.readInt();
+			if (in.readBoolean()) {
+				// If hybrid mode was disabled since the checkpoint, the state is read and dropped
+				(mutator != null ? mutator : new Mutator(0)).readState(in);
+			}
+		} catch (IOException | IllegalArgumentException ex) {
+			logger.critical("Cannot resume from checkpoint '" + checkpoint_path + "'. Reason: " + ex.getMessage());
+			throw new IllegalStateException("Invalid checkpoint '" + checkpoint_path + "'", ex);
+		}
+		if (event_trace != null) {
+			event_trace.setIteration(fuzzing_iterations);
+		}
+		this.resumed = true;
+		logger.info("Resumed from checkpoint after iteration " + fuzzing_iterations);
+	}
+
+	/**
+	 * @return true, if the exploration state was restored from a checkpoint
+	 */
+	public boolean isResumed() {
+		return this.resumed;
+	}
+
+	private static void writeValues(DataOutputStream out, Map<VariableIdentifier, Object> values) throws IOException {
+		out.writeInt(values.size());
+		for (Map.Entry<VariableIdentifier, Object> entry: values.entrySet()) {
+			SymbolicNodeSerializer.writeString(out, entry.getKey().getIdentifierString());
+			SymbolicNodeSerializer.writeValue(out, entry.getValue());
+		}
+	}
+
+	private static Map<VariableIdentifier, Object> readValues(DataInputStream in) throws IOException {
+		Map<VariableIdentifier, Object> values = new HashMap<>();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			VariableIdentifier identifier = VariableIdentifier.fromString(SymbolicNodeSerializer.readString(in));
+			values.put(identifier, SymbolicNodeSerializer.readValue(in));
+		}
+		return values;
+	}
 }
@@ -23,10 +23,16 @@ import org.fuzzingtool.core.symbolic.ExpressionType;
 import org.fuzzingtool.core.symbolic.LanguageSemantic;
 import org.fuzzingtool.core.symbolic.SymbolicException;
 import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.SymbolicNodeSerializer;
 import org.fuzzingtool.core.symbolic.logical.Not;
 import org.graalvm.collections.Pair;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
@@ -116,6 +122,28 @@ public class BranchingNode {
 	private ArrayList<String> cached_hr_string = null;
 	private ArrayList<String> cached_smt_expression = null;
 
+	/**
+	 * Off-heap storage, null if the whole tree is kept on the heap. If the children
+	 * are stored, the child references are null and the children are materialized on access.
+	 */
+	private BranchingNodeStore store = null;
+	private int record = BranchingNodeStore.NONE;
+	private long predicate_offset = BranchingNodeStore.NONE;
+	private boolean children_stored = false;
+
+	// True if this node or a descendant on the heap changed since the last call of clearChanged(),
+	// if a node is marked, all of its ancestors are marked as well
+	private boolean changed = true;
+
+	// Markers for the children of a node in a checkpoint
+	private static final int NO_CHILDREN = 0;
+	private static final int CHILDREN_ON_HEAP = 1;
+	private static final int CHILDREN_STORED = 2;
+
+	// Hits and misses of the Z3 path expression cache, for the metrics
+	private static long z3_cache_hits = 0;
+	private static long z3_cache_misses = 0;
+
 	public BranchingNode() {
 		this.branch_identifier = 0;
 		this.symbolic_expression = null;
@@ -132,9 +160,48 @@ public class BranchingNode {
 		this.parent_node = parent;
 		this.parent_node_taken_flag = taken_flag;
 		this.depth = parent.getDepth() + 1;
+		this.store = parent.store;
+		if (this.store != null) {
+			this.store.addHeapNodes(1);
+		}
+		this.changed = false;
+		markChanged();
+	}
+
+	/**
+	 * Materializes a stored node.
+	 */
+	private BranchingNode(BranchingNode parent, Boolean taken_flag, int record) {
+		this(parent, taken_flag);
+		this.record = record;
+		this.branching_node_attribute = store.getAttribute(record);
+		int flags = store.getFlags(record);
+		this.is_undecidable = (flags & BranchingNodeStore.FLAG_UNDECIDABLE) != 0;
+		this.is_diverging = (flags & BranchingNodeStore.FLAG_DIVERGING) != 0;
+		this.is_explored = (flags & BranchingNodeStore.FLAG_EXPLORED) != 0;
+		this.branch_identifier = store.getBranchIdentifier(record);
+		this.predicate_offset = store.getPredicateOffset(record);
+		if (this.predicate_offset != BranchingNodeStore.NONE) {
+			Pair<String, SymbolicNode> predicate = store.getPredicate(this.predicate_offset);
+			this.source_code_expression = predicate.getLeft();
+			this.symbolic_expression = predicate.getRight();
+		}
+		this.children_stored = store.getChild(record, true) != BranchingNodeStore.NONE;
+	}
+
+	/**
+	 * Enables off-heap storage of the tree, may only be called on the root node of an empty tree.
+	 *
+	 * @param node_store The store
+	 */
+	public void setStore(BranchingNodeStore node_store) {
+		assert parent_node == null && child_node_taken == null;
+		this.store = node_store;
+		node_store.addHeapNodes(1);
 	}
 
 	public void initializeChildren() {
+		this.children_stored = false;
 		this.child_node_taken = new BranchingNode(this, true);
 		this.child_node_not_taken = new BranchingNode(this, false);
 	}
@@ -144,10 +211,13 @@ public class BranchingNode {
 		this.symbolic_expression = exp;
 		this.branching_node_attribute = bt;
 		this.branch_identifier = identifier;
+		this.predicate_offset = BranchingNodeStore.NONE;
+		markChanged();
 	}
 
 	public void setBranchingNodeAttribute(BranchingNodeAttribute branchingNodeAttribute) {
 		this.branching_node_attribute = branchingNodeAttribute;
+		markChanged();
 	}
 
 	public BranchingNodeAttribute getBranchingNodeAttribute() {
@@ -157,6 +227,8 @@ public class BranchingNode {
 	public void setParent(BranchingNode parent_node, Boolean flag) {
 		this.parent_node = parent_node;
 		this.parent_node_taken_flag = flag;
+		this.changed = false;
+		markChanged();
 	}
 
 	public BranchingNode getParent() {
@@ -169,6 +241,8 @@ public class BranchingNode {
 
 	public void setSourceCodeExpression(String source_code_expression) {
 		this.source_code_expression = source_code_expression;
+		this.predicate_offset = BranchingNodeStore.NONE;
+		markChanged();
 	}
 
 	public boolean isUndecidable() {
@@ -177,7 +251,12 @@ public class BranchingNode {
 
 	public void setUndecidable() {
 		this.is_undecidable = true;
+		markChanged();
 
+		if (children_stored) {
+			store.setFlagsInSubtree(store.getChild(record, true), BranchingNodeStore.FLAG_UNDECIDABLE);
+			store.setFlagsInSubtree(store.getChild(record, false), BranchingNodeStore.FLAG_UNDECIDABLE);
+		}
 		if (child_node_taken != null) {
 			child_node_taken.setUndecidable();
 		}
@@ -192,6 +271,7 @@ public class BranchingNode {
 
 	public void setDiverging() {
 		this.is_diverging = true;
+		markChanged();
 		// do not traverse
 	}
 
@@ -201,7 +281,12 @@ public class BranchingNode {
 
 	public void setExplored() {
 		this.is_explored = true;
+		markChanged();
 
+		if (children_stored) {
+			store.setFlagsInSubtree(store.getChild(record, true), BranchingNodeStore.FLAG_EXPLORED);
+			store.setFlagsInSubtree(store.getChild(record, false), BranchingNodeStore.FLAG_EXPLORED);
+		}
 		if (child_node_taken != null) {
 			child_node_taken.setExplored();
 		}
@@ -220,9 +305,13 @@ public class BranchingNode {
 		} else {
 			this.child_node_not_taken = child_node;
 		}
+		markChanged();
 	}
 
 	public BranchingNode getChildBranch(Boolean taken) {
+		if (children_stored) {
+			materializeChildren();
+		}
 		if (taken) {
 			return this.child_node_taken;
 		} else {
@@ -230,6 +319,41 @@ public class BranchingNode {
 		}
 	}
 
+	/**
+	 * @return true, if this node or a descendant on the heap changed since the last call of {@link #clearChanged()}
+	 */
+	public boolean isChanged() {
+		return this.changed;
+	}
+
+	/**
+	 * Resets the change mark of this node, the descendants have to be cleared as well.
+	 */
+	public void clearChanged() {
+		this.changed = false;
+	}
+
+	private void markChanged() {
+		for (BranchingNode node = this; node != null && !node.changed; node = node.parent_node) {
+			node.changed = true;
+		}
+	}
+
+	public static long getZ3CacheHits() {
+		return z3_cache_hits;
+	}
+
+	public static long getZ3CacheMisses() {
+		return z3_cache_misses;
+	}
+
+	/**
+	 * @return true, if the children are only available in the store and would be materialized by {@link #getChildBranch(Boolean)}
+	 */
+	public boolean hasStoredChildren() {
+		return this.children_stored;
+	}
+
 	public Integer getBranchIdentifier() {
 		return branch_identifier;
 	}
@@ -290,7 +414,10 @@ public class BranchingNode {
 			SymbolicException.UndecidableExpression {
 		if (parent_node != null) {
 			if (this.cached_z3_expression == null) {
+				z3_cache_misses++;
 				this.cached_z3_expression = this.parent_node.getSymbolicPathZ3Expression(this.parent_node_taken_flag, ctx);
+			} else {
+				z3_cache_hits++;
 			}
 			return this.cached_z3_expression;
 		} else {
@@ -303,7 +430,10 @@ public class BranchingNode {
 			SymbolicException.NotImplemented {
 		if (parent_node != null) {
 			if (this.cached_z3_expression == null) {
+				z3_cache_misses++;
 				this.cached_z3_expression = this.parent_node.getSymbolicPathZ3Expression(this.parent_node_taken_flag, ctx);
+			} else {
+				z3_cache_hits++;
 			}
 			try {
 				return ctx.mkAnd(this.cached_z3_expression, getLocalZ3Expression(taken_flag, ctx));
@@ -392,6 +522,10 @@ public class BranchingNode {
 	 * @return The height of the tree
 	 */
 	public int getTreeHeight() {
+		if (children_stored) {
+			return Math.max(store.collectSubtree(store.getChild(record, true), null).getRight(),
+							store.collectSubtree(store.getChild(record, false), null).getRight());
+		}
 		if (child_node_taken == null || child_node_not_taken == null) {
 			return depth;
 		} else {
@@ -407,6 +541,10 @@ public class BranchingNode {
 	 * @return Number of nodes
 	 */
 	public int getTreeSize() {
+		if (children_stored) {
+			return store.collectSubtree(store.getChild(record, true), null).getLeft() +
+					store.collectSubtree(store.getChild(record, false), null).getLeft() + 1;
+		}
 		if (child_node_taken == null || child_node_not_taken == null) {
 			return 1;
 		} else {
@@ -423,9 +561,193 @@ public class BranchingNode {
 	 */
 	public void getComponents(Map<BranchingNodeAttribute, Integer> out) {
 		out.put(branching_node_attribute, out.get(branching_node_attribute) + 1);
-		if (branching_node_attribute == BranchingNodeAttribute.BRANCH || branching_node_attribute == BranchingNodeAttribute.LOOP) {
+		if (children_stored) {
+			store.collectSubtree(store.getChild(record, true), out);
+			store.collectSubtree(store.getChild(record, false), out);
+		} else if (branching_node_attribute == BranchingNodeAttribute.BRANCH || branching_node_attribute == BranchingNodeAttribute.LOOP) {
 			child_node_taken.getComponents(out);
 			child_node_not_taken.getComponents(out);
 		}
 	}
+
+	/**
+	 * Writes the subtree in pre-order. Caches are not written, they are rebuilt on demand.
+	 * Stored subtrees are copied from the store without materializing them.
+	 *
+	 * @param out        Output
+	 * @param identifier Identifier of this node in the checkpoint, nodes are numbered in pre-order
+	 * @param node_ids   Receives the identifiers of all written nodes on the heap
+	 * @return The identifier following the last written node
+	 * @throws IOException If the output fails
+	 */
+	int writeTree(DataOutput out, int identifier, Map<BranchingNode, Integer> node_ids) throws IOException {
+		node_ids.put(this, identifier++);
+		out.writeByte(branching_node_attribute.ordinal());
+		out.writeByte((is_undecidable ? 1 : 0) | (is_diverging ? 2 : 0) | (is_explored ? 4 : 0));
+		out.writeInt(branch_identifier);
+		out.writeBoolean(source_code_expression != null);
+		if (source_code_expression != null) {
+			SymbolicNodeSerializer.writeString(out, source_code_expression);
+		}
+		SymbolicNodeSerializer.write(out, symbolic_expression);
+		if (children_stored) {
+			out.writeByte(CHILDREN_STORED);
+			identifier += store.writeSubtree(store.getChild(record, true), out);
+			return identifier + store.writeSubtree(store.getChild(record, false), out);
+		}
+		boolean has_children = child_node_taken != null && child_node_not_taken != null;
+		out.writeByte(has_children ? CHILDREN_ON_HEAP : NO_CHILDREN);
+		if (has_children) {
+			identifier = child_node_taken.writeTree(out, identifier, node_ids);
+			identifier = child_node_not_taken.writeTree(out, identifier, node_ids);
+		}
+		return identifier;
+	}
+
+	/**
+	 * Replaces the subtree with a subtree written by {@link #writeTree(DataOutput, int, Map)}. The tree is read
+	 * iteratively. If a store is set, subtrees that were stored when the checkpoint was written are read
+	 * directly into the store, otherwise they are restored on the heap.
+	 *
+	 * @param in    Input
+	 * @param order Receives all read nodes in pre-order, null for nodes read into the store
+	 * @throws IOException If the input fails or is malformed
+	 */
+	void readTree(DataInput in, List<BranchingNode> order) throws IOException {
+		ArrayDeque<BranchingNode> pending = new ArrayDeque<>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			BranchingNode node = pending.pop();
+			order.add(node);
+			node.branching_node_attribute = BranchingNodeAttribute.values()[in.readUnsignedByte()];
+			int flags = in.readUnsignedByte();
+			node.is_undecidable = (flags & 1) != 0;
+			node.is_diverging = (flags & 2) != 0;
+			node.is_explored = (flags & 4) != 0;
+			node.markChanged();
+			node.branch_identifier = in.readInt();
+			node.source_code_expression = in.readBoolean() ? SymbolicNodeSerializer.readString(in) : null;
+			node.symbolic_expression = SymbolicNodeSerializer.read(in);
+			node.predicate_offset = BranchingNodeStore.NONE;
+			int children = in.readUnsignedByte();
+			if (children == CHILDREN_STORED && store != null) {
+				node.readStoredChildren(in, order);
+			} else if (children != NO_CHILDREN) {
+				node.initializeChildren();
+				// pre-order, the taken subtree is read first
+				pending.push(node.child_node_not_taken);
+				pending.push(node.child_node_taken);
+			} else {
+				node.child_node_taken = null;
+				node.child_node_not_taken = null;
+				node.children_stored = false;
+			}
+		}
+	}
+
+	/**
+	 * Reads both child subtrees into the store and writes the record of this node.
+	 */
+	private void readStoredChildren(DataInput in, List<BranchingNode> order) throws IOException {
+		this.record = store.allocate();
+		int child_taken = store.readSubtree(in, record, depth + 1, order);
+		int child_not_taken = store.readSubtree(in, record, depth + 1, order);
+		int parent_record = parent_node != null ? parent_node.record : BranchingNodeStore.NONE;
+		writeOwnRecord(parent_record, child_taken, child_not_taken);
+		this.child_node_taken = null;
+		this.child_node_not_taken = null;
+		this.children_stored = true;
+	}
+
+	private void materializeChildren() {
+		this.child_node_taken = new BranchingNode(this, true, store.getChild(record, true));
+		this.child_node_not_taken = new BranchingNode(this, false, store.getChild(record, false));
+		this.children_stored = false;
+		store.addMaterialization();
+	}
+
+	/**
+	 * Moves closed subtrees to the store. A subtree is closed if it contains no node a tactic could select,
+	 * i.e. no UNKNOWN node that is not undecidable, diverging or explored. Closed subtrees are only visited
+	 * again by executions, which materialize the nodes on their path.
+	 *
+	 * @return true, if the subtree is open
+	 */
+	boolean evictClosed() {
+		boolean invalid = is_undecidable || is_diverging || is_explored;
+		if (children_stored) {
+			return false;
+		}
+		if (child_node_taken == null || child_node_not_taken == null) {
+			return !invalid && branching_node_attribute == BranchingNodeAttribute.UNKNOWN;
+		}
+		boolean open_taken = child_node_taken.evictClosed();
+		boolean open_not_taken = child_node_not_taken.evictClosed();
+		boolean open = !invalid && (open_taken || open_not_taken);
+		if (open || parent_node == null) {
+			if (!open_taken && !open_not_taken) {
+				evictChildren();
+			} else {
+				if (!open_taken) {
+					child_node_taken.evictChildren();
+				}
+				if (!open_not_taken) {
+					child_node_not_taken.evictChildren();
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Writes the subtree to the store and removes the children from the heap.
+	 */
+	private void evictChildren() {
+		if (children_stored || child_node_taken == null || child_node_not_taken == null) {
+			return;
+		}
+		int parent_record = parent_node != null ? parent_node.record : BranchingNodeStore.NONE;
+		long dropped = writeRecord(parent_record) - 1;
+		this.child_node_taken = null;
+		this.child_node_not_taken = null;
+		this.children_stored = true;
+		store.addHeapNodes(-dropped);
+		store.addEviction();
+	}
+
+	/**
+	 * Writes the record of this node and all descendants on the heap.
+	 *
+	 * @return Number of written nodes
+	 */
+	private long writeRecord(int parent_record) {
+		if (record == BranchingNodeStore.NONE) {
+			record = store.allocate();
+		}
+		long written = 1;
+		int child_taken = BranchingNodeStore.NONE;
+		int child_not_taken = BranchingNodeStore.NONE;
+		if (children_stored) {
+			child_taken = store.getChild(record, true);
+			child_not_taken = store.getChild(record, false);
+		} else if (child_node_taken != null && child_node_not_taken != null) {
+			written += child_node_taken.writeRecord(record);
+			written += child_node_not_taken.writeRecord(record);
+			child_taken = child_node_taken.record;
+			child_not_taken = child_node_not_taken.record;
+		}
+		writeOwnRecord(parent_record, child_taken, child_not_taken);
+		return written;
+	}
+
+	private void writeOwnRecord(int parent_record, int child_taken, int child_not_taken) {
+		if (predicate_offset == BranchingNodeStore.NONE && (symbolic_expression != null || source_code_expression != null)) {
+			predicate_offset = store.appendPredicate(source_code_expression, symbolic_expression);
+		}
+		int flags = (is_undecidable ? BranchingNodeStore.FLAG_UNDECIDABLE : 0) |
+				(is_diverging ? BranchingNodeStore.FLAG_DIVERGING : 0) |
+				(is_explored ? BranchingNodeStore.FLAG_EXPLORED : 0);
+		store.write(record, branching_node_attribute, flags, branch_identifier, parent_record, child_taken,
+					child_not_taken, depth, predicate_offset);
+	}
 }
@@ -0,0 +1,479 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.SymbolicNodeSerializer;
+import org.graalvm.collections.Pair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores nodes of the execution graph outside of the heap.
+ * <p>
+ * Every node is a fixed-size record in a memory-mapped file, the record identifier is its index.
+ * Predicates (symbolic expression and source code expression) are variable-sized and are appended
+ * to a second file, a record only contains the offset of its predicate. Recently used predicates are
+ * cached on the heap.
+ * <p>
+ * Record layout (32 bytes):
+ * <pre>
+ *  0 byte  attribute       8 int  parent         20 int  depth
+ *  1 byte  flags          12 int  child taken    24 long predicate offset
+ *  4 int   branch id      16 int  child not taken
+ * </pre>
+ * Missing references are -1. The store is not thread-safe.
+ */
+public class BranchingNodeStore {
+	public static final int NONE = -1;
+	public static final int FLAG_UNDECIDABLE = 1;
+	public static final int FLAG_DIVERGING = 2;
+	public static final int FLAG_EXPLORED = 4;
+
+	private static final BranchingNodeAttribute[] ATTRIBUTES = BranchingNodeAttribute.values();
+	private static final int RECORD_SIZE = 32;
+	private static final int SEGMENT_BITS = 20;
+	private static final int SEGMENT_RECORDS = 1 << SEGMENT_BITS;
+	private static final int OFFSET_ATTRIBUTE = 0;
+	private static final int OFFSET_FLAGS = 1;
+	private static final int OFFSET_BRANCH_IDENTIFIER = 4;
+	private static final int OFFSET_PARENT = 8;
+	private static final int OFFSET_CHILD_TAKEN = 12;
+	private static final int OFFSET_CHILD_NOT_TAKEN = 16;
+	private static final int OFFSET_DEPTH = 20;
+	private static final int OFFSET_PREDICATE = 24;
+
+	private final Path records_path;
+	private final Path predicates_path;
+	private final FileChannel records_channel;
+	private final FileChannel predicates_channel;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+	private int num_records = 0;
+	private long predicates_size = 0;
+	private final LinkedHashMap<Long, Pair<String, SymbolicNode>> predicate_cache;
+
+	// Number of nodes currently on the heap, maintained by BranchingNode
+	private long heap_nodes = 0;
+	private long evictions = 0;
+	private long materializations = 0;
+	private long predicate_cache_hits = 0;
+	private long predicate_cache_misses = 0;
+
+	/**
+	 * Creates a new store, existing files are replaced.
+	 *
+	 * @param path                 Path of the record file, predicates are written to the same path with suffix ".pred"
+	 * @param predicate_cache_size Number of predicates cached on the heap
+	 * @throws IOException If the files cannot be created
+	 */
+	public BranchingNodeStore(Path path, int predicate_cache_size) throws IOException {
+		this.records_path = path;
+		this.predicates_path = path.resolveSibling(path.getFileName() + ".pred");
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		this.records_channel = FileChannel.open(records_path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+												StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.predicates_channel = FileChannel.open(predicates_path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+												   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.predicate_cache = new LinkedHashMap<Long, Pair<String, SymbolicNode>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Pair<String, SymbolicNode>> eldest) {
+				return size() > predicate_cache_size;
+			}
+		};
+	}
+
+	/**
+	 * Allocates a new record, all references are initialized with -1.
+	 *
+	 * @return The record identifier
+	 */
+	public int allocate() {
+		int record = num_records;
+		int segment = record >>> SEGMENT_BITS;
+		if (segment == segments.size()) {
+			try {
+				segments.add(records_channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_RECORDS * RECORD_SIZE,
+												 (long) SEGMENT_RECORDS * RECORD_SIZE));
+			} catch (IOException ioe) {
+				throw new UncheckedIOException("Cannot extend execution graph store '" + records_path + "'", ioe);
+			}
+		}
+		num_records++;
+		ByteBuffer buffer = segments.get(segment);
+		int base = position(record);
+		buffer.putInt(base + OFFSET_PARENT, NONE);
+		buffer.putInt(base + OFFSET_CHILD_TAKEN, NONE);
+		buffer.putInt(base + OFFSET_CHILD_NOT_TAKEN, NONE);
+		buffer.putLong(base + OFFSET_PREDICATE, NONE);
+		return record;
+	}
+
+	/**
+	 * Overwrites a record.
+	 */
+	public void write(int record, BranchingNodeAttribute attribute, int flags, int branch_identifier, int parent,
+					  int child_taken, int child_not_taken, int depth, long predicate) {
+		ByteBuffer buffer = segment(record);
+		int base = position(record);
+		buffer.put(base + OFFSET_ATTRIBUTE, (byte) attribute.ordinal());
+		buffer.put(base + OFFSET_FLAGS, (byte) flags);
+		buffer.putInt(base + OFFSET_BRANCH_IDENTIFIER, branch_identifier);
+		buffer.putInt(base + OFFSET_PARENT, parent);
+		buffer.putInt(base + OFFSET_CHILD_TAKEN, child_taken);
+		buffer.putInt(base + OFFSET_CHILD_NOT_TAKEN, child_not_taken);
+		buffer.putInt(base + OFFSET_DEPTH, depth);
+		buffer.putLong(base + OFFSET_PREDICATE, predicate);
+	}
+
+	public BranchingNodeAttribute getAttribute(int record) {
+		return ATTRIBUTES[segment(record).get(position(record) + OFFSET_ATTRIBUTE)];
+	}
+
+	public int getFlags(int record) {
+		return segment(record).get(position(record) + OFFSET_FLAGS);
+	}
+
+	public int getBranchIdentifier(int record) {
+		return segment(record).getInt(position(record) + OFFSET_BRANCH_IDENTIFIER);
+	}
+
+	public int getParent(int record) {
+		return segment(record).getInt(position(record) + OFFSET_PARENT);
+	}
+
+	public int getChild(int record, boolean taken) {
+		return segment(record).getInt(position(record) + (taken ? OFFSET_CHILD_TAKEN : OFFSET_CHILD_NOT_TAKEN));
+	}
+
+	public int getDepth(int record) {
+		return segment(record).getInt(position(record) + OFFSET_DEPTH);
+	}
+
+	public long getPredicateOffset(int record) {
+		return segment(record).getLong(position(record) + OFFSET_PREDICATE);
+	}
+
+	/**
+	 * Sets flags of a record and all stored descendants.
+	 *
+	 * @param record Root of the subtree
+	 * @param flags  Flags to set
+	 */
+	public void setFlagsInSubtree(int record, int flags) {
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = record;
+		while (top > 0) {
+			int current = stack[--top];
+			ByteBuffer buffer = segment(current);
+			int base = position(current);
+			buffer.put(base + OFFSET_FLAGS, (byte) (buffer.get(base + OFFSET_FLAGS) | flags));
+			for (int offset: new int[]{OFFSET_CHILD_TAKEN, OFFSET_CHILD_NOT_TAKEN}) {
+				int child = buffer.getInt(base + offset);
+				if (child != NONE) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					stack[top++] = child;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends a predicate.
+	 *
+	 * @param source_code_expression Source code of the expression, may be null
+	 * @param expression             Symbolic expression, may be null
+	 * @return Offset of the predicate
+	 */
+	public long appendPredicate(String source_code_expression, SymbolicNode expression) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0);
+			out.writeBoolean(source_code_expression != null);
+			if (source_code_expression != null) {
+				SymbolicNodeSerializer.writeString(out, source_code_expression);
+			}
+			SymbolicNodeSerializer.write(out, expression);
+			out.flush();
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			buffer.putInt(0, buffer.capacity() - 4);
+			long offset = predicates_size;
+			while (buffer.hasRemaining()) {
+				predicates_size += predicates_channel.write(buffer, predicates_size);
+			}
+			predicate_cache.put(offset, Pair.create(source_code_expression, expression));
+			return offset;
+		} catch (IOException ioe) {
+			throw new UncheckedIOException("Cannot write predicate to '" + predicates_path + "'", ioe);
+		}
+	}
+
+	/**
+	 * Returns a predicate, from the cache if possible.
+	 *
+	 * @param offset Offset of the predicate
+	 * @return Source code expression (left) and symbolic expression (right), both may be null
+	 */
+	public Pair<String, SymbolicNode> getPredicate(long offset) {
+		Pair<String, SymbolicNode> predicate = predicate_cache.get(offset);
+		if (predicate != null) {
+			predicate_cache_hits++;
+			return predicate;
+		}
+		predicate_cache_misses++;
+		try {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			readFully(length, offset);
+			ByteBuffer content = ByteBuffer.allocate(length.getInt(0));
+			readFully(content, offset + 4);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array()));
+			String source_code_expression = in.readBoolean() ? SymbolicNodeSerializer.readString(in) : null;
+			predicate = Pair.create(source_code_expression, SymbolicNodeSerializer.read(in));
+		} catch (IOException ioe) {
+			throw new UncheckedIOException("Cannot read predicate from '" + predicates_path + "'", ioe);
+		}
+		predicate_cache.put(offset, predicate);
+		return predicate;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (predicates_channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	/**
+	 * Writes a stored subtree in the checkpoint format of {@link BranchingNode}, the predicates are
+	 * copied without deserializing them. The flags of a record have the same bits in the checkpoint.
+	 *
+	 * @param record Root of the subtree
+	 * @param out    Output
+	 * @return Number of written nodes
+	 * @throws IOException If the output or reading a predicate fails
+	 */
+	public int writeSubtree(int record, DataOutput out) throws IOException {
+		int size = 0;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = record;
+		while (top > 0) {
+			int current = stack[--top];
+			size++;
+			out.writeByte(getAttribute(current).ordinal());
+			out.writeByte(getFlags(current));
+			out.writeInt(getBranchIdentifier(current));
+			long predicate = getPredicateOffset(current);
+			if (predicate == NONE) {
+				out.writeBoolean(false);
+				SymbolicNodeSerializer.write(out, null);
+			} else {
+				ByteBuffer length = ByteBuffer.allocate(4);
+				readFully(length, predicate);
+				ByteBuffer content = ByteBuffer.allocate(length.getInt(0));
+				readFully(content, predicate + 4);
+				out.write(content.array());
+			}
+			int child_taken = getChild(current, true);
+			int child_not_taken = getChild(current, false);
+			boolean has_children = child_taken != NONE && child_not_taken != NONE;
+			out.writeBoolean(has_children);
+			if (has_children) {
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				// pre-order, the taken subtree is written first
+				stack[top++] = child_not_taken;
+				stack[top++] = child_taken;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Reads a subtree in the checkpoint format of {@link BranchingNode} into new records, the nodes
+	 * are not materialized.
+	 *
+	 * @param in     Input
+	 * @param parent Record of the parent node
+	 * @param depth  Depth of the root of the subtree
+	 * @param order  Receives null for every read node, to keep the checkpoint identifiers of the following nodes
+	 * @return Record of the root of the subtree
+	 * @throws IOException If the input fails or is malformed
+	 */
+	public int readSubtree(DataInput in, int parent, int depth, List<BranchingNode> order) throws IOException {
+		int root = NONE;
+		// parent record, taken flag (1 or 0) and depth of every pending node
+		int[] stack = new int[96];
+		int top = 0;
+		stack[top++] = parent;
+		stack[top++] = 1;
+		stack[top++] = depth;
+		while (top > 0) {
+			int current_depth = stack[--top];
+			boolean taken = stack[--top] == 1;
+			int current_parent = stack[--top];
+			int current = allocate();
+			order.add(null);
+			int attribute = in.readUnsignedByte();
+			if (attribute >= ATTRIBUTES.length) {
+				throw new IOException("Invalid node attribute " + attribute);
+			}
+			int flags = in.readUnsignedByte();
+			int branch_identifier = in.readInt();
+			String source_code_expression = in.readBoolean() ? SymbolicNodeSerializer.readString(in) : null;
+			SymbolicNode expression = SymbolicNodeSerializer.read(in);
+			long predicate = NONE;
+			if (source_code_expression != null || expression != null) {
+				predicate = appendPredicate(source_code_expression, expression);
+			}
+			write(current, ATTRIBUTES[attribute], flags, branch_identifier, current_parent, NONE, NONE, current_depth, predicate);
+			if (root == NONE) {
+				root = current;
+			} else {
+				segment(current_parent).putInt(position(current_parent) + (taken ? OFFSET_CHILD_TAKEN : OFFSET_CHILD_NOT_TAKEN), current);
+			}
+			if (in.readBoolean()) {
+				if (top + 6 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				// pre-order, the taken subtree is read first
+				stack[top++] = current;
+				stack[top++] = 0;
+				stack[top++] = current_depth + 1;
+				stack[top++] = current;
+				stack[top++] = 1;
+				stack[top++] = current_depth + 1;
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Counts the nodes of a stored subtree and adds them to the statistics.
+	 *
+	 * @param record     Root of the subtree
+	 * @param components Receives the number of nodes per attribute (only nodes reachable through BRANCH and LOOP), may be null
+	 * @return Number of nodes (left) and the maximum depth (right)
+	 */
+	public Pair<Integer, Integer> collectSubtree(int record, Map<BranchingNodeAttribute, Integer> components) {
+		int size = 0;
+		int height = 0;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = record;
+		while (top > 0) {
+			int current = stack[--top];
+			size++;
+			height = Math.max(height, getDepth(current));
+			BranchingNodeAttribute attribute = getAttribute(current);
+			if (components != null) {
+				components.put(attribute, components.get(attribute) + 1);
+			}
+			int child_taken = getChild(current, true);
+			int child_not_taken = getChild(current, false);
+			if (child_taken != NONE && child_not_taken != NONE) {
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = child_taken;
+				stack[top++] = child_not_taken;
+			}
+		}
+		return Pair.create(size, height);
+	}
+
+	void addHeapNodes(long count) {
+		this.heap_nodes += count;
+	}
+
+	void addEviction() {
+		this.evictions++;
+	}
+
+	void addMaterialization() {
+		this.materializations++;
+	}
+
+	/**
+	 * @return Estimated number of execution graph nodes on the heap
+	 */
+	public long getHeapNodes() {
+		return this.heap_nodes;
+	}
+
+	public long getPredicateCacheHits() {
+		return this.predicate_cache_hits;
+	}
+
+	public long getPredicateCacheMisses() {
+		return this.predicate_cache_misses;
+	}
+
+	public int getNumRecords() {
+		return this.num_records;
+	}
+
+	public String getStatisticsString() {
+		return "Execution graph store: " + num_records + " records, " + (predicates_size / 1024) + " KiB predicates, " +
+				heap_nodes + " nodes on heap, " + evictions + " evicted subtrees, " + materializations + " materializations\n";
+	}
+
+	/**
+	 * Closes the files, the store cannot be used afterwards.
+	 */
+	public void close() throws IOException {
+		for (MappedByteBuffer segment: segments) {
+			segment.force();
+		}
+		segments.clear();
+		records_channel.close();
+		predicates_channel.close();
+	}
+
+	private ByteBuffer segment(int record) {
+		return segments.get(record >>> SEGMENT_BITS);
+	}
+
+	private static int position(int record) {
+		return (record & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A persistent collection of input assignments.
+ * <p>
+ * An assignment maps the line number of an input variable to its value, so that assignments remain
+ * valid across runs (the variable identifiers are generated anew for every run). Corpus files and
+ * the results of earlier runs share the same format: every YAML document with a list "assignments"
+ * of entries with "line" and "value" contributes one assignment.
+ */
+public class Corpus {
+	private final Logger logger;
+	private final Path directory;
+	private final Set<Map<Integer, Object>> known = new HashSet<>();
+	private int num_saved = 0;
+
+	/**
+	 * @param lgr       Logger
+	 * @param directory Corpus directory, new assignments are saved here, may be null
+	 */
+	public Corpus(Logger lgr, Path directory) {
+		this.logger = lgr;
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads all files of the corpus directory.
+	 *
+	 * @return The assignments which were not known yet, in the order of the file names
+	 */
+	public List<Map<Integer, Object>> loadDirectory() {
+		List<Map<Integer, Object>> assignments = new ArrayList<>();
+		if (directory == null || !Files.isDirectory(directory)) {
+			return assignments;
+		}
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{yaml,yml}")) {
+			for (Path file: stream) {
+				files.add(file);
+			}
+		} catch (IOException ioe) {
+			logger.warning("Cannot list corpus directory '" + directory + "'. Reason: " + ioe.getMessage());
+		}
+		files.sort(null);
+		for (Path file: files) {
+			assignments.addAll(loadFile(file));
+		}
+		return assignments;
+	}
+
+	/**
+	 * Reads all assignments of a corpus file or a results file.
+	 *
+	 * @param file Path of the file
+	 * @return The assignments which were not known yet
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Map<Integer, Object>> loadFile(Path file) {
+		List<Map<Integer, Object>> assignments = new ArrayList<>();
+		Load load = new Load(LoadSettings.builder().build());
+		try (InputStream is = Files.newInputStream(file)) {
+			for (Object document: load.loadAllFromInputStream(is)) {
+				if (!(document instanceof Map) || !(((Map<String, Object>) document).get("assignments") instanceof List)) {
+					continue;
+				}
+				Map<Integer, Object> assignment = new HashMap<>();
+				for (Object variable: (List<Object>) ((Map<String, Object>) document).get("assignments")) {
+					if (variable instanceof Map && ((Map<String, Object>) variable).get("line") instanceof Integer) {
+						Map<String, Object> variable_map = (Map<String, Object>) variable;
+						assignment.put((Integer) variable_map.get("line"), variable_map.get("value"));
+					}
+				}
+				if (!assignment.isEmpty() && known.add(assignment)) {
+					assignments.add(assignment);
+				}
+			}
+		} catch (IOException | RuntimeException ex) {
+			logger.warning("Cannot read corpus file '" + file + "'. Reason: " + ex.getMessage());
+		}
+		return assignments;
+	}
+
+	/**
+	 * Saves an assignment as a new file in the corpus directory, unless it is already known.
+	 * The file is named after a hash of the assignment, so that runs sharing a corpus directory
+	 * do not overwrite each other and an assignment is never saved twice.
+	 *
+	 * @param assignment Values by line number
+	 * @param iteration  Iteration of the execution, written to the file
+	 * @return true, if the assignment was saved
+	 */
+	public boolean save(Map<Integer, Object> assignment, int iteration) {
+		if (directory == null || !known.add(assignment)) {
+			return false;
+		}
+		Path file = directory.resolve("input_" + hash(assignment) + ".yaml");
+		if (Files.exists(file)) {
+			return false;
+		}
+		List<Map<String, Object>> variables = new ArrayList<>();
+		for (Map.Entry<Integer, Object> entry: assignment.entrySet()) {
+			Map<String, Object> variable = new HashMap<>();
+			variable.put("line", entry.getKey());
+			variable.put("value", entry.getValue());
+			variables.add(variable);
+		}
+		Map<String, Object> document = new HashMap<>();
+		document.put("iteration", iteration);
+		document.put("assignments", variables);
+		ResultWriter writer = new ResultWriter(logger, file);
+		writer.write(document);
+		writer.close();
+		num_saved++;
+		return true;
+	}
+
+	/**
+	 * Hashes the lines, types and values of an assignment, independent of the iteration order of the map.
+	 *
+	 * @param assignment Values by line number
+	 * @return The first 16 hexadecimal digits of the SHA-256 hash
+	 */
+	private static String hash(Map<Integer, Object> assignment) {
+		StringBuilder content = new StringBuilder();
+		for (Map.Entry<Integer, Object> entry: new TreeMap<>(assignment).entrySet()) {
+			Object value = entry.getValue();
+			content.append(entry.getKey()).append(':');
+			content.append(value == null ? "null" : value.getClass().getSimpleName()).append(':');
+			content.append(value).append('\n');
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hex.append(String.format("%02x", digest[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException nsae) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(nsae);
+		}
+	}
+
+	public int getNumSaved() {
+		return this.num_saved;
+	}
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+}
@@ -18,100 +18,216 @@ package org.fuzzingtool.core.components;
 
 import org.fuzzingtool.core.Logger;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
+/**
+ * Cumulative coverage of all concolic executions.
+ * <p>
+ * Statements, roots and branches are identified by their source relative identifier
+ * (see FuzzingNode#getSourceRelativeIdentifier). Every identifier is mapped to a dense index once,
+ * the instrumentation nodes keep the index and record hits in flat bitmaps. The numbers of loaded and
+ * covered elements are counted incrementally, so a snapshot does not iterate over the bitmaps.
+ * <p>
+ * In addition, the branches taken by an execution are recorded in an AFL-style hit-count map of edges.
+ * An edge is the transition between two consecutive branch decisions.
+ */
 public class Coverage {
 	public final Logger logger;
-	private final Map<Integer, Boolean> covered_statements = new HashMap<>();
-	private final Map<Integer, Boolean> covered_roots = new HashMap<>();
-	// BitSet[0] -> branch taken, BitSet[1] -> branch not taken
-	private final Map<Integer, BitSet> covered_branches = new HashMap<>();
+	final Elements statements = new Elements(1);
+	final Elements roots = new Elements(1);
+	// Bit 2 * index -> branch taken, bit 2 * index + 1 -> branch not taken
+	final Elements branches = new Elements(2);
+
+	// Edges
+	private static final int EDGE_MAP_SIZE = 1 << 16;
+	private final byte[] edge_trace = new byte[EDGE_MAP_SIZE];
+	private final byte[] edge_virgin = new byte[EDGE_MAP_SIZE];
+	// Edges hit by the current execution, so that finishing an execution does not scan the whole map
+	private int[] touched_edges = new int[64];
+	private int num_touched_edges = 0;
+	private int previous_location = 0;
+	private int num_edges = 0;
+	private boolean last_execution_novel = false;
 
-	// Snapshots
-	private final List<Double> root_coverage = new ArrayList<>();
-	private final List<Double> statement_coverage = new ArrayList<>();
-	private final List<Double> branch_coverage = new ArrayList<>();
+	// Snapshots, only the most recent ones are kept in memory (the complete history is in the results file)
+	private static final int MAX_SNAPSHOTS = 1000;
+	private final ArrayDeque<Snapshot> snapshots = new ArrayDeque<>();
+	private int num_snapshots = 0;
 
 	private static final double THRESHOLD = .000001;
 
 	public Coverage(Logger lgr) {
 		this.logger = lgr;
+		Arrays.fill(edge_virgin, (byte) 0xff);
 	}
 
-	public void registerStatement(Integer id) {
-		covered_statements.putIfAbsent(id, false);
+	/**
+	 * Returns the dense index of a statement, a new index is assigned on the first request.
+	 *
+	 * @param id Source relative identifier
+	 * @return The index, -1 for the identifier 0 (no source available)
+	 */
+	public int getStatementIndex(int id) {
+		return statements.index(id);
 	}
 
-	public void addStatementCovered(Integer id) {
-		covered_statements.put(id, true);
+	public int getRootIndex(int id) {
+		return roots.index(id);
 	}
 
-	public void registerBranch(Integer id) {
-		covered_branches.putIfAbsent(id, new BitSet(2));
+	public int getBranchIndex(int id) {
+		return branches.index(id);
 	}
 
-	public void addBranchTaken(Integer id, Boolean taken) {
-		if (taken) {
-			covered_branches.get(id).set(0);
-		} else {
-			covered_branches.get(id).set(1);
-		}
+	public void registerStatement(int id) {
+		statements.register(statements.index(id));
 	}
 
-	public void registerRoot(Integer id) {
-		covered_roots.putIfAbsent(id, false);
+	public void registerBranch(int id) {
+		branches.register(branches.index(id));
 	}
 
-	public void addRootCovered(Integer id) {
-		covered_roots.put(id, true);
+	public void registerRoot(int id) {
+		roots.register(roots.index(id));
 	}
 
-	public void saveSnapshot() {
-		// Cleanup
-		covered_roots.remove(0);
-		covered_statements.remove(0);
-		covered_branches.remove(0);
-
-		// Root Coverage
-		int covered = 0;
-		int loaded = 0;
-		for (Map.Entry<Integer, Boolean> entry: covered_roots.entrySet()) {
-			loaded++;
-			if (entry.getValue()) {
-				covered++;
+	public void addStatementCovered(int index) {
+		statements.cover(index, 0);
+	}
+
+	public void addRootCovered(int index) {
+		roots.cover(index, 0);
+	}
+
+	public void addBranchTaken(int index, boolean taken) {
+		if (index < 0) {
+			return;
+		}
+		branches.cover(index, taken ? 0 : 1);
+		int location = 2 * index + (taken ? 0 : 1);
+		// Scramble the location, so that edges of neighbouring branches do not collide
+		location = (location * 0x9e3779b1) >>> 16;
+		int edge = (location ^ previous_location) & (EDGE_MAP_SIZE - 1);
+		if (edge_trace[edge] == 0) {
+			if (num_touched_edges == touched_edges.length) {
+				touched_edges = Arrays.copyOf(touched_edges, touched_edges.length * 2);
 			}
+			touched_edges[num_touched_edges++] = edge;
+		}
+		if (edge_trace[edge] != (byte) 0xff) {
+			edge_trace[edge]++;
 		}
-		root_coverage.add(100.0 * ((double) covered / (double) loaded));
+		previous_location = location >>> 1;
+	}
+
+	public boolean isStatementCovered(int index) {
+		return statements.isCovered(index, 0);
+	}
+
+	public boolean isRootCovered(int index) {
+		return roots.isCovered(index, 0);
+	}
+
+	public boolean isBranchTaken(int index, boolean taken) {
+		return branches.isCovered(index, taken ? 0 : 1);
+	}
 
-		// Statement Coverage
-		covered = 0;
-		loaded = 0;
-		for (Map.Entry<Integer, Boolean> entry: covered_statements.entrySet()) {
-			loaded++;
-			if (entry.getValue()) {
-				covered++;
+	/**
+	 * Compares the edges of the last execution with all edges seen so far and resets the edge trace.
+	 * Like in AFL, the hit-counts are classified into buckets (1, 2, 3, 4-7, 8-15, 16-31, 32-127, 128+),
+	 * an execution is novel if it takes a new edge or an edge with a new bucket.
+	 *
+	 * @return true, if the last execution is novel
+	 */
+	public boolean finishExecution() {
+		boolean novel = false;
+		for (int j = 0; j < num_touched_edges; j++) {
+			int i = touched_edges[j];
+			byte bucket = classify(edge_trace[i] & 0xff);
+			if ((bucket & edge_virgin[i]) != 0) {
+				if (edge_virgin[i] == (byte) 0xff) {
+					num_edges++;
+				}
+				edge_virgin[i] &= ~bucket;
+				novel = true;
 			}
+			edge_trace[i] = 0;
 		}
-		statement_coverage.add(100.0 * ((double) covered / (double) loaded));
+		this.num_touched_edges = 0;
+		this.previous_location = 0;
+		this.last_execution_novel = novel;
+		return novel;
+	}
+
+	private static byte classify(int hits) {
+		if (hits <= 3) {
+			return (byte) (1 << (hits - 1));
+		} else if (hits <= 7) {
+			return 8;
+		} else if (hits <= 15) {
+			return 16;
+		} else if (hits <= 31) {
+			return 32;
+		} else if (hits <= 127) {
+			return 64;
+		} else {
+			return (byte) 128;
+		}
+	}
+
+	/**
+	 * @return true, if the execution before the last snapshot took a new edge or an edge with a new hit-count
+	 */
+	public boolean isLastExecutionNovel() {
+		return last_execution_novel;
+	}
+
+	public double getRootPercentage() {
+		return roots.getPercentage();
+	}
+
+	public double getStatementPercentage() {
+		return statements.getPercentage();
+	}
+
+	public double getBranchPercentage() {
+		return branches.getPercentage();
+	}
 
-		// Branch Coverage
-		covered = 0;
-		loaded = 0;
-		for (Map.Entry<Integer, BitSet> entry: covered_branches.entrySet()) {
-			loaded += 2;
-			covered += entry.getValue().cardinality();
+	public int getNumEdges() {
+		return num_edges;
+	}
+
+	public void saveSnapshot() {
+		finishExecution();
+		num_snapshots++;
+		snapshots.addLast(new Snapshot(num_snapshots, roots.getPercentage(), statements.getPercentage(),
+									   branches.getPercentage(), num_edges));
+		if (snapshots.size() > MAX_SNAPSHOTS) {
+			snapshots.removeFirst();
 		}
-		branch_coverage.add(100.0 * ((double) covered / (double) loaded));
 	}
 
+	/**
+	 * Checks the coverage of the last snapshot against the given minimum.
+	 *
+	 * @return False if no snapshot was saved yet
+	 */
 	public boolean coverageReached(double min_root, double min_statement, double min_branch) {
-		return root_coverage.get(root_coverage.size() - 1) >= min_root - THRESHOLD &&
-				statement_coverage.get(statement_coverage.size() - 1) >= min_statement - THRESHOLD &&
-				branch_coverage.get(branch_coverage.size() - 1) >= min_branch - THRESHOLD;
+		if (snapshots.isEmpty()) {
+			return false;
+		}
+		Snapshot last = snapshots.getLast();
+		return last.root >= min_root - THRESHOLD &&
+				last.statement >= min_statement - THRESHOLD &&
+				last.branch >= min_branch - THRESHOLD;
 	}
 
 	/**
@@ -132,11 +248,14 @@ public class Coverage {
 		cov_str.append("-------------|---------|---------|----------|\n");
 		cov_str.append(" # Iteration | % Roots | % Stmts | % Branch |\n");
 		cov_str.append("-------------|---------|---------|----------|\n");
-		for (int i = 0; i < statement_coverage.size(); i++) {
-			String iter_str = String.format("%11d", i + 1);
-			String root_str = String.format("%7.1f", root_coverage.get(i));
-			String stmt_str = String.format("%7.1f", statement_coverage.get(i));
-			String branch_str = String.format("%8.1f", branch_coverage.get(i));
+		if (num_snapshots > snapshots.size()) {
+			cov_str.append(" (only the last ").append(snapshots.size()).append(" iterations are shown)\n");
+		}
+		for (Snapshot snapshot: snapshots) {
+			String iter_str = String.format("%11d", snapshot.iteration);
+			String root_str = String.format("%7.1f", snapshot.root);
+			String stmt_str = String.format("%7.1f", snapshot.statement);
+			String branch_str = String.format("%8.1f", snapshot.branch);
 			cov_str.append(" ").append(iter_str).append(" |");
 			cov_str.append(" ").append(root_str).append(" |");
 			cov_str.append(" ").append(stmt_str).append(" |");
@@ -148,22 +267,178 @@ public class Coverage {
 
 
 	/**
-	 * Returns an object representing a coverage snapshot.
+	 * Returns an object representing the last coverage snapshot.
 	 *
-	 * @param index Number of the iteration
-	 * @return A map representing coverage
+	 * @return A map representing coverage, empty if there is no snapshot
 	 */
-	public Map<String, Object> getCoverageObject(int index) {
+	public Map<String, Object> getCoverageObject() {
 		Map<String, Object> coverage_map = new HashMap<>();
-		if (index < root_coverage.size()) {
-			coverage_map.put("root", root_coverage.get(index));
+		Snapshot last = snapshots.peekLast();
+		if (last != null) {
+			coverage_map.put("root", last.root);
+			coverage_map.put("statement", last.statement);
+			coverage_map.put("branch", last.branch);
+			coverage_map.put("edges", last.edges);
+		}
+		return coverage_map;
+	}
+
+	/**
+	 * Writes the cumulative coverage for a checkpoint. The hit counts of the current
+	 * execution are not written, a checkpoint is always taken between two executions.
+	 *
+	 * @param out Output
+	 * @throws IOException If the output fails
+	 */
+	void writeState(DataOutput out) throws IOException {
+		statements.writeState(out);
+		roots.writeState(out);
+		branches.writeState(out);
+		out.write(edge_virgin);
+		out.writeInt(num_edges);
+		out.writeInt(num_snapshots);
+		Snapshot last = snapshots.peekLast();
+		out.writeBoolean(last != null);
+		if (last != null) {
+			out.writeInt(last.iteration);
+			out.writeDouble(last.root);
+			out.writeDouble(last.statement);
+			out.writeDouble(last.branch);
+			out.writeInt(last.edges);
+		}
+	}
+
+	/**
+	 * Restores the coverage written by {@link #writeState(DataOutput)}. Of the snapshots, only the last one is restored.
+	 *
+	 * @param in Input
+	 * @throws IOException If the input fails
+	 */
+	void readState(DataInput in) throws IOException {
+		statements.readState(in);
+		roots.readState(in);
+		branches.readState(in);
+		in.readFully(edge_virgin);
+		this.num_edges = in.readInt();
+		this.num_snapshots = in.readInt();
+		snapshots.clear();
+		if (in.readBoolean()) {
+			snapshots.addLast(new Snapshot(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(), in.readInt()));
 		}
-		if (index < statement_coverage.size()) {
-			coverage_map.put("statement", statement_coverage.get(index));
+	}
+
+	private static final class Snapshot {
+		final int iteration;
+		final double root;
+		final double statement;
+		final double branch;
+		final int edges;
+
+		Snapshot(int iteration, double root, double statement, double branch, int edges) {
+			this.iteration = iteration;
+			this.root = root;
+			this.statement = statement;
+			this.branch = branch;
+			this.edges = edges;
 		}
-		if (index < branch_coverage.size()) {
-			coverage_map.put("branch", branch_coverage.get(index));
+	}
+
+	/**
+	 * Coverage bitmaps of one kind of element. Every element occupies {@code width} consecutive bits.
+	 */
+	static final class Elements {
+		private final int width;
+		private final Map<Integer, Integer> indices = new HashMap<>();
+		private final BitSet registered = new BitSet();
+		final BitSet covered = new BitSet();
+		private int num_registered = 0;
+		private int num_covered = 0;
+
+		Elements(int width) {
+			this.width = width;
+		}
+
+		int index(int id) {
+			if (id == 0) {
+				return -1;
+			}
+			Integer index = indices.get(id);
+			if (index == null) {
+				index = indices.size();
+				indices.put(id, index);
+			}
+			return index;
+		}
+
+		void register(int index) {
+			if (index >= 0 && !registered.get(index)) {
+				registered.set(index);
+				num_registered += width;
+			}
+		}
+
+		/**
+		 * Covering an element also registers it.
+		 */
+		void cover(int index, int offset) {
+			if (index < 0) {
+				return;
+			}
+			register(index);
+			int bit = index * width + offset;
+			if (!covered.get(bit)) {
+				covered.set(bit);
+				num_covered++;
+			}
+		}
+
+		boolean isCovered(int index, int offset) {
+			return index >= 0 && covered.get(index * width + offset);
+		}
+
+		double getPercentage() {
+			return 100.0 * ((double) num_covered / (double) num_registered);
+		}
+
+		void writeState(DataOutput out) throws IOException {
+			out.writeInt(indices.size());
+			for (Map.Entry<Integer, Integer> entry: indices.entrySet()) {
+				out.writeInt(entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+			writeBitSet(out, registered);
+			writeBitSet(out, covered);
+			out.writeInt(num_registered);
+			out.writeInt(num_covered);
+		}
+
+		void readState(DataInput in) throws IOException {
+			indices.clear();
+			int num_indices = in.readInt();
+			for (int i = 0; i < num_indices; i++) {
+				indices.put(in.readInt(), in.readInt());
+			}
+			readBitSet(in, registered);
+			readBitSet(in, covered);
+			this.num_registered = in.readInt();
+			this.num_covered = in.readInt();
+		}
+
+		static void writeBitSet(DataOutput out, BitSet bits) throws IOException {
+			long[] words = bits.toLongArray();
+			out.writeInt(words.length);
+			for (long word: words) {
+				out.writeLong(word);
+			}
+		}
+
+		static void readBitSet(DataInput in, BitSet bits) throws IOException {
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = in.readLong();
+			}
+			bits.clear();
+			bits.or(BitSet.valueOf(words));
 		}
-		return coverage_map;
 	}
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Coverage of a single execution without symbolic tracing (hybrid mode).
+ * The trace is compared against the global {@link Coverage} to decide
+ * whether an input is worth a concolic execution. Elements are identified by
+ * their dense index in the global coverage.
+ */
+public class CoverageTrace {
+	private final BitSet statements = new BitSet();
+	private final BitSet roots = new BitSet();
+	// Bit 2 * index -> branch taken, bit 2 * index + 1 -> branch not taken
+	private final BitSet branches = new BitSet();
+
+	public void addStatementCovered(int index) {
+		if (index >= 0) {
+			statements.set(index);
+		}
+	}
+
+	public void addRootCovered(int index) {
+		if (index >= 0) {
+			roots.set(index);
+		}
+	}
+
+	public void addBranchTaken(int index, boolean taken) {
+		if (index >= 0) {
+			branches.set(2 * index + (taken ? 0 : 1));
+		}
+	}
+
+	public void clear() {
+		statements.clear();
+		roots.clear();
+		branches.clear();
+	}
+
+	/**
+	 * Checks if this trace contains coverage which is neither covered globally nor already pending.
+	 *
+	 * @param reference Coverage of all concolic executions so far
+	 * @param pending   Coverage of inputs that are already queued for a concolic execution
+	 * @return true, if the trace reaches something new
+	 */
+	public boolean isNovel(Coverage reference, CoverageTrace pending) {
+		return isNovel(statements, reference.statements.covered, pending.statements) ||
+				isNovel(roots, reference.roots.covered, pending.roots) ||
+				isNovel(branches, reference.branches.covered, pending.branches);
+	}
+
+	private static boolean isNovel(BitSet trace, BitSet reference, BitSet pending) {
+		BitSet novel = (BitSet) trace.clone();
+		novel.andNot(reference);
+		novel.andNot(pending);
+		return !novel.isEmpty();
+	}
+
+	/**
+	 * @return A copy of this trace
+	 */
+	public CoverageTrace copy() {
+		CoverageTrace copy = new CoverageTrace();
+		mergeInto(copy);
+		return copy;
+	}
+
+	void writeState(DataOutput out) throws IOException {
+		Coverage.Elements.writeBitSet(out, statements);
+		Coverage.Elements.writeBitSet(out, roots);
+		Coverage.Elements.writeBitSet(out, branches);
+	}
+
+	void readState(DataInput in) throws IOException {
+		Coverage.Elements.readBitSet(in, statements);
+		Coverage.Elements.readBitSet(in, roots);
+		Coverage.Elements.readBitSet(in, branches);
+	}
+
+	/**
+	 * Adds all entries of this trace to another trace.
+	 *
+	 * @param other The target trace
+	 */
+	public void mergeInto(CoverageTrace other) {
+		other.statements.or(statements);
+		other.roots.or(roots);
+		other.branches.or(branches);
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+/**
+ * Custom JDK Flight Recorder events of the fuzzer, so that iterations, solver queries and
+ * tactic phases can be correlated with GC, JIT and allocation events in a recording.
+ * <p>
+ * The event classes extend {@code jdk.jfr.Event} and are therefore compiled separately for Java 11
+ * ({@code src/main/java11}, profile "jfr" of the core module) and loaded reflectively. If they are
+ * missing or the running JVM provides no {@code jdk.jfr}, every method returns immediately.
+ * Events are only created if a recording of the respective event type is active.
+ * Events spanning a phase are started with a {@code begin} method, which returns an opaque
+ * handle (possibly null) that must be passed to the corresponding {@code end} method.
+ */
+public final class FlightRecorderEvents {
+	private static final String RECORDER_CLASS = "org.fuzzingtool.core.components.JfrRecorder";
+	private static final Recorder RECORDER = loadRecorder();
+	public static final boolean AVAILABLE = RECORDER != null;
+
+	private FlightRecorderEvents() {
+	}
+
+	private static Recorder loadRecorder() {
+		try {
+			Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+			Class<?> recorder_class = Class.forName(RECORDER_CLASS, true, FlightRecorderEvents.class.getClassLoader());
+			return (Recorder) recorder_class.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+			// Java 8 or the core module was built without the "jfr" profile
+			return null;
+		}
+	}
+
+	/**
+	 * Starts an iteration event, call immediately before the program is executed.
+	 *
+	 * @return Event handle, null if the event is not recorded
+	 */
+	public static Object beginIteration() {
+		return RECORDER == null ? null : RECORDER.beginIteration();
+	}
+
+	/**
+	 * Ends and commits an iteration event.
+	 *
+	 * @param handle          Handle from {@link #beginIteration()}
+	 * @param iteration       Number of the iteration
+	 * @param input_variables Number of input variables with an assigned value
+	 * @param input_size      Summed length of the textual representation of all input values
+	 * @param outcome         Outcome of the iteration, e.g. TERMINATE, ERROR or TIMEOUT
+	 * @param execution_time  Time spent executing the program in nanoseconds
+	 */
+	public static void endIteration(Object handle, int iteration, int input_variables, long input_size,
+									String outcome, long execution_time) {
+		if (handle != null) {
+			RECORDER.endIteration(handle, iteration, input_variables, input_size, outcome, execution_time);
+		}
+	}
+
+	/**
+	 * Starts a solver query event, call immediately before the solver is invoked.
+	 *
+	 * @return Event handle, null if the event is not recorded
+	 */
+	public static Object beginSolverQuery() {
+		return RECORDER == null ? null : RECORDER.beginSolverQuery();
+	}
+
+	/**
+	 * Ends and commits a solver query event.
+	 *
+	 * @param handle          Handle from {@link #beginSolverQuery()}
+	 * @param constraint_size Number of branch constraints in the path expression
+	 * @param variables       Number of variables in the model, 0 if the query is not satisfiable
+	 * @param status          Solver result
+	 * @param cache_hit       True, if the path expression was taken from the expression cache
+	 */
+	public static void endSolverQuery(Object handle, int constraint_size, int variables, String status,
+									  boolean cache_hit) {
+		if (handle != null) {
+			RECORDER.endSolverQuery(handle, constraint_size, variables, status, cache_hit);
+		}
+	}
+
+	/**
+	 * Starts an event for the search of an unexplored node.
+	 *
+	 * @return Event handle, null if the event is not recorded
+	 */
+	public static Object beginFindUnexplored() {
+		return RECORDER == null ? null : RECORDER.beginFindUnexplored();
+	}
+
+	/**
+	 * Ends and commits an event for the search of an unexplored node.
+	 *
+	 * @param handle        Handle from {@link #beginFindUnexplored()}
+	 * @param tactic        Name of the tactic
+	 * @param visited_nodes Number of nodes of the execution graph visited during the search
+	 * @param found         True, if an unexplored node was found
+	 */
+	public static void endFindUnexplored(Object handle, String tactic, long visited_nodes, boolean found) {
+		if (handle != null) {
+			RECORDER.endFindUnexplored(handle, tactic, visited_nodes, found);
+		}
+	}
+
+	/**
+	 * Commits a coverage snapshot event.
+	 *
+	 * @param iteration  Number of the iteration
+	 * @param root       Root coverage, between 0 and 100
+	 * @param statement  Statement coverage, between 0 and 100
+	 * @param branch     Branch coverage, between 0 and 100
+	 * @param edges      Number of distinct edges
+	 * @param novel      True, if the last iteration reached new edges
+	 */
+	public static void coverageSnapshot(int iteration, double root, double statement, double branch, int edges,
+										boolean novel) {
+		if (RECORDER != null) {
+			RECORDER.coverageSnapshot(iteration, root, statement, branch, edges, novel);
+		}
+	}
+
+	/**
+	 * Implemented by the Java 11 event classes, handles are only passed back if they are not null.
+	 */
+	interface Recorder {
+		Object beginIteration();
+
+		void endIteration(Object handle, int iteration, int input_variables, long input_size, String outcome,
+						  long execution_time);
+
+		Object beginSolverQuery();
+
+		void endSolverQuery(Object handle, int constraint_size, int variables, String status, boolean cache_hit);
+
+		Object beginFindUnexplored();
+
+		void endFindUnexplored(Object handle, String tactic, long visited_nodes, boolean found);
+
+		void coverageSnapshot(int iteration, double root, double statement, double branch, int edges, boolean novel);
+	}
+}
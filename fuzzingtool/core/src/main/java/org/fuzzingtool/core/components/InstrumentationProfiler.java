@@ -0,0 +1,427 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects statistics about the instrumentation, per node type and per source location.
+ * A source location is identified by the slot of the instrumented node (see {@link Tracer#newSlot()}).
+ * <p>
+ * The invocations count every instrumentation event of a node, including the events that only take the
+ * fast path. For every slow path, the profiler additionally accumulates the time spent, the symbolic nodes
+ * allocated by the {@link Tracer} and the operations on the intermediate results.
+ */
+public class InstrumentationProfiler {
+	// Events: is node executed, onEnter (E), onInputValue (I), OnReturn (R), onReturnExceptional (X), onUnwind (U), onDispose (D)
+	public static final int EVENT_EXECUTED = 0;
+	public static final int EVENT_ENTER = 1;
+	public static final int EVENT_INPUT_VALUE = 2;
+	public static final int EVENT_RETURN_VALUE = 3;
+	public static final int EVENT_RETURN_EXCEPTIONAL = 4;
+	public static final int EVENT_UNWIND = 5;
+	public static final int EVENT_DISPOSE = 6;
+
+	private static final int INITIAL_LOCATIONS = 1024;
+
+	private final Tracer tracer;
+	private boolean enabled = false;
+
+	// Node types
+	private final Map<String, Integer> type_ids = new HashMap<>();
+	private final List<String> type_names = new ArrayList<>();
+
+	// Locations, indexed by node slot
+	private int[] location_types;
+	private int[] location_lines;
+	private String[] location_sources;
+	private int[] location_events;
+	private long[] location_invocations;
+	private long[] location_nanos;
+	private long[] location_intermediate_operations;
+
+	// Counter at the beginning of the current slow path
+	private long begin_intermediate_operations = 0;
+	// False if the time of a slow path was not measured, e.g. while the time probe is sampling
+	private boolean timed = true;
+
+	public InstrumentationProfiler(Tracer tracer) {
+		this.tracer = tracer;
+		this.location_types = new int[INITIAL_LOCATIONS];
+		Arrays.fill(this.location_types, -1);
+		this.location_lines = new int[INITIAL_LOCATIONS];
+		this.location_sources = new String[INITIAL_LOCATIONS];
+		this.location_events = new int[INITIAL_LOCATIONS];
+		this.location_invocations = new long[INITIAL_LOCATIONS];
+		this.location_nanos = new long[INITIAL_LOCATIONS];
+		this.location_intermediate_operations = new long[INITIAL_LOCATIONS];
+	}
+
+	/**
+	 * The profiler is disabled by default, it is enabled with the logging option "profile".
+	 *
+	 * @param enabled True to collect the statistics
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return True if the instrumentation nodes should report to the profiler, fixed before the first node is created
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return False if the time of some slow paths was not measured, the times are incomplete then
+	 */
+	public boolean isTimed() {
+		return timed;
+	}
+
+	/**
+	 * Registers an instrumented node.
+	 *
+	 * @param slot      Slot of the instrumented node
+	 * @param node_type Name of the node type
+	 * @param line      Start line of the source section, -1 if there is none
+	 * @param source    Source code of the node, may be null
+	 */
+	public void registerLocation(int slot, String node_type, int line, String source) {
+		ensureCapacity(slot);
+		Integer type_id = type_ids.get(node_type);
+		if (type_id == null) {
+			type_id = type_names.size();
+			type_names.add(node_type);
+			type_ids.put(node_type, type_id);
+		}
+		location_types[slot] = type_id;
+		location_lines[slot] = line;
+		location_sources[slot] = source;
+	}
+
+	/**
+	 * Marks the beginning of a slow path. Has to be called after the switch into the state INSTRUMENTATION.
+	 * The symbolic nodes allocated until {@link #end(int, long)} are counted by the tracer for the slot.
+	 *
+	 * @param slot Slot of the instrumented node
+	 */
+	public void begin(int slot) {
+		if (!enabled) {
+			return;
+		}
+		tracer.setCurrentSlot(slot);
+		this.begin_intermediate_operations = tracer.getNumIntermediateOperations();
+	}
+
+	/**
+	 * Marks the end of a slow path and attributes all work since {@link #begin()} to the location.
+	 *
+	 * @param slot  Slot of the instrumented node
+	 * @param nanos Time spent in the slow path, as measured by the {@link TimeProbe}, or {@link TimeProbe#NOT_MEASURED}
+	 */
+	public void end(int slot, long nanos) {
+		if (!enabled) {
+			return;
+		}
+		if (nanos == TimeProbe.NOT_MEASURED) {
+			this.timed = false;
+		} else {
+			location_nanos[slot] += nanos;
+		}
+		location_intermediate_operations[slot] += tracer.getNumIntermediateOperations() - begin_intermediate_operations;
+		tracer.setCurrentSlot(Tracer.EMPTY_SLOT);
+	}
+
+	/**
+	 * Counts an instrumentation event of the location. Called on the fast path, before a slow path is taken.
+	 *
+	 * @param slot Slot of the instrumented node
+	 */
+	public void countEvent(int slot) {
+		location_invocations[slot]++;
+	}
+
+	/**
+	 * Records that an event was handled by the location.
+	 *
+	 * @param slot  Slot of the instrumented node
+	 * @param event One of the EVENT_* constants
+	 */
+	public void markEvent(int slot, int event) {
+		location_events[slot] |= 1 << event;
+	}
+
+	private void ensureCapacity(int slot) {
+		if (slot < location_types.length) {
+			return;
+		}
+		int old_length = location_types.length;
+		int new_length = Math.max(old_length * 2, slot + 1);
+		location_types = Arrays.copyOf(location_types, new_length);
+		Arrays.fill(location_types, old_length, new_length, -1);
+		location_lines = Arrays.copyOf(location_lines, new_length);
+		location_sources = Arrays.copyOf(location_sources, new_length);
+		location_events = Arrays.copyOf(location_events, new_length);
+		location_invocations = Arrays.copyOf(location_invocations, new_length);
+		location_nanos = Arrays.copyOf(location_nanos, new_length);
+		location_intermediate_operations = Arrays.copyOf(location_intermediate_operations, new_length);
+	}
+
+	/**
+	 * Aggregates the locations by node type.
+	 *
+	 * @return One entry per registered node type
+	 */
+	public List<Entry> getNodeTypeEntries() {
+		List<Entry> entries = new ArrayList<>();
+		for (String name: type_names) {
+			entries.add(new Entry(name, -1, -1, null));
+		}
+		for (int slot = 0; slot < location_types.length; slot++) {
+			if (location_types[slot] >= 0) {
+				entries.get(location_types[slot]).add(slot);
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * @return One entry per registered location
+	 */
+	public List<Entry> getLocationEntries() {
+		List<Entry> entries = new ArrayList<>();
+		for (int slot = 0; slot < location_types.length; slot++) {
+			if (location_types[slot] >= 0) {
+				Entry entry = new Entry(type_names.get(location_types[slot]), slot, location_lines[slot], location_sources[slot]);
+				entry.add(slot);
+				entries.add(entry);
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns a table of all node types, sorted descending by the given key.
+	 * If the times are incomplete (see {@link #isTimed()}), the time column is left out and
+	 * the table is sorted by invocations instead of time. If the profiler is disabled, only
+	 * the handled events are listed.
+	 *
+	 * @param sort_key Column to sort by
+	 * @return A string-representation of the statistics
+	 */
+	public String getNodeTypeString(SortKey sort_key) {
+		int NAME_WIDTH = 36;
+		List<Entry> entries = getNodeTypeEntries();
+		if (!enabled) {
+			sort_key = SortKey.NAME;
+		} else if (!timed && sort_key == SortKey.TIME) {
+			sort_key = SortKey.INVOCATIONS;
+		}
+		entries.sort(sort_key.comparator);
+		StringBuilder stat_str = new StringBuilder();
+		stat_str.append("===NODE INSTRUMENTATION INSIGHT===\n");
+		stat_str.append(String.format("%-" + NAME_WIDTH + "s", "NODE NAME")).append("E I R X  U D");
+		if (enabled) {
+			stat_str.append(String.format(Locale.US, " %12s %12s %10s %12s", "INVOCATIONS", "TIME (us)", "SYMBOLIC", "INTERMEDIATE"));
+		}
+		stat_str.append('\n');
+		for (Entry entry: entries) {
+			boolean executed = entry.hasEvent(EVENT_EXECUTED);
+			boolean instrumented = entry.hasEvent(EVENT_ENTER) || entry.hasEvent(EVENT_INPUT_VALUE) ||
+					entry.hasEvent(EVENT_RETURN_VALUE) || entry.hasEvent(EVENT_RETURN_EXCEPTIONAL);
+
+			String node_name = Logger.capBack(entry.node_type, NAME_WIDTH - 1);
+			node_name = String.format("%-" + NAME_WIDTH + "s", node_name);
+
+			if (executed) {
+				if (instrumented) {
+					stat_str.append(node_name);
+				} else {
+					stat_str.append("\033[41m").append(node_name).append("\033[0m");
+				}
+			} else {
+				stat_str.append("\033[43m").append(node_name).append("\033[0m");
+			}
+
+			stat_str.append(entry.hasEvent(EVENT_ENTER) ? "✔ " : "✗ ");
+			stat_str.append(entry.hasEvent(EVENT_INPUT_VALUE) ? "✔ " : "✗ ");
+			stat_str.append(entry.hasEvent(EVENT_RETURN_VALUE) ? "✔ " : "✗ ");
+			stat_str.append(entry.hasEvent(EVENT_RETURN_EXCEPTIONAL) ? "✔  " : "✗  ");
+			stat_str.append(entry.hasEvent(EVENT_UNWIND) ? "✔ " : "✗ ");
+			stat_str.append(entry.hasEvent(EVENT_DISPOSE) ? "✔" : "✗");
+			if (enabled) {
+				stat_str.append(String.format(Locale.US, " %12d %12s %10d %12d", entry.invocations,
+						timed ? Long.toString(entry.nanos / 1000) : "-", entry.symbolic_nodes, entry.intermediate_operations));
+			}
+			stat_str.append('\n');
+		}
+		return stat_str.toString();
+	}
+
+	/**
+	 * Writes the statistics as CSV files, one for the node types and one for the locations.
+	 *
+	 * @param node_types_path Output file for the node types
+	 * @param locations_path  Output file for the locations
+	 * @throws IOException If a file cannot be written
+	 */
+	public void saveCSV(Path node_types_path, Path locations_path) throws IOException {
+		writeCSV(node_types_path, getNodeTypeEntries(), false);
+		writeCSV(locations_path, getLocationEntries(), true);
+	}
+
+	private void writeCSV(Path path, List<Entry> entries, boolean with_location) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write(with_location ? "slot,line,node_type,events,invocations,nanos,symbolic_nodes,intermediate_operations,source" :
+								 "node_type,events,invocations,nanos,symbolic_nodes,intermediate_operations");
+			writer.newLine();
+			for (Entry entry: entries) {
+				StringBuilder line = new StringBuilder();
+				if (with_location) {
+					line.append(entry.slot).append(',').append(entry.line).append(',');
+				}
+				line.append(entry.node_type).append(',').append(entry.getEventString()).append(',');
+				line.append(entry.invocations).append(',').append(timed ? Long.toString(entry.nanos) : "").append(',');
+				line.append(entry.symbolic_nodes).append(',').append(entry.intermediate_operations);
+				if (with_location) {
+					String source = entry.source == null ? "" : entry.source;
+					line.append(",\"").append(source.replace("\"", "\"\"")).append('"');
+				}
+				writer.write(line.toString());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Writes the statistics of node types and locations into one JSON file.
+	 *
+	 * @param path Output file
+	 * @throws IOException If the file cannot be written
+	 */
+	public void saveJSON(Path path) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("{\"node_types\":[");
+			writeJSONEntries(writer, getNodeTypeEntries(), false);
+			writer.write("],\"locations\":[");
+			writeJSONEntries(writer, getLocationEntries(), true);
+			writer.write("]}");
+			writer.newLine();
+		}
+	}
+
+	private void writeJSONEntries(BufferedWriter writer, List<Entry> entries, boolean with_location) throws IOException {
+		boolean first = true;
+		for (Entry entry: entries) {
+			if (!first) {
+				writer.write(',');
+			}
+			first = false;
+			writer.newLine();
+			StringBuilder object = new StringBuilder("{");
+			if (with_location) {
+				object.append("\"slot\":").append(entry.slot).append(',');
+				object.append("\"line\":").append(entry.line).append(',');
+				if (entry.source != null) {
+					object.append("\"source\":\"").append(Logger.escapeJson(entry.source)).append("\",");
+				}
+			}
+			object.append("\"node_type\":\"").append(Logger.escapeJson(entry.node_type)).append("\",");
+			object.append("\"events\":\"").append(entry.getEventString()).append("\",");
+			object.append("\"invocations\":").append(entry.invocations).append(',');
+			object.append("\"nanos\":").append(timed ? Long.toString(entry.nanos) : "null").append(',');
+			object.append("\"symbolic_nodes\":").append(entry.symbolic_nodes).append(',');
+			object.append("\"intermediate_operations\":").append(entry.intermediate_operations).append('}');
+			writer.write(object.toString());
+		}
+	}
+
+	/**
+	 * Aggregated statistics of a node type or of a single location.
+	 */
+	public class Entry {
+		public final String node_type;
+		public final int slot;
+		public final int line;
+		public final String source;
+		private int events = 0;
+		public long invocations = 0;
+		public long nanos = 0;
+		public long symbolic_nodes = 0;
+		public long intermediate_operations = 0;
+
+		private Entry(String node_type, int slot, int line, String source) {
+			this.node_type = node_type;
+			this.slot = slot;
+			this.line = line;
+			this.source = source;
+		}
+
+		private void add(int location) {
+			this.events |= location_events[location];
+			this.invocations += location_invocations[location];
+			this.nanos += location_nanos[location];
+			this.symbolic_nodes += tracer.getNumSymbolicNodes(location);
+			this.intermediate_operations += location_intermediate_operations[location];
+		}
+
+		public boolean hasEvent(int event) {
+			return (events & (1 << event)) != 0;
+		}
+
+		/**
+		 * @return The handled events in the notation "EIRXUD", with '-' for events that were not handled
+		 */
+		public String getEventString() {
+			String symbols = "EIRXUD";
+			StringBuilder event_str = new StringBuilder();
+			for (int i = 0; i < symbols.length(); i++) {
+				event_str.append(hasEvent(i + 1) ? symbols.charAt(i) : '-');
+			}
+			return event_str.toString();
+		}
+	}
+
+	public enum SortKey {
+		NAME(Comparator.comparing((Entry e) -> e.node_type)),
+		INVOCATIONS(Comparator.comparingLong((Entry e) -> e.invocations).reversed()),
+		TIME(Comparator.comparingLong((Entry e) -> e.nanos).reversed()),
+		SYMBOLIC_NODES(Comparator.comparingLong((Entry e) -> e.symbolic_nodes).reversed()),
+		INTERMEDIATE_OPERATIONS(Comparator.comparingLong((Entry e) -> e.intermediate_operations).reversed());
+
+		private final Comparator<Entry> comparator;
+
+		SortKey(Comparator<Entry> comparator) {
+			this.comparator = comparator;
+		}
+	}
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import com.sun.net.httpserver.HttpServer;
+import org.fuzzingtool.core.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live metrics of a running campaign, readable while the fuzzer runs.
+ * <p>
+ * The values are written by the fuzzing thread (iterations, solver calls and the statistics pushed by
+ * {@link Amygdala#snapshot()}) and read by JMX or by the optional HTTP endpoint, which serves
+ * the Prometheus text format under {@code /metrics}.
+ */
+public class Metrics implements MetricsMBean {
+	public enum SolverResult {
+		SAT,
+		UNSAT,
+		UNKNOWN
+	}
+
+	private static final SolverResult[] SOLVER_RESULTS = SolverResult.values();
+	// Upper bounds of the solver latency buckets in seconds, the last bucket is +Inf
+	private static final double[] LATENCY_BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10};
+	// Iteration rate is measured over the last RATE_WINDOW iterations, at most RATE_WINDOW_NANOS
+	private static final int RATE_WINDOW = 64;
+	private static final long RATE_WINDOW_NANOS = 60_000_000_000L;
+
+	private final long start_time = System.nanoTime();
+	private TimeProbe probe = null;
+
+	// Iterations
+	private final AtomicLong iterations = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLongArray iteration_timestamps = new AtomicLongArray(RATE_WINDOW);
+	private final AtomicInteger executions_in_flight = new AtomicInteger();
+
+	// Solver
+	private final AtomicLongArray solver_calls = new AtomicLongArray(SOLVER_RESULTS.length);
+	private final AtomicLongArray solver_nanos = new AtomicLongArray(SOLVER_RESULTS.length);
+	private final AtomicLongArray solver_buckets = new AtomicLongArray(SOLVER_RESULTS.length * (LATENCY_BUCKETS.length + 1));
+
+	// Pushed after every iteration
+	private volatile long tree_size = 0;
+	private volatile long tree_height = 0;
+	private volatile long frontier_size = 0;
+	private volatile double coverage_root = 0;
+	private volatile double coverage_statement = 0;
+	private volatile double coverage_branch = 0;
+	private volatile long coverage_edges = 0;
+	private volatile long z3_cache_hits = 0;
+	private volatile long z3_cache_misses = 0;
+	private volatile long predicate_cache_hits = 0;
+	private volatile long predicate_cache_misses = 0;
+
+	private ObjectName mbean_name = null;
+	private HttpServer server = null;
+
+	public void setTimeProbe(TimeProbe tp) {
+		this.probe = tp;
+	}
+
+	public void executionStarted() {
+		executions_in_flight.incrementAndGet();
+	}
+
+	public void executionFinished() {
+		executions_in_flight.decrementAndGet();
+	}
+
+	public void iterationFinished(boolean successful) {
+		long count = iterations.incrementAndGet();
+		if (!successful) {
+			errors.incrementAndGet();
+		}
+		iteration_timestamps.set((int) ((count - 1) % RATE_WINDOW), System.nanoTime());
+	}
+
+	/**
+	 * Records a solver call.
+	 *
+	 * @param result Result of the call
+	 * @param nanos  Duration of the call in nanoseconds
+	 */
+	public void solverCall(SolverResult result, long nanos) {
+		int index = result.ordinal();
+		solver_calls.incrementAndGet(index);
+		solver_nanos.addAndGet(index, nanos);
+		double seconds = nanos / 1e9;
+		int bucket = 0;
+		while (bucket < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[bucket]) {
+			bucket++;
+		}
+		solver_buckets.incrementAndGet(index * (LATENCY_BUCKETS.length + 1) + bucket);
+	}
+
+	public void setTreeStatistics(long size, long height, long frontier) {
+		this.tree_size = size;
+		this.tree_height = height;
+		this.frontier_size = frontier;
+	}
+
+	public void setCoverage(double root, double statement, double branch, long edges) {
+		this.coverage_root = root;
+		this.coverage_statement = statement;
+		this.coverage_branch = branch;
+		this.coverage_edges = edges;
+	}
+
+	public void setCacheStatistics(long z3_hits, long z3_misses, long predicate_hits, long predicate_misses) {
+		this.z3_cache_hits = z3_hits;
+		this.z3_cache_misses = z3_misses;
+		this.predicate_cache_hits = predicate_hits;
+		this.predicate_cache_misses = predicate_misses;
+	}
+
+	/**
+	 * Registers the metrics as MBean "org.fuzzingtool:type=Metrics".
+	 *
+	 * @param logger Logger for errors
+	 */
+	public void registerMBean(Logger logger) {
+		try {
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("org.fuzzingtool:type=Metrics");
+			try {
+				mbs.registerMBean(this, name);
+			} catch (InstanceAlreadyExistsException iaee) {
+				mbs.unregisterMBean(name);
+				mbs.registerMBean(this, name);
+			}
+			this.mbean_name = name;
+			logger.info("Metrics registered as MBean '" + name + "'");
+		} catch (JMException jme) {
+			logger.warning("Cannot register metrics MBean. Reason: " + jme.getMessage());
+		}
+	}
+
+	/**
+	 * Starts the HTTP endpoint, the metrics are served under {@code /metrics}.
+	 *
+	 * @param host   Address to bind, usually "127.0.0.1"
+	 * @param port   Port to bind
+	 * @param logger Logger for errors
+	 */
+	public void startServer(String host, int port, Logger logger) {
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+			this.server.createContext("/metrics", exchange -> {
+				byte[] body = toPrometheus().getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream os = exchange.getResponseBody()) {
+					os.write(body);
+				}
+			});
+			this.server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "fuzzingtool-metrics");
+				thread.setDaemon(true);
+				return thread;
+			}));
+			this.server.start();
+			logger.info("Metrics are served at http://" + host + ":" + port + "/metrics");
+		} catch (IOException | IllegalArgumentException ex) {
+			logger.warning("Cannot start metrics endpoint on " + host + ":" + port + ". Reason: " + ex.getMessage());
+			this.server = null;
+		}
+	}
+
+	/**
+	 * Stops the HTTP endpoint and unregisters the MBean.
+	 */
+	public void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+		if (mbean_name != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbean_name);
+			} catch (JMException ignored) {
+				// Already unregistered
+			}
+			mbean_name = null;
+		}
+	}
+
+	@Override
+	public long getIterations() {
+		return iterations.get();
+	}
+
+	@Override
+	public double getIterationsPerSecond() {
+		long now = System.nanoTime();
+		long count = iterations.get();
+		int in_window = 0;
+		long oldest = now;
+		for (int i = 0; i < Math.min(count, RATE_WINDOW); i++) {
+			long timestamp = iteration_timestamps.get(i);
+			if (now - timestamp <= RATE_WINDOW_NANOS) {
+				in_window++;
+				oldest = Math.min(oldest, timestamp);
+			}
+		}
+		if (in_window == 0) {
+			return 0.0;
+		}
+		// A full window of recent iterations is measured from the oldest one, otherwise over the whole window
+		long span = in_window == RATE_WINDOW ? now - oldest : Math.min(RATE_WINDOW_NANOS, now - start_time);
+		return span > 0 ? in_window / (span / 1e9) : 0.0;
+	}
+
+	@Override
+	public int getExecutionsInFlight() {
+		return executions_in_flight.get();
+	}
+
+	@Override
+	public long getFrontierSize() {
+		return frontier_size;
+	}
+
+	@Override
+	public long getTreeSize() {
+		return tree_size;
+	}
+
+	@Override
+	public long getTreeHeight() {
+		return tree_height;
+	}
+
+	@Override
+	public long getSolverCallsSat() {
+		return solver_calls.get(SolverResult.SAT.ordinal());
+	}
+
+	@Override
+	public long getSolverCallsUnsat() {
+		return solver_calls.get(SolverResult.UNSAT.ordinal());
+	}
+
+	@Override
+	public long getSolverCallsUnknown() {
+		return solver_calls.get(SolverResult.UNKNOWN.ordinal());
+	}
+
+	@Override
+	public double getSolverMeanLatencyMillis() {
+		long calls = 0;
+		long nanos = 0;
+		for (int i = 0; i < SOLVER_RESULTS.length; i++) {
+			calls += solver_calls.get(i);
+			nanos += solver_nanos.get(i);
+		}
+		return calls > 0 ? nanos / 1e6 / calls : 0.0;
+	}
+
+	@Override
+	public double getZ3CacheHitRate() {
+		return hitRate(z3_cache_hits, z3_cache_misses);
+	}
+
+	@Override
+	public double getPredicateCacheHitRate() {
+		return hitRate(predicate_cache_hits, predicate_cache_misses);
+	}
+
+	@Override
+	public double getCoverageRoot() {
+		return coverage_root;
+	}
+
+	@Override
+	public double getCoverageStatement() {
+		return coverage_statement;
+	}
+
+	@Override
+	public double getCoverageBranch() {
+		return coverage_branch;
+	}
+
+	@Override
+	public long getCoverageEdges() {
+		return coverage_edges;
+	}
+
+	@Override
+	public long getHeapUsedBytes() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * @return Memory allocated by Z3 in bytes as estimated by Z3, -1 if the Z3 version does not provide it
+	 */
+	@Override
+	public long getZ3MemoryBytes() {
+		try {
+			return com.microsoft.z3.Native.getEstimatedAllocSize();
+		} catch (LinkageError le) {
+			return -1;
+		}
+	}
+
+	private static double hitRate(long hits, long misses) {
+		return hits + misses > 0 ? (double) hits / (double) (hits + misses) : 0.0;
+	}
+
+	/**
+	 * Returns all metrics in the Prometheus text exposition format.
+	 *
+	 * @return The metrics
+	 */
+	public String toPrometheus() {
+		StringBuilder out = new StringBuilder();
+		metric(out, "amygdala_iterations_total", "counter", "Completed concolic iterations", iterations.get());
+		metric(out, "amygdala_iteration_errors_total", "counter", "Iterations that ended with an error", errors.get());
+		metric(out, "amygdala_iterations_per_second", "gauge", "Iterations per second over the recent iterations", getIterationsPerSecond());
+		metric(out, "amygdala_executions_in_flight", "gauge", "Running executions (concolic and mutations)", executions_in_flight.get());
+		metric(out, "amygdala_frontier_size", "gauge", "UNKNOWN nodes in the execution graph", frontier_size);
+		metric(out, "amygdala_tree_size", "gauge", "Nodes in the execution graph", tree_size);
+		metric(out, "amygdala_tree_height", "gauge", "Height of the execution graph", tree_height);
+
+		header(out, "amygdala_solver_calls_total", "counter", "Solver calls by result");
+		for (SolverResult result: SOLVER_RESULTS) {
+			sample(out, "amygdala_solver_calls_total{result=\"" + label(result) + "\"}", solver_calls.get(result.ordinal()));
+		}
+		header(out, "amygdala_solver_latency_seconds", "histogram", "Latency of solver calls by result");
+		for (SolverResult result: SOLVER_RESULTS) {
+			long cumulative = 0;
+			int base = result.ordinal() * (LATENCY_BUCKETS.length + 1);
+			for (int i = 0; i <= LATENCY_BUCKETS.length; i++) {
+				cumulative += solver_buckets.get(base + i);
+				String le = i < LATENCY_BUCKETS.length ? String.valueOf(LATENCY_BUCKETS[i]) : "+Inf";
+				sample(out, "amygdala_solver_latency_seconds_bucket{result=\"" + label(result) + "\",le=\"" + le + "\"}", cumulative);
+			}
+			sample(out, "amygdala_solver_latency_seconds_sum{result=\"" + label(result) + "\"}", solver_nanos.get(result.ordinal()) / 1e9);
+			sample(out, "amygdala_solver_latency_seconds_count{result=\"" + label(result) + "\"}", solver_calls.get(result.ordinal()));
+		}
+
+		header(out, "amygdala_cache_hits_total", "counter", "Cache hits");
+		sample(out, "amygdala_cache_hits_total{cache=\"z3_path\"}", z3_cache_hits);
+		sample(out, "amygdala_cache_hits_total{cache=\"predicate\"}", predicate_cache_hits);
+		header(out, "amygdala_cache_misses_total", "counter", "Cache misses");
+		sample(out, "amygdala_cache_misses_total{cache=\"z3_path\"}", z3_cache_misses);
+		sample(out, "amygdala_cache_misses_total{cache=\"predicate\"}", predicate_cache_misses);
+
+		header(out, "amygdala_coverage_percent", "gauge", "Coverage in percent");
+		sample(out, "amygdala_coverage_percent{kind=\"root\"}", coverage_root);
+		sample(out, "amygdala_coverage_percent{kind=\"statement\"}", coverage_statement);
+		sample(out, "amygdala_coverage_percent{kind=\"branch\"}", coverage_branch);
+		metric(out, "amygdala_coverage_edges", "gauge", "Distinct edges of the edge map", coverage_edges);
+
+		if (probe != null) {
+			header(out, "amygdala_state_seconds_total", "counter", "Time spent per program state");
+			for (TimeProbe.ProgramState state: TimeProbe.ProgramState.values()) {
+				if (state != TimeProbe.ProgramState.STOP) {
+					sample(out, "amygdala_state_seconds_total{state=\"" + state.name().toLowerCase(Locale.ROOT) + "\"}", probe.getDuration(state) / 1e9);
+				}
+			}
+		}
+
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		metric(out, "amygdala_heap_used_bytes", "gauge", "Used heap memory", heap.getUsed());
+		metric(out, "amygdala_heap_committed_bytes", "gauge", "Committed heap memory", heap.getCommitted());
+		long z3_memory = getZ3MemoryBytes();
+		if (z3_memory >= 0) {
+			metric(out, "amygdala_z3_memory_bytes", "gauge", "Native memory allocated by Z3", z3_memory);
+		}
+		return out.toString();
+	}
+
+	private static String label(SolverResult result) {
+		return result.name().toLowerCase(Locale.ROOT);
+	}
+
+	private static void metric(StringBuilder out, String name, String type, String help, Number value) {
+		header(out, name, type, help);
+		sample(out, name, value);
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, Number value) {
+		out.append(name).append(' ');
+		if (value instanceof Double) {
+			out.append(String.format(Locale.US, "%.6f", value.doubleValue()));
+		} else {
+			out.append(value.longValue());
+		}
+		out.append('\n');
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+/**
+ * JMX view of the {@link Metrics} of a running campaign.
+ */
+public interface MetricsMBean {
+	long getIterations();
+
+	double getIterationsPerSecond();
+
+	int getExecutionsInFlight();
+
+	long getFrontierSize();
+
+	long getTreeSize();
+
+	long getTreeHeight();
+
+	long getSolverCallsSat();
+
+	long getSolverCallsUnsat();
+
+	long getSolverCallsUnknown();
+
+	double getSolverMeanLatencyMillis();
+
+	double getZ3CacheHitRate();
+
+	double getPredicateCacheHitRate();
+
+	double getCoverageRoot();
+
+	double getCoverageStatement();
+
+	double getCoverageBranch();
+
+	long getCoverageEdges();
+
+	long getHeapUsedBytes();
+
+	long getZ3MemoryBytes();
+}
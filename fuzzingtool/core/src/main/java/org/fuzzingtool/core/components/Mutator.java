@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Cheap, type-aware mutations of input assignments for the hybrid fuzzing mode.
+ * Seeds are the sample values from the configuration file and the models found by the solver.
+ */
+public class Mutator {
+	private static final int[] INTERESTING_INTEGERS = {0, 1, -1, 2, 16, 32, 64, 100, 127, 128, 255, 256, 1024,
+			Short.MAX_VALUE, Short.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+	private static final double[] INTERESTING_REALS = {0.0, -0.0, 0.5, -0.5, 1.0, -1.0, Double.MIN_VALUE,
+			Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+	private static final String STRING_ALPHABET = "abcxyzABC019 _-.,;:/\\\"'\n";
+
+	private final Random generator;
+
+	public Mutator(long seed) {
+		this.generator = new Random(seed);
+	}
+
+	/**
+	 * Derives a new assignment from a seed assignment. At least one variable is mutated.
+	 *
+	 * @param seed The seed assignment, is not modified
+	 * @return A new assignment
+	 */
+	public Map<VariableIdentifier, Object> mutate(Map<VariableIdentifier, Object> seed) {
+		Map<VariableIdentifier, Object> mutant = new HashMap<>(seed);
+		if (seed.isEmpty()) {
+			return mutant;
+		}
+		List<VariableIdentifier> identifiers = new ArrayList<>(seed.keySet());
+		int num_mutations = 1 + generator.nextInt(Math.min(identifiers.size(), 4));
+		for (int i = 0; i < num_mutations; i++) {
+			VariableIdentifier var_id = identifiers.get(generator.nextInt(identifiers.size()));
+			mutant.put(var_id, mutateValue(var_id, mutant.get(var_id)));
+		}
+		return mutant;
+	}
+
+	/**
+	 * Combines two seed assignments, every variable is taken from one of the two parents.
+	 *
+	 * @param first  The first seed
+	 * @param second The second seed
+	 * @return A new assignment
+	 */
+	public Map<VariableIdentifier, Object> splice(Map<VariableIdentifier, Object> first, Map<VariableIdentifier, Object> second) {
+		Map<VariableIdentifier, Object> child = new HashMap<>(first);
+		for (Map.Entry<VariableIdentifier, Object> entry: second.entrySet()) {
+			if (generator.nextBoolean()) {
+				child.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return child;
+	}
+
+	public int nextIndex(int bound) {
+		return generator.nextInt(bound);
+	}
+
+	/**
+	 * The state of {@link Random} cannot be read, therefore the generator is reseeded
+	 * with a value drawn from itself and the new seed is written.
+	 */
+	void writeState(DataOutput out) throws IOException {
+		long seed = generator.nextLong();
+		generator.setSeed(seed);
+		out.writeLong(seed);
+	}
+
+	void readState(DataInput in) throws IOException {
+		generator.setSeed(in.readLong());
+	}
+
+	private Object mutateValue(VariableIdentifier var_id, Object value) {
+		switch (var_id.getVariableType()) {
+			case BOOLEAN:
+				return value instanceof Boolean ? !((Boolean) value) : generator.nextBoolean();
+			case BIGINT:
+			case NUMBER_INTEGER:
+				return mutateInteger(value instanceof Number ? ((Number) value).intValue() : 0);
+			case NUMBER_REAL:
+				return mutateReal(value instanceof Number ? ((Number) value).doubleValue() : 0.0);
+			case STRING:
+				return mutateString(value != null ? value.toString() : "");
+			default:
+				return value;
+		}
+	}
+
+	private int mutateInteger(int value) {
+		switch (generator.nextInt(5)) {
+			case 0:
+				return value ^ (1 << generator.nextInt(31));
+			case 1:
+				return value + 1 + generator.nextInt(16);
+			case 2:
+				return value - 1 - generator.nextInt(16);
+			case 3:
+				return -value;
+			default:
+				return INTERESTING_INTEGERS[generator.nextInt(INTERESTING_INTEGERS.length)];
+		}
+	}
+
+	private double mutateReal(double value) {
+		switch (generator.nextInt(4)) {
+			case 0:
+				return value + generator.nextGaussian();
+			case 1:
+				return value * 2.0;
+			case 2:
+				return -value;
+			default:
+				return INTERESTING_REALS[generator.nextInt(INTERESTING_REALS.length)];
+		}
+	}
+
+	private String mutateString(String value) {
+		StringBuilder builder = new StringBuilder(value);
+		char random_char = STRING_ALPHABET.charAt(generator.nextInt(STRING_ALPHABET.length()));
+		switch (builder.length() == 0 ? 0 : generator.nextInt(4)) {
+			case 0:
+				builder.insert(generator.nextInt(builder.length() + 1), random_char);
+				break;
+			case 1:
+				builder.deleteCharAt(generator.nextInt(builder.length()));
+				break;
+			case 2:
+				builder.setCharAt(generator.nextInt(builder.length()), random_char);
+				break;
+			default:
+				builder.append(builder.toString());
+		}
+		return builder.toString();
+	}
+}
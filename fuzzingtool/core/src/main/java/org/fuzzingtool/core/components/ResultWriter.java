@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.snakeyaml.engine.v2.api.Dump;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+import org.snakeyaml.engine.v2.common.ScalarStyle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes the results as a stream of YAML documents, one document per iteration
+ * and a final document with the summary. Every document is flushed immediately,
+ * so the results of all finished iterations survive a crash of the fuzzer.
+ */
+public class ResultWriter {
+	private final Logger logger;
+	private final Dump dump;
+	private final Path path;
+	private final long offset;
+	private FileChannel channel = null;
+	private long length;
+	private boolean failed = false;
+
+	public ResultWriter(Logger lgr, Path path) {
+		this(lgr, path, -1);
+	}
+
+	/**
+	 * @param lgr    Logger
+	 * @param path   Path of the results file
+	 * @param offset Keep the first offset bytes of an existing file and append after them,
+	 *               e.g. when a campaign is resumed. A negative offset replaces the file.
+	 */
+	public ResultWriter(Logger lgr, Path path, long offset) {
+		this.logger = lgr;
+		this.path = path;
+		this.offset = offset;
+		this.length = Math.max(offset, 0);
+		DumpSettings settings =
+				DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).setDefaultScalarStyle(ScalarStyle.PLAIN)
+						.setExplicitStart(true).setExplicitEnd(true).build();
+		this.dump = new Dump(settings);
+	}
+
+	/**
+	 * Appends a document to the results file, the file is created on the first call.
+	 *
+	 * @param document Map representing the document
+	 */
+	public void write(Map<String, Object> document) {
+		if (failed) {
+			return;
+		}
+		try {
+			if (channel == null) {
+				open();
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(dump.dumpToString(document).getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				length += channel.write(buffer);
+			}
+		} catch (IOException ioe) {
+			logger.critical("Cannot write results to " + path + ". Reason: " + ioe.getMessage());
+			failed = true;
+		}
+	}
+
+	private void open() throws IOException {
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		if (offset < 0) {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+									   StandardOpenOption.TRUNCATE_EXISTING);
+			return;
+		}
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		long size = channel.size();
+		if (size < offset) {
+			logger.warning("Results file " + path + " is shorter than expected, appending at its end");
+			length = size;
+		} else if (size > offset) {
+			// Documents written after the offset are repeated by the resumed campaign
+			channel.truncate(offset);
+		}
+		channel.position(length);
+	}
+
+	/**
+	 * @return Number of bytes in the results file, including the kept part of a resumed file
+	 */
+	public long getLength() {
+		return this.length;
+	}
+
+	public Path getPath() {
+		return this.path;
+	}
+
+	public void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ioe) {
+				logger.warning("Cannot close results file " + path + ". Reason: " + ioe.getMessage());
+			}
+			channel = null;
+		}
+	}
+}
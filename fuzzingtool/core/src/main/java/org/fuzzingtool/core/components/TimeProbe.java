@@ -16,39 +16,196 @@
 
 package org.fuzzingtool.core.components;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Measures how much time the fuzzer spends in each {@link ProgramState}.
+ * <p>
+ * In the default (precise) mode every state transition reads {@link System#nanoTime()} and adds the
+ * elapsed time to a primitive array. In sampling mode a background thread periodically looks at the
+ * current state instead, so a transition only costs two field writes. The sampler measures the actual
+ * time since its previous sample and attributes it to the observed state, parking overshoots therefore
+ * do not distort the estimate. The time spent in the instrumentation is additionally attributed to the
+ * type of the instrumented node.
+ */
 public class TimeProbe {
-	private final Map<ProgramState, Long> durations;
+	/**
+	 * Returned by {@link #switchState(ProgramState, int)} if the duration of the previous state is not measured.
+	 */
+	public static final long NOT_MEASURED = -1;
+
+	private static final ProgramState[] STATES = ProgramState.values();
+	private static final int MAX_NODE_TYPES = 256;
+	// Bucket i contains durations in [2^(i-1), 2^i) nanoseconds
+	private static final int NUM_BUCKETS = 40;
+
+	private final long[] durations = new long[STATES.length];
 	private long iteration_duration = 0;
 
 	private long last_timestamp;
 	private long last_iteration_timestamp = 0;
-	private ProgramState current_state;
+	private volatile ProgramState current_state;
+	private volatile int current_node_type = -1;
 	private final boolean only_iteration;
 
+	// Node types
+	private final Map<String, Integer> node_type_ids = new HashMap<>();
+	private final List<String> node_type_names = new ArrayList<>();
+	private final long[] node_type_events = new long[MAX_NODE_TYPES];
+	private final long[] node_type_durations = new long[MAX_NODE_TYPES];
+	private final long[][] node_type_histograms = new long[MAX_NODE_TYPES][];
+
+	// Sampling
+	private Thread sampler = null;
+	private volatile boolean sampling = false;
+	private long sampling_period = 0;
+	// Time between two samples, attributed to the state observed by the later sample
+	private final long[] state_sampled_nanos = new long[STATES.length];
+	private final long[] node_type_sampled_nanos = new long[MAX_NODE_TYPES];
+
 	public TimeProbe(boolean only_iteration) {
 		this.last_timestamp = System.nanoTime();
 		this.current_state = ProgramState.MANAGE;
 		this.only_iteration = only_iteration;
+	}
 
-		this.durations = new HashMap<>();
-		this.durations.put(ProgramState.MANAGE, (long) 0);
-		this.durations.put(ProgramState.EXECUTION, (long) 0);
-		this.durations.put(ProgramState.INSTRUMENTATION, (long) 0);
-		this.durations.put(ProgramState.SOLVE, (long) 0);
-		this.durations.put(ProgramState.TACTIC, (long) 0);
+	/**
+	 * Switches to sampling mode. From now on, a background thread determines the current state
+	 * every {@code period_micros} microseconds and the state transitions do not read the clock anymore.
+	 * The durations measured so far are kept.
+	 *
+	 * @param period_micros Sampling period in microseconds
+	 */
+	public synchronized void startSampling(long period_micros) {
+		if (only_iteration || sampler != null || period_micros <= 0) {
+			return;
+		}
+		long time = System.nanoTime();
+		this.durations[current_state.ordinal()] += time - last_timestamp;
+		this.last_timestamp = time;
+		this.sampling_period = period_micros * 1000;
+		this.sampling = true;
+		this.sampler = new Thread(this::sampleLoop, "fuzzingtool-time-probe");
+		this.sampler.setDaemon(true);
+		this.sampler.start();
+	}
+
+	/**
+	 * Stops the sampling thread, the collected samples are kept.
+	 */
+	public synchronized void stopSampling() {
+		if (sampler == null) {
+			return;
+		}
+		this.sampling = false;
+		LockSupport.unpark(sampler);
+		try {
+			sampler.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		this.sampler = null;
+		// Back in precise mode, the sampled time must not be measured again
+		this.last_timestamp = System.nanoTime();
+	}
+
+	public boolean isSampling() {
+		return this.sampling;
+	}
+
+	private void sampleLoop() {
+		long last_sample = System.nanoTime();
+		while (sampling) {
+			LockSupport.parkNanos(sampling_period);
+			long time = System.nanoTime();
+			long elapsed = time - last_sample;
+			last_sample = time;
+			ProgramState state = current_state;
+			state_sampled_nanos[state.ordinal()] += elapsed;
+			int node_type = current_node_type;
+			if (state == ProgramState.INSTRUMENTATION && node_type >= 0) {
+				node_type_sampled_nanos[node_type] += elapsed;
+			}
+		}
+	}
+
+	/**
+	 * Registers a node type for the per-type measurement.
+	 *
+	 * @param name Name of the node type, e.g. the simple class name
+	 * @return The identifier of the node type, -1 if too many types are registered
+	 */
+	public synchronized int registerNodeType(String name) {
+		Integer id = node_type_ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		if (node_type_names.size() >= MAX_NODE_TYPES) {
+			return -1;
+		}
+		int new_id = node_type_names.size();
+		node_type_names.add(name);
+		node_type_histograms[new_id] = new long[NUM_BUCKETS];
+		node_type_ids.put(name, new_id);
+		return new_id;
 	}
 
 	public void switchState(ProgramState new_state) {
 		if (!only_iteration) {
+			if (sampling) {
+				this.current_node_type = -1;
+				this.current_state = new_state;
+			} else {
+				long time = System.nanoTime();
+				this.durations[current_state.ordinal()] += time - last_timestamp;
+				this.last_timestamp = time;
+				this.current_state = new_state;
+			}
+			if (new_state == ProgramState.STOP) {
+				stopSampling();
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #switchState(ProgramState)}, but time spent in the state INSTRUMENTATION
+	 * is also attributed to the given node type. In sampling mode single durations are not
+	 * measured, only the node type receives its share of the samples.
+	 *
+	 * @param new_state New state
+	 * @param node_type Node type identifier from {@link #registerNodeType(String)}
+	 * @return Time spent in the previous state in nanoseconds, {@link #NOT_MEASURED} while sampling or if
+	 * precise measurement is disabled
+	 */
+	public long switchState(ProgramState new_state, int node_type) {
+		if (only_iteration) {
+			return NOT_MEASURED;
+		}
+		ProgramState old_state = current_state;
+		if (sampling) {
+			this.current_node_type = node_type;
+			this.current_state = new_state;
+			if (old_state == ProgramState.INSTRUMENTATION && node_type >= 0) {
+				node_type_events[node_type]++;
+			}
+			return NOT_MEASURED;
+		} else {
 			long time = System.nanoTime();
 			long duration = time - last_timestamp;
-			this.durations.put(current_state, this.durations.get(current_state) + duration);
+			this.durations[old_state.ordinal()] += duration;
 			this.last_timestamp = time;
 			this.current_state = new_state;
+			if (old_state == ProgramState.INSTRUMENTATION && node_type >= 0) {
+				node_type_events[node_type]++;
+				node_type_durations[node_type] += duration;
+				node_type_histograms[node_type][bucket(duration)]++;
+			}
+			return duration;
 		}
 	}
 
@@ -61,9 +218,10 @@ public class TimeProbe {
 		long time = System.nanoTime();
 		this.last_iteration_timestamp = time;
 		if (!only_iteration) {
-			long duration = time - last_timestamp;
-			this.durations.put(current_state, this.durations.get(current_state) + duration);
-			this.last_timestamp = time;
+			if (!sampling) {
+				this.durations[current_state.ordinal()] += time - last_timestamp;
+				this.last_timestamp = time;
+			}
 			this.current_state = new_state;
 		}
 	}
@@ -77,9 +235,10 @@ public class TimeProbe {
 		long time = System.nanoTime();
 		this.iteration_duration = time - this.last_iteration_timestamp;
 		if (!only_iteration) {
-			long duration = time - last_timestamp;
-			this.durations.put(current_state, this.durations.get(current_state) + duration);
-			this.last_timestamp = time;
+			if (!sampling) {
+				this.durations[current_state.ordinal()] += time - last_timestamp;
+				this.last_timestamp = time;
+			}
 			this.current_state = new_state;
 		}
 	}
@@ -88,8 +247,73 @@ public class TimeProbe {
 		return this.iteration_duration;
 	}
 
+	/**
+	 * @param state A program state
+	 * @return Time spent in the state in nanoseconds, an estimate if sampling was used
+	 */
 	public long getDuration(ProgramState state) {
-		return this.durations.get(state);
+		return this.durations[state.ordinal()] + this.state_sampled_nanos[state.ordinal()];
+	}
+
+	/**
+	 * @param node_type Node type identifier
+	 * @return Time spent in the instrumentation of the node type in nanoseconds, an estimate if sampling was used
+	 */
+	public long getNodeTypeDuration(int node_type) {
+		return this.node_type_durations[node_type] + this.node_type_sampled_nanos[node_type];
+	}
+
+	/**
+	 * @param node_type Node type identifier
+	 * @return Number of measured instrumentation events of the node type
+	 */
+	public long getNodeTypeEvents(int node_type) {
+		return this.node_type_events[node_type];
+	}
+
+	/**
+	 * Returns the histogram of single instrumentation durations of a node type. Bucket {@code i}
+	 * counts durations shorter than {@code 2^i} nanoseconds. The histogram is empty in sampling mode.
+	 *
+	 * @param node_type Node type identifier
+	 * @return A copy of the histogram
+	 */
+	public long[] getNodeTypeHistogram(int node_type) {
+		return node_type_histograms[node_type].clone();
+	}
+
+	public synchronized List<String> getNodeTypeNames() {
+		return new ArrayList<>(node_type_names);
+	}
+
+	private static int bucket(long duration) {
+		return Math.min(64 - Long.numberOfLeadingZeros(duration), NUM_BUCKETS - 1);
+	}
+
+	/**
+	 * Approximates a percentile from a histogram by the upper bound of the respective bucket.
+	 *
+	 * @param histogram  Histogram with logarithmic buckets
+	 * @param percentile Percentile between 0 and 1
+	 * @return Upper bound in nanoseconds, 0 if the histogram is empty
+	 */
+	private static long percentile(long[] histogram, double percentile) {
+		long total = 0;
+		for (long count: histogram) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(total * percentile);
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= threshold) {
+				return 1L << i;
+			}
+		}
+		return 1L << (histogram.length - 1);
 	}
 
 	public enum ProgramState {
@@ -98,6 +322,7 @@ public class TimeProbe {
 		INSTRUMENTATION,
 		SOLVE,
 		TACTIC,
+		MUTATION,
 		STOP
 	}
 
@@ -107,17 +332,50 @@ public class TimeProbe {
 		if (only_iteration) {
 			duration_str.append("Precise measurement disabled\n");
 		} else {
+			if (sampling_period > 0) {
+				duration_str.append("Sampled every ").append(sampling_period / 1000).append("us\n");
+			}
 			long complete_duration = 0;
-			for (Map.Entry<ProgramState, Long> pair: this.durations.entrySet()) {
-				complete_duration += pair.getValue() / 1000000;
+			for (ProgramState state: STATES) {
+				if (state != ProgramState.STOP) {
+					complete_duration += getDuration(state) / 1000000;
+				}
 			}
-			for (Map.Entry<ProgramState, Long> pair: this.durations.entrySet()) {
-				duration_str.append(pair.getKey().toString()).append(": ");
-				duration_str.append(pair.getValue() / 1000000).append("ms ");
-				double percentage = ((double) (pair.getValue() / 1000000) / (double) complete_duration) * 100.0;
+			for (ProgramState state: STATES) {
+				if (state == ProgramState.STOP) {
+					continue;
+				}
+				long duration = getDuration(state) / 1000000;
+				duration_str.append(state.toString()).append(": ");
+				duration_str.append(duration).append("ms ");
+				double percentage = ((double) duration / (double) complete_duration) * 100.0;
 				duration_str.append("(").append(String.format(Locale.US, "%.1f", percentage)).append("%)\n");
 			}
+			appendNodeTypes(duration_str);
 		}
 		return duration_str.toString();
 	}
+
+	private void appendNodeTypes(StringBuilder duration_str) {
+		List<String> names = getNodeTypeNames();
+		if (names.isEmpty()) {
+			return;
+		}
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < names.size(); i++) {
+			if (node_type_events[i] > 0) {
+				order.add(i);
+			}
+		}
+		order.sort((a, b) -> Long.compare(getNodeTypeDuration(b), getNodeTypeDuration(a)));
+		duration_str.append("---INSTRUMENTATION BY NODE TYPE---\n");
+		duration_str.append(String.format(Locale.US, "%-40s %12s %12s %10s %10s\n", "Node type", "Events", "Time (us)", "p50 (ns)", "p99 (ns)"));
+		for (int id: order) {
+			long[] histogram = node_type_histograms[id];
+			duration_str.append(String.format(Locale.US, "%-40s %12d %12d %10s %10s\n", names.get(id), node_type_events[id],
+					getNodeTypeDuration(id) / 1000,
+					sampling_period > 0 ? "-" : "<" + percentile(histogram, 0.5),
+					sampling_period > 0 ? "-" : "<" + percentile(histogram, 0.99)));
+		}
+	}
 }
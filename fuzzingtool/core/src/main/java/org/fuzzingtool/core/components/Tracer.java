@@ -16,6 +16,8 @@
 
 package org.fuzzingtool.core.components;
 
+import org.apache.commons.collections4.map.AbstractReferenceMap.ReferenceStrength;
+import org.apache.commons.collections4.map.ReferenceIdentityMap;
 import org.apache.commons.text.RandomStringGenerator;
 import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.symbolic.ExpressionType;
@@ -30,33 +32,63 @@ import org.fuzzingtool.core.symbolic.logical.*;
 import org.fuzzingtool.core.symbolic.string.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 
 public class Tracer {
 	public final Logger logger;
-	// Saves intermediate results of all nodes
-	private final Map<Integer, SymbolicNode> intermediate_results = new HashMap<>();
+	// Saves intermediate results of all nodes. A result is either a SymbolicNode or, if no operand
+	// depends on an input variable, just the concrete value which is materialized when it is needed.
+	// Results are indexed by the slot of the node, an entry is only valid if its generation is current.
+	private Object[] intermediate_results = new Object[INITIAL_SLOTS];
+	private int[] intermediate_generations = new int[INITIAL_SLOTS];
+	private int generation = 1;
+	// Number of calls reading or writing intermediate results, used by the instrumentation profiler.
+	// Only the public entry points count, so that every access is counted once.
+	private long intermediate_operations = 0;
 
-	// Saves a symbolic representation of the entire program
-	private final Map<Integer, VariableContext> symbolic_program = new HashMap<>();
+	// Dense slot numbers of the instrumented nodes, handed out in creation order. The empty slot
+	// is never written, it stands for children without symbolic tracing.
+	public static final int EMPTY_SLOT = 0;
+	private int next_slot = EMPTY_SLOT + 1;
+	private static final int INITIAL_SLOTS = 1024;
 
-	// These two are for crossing function boundaries
-	private ArrayList<SymbolicNode> arguments_array = new ArrayList<>();
-	private SymbolicNode function_return_value;
+	// Symbolic nodes allocated during the instrumentation events of a node, indexed by its slot.
+	// Allocations outside of an event are attributed to the empty slot.
+	private long[] symbolic_nodes = new long[INITIAL_SLOTS];
+	private int current_slot = EMPTY_SLOT;
 
-	// Caching
-	public final Map<Integer, Integer> cached_scopes = new HashMap<>();
+	// Constants without a value are immutable and shared
+	private final Map<ExpressionType, SymbolicConstant> shared_constants = new EnumMap<>(ExpressionType.class);
 
-	private Integer js_global_object_id = 0;
+	// Saves a symbolic representation of the entire program (shadow heap). Contexts are keyed by
+	// the identity of their object or scope and are released when the object is garbage collected.
+	private final Map<Object, VariableContext> symbolic_program = new ReferenceIdentityMap<>(ReferenceStrength.WEAK, ReferenceStrength.HARD);
+
+	// These two are for crossing function boundaries, concrete values are not materialized
+	private ArrayList<Object> arguments_array = new ArrayList<>();
+	private Object function_return_value;
+	// Selective instrumentation: not every function sets arguments or return values
+	private boolean arguments_pending = false;
+	private boolean function_return_value_set = false;
+
+	private Object js_global_object = null;
+	// Immutable global objects, shared by all iterations
+	private VariableContext js_global_template = null;
 
 	private final HashSet<String> used_gids = new HashSet<>();
 	private final RandomStringGenerator gid_generator;
 
 	// Short-circuit evaluation
 	public final HashSet<Integer> logic_node_full_expression = new HashSet<>();
-	private Boolean no_side_effects_allowed = false;
+	private boolean no_side_effects_allowed = false;
+
+	// Selective instrumentation, names of properties and variables that were assigned a symbolic value
+	private boolean selective_instrumentation = false;
+	private final HashSet<String> symbolic_names = new HashSet<>();
 
 	public Tracer(Logger l) {
 		this.logger = l;
@@ -80,24 +112,82 @@ public class Tracer {
 		return this.no_side_effects_allowed;
 	}
 
-	public void setArgumentsArray(ArrayList<SymbolicNode> arguments) {
+	/**
+	 * With selective instrumentation, not all functions are instrumented. Values coming from
+	 * uninstrumented code are expected to be missing and are filled in with concrete values.
+	 *
+	 * @param value true, if selective instrumentation is enabled
+	 */
+	public void setSelectiveInstrumentation(boolean value) {
+		this.selective_instrumentation = value;
+	}
+
+	public void setArgumentsArray(ArrayList<Object> arguments) {
 		this.arguments_array = arguments;
+		this.arguments_pending = true;
+	}
+
+	/**
+	 * Marks the arguments array as used by a function call.
+	 *
+	 * @return true, if the arguments were set by the caller of the function, false if they are left over from an earlier call
+	 */
+	public boolean consumeArguments() {
+		boolean pending = this.arguments_pending;
+		this.arguments_pending = false;
+		return pending;
+	}
+
+	/**
+	 * @return true, if the arguments were set by the caller of the function and are not used by a function call yet
+	 */
+	public boolean hasPendingArguments() {
+		return this.arguments_pending;
+	}
+
+	/**
+	 * Removes stale arguments, used if a function is called from uninstrumented code.
+	 */
+	public void discardArguments() {
+		this.arguments_array = new ArrayList<>();
+		this.arguments_pending = false;
+	}
+
+	/**
+	 * @return true, if any of the current arguments depends on an input variable
+	 */
+	public boolean hasSymbolicArguments() {
+		return anySymbolic(this.arguments_array);
 	}
 
-	public void argumentToIntermediate(Integer argument_index, Integer node_id_intermediate) {
+	/**
+	 * Load a function argument to an intermediate result, used by AccessIndexedArgumentNode.
+	 *
+	 * @param argument_index Index of the argument
+	 * @param node_id_intermediate Slot of the intermediate result
+	 * @return true, if the argument exists
+	 */
+	public boolean argumentToIntermediate(int argument_index, int node_id_intermediate) {
+		intermediate_operations++;
 		assert argument_index >= 0;
 		if (argument_index >= this.arguments_array.size()) {
-			logger.warning("Tracer::argumentToIntermediate(): Argument index " + argument_index + " out of range");
+			if (!selective_instrumentation) {
+				if (logger.isWarningEnabled()) {
+					logger.warning("Tracer::argumentToIntermediate(): Argument index " + argument_index + " out of range");
+				}
+			}
+			return false;
 		}
-		this.intermediate_results.put(node_id_intermediate, this.arguments_array.get(argument_index));
+		putIntermediate(node_id_intermediate, this.arguments_array.get(argument_index));
+		return true;
 	}
 
 	// TODO handle "arguments" array
-	public void initializeFunctionScope(Integer context_key) {
+	public void initializeFunctionScope(Object context_key) {
 		VariableContext new_scope = new VariableContext();
-		new_scope.set("this", new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null));
-		new_scope.set("arguments", new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null));
-		symbolic_program.put(context_key, new_scope);
+		new_scope.set("this", sharedConstant(ExpressionType.OBJECT));
+		new_scope.set("arguments", sharedConstant(ExpressionType.OBJECT));
+		putContext(context_key, new_scope);
 	}
 
 	/**
@@ -105,24 +195,44 @@ public class Tracer {
 	 *
 	 * @param context_key Key for new variable context
 	 */
-	public void initializeIfAbsent(Integer context_key) {
-		symbolic_program.putIfAbsent(context_key, new VariableContext());
+	public void initializeIfAbsent(Object context_key) {
+		if (!symbolic_program.containsKey(context_key)) {
+			putContext(context_key, new VariableContext());
+		}
 	}
 
 	public void resetFunctionReturnValue() {
-		function_return_value = new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+		function_return_value = sharedConstant(ExpressionType.UNDEFINED);
+		function_return_value_set = false;
+	}
+
+	/**
+	 * @return true, if a return value was set since the last reset
+	 */
+	public boolean hasFunctionReturnValue() {
+		return this.function_return_value_set;
 	}
 
-	public void intermediateToFunctionReturnValue(Integer intermediate_key) {
-		if (intermediate_results.containsKey(intermediate_key)) {
-			this.function_return_value = intermediate_results.get(intermediate_key);
+	/**
+	 * @return true, if the current return value depends on an input variable
+	 */
+	public boolean isFunctionReturnValueSymbolic() {
+		return this.function_return_value_set && isSymbolicValue(this.function_return_value);
+	}
+
+	public void intermediateToFunctionReturnValue(int intermediate_key) {
+		intermediate_operations++;
+		if (hasIntermediate(intermediate_key)) {
+			this.function_return_value = rawIntermediate(intermediate_key);
+			this.function_return_value_set = true;
 		} else {
 			logger.critical("Tracer::setFunctionReturnValueFromIntermediate(): Trying to set return value to result from " + intermediate_key + " but it does not exist");
 		}
 	}
 
-	public void functionReturnValueToIntermediate(Integer intermediate_key) {
-		this.intermediate_results.put(intermediate_key, this.function_return_value);
+	public void functionReturnValueToIntermediate(int intermediate_key) {
+		intermediate_operations++;
+		putIntermediate(intermediate_key, this.function_return_value);
 	}
 
 	public String getNewGID() {
@@ -134,63 +244,91 @@ public class Tracer {
 		return new_gid;
 	}
 
-	public void setSymbolicContext(Integer context_key, VariableContext context) {
-		symbolic_program.put(context_key, context);
+	public void setSymbolicContext(Object context_key, VariableContext context) {
+		putContext(context_key, context);
 	}
 
-	public VariableContext getSymbolicContext(Integer context_key) {
+	public VariableContext getSymbolicContext(Object context_key) {
 		if (symbolic_program.containsKey(context_key)) {
 			return symbolic_program.get(context_key);
 		} else {
-			logger.critical("Tracer.getSymbolicContext(): Context with key " + context_key + " does not exist");
+			logger.critical("Tracer.getSymbolicContext(): Context " + describe(context_key) + " does not exist");
 			return null;
 		}
 	}
 
+	private void putContext(Object context_key, VariableContext context) {
+		if (context_key == null) {
+			logger.critical("Tracer::putContext(): Cannot save a context without object");
+			return;
+		}
+		symbolic_program.put(context_key, context);
+	}
+
+	private static String describe(Object context_key) {
+		if (context_key == null) {
+			return "null";
+		}
+		return context_key.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(context_key));
+	}
+
 	/**
 	 * Load a symbolic object property to an intermediate result, used by PropertyNode.
 	 *
-	 * @param context The object identifier, hashCode of input 0
+	 * @param context The object, result of input 0
 	 * @param key The attribute key
-	 * @param node_id_intermediate hashCode of the intermediate result of the PropertyNode
+	 * @param node_id_intermediate Slot of the intermediate result of the PropertyNode
+	 * @return true, if the context contains the property
 	 */
-	public void propertyToIntermediate(Integer context, Object key, Integer node_id_intermediate) {
+	public boolean propertyToIntermediate(Object context, Object key, int node_id_intermediate) {
+		intermediate_operations++;
 		if (symbolic_program.containsKey(context)) {
 			VariableContext var_ctx = symbolic_program.get(context);
 			try {
 				if (!var_ctx.hasProperty(key)) {
-					logger.warning("Tracer::propertyToIntermediate(): Context " + context + " has no property '" + key + "', returning JS.undefined");
+					if (selective_instrumentation) {
+						return false;
+					}
+					if (logger.isWarningEnabled()) {
+						logger.warning("Tracer::propertyToIntermediate(): Context " + describe(context) + " has no property '" + key + "', returning JS.undefined");
+					}
 				}
-				intermediate_results.put(node_id_intermediate, var_ctx.get(key));
+				putIntermediate(node_id_intermediate, var_ctx.getValue(key));
+				return true;
 			} catch (IllegalArgumentException iae) {
 				logger.critical(iae.getMessage());
 			}
-		} else {
-			logger.critical("Tracer::propertyToIntermediate(): No symbolic context " + context);
+		} else if (!selective_instrumentation) {
+			logger.critical("Tracer::propertyToIntermediate(): No symbolic context " + describe(context));
 		}
+		return false;
 	}
 
 	/**
 	 * Set an attribute of a symbolic object, used by WritePropertyNode.
 	 *
-	 * @param context The object identifier, hashCode of input 0
+	 * @param context The object, result of input 0
 	 * @param key The attribute key
-	 * @param node_id_intermediate hashCode of the intermediate result of the child node
+	 * @param node_id_intermediate Slot of the intermediate result of the child node
 	 */
-	public void intermediateToProperty(Integer context, Object key, Integer node_id_intermediate) {
-		if (intermediate_results.containsKey(node_id_intermediate)) {
+	public void intermediateToProperty(Object context, Object key, int node_id_intermediate) {
+		intermediate_operations++;
+		if (hasIntermediate(node_id_intermediate)) {
 			if (symbolic_program.containsKey(context)) {
 				VariableContext var_ctx = symbolic_program.get(context);
 				try {
-					var_ctx.set(key, intermediate_results.get(node_id_intermediate));
+					var_ctx.setValue(key, rawIntermediate(node_id_intermediate));
+					recordSymbolicName(key, node_id_intermediate);
 				} catch (IllegalArgumentException iae) {
 					logger.critical(iae.getMessage());
 				}
-			} else {
-				logger.critical("Tracer::intermediateToProperty(): Context " + context + " does not exist");
+			} else if (!selective_instrumentation) {
+				logger.critical("Tracer::intermediateToProperty(): Context " + describe(context) + " does not exist");
 			}
 		} else {
-			logger.critical("Tracer::intermediateToProperty(): No intermediate result for " + node_id_intermediate);
+			if (logger.isCriticalEnabled()) {
+				logger.critical("Tracer::intermediateToProperty(): No intermediate result for " + node_id_intermediate);
+			}
 		}
 	}
 
@@ -198,25 +336,30 @@ public class Tracer {
 	 * Read a symbolic variable from a function scope into an intermediate result.
 	 * This function is used by JSReadCurrentFrameSlotNodeGen and JSReadScopeFrameSlotNodeGen.
 	 *
-	 * @param function_scope Hash-Code of the function object
+	 * @param function_scope The function object of the scope
 	 * @param key The name of the variable
 	 * @param node_id_intermediate The ID of the new intermediate result
 	 * @return A boolean, indicating if the read was successful
 	 */
-	public boolean frameSlotToIntermediate(int function_scope, Object key, Integer node_id_intermediate) {
+	public boolean frameSlotToIntermediate(Object function_scope, Object key, int node_id_intermediate) {
+		intermediate_operations++;
 		if (symbolic_program.containsKey(function_scope)) {
 			VariableContext var_ctx = symbolic_program.get(function_scope);
 			try {
 				if (var_ctx.hasProperty(key)) {
-					intermediate_results.put(node_id_intermediate, var_ctx.get(key));
+					putIntermediate(node_id_intermediate, var_ctx.getValue(key));
 					return true;
 				}
 			} catch (IllegalArgumentException iae) {
 				logger.critical(iae.getMessage());
 			}
-			logger.critical("Tracer::frameSlotToIntermediate(): Function scope does not contain variable '" + key + "'");
-		} else {
-			logger.critical("Tracer::frameSlotToIntermediate(): No function scope " + function_scope + " found");
+			if (!selective_instrumentation) {
+				if (logger.isCriticalEnabled()) {
+					logger.critical("Tracer::frameSlotToIntermediate(): Function scope does not contain variable '" + key + "'");
+				}
+			}
+		} else if (!selective_instrumentation) {
+			logger.critical("Tracer::frameSlotToIntermediate(): No function scope " + describe(function_scope) + " found");
 		}
 		return false;
 	}
@@ -225,28 +368,49 @@ public class Tracer {
 	 * Writes an intermediate result to a frame slot (e.g. a variable).
 	 * Used by JSWriteCurrentFrameSlotNodeGen and JSWriteScopeFrameSlotNodeGen.
 	 *
-	 * @param function_scope Hash-Code of the function object
+	 * @param function_scope The function object of the scope
 	 * @param key The name of the variable
 	 * @param node_id_intermediate The key to the intermediate result.
 	 */
-	public void intermediateToFrameSlot(int function_scope, Object key, Integer node_id_intermediate) {
-		if (intermediate_results.containsKey(node_id_intermediate)) {
+	public void intermediateToFrameSlot(Object function_scope, Object key, int node_id_intermediate) {
+		intermediate_operations++;
+		if (hasIntermediate(node_id_intermediate)) {
 			if (symbolic_program.containsKey(function_scope)) {
 				VariableContext var_ctx = symbolic_program.get(function_scope);
 				try {
-					var_ctx.set(key, intermediate_results.get(node_id_intermediate));
+					var_ctx.setValue(key, rawIntermediate(node_id_intermediate));
+					recordSymbolicName(key, node_id_intermediate);
 				} catch (IllegalArgumentException iae) {
 					logger.critical(iae.getMessage());
 				}
-			} else {
-				logger.critical("Tracer::intermediateToFrameSlot(): Function scope " + function_scope + " does not exist");
+			} else if (!selective_instrumentation) {
+				logger.critical("Tracer::intermediateToFrameSlot(): Function scope " + describe(function_scope) + " does not exist");
 			}
 		} else {
-			logger.critical("Tracer::intermediateToFrameSlot(): No intermediate result for " + node_id_intermediate);
+			if (logger.isCriticalEnabled()) {
+				logger.critical("Tracer::intermediateToFrameSlot(): No intermediate result for " + node_id_intermediate);
+			}
 		}
 	}
 
-	public boolean containsVariable(int context, Object key) {
+	private void recordSymbolicName(Object key, int node_id_intermediate) {
+		if (selective_instrumentation && key instanceof String && isSymbolicIntermediate(node_id_intermediate)) {
+			symbolic_names.add((String) key);
+		}
+	}
+
+	/**
+	 * Checks if a property or variable with the given name was assigned a symbolic value.
+	 * Names are recorded only with selective instrumentation and are kept over all iterations.
+	 *
+	 * @param name Name of the property or variable
+	 * @return true, if a symbolic value was assigned to the name
+	 */
+	public boolean isSymbolicName(String name) {
+		return symbolic_names.contains(name);
+	}
+
+	public boolean containsVariable(Object context, Object key) {
 		if (symbolic_program.containsKey(context)) {
 			VariableContext var_ctx = symbolic_program.get(context);
 			try {
@@ -256,71 +420,226 @@ public class Tracer {
 			} catch (IllegalArgumentException iae) {
 				logger.critical(iae.getMessage());
 			}
-		} else {
-			logger.critical("Tracer::containsVariable(): No context " + context);
+		} else if (!selective_instrumentation) {
+			logger.critical("Tracer::containsVariable(): No context " + describe(context));
 		}
 		return false;
 	}
 
+	/**
+	 * Returns a new slot, called once by every instrumentation node. Slots are dense,
+	 * so they can be used as array indices for intermediate results.
+	 *
+	 * @return The slot of the node
+	 */
+	public int newSlot() {
+		return next_slot++;
+	}
+
+	public long getNumIntermediateOperations() {
+		return intermediate_operations;
+	}
+
+	/**
+	 * Sets the slot of the node whose instrumentation event is executing, all symbolic nodes
+	 * allocated from now on are attributed to it.
+	 *
+	 * @param slot The slot of the node, or {@link #EMPTY_SLOT} outside of an instrumentation event
+	 */
+	public void setCurrentSlot(int slot) {
+		if (slot >= symbolic_nodes.length) {
+			symbolic_nodes = Arrays.copyOf(symbolic_nodes, Math.max(symbolic_nodes.length * 2, slot + 1));
+		}
+		this.current_slot = slot;
+	}
+
+	/**
+	 * @param slot The slot of the node
+	 * @return The number of symbolic nodes allocated during the instrumentation events of the node
+	 */
+	public long getNumSymbolicNodes(int slot) {
+		return slot < symbolic_nodes.length ? symbolic_nodes[slot] : 0;
+	}
+
+	/**
+	 * Attributes a newly allocated symbolic node to the node that is currently executing.
+	 *
+	 * @param node The new symbolic node
+	 * @return The node itself
+	 */
+	public <T extends SymbolicNode> T counted(T node) {
+		symbolic_nodes[current_slot]++;
+		return node;
+	}
+
+	/**
+	 * Converts a value to a symbolic node, a new constant is counted like every other allocation.
+	 */
+	private SymbolicNode fromValue(Object value) {
+		if (value instanceof SymbolicNode) {
+			return (SymbolicNode) value;
+		}
+		return counted(SymbolicConstant.fromValue(value));
+	}
+
+	private boolean hasIntermediate(int node_id) {
+		return node_id < intermediate_generations.length && intermediate_generations[node_id] == generation;
+	}
+
+	private Object rawIntermediate(int node_id) {
+		return hasIntermediate(node_id) ? intermediate_results[node_id] : null;
+	}
+
+	private void putIntermediate(int node_id, Object value) {
+		if (node_id >= intermediate_results.length) {
+			int new_length = Math.max(intermediate_results.length * 2, node_id + 1);
+			intermediate_results = Arrays.copyOf(intermediate_results, new_length);
+			intermediate_generations = Arrays.copyOf(intermediate_generations, new_length);
+		}
+		intermediate_results[node_id] = SymbolicConstant.normalizeNumber(value);
+		intermediate_generations[node_id] = generation;
+	}
+
 	/**
 	 * Removes the intermediate result of the specified node.
 	 *
-	 * @param node_id The hash-code of the node
+	 * @param node_id The slot of the node
 	 */
-	public void removeIntermediate(Integer node_id) {
-		intermediate_results.remove(node_id);
+	public void removeIntermediate(int node_id) {
+		intermediate_operations++;
+		if (node_id < intermediate_generations.length) {
+			intermediate_generations[node_id] = 0;
+			intermediate_results[node_id] = null;
+		}
 	}
 
 	/**
-	 * Returns an intermediate results for a given node-hash.
+	 * Returns an intermediate results for a given node slot.
 	 *
-	 * @param node_id The hash-code of the node
+	 * @param node_id The slot of the node
 	 */
-	public SymbolicNode getIntermediate(Integer node_id) {
-		if (intermediate_results.containsKey(node_id)) {
-			assert intermediate_results.get(node_id) != null;
-			return intermediate_results.get(node_id);
+	public SymbolicNode getIntermediate(int node_id) {
+		intermediate_operations++;
+		if (hasIntermediate(node_id)) {
+			assert rawIntermediate(node_id) != null;
+			return materialize(node_id);
 		} else {
-			logger.critical("Tracer::getIntermediate(): Cannot get intermediate results for hash " + node_id);
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null);
+			if (logger.isCriticalEnabled()) {
+				logger.critical("Tracer::getIntermediate(): Cannot get intermediate results for slot " + node_id);
+			}
+			return sharedConstant(ExpressionType.INTERNAL_ERROR);
+		}
+	}
+
+	/**
+	 * Returns an intermediate result for a given node slot without converting a concrete value,
+	 * used where the value is only stored, e.g. as function argument or property.
+	 *
+	 * @param node_id The slot of the node
+	 * @return A SymbolicNode or a concrete value
+	 */
+	public Object getIntermediateValue(int node_id) {
+		intermediate_operations++;
+		if (hasIntermediate(node_id)) {
+			return rawIntermediate(node_id);
+		} else {
+			if (logger.isCriticalEnabled()) {
+				logger.critical("Tracer::getIntermediateValue(): Cannot get intermediate results for slot " + node_id);
+			}
+			return sharedConstant(ExpressionType.INTERNAL_ERROR);
+		}
+	}
+
+	/**
+	 * Checks if the intermediate result of a node depends on an input variable.
+	 *
+	 * @param node_id The slot of the node
+	 * @return true, if the intermediate result exists and is symbolic
+	 */
+	public boolean isSymbolic(int node_id) {
+		intermediate_operations++;
+		return isSymbolicIntermediate(node_id);
+	}
+
+	private boolean isSymbolicIntermediate(int node_id) {
+		return isSymbolicValue(rawIntermediate(node_id));
+	}
+
+	private static boolean isSymbolicValue(Object value) {
+		return value instanceof SymbolicNode && ((SymbolicNode) value).isSymbolic();
+	}
+
+	/**
+	 * Converts a concrete intermediate result to a symbolic constant, the result has to exist.
+	 *
+	 * @param node_id The slot of the node
+	 * @return The symbolic representation of the intermediate result
+	 */
+	private SymbolicNode materialize(int node_id) {
+		Object value = rawIntermediate(node_id);
+		if (value instanceof SymbolicNode) {
+			return (SymbolicNode) value;
+		}
+		SymbolicNode constant = fromValue(value);
+		putIntermediate(node_id, constant);
+		return constant;
+	}
+
+	private SymbolicConstant sharedConstant(ExpressionType t) {
+		SymbolicConstant constant = shared_constants.get(t);
+		if (constant == null) {
+			constant = counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, t, null));
+			shared_constants.put(t, constant);
 		}
+		return constant;
 	}
 
 	/**
-	 * Sets an intermediate result for a given node-hash.
+	 * Sets an intermediate result for a given node slot.
 	 *
-	 * @param node_target The hash-code of the node
+	 * @param node_target The slot of the node
 	 * @param expression The symbolic expression
 	 */
-	public void setIntermediate(Integer node_target, SymbolicNode expression) {
-		intermediate_results.put(node_target, expression);
+	public void setIntermediate(int node_target, SymbolicNode expression) {
+		intermediate_operations++;
+		putIntermediate(node_target, expression);
 	}
 
 	/**
 	 * Pass through an intermediate result from old node to new node.
 	 * The old result is not deleted.
 	 *
-	 * @param new_node_id        The hash-code of the new node
-	 * @param old_intermediate_result The hash-code of the old node
+	 * @param new_node_id        The slot of the new node
+	 * @param old_intermediate_result The slot of the old node
 	 */
-	public void passThroughIntermediate(Integer new_node_id, Integer old_intermediate_result) {
-		if (intermediate_results.containsKey(old_intermediate_result)) {
-			intermediate_results.put(new_node_id, intermediate_results.get(old_intermediate_result));
+	public void passThroughIntermediate(int new_node_id, int old_intermediate_result) {
+		intermediate_operations++;
+		if (hasIntermediate(old_intermediate_result)) {
+			putIntermediate(new_node_id, rawIntermediate(old_intermediate_result));
 		} else {
-			logger.critical("Tracer::passThroughIntermediate(): No intermediate result for key " + old_intermediate_result);
+			if (logger.isCriticalEnabled()) {
+				logger.critical("Tracer::passThroughIntermediate(): No intermediate result for key " + old_intermediate_result);
+			}
 		}
 	}
 
 	/**
-	 * Deletes all intermediate results from intermediate_results and the symbolic frame.
+	 * Invalidates all intermediate results and deletes the symbolic frame.
 	 * This should be used by terminate(), e.g. when the program restarts.
 	 */
 	public void clearAll() {
-		intermediate_results.clear();
+		// Invalidates all intermediate results at once and drops the objects of the last iteration,
+		// the generations are only cleared if the counter wraps around
+		generation++;
+		Arrays.fill(intermediate_results, null);
+		if (generation == 0) {
+			Arrays.fill(intermediate_generations, 0);
+			generation = 1;
+		}
 		symbolic_program.clear();
 		arguments_array.clear();
+		arguments_pending = false;
 		resetFunctionReturnValue();
-		cached_scopes.clear();
 		logic_node_full_expression.clear();
 	}
 
@@ -329,95 +648,105 @@ public class Tracer {
 	 *
 	 * @param ls The language semantic used to re-initialize the program context
 	 */
-	public void reset(LanguageSemantic ls, Integer global_object_id) {
+	public void reset(LanguageSemantic ls, Object global_object) {
 		clearAll();
-		initializeProgramContext(ls, global_object_id);
+		initializeProgramContext(ls, global_object);
 	}
 
 	/**
-	 * This function adds a new symbolic operation to the intermediate results of the given node-hash.
+	 * This function adds a new symbolic operation to the intermediate results of the given node slot.
 	 *
-	 * @param node_target   Node-hash of the new intermediate result
+	 * @param node_target   Slot of the new intermediate result
 	 * @param op            ExpressionType of Operation, see {@link Operation} for all available operation types
 	 * @param node_source_a Left-hand operator
 	 * @param node_source_b Right-hand operator
+	 * @param result        Concrete result of the operation, saved instead of the expression if no operand is symbolic
 	 */
-	public void addOperation(Integer node_target, LanguageSemantic s, Operation op, Integer node_source_a,
-							 Integer node_source_b) {
+	public void addOperation(int node_target, LanguageSemantic s, Operation op, int node_source_a,
+							 int node_source_b, Object result) {
+		intermediate_operations++;
 		// Handle short-circuit evaluation
 		if (op == Operation.AND || op == Operation.OR) {
-			if (!intermediate_results.containsKey(node_source_a) && !intermediate_results.containsKey(node_source_b)) {
+			if (!hasIntermediate(node_source_a) && !hasIntermediate(node_source_b)) {
 				logger.critical("Tracer::add_operation(): Trying to add operation " + op.toString() +
 										" but intermediate result from " + node_source_a + " and " + node_source_b +
 										" does not exist");
 				return;
 			}
-			if (!intermediate_results.containsKey(node_source_a)) {
+			if (!hasIntermediate(node_source_a)) {
 				logger.critical("Tracer::add_operation(): Trying to add operation " + op.toString() +
 										" but intermediate result from " + node_source_a +
 										" does not exist");
 				return;
 			}
-			if (!intermediate_results.containsKey(node_source_b)) {
+			if (!hasIntermediate(node_source_b)) {
 				logger.critical("Tracer::add_operation(): Trying to add operation " + op.toString() +
 										" but intermediate result from " + node_source_b +
 										" does not exist");
 				return;
 			}
-			SymbolicNode a = intermediate_results.getOrDefault(node_source_a, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, false));
-			SymbolicNode b = intermediate_results.getOrDefault(node_source_b, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, false));
+			if (!isSymbolicIntermediate(node_source_a) && !isSymbolicIntermediate(node_source_b)) {
+				putIntermediate(node_target, result);
+				return;
+			}
+			SymbolicNode a = materialize(node_source_a);
+			SymbolicNode b = materialize(node_source_b);
 			if (op == Operation.AND) {
-				intermediate_results.put(node_target, new And(s, a, b));
+				putIntermediate(node_target, counted(new And(s, a, b)));
 			} else {
-				intermediate_results.put(node_target, new Or(s, a, b));
+				putIntermediate(node_target, counted(new Or(s, a, b)));
 			}
 		} else {
-			if (intermediate_results.containsKey(node_source_a) && intermediate_results.containsKey(node_source_b)) {
-				SymbolicNode a = intermediate_results.get(node_source_a);
-				SymbolicNode b = intermediate_results.get(node_source_b);
+			if (hasIntermediate(node_source_a) && hasIntermediate(node_source_b)) {
+				if (!isSymbolicIntermediate(node_source_a) && !isSymbolicIntermediate(node_source_b)) {
+					putIntermediate(node_target, result);
+					return;
+				}
+				SymbolicNode a = materialize(node_source_a);
+				SymbolicNode b = materialize(node_source_b);
 				switch (op) {
 					case ADDITION:
-						intermediate_results.put(node_target, new Addition(s, a, b));
+						putIntermediate(node_target, counted(new Addition(s, a, b)));
 						break;
 					case SUBTRACTION:
-						intermediate_results.put(node_target, new Subtraction(s, a, b));
+						putIntermediate(node_target, counted(new Subtraction(s, a, b)));
 						break;
 					case MULTIPLICATION:
-						intermediate_results.put(node_target, new Multiplication(s, a, b));
+						putIntermediate(node_target, counted(new Multiplication(s, a, b)));
 						break;
 					case DIVISION:
-						intermediate_results.put(node_target, new Division(s, a, b));
+						putIntermediate(node_target, counted(new Division(s, a, b)));
 						break;
 					case MODULO:
-						intermediate_results.put(node_target, new Modulo(s, a, b));
+						putIntermediate(node_target, counted(new Modulo(s, a, b)));
 						break;
 					case EQUAL:
-						intermediate_results.put(node_target, new Equal(s, a, b));
+						putIntermediate(node_target, counted(new Equal(s, a, b)));
 						break;
 					case STRICT_EQUAL:
-						intermediate_results.put(node_target, new StrictEqual(s, a, b));
+						putIntermediate(node_target, counted(new StrictEqual(s, a, b)));
 						break;
 					case GREATER_EQUAL:
-						intermediate_results.put(node_target, new GreaterEqual(s, a, b));
+						putIntermediate(node_target, counted(new GreaterEqual(s, a, b)));
 						break;
 					case GREATER_THAN:
-						intermediate_results.put(node_target, new GreaterThan(s, a, b));
+						putIntermediate(node_target, counted(new GreaterThan(s, a, b)));
 						break;
 					case LESS_EQUAL:
-						intermediate_results.put(node_target, new LessEqual(s, a, b));
+						putIntermediate(node_target, counted(new LessEqual(s, a, b)));
 						break;
 					case LESS_THAN:
-						intermediate_results.put(node_target, new LessThan(s, a, b));
+						putIntermediate(node_target, counted(new LessThan(s, a, b)));
 						break;
 					default:
 						logger.critical("Tracer::add_operation(): Unknown operation " + op.toString());
 				}
 			} else {
-				if (!intermediate_results.containsKey(node_source_a) && !intermediate_results.containsKey(node_source_b)) {
+				if (!hasIntermediate(node_source_a) && !hasIntermediate(node_source_b)) {
 					logger.critical("Tracer::add_operation(): Trying to add operation " + op.toString() +
 											" but intermediate result from " + node_source_a + " and " + node_source_b +
 											" does not exist");
-				} else if (!intermediate_results.containsKey(node_source_a)) {
+				} else if (!hasIntermediate(node_source_a)) {
 					logger.critical("Tracer::add_operation(): Trying to add operation " + op.toString() +
 											" but intermediate result from " + node_source_a + " does not exist");
 				} else {
@@ -429,28 +758,34 @@ public class Tracer {
 	}
 
 	/**
-	 * This is an overloaded method of {@link #addOperation(Integer, LanguageSemantic, Operation, Integer, Integer)}
+	 * This is an overloaded method of {@link #addOperation(int, LanguageSemantic, Operation, int, int, Object)}
 	 * for unary operations.
 	 *
-	 * @param node_target Node-hash of the new intermediate result
+	 * @param node_target Slot of the new intermediate result
 	 * @param op          ExpressionType of Operation, see {@link Operation} for all available operation types
 	 * @param node_source child operator
+	 * @param result      Concrete result of the operation, saved instead of the expression if the operand is not symbolic
 	 */
-	public void addOperation(Integer node_target, LanguageSemantic s, Operation op, Integer node_source) {
-		if (intermediate_results.containsKey(node_source)) {
-			SymbolicNode k = intermediate_results.get(node_source);
+	public void addOperation(int node_target, LanguageSemantic s, Operation op, int node_source, Object result) {
+		intermediate_operations++;
+		if (hasIntermediate(node_source)) {
+			if (!isSymbolicIntermediate(node_source)) {
+				putIntermediate(node_target, result);
+				return;
+			}
+			SymbolicNode k = materialize(node_source);
 			switch (op) {
 				case NOT:
-					intermediate_results.put(node_target, new Not(s, k));
+					putIntermediate(node_target, counted(new Not(s, k)));
 					break;
 				case UNARY_MINUS:
-					intermediate_results.put(node_target, new UnaryMinus(s, k));
+					putIntermediate(node_target, counted(new UnaryMinus(s, k)));
 					break;
 				case UNARY_PLUS:
-					intermediate_results.put(node_target, new UnaryPlus(s, k));
+					putIntermediate(node_target, counted(new UnaryPlus(s, k)));
 					break;
 				case STR_LENGTH:
-					intermediate_results.put(node_target, new StringLength(s, k));
+					putIntermediate(node_target, counted(new StringLength(s, k)));
 					break;
 				default:
 					logger.critical("Tracer::add_operation(): Unknown operation " + op.toString());
@@ -464,73 +799,101 @@ public class Tracer {
 	/**
 	 * Add a new symbolic constant to the intermediate results of node_target.
 	 *
-	 * @param node_target The node-hash of the intermediate result
+	 * @param node_target The slot of the intermediate result
 	 * @param s           Semantic of the language
 	 * @param t           ExpressionType of the new constant value, see {@link ExpressionType}
 	 * @param v           Value of the constant, the value is automatically casted
 	 */
-	public void addConstant(Integer node_target, LanguageSemantic s, ExpressionType t, Object v) {
-		intermediate_results.put(node_target, new SymbolicConstant(s, t, v));
+	public void addConstant(int node_target, LanguageSemantic s, ExpressionType t, Object v) {
+		intermediate_operations++;
+		if (v == null && s == LanguageSemantic.JAVASCRIPT) {
+			putIntermediate(node_target, sharedConstant(t));
+		} else {
+			putIntermediate(node_target, counted(new SymbolicConstant(s, t, v)));
+		}
+	}
+
+	/**
+	 * Add a concrete value to the intermediate results of node_target. The value is
+	 * converted to a symbolic constant only if it is used in a symbolic expression.
+	 *
+	 * @param node_target The slot of the intermediate result
+	 * @param value       The concrete value
+	 */
+	public void addConcrete(int node_target, Object value) {
+		intermediate_operations++;
+		putIntermediate(node_target, value);
 	}
 
 	/**
 	 * Add a new symbolic variable to the intermediate results of node_target.
 	 *
-	 * @param node_target The node-hash of the intermediate result
+	 * @param node_target The slot of the intermediate result
 	 * @param s           Semantic of the language
 	 * @param id          VariableIdentifier of the new variable, see {@link VariableIdentifier}
 	 */
-	public void addVariable(Integer node_target, LanguageSemantic s, VariableIdentifier id) {
-		intermediate_results.put(node_target, new SymbolicVariable(s, id));
+	public void addVariable(int node_target, LanguageSemantic s, VariableIdentifier id) {
+		intermediate_operations++;
+		putIntermediate(node_target, counted(new SymbolicVariable(s, id)));
 	}
 
 	/**
 	 * Add a new operation for Strings
 	 *
-	 * @param node_target The node-hash of the intermediate result
+	 * @param node_target The slot of the intermediate result
 	 * @param s           Semantic of the language
+	 * @param result      Concrete result of the operation, saved instead of the expression if no operand is symbolic
 	 */
-	public void addStringOperation(Integer node_target, LanguageSemantic s, Integer operand_intermediate_id,
-								   ArrayList<SymbolicNode> arguments, Operation op) {
-		if (intermediate_results.containsKey(operand_intermediate_id)) {
-			SymbolicNode operand = intermediate_results.get(operand_intermediate_id);
+	public void addStringOperation(int node_target, LanguageSemantic s, int operand_intermediate_id,
+								   ArrayList<Object> arguments, Operation op, Object result) {
+		intermediate_operations++;
+		if (hasIntermediate(operand_intermediate_id)) {
+			if (!isSymbolicIntermediate(operand_intermediate_id) && !anySymbolic(arguments)) {
+				putIntermediate(node_target, result);
+				return;
+			}
+			SymbolicNode operand = materialize(operand_intermediate_id);
+			SymbolicNode[] symbolic_arguments = new SymbolicNode[arguments.size()];
+			for (int i = 0; i < symbolic_arguments.length; i++) {
+				symbolic_arguments[i] = fromValue(arguments.get(i));
+			}
 			switch (op) {
 				case STR_CONCAT:
-					for (SymbolicNode arg: arguments) {
-						operand = new Addition(s, operand, arg);
+					for (SymbolicNode arg: symbolic_arguments) {
+						operand = counted(new Addition(s, operand, arg));
 					}
-					intermediate_results.put(node_target, operand);
+					putIntermediate(node_target, operand);
 					break;
 				case STR_CHAR_AT:
 					assert arguments.size() == 1;
-					intermediate_results.put(node_target, new StringCharAt(LanguageSemantic.JAVASCRIPT, operand,
-																		   arguments.get(0)));
+					putIntermediate(node_target, counted(new StringCharAt(LanguageSemantic.JAVASCRIPT, operand,
+																		  symbolic_arguments[0])));
 					break;
 				case STR_SUBSTR:
 					assert arguments.size() == 1 || arguments.size() == 2;
 					if (arguments.size() == 1) {
-						intermediate_results.put(node_target, new StringSubstr(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0)));
+						putIntermediate(node_target, counted(new StringSubstr(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0])));
 					}
 					if (arguments.size() == 2) {
-						intermediate_results.put(node_target, new StringSubstr(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0), arguments.get(1)));
+						putIntermediate(node_target, counted(new StringSubstr(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0], symbolic_arguments[1])));
 					}
 					break;
 				case STR_INCLUDES:
 					assert arguments.size() == 1 || arguments.size() == 2;
 					if (arguments.size() == 1) {
-						intermediate_results.put(node_target, new StringIncludes(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0)));
+						putIntermediate(node_target, counted(new StringIncludes(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0])));
 					}
 					if (arguments.size() == 2) {
-						intermediate_results.put(node_target, new StringIncludes(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0), arguments.get(1)));
+						putIntermediate(node_target, counted(new StringIncludes(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0], symbolic_arguments[1])));
 					}
 					break;
 				case STR_INDEXOF:
 					assert arguments.size() == 1 || arguments.size() == 2;
 					if (arguments.size() == 1) {
-						intermediate_results.put(node_target, new StringIndexOf(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0)));
+						putIntermediate(node_target, counted(new StringIndexOf(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0])));
 					}
 					if (arguments.size() == 2) {
-						intermediate_results.put(node_target, new StringIndexOf(LanguageSemantic.JAVASCRIPT, operand, arguments.get(0), arguments.get(1)));
+						putIntermediate(node_target, counted(new StringIndexOf(LanguageSemantic.JAVASCRIPT, operand, symbolic_arguments[0], symbolic_arguments[1])));
 					}
 					break;
 				default:
@@ -545,52 +908,67 @@ public class Tracer {
 	/**
 	 * Add a new operation for Arrays
 	 *
-	 * @param node_target The node-hash of the intermediate result
+	 * @param node_target The slot of the intermediate result
 	 * @param s           Semantic of the language
+	 * @param result      Concrete result of the operation, saved instead of the expression if no operand is symbolic
 	 */
-	public void addArrayOperation(Integer node_target, LanguageSemantic s, Integer array_context,
-								   ArrayList<SymbolicNode> arguments, Operation op, long arr_length) {
+	public void addArrayOperation(int node_target, LanguageSemantic s, Object array_context,
+								   ArrayList<Object> arguments, Operation op, long arr_length, Object result) {
+		intermediate_operations++;
 		VariableContext symbolic_array = getSymbolicContext(array_context);
 		switch (op) {
 			case ARR_LENGTH:
 				assert arguments.size() == 1;
-				setIntermediate(node_target, new SymbolicConstant(s, ExpressionType.NUMBER_INTEGER, arr_length));
+				putIntermediate(node_target, counted(new SymbolicConstant(s, ExpressionType.NUMBER_INTEGER, arr_length)));
 				break;
 			case ARR_PUSH:
 				assert arguments.size() == 1;
 				// size - 1: element is already added, and index...
-				symbolic_array.set(arr_length - 1, arguments.get(0));
+				symbolic_array.setValue(arr_length - 1, arguments.get(0));
 				break;
 			case ARR_JOIN:
 				assert arguments.size() == 0 || arguments.size() == 1;
+				if (!anySymbolic(arguments) && !symbolic_array.anySymbolic()) {
+					putIntermediate(node_target, result);
+					break;
+				}
 
 				SymbolicNode spacer = null;
 				if (arguments.size() == 0) {
-					spacer = new SymbolicConstant(s, ExpressionType.STRING, ",");
+					spacer = counted(new SymbolicConstant(s, ExpressionType.STRING, ","));
 				}
 				if (arguments.size() == 1) {
-					spacer = arguments.get(0);
+					spacer = fromValue(arguments.get(0));
 				}
 
 				// forces string concatenation
 				SymbolicNode join_expression;
-				join_expression = new SymbolicConstant(s, ExpressionType.STRING, "");
+				join_expression = counted(new SymbolicConstant(s, ExpressionType.STRING, ""));
 				for (long i = 0; i < arr_length; i++) {
 					if (i == arr_length - 1) {
-						join_expression = new Addition(s, join_expression,
-													   symbolic_array.get(i));
+						join_expression = counted(new Addition(s, join_expression,
+															   fromValue(symbolic_array.getValue(i))));
 					} else {
-						SymbolicNode first_part = new Addition(s, join_expression, symbolic_array.get(i));
-						join_expression = new Addition(s, first_part, spacer);
+						SymbolicNode first_part = counted(new Addition(s, join_expression, fromValue(symbolic_array.getValue(i))));
+						join_expression = counted(new Addition(s, first_part, spacer));
 					}
 				}
-				setIntermediate(node_target, join_expression);
+				putIntermediate(node_target, join_expression);
 				break;
 			default:
 				logger.critical("Tracer::addArrayOperation(): Cannot process operation " + op.name());
 		}
 	}
 
+	private static boolean anySymbolic(ArrayList<Object> values) {
+		for (Object value: values) {
+			if (isSymbolicValue(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * This function provides functionality for operands that are called internally and
 	 * behave like functions e.g. Math.sqrt(x). It reads all input from {@link #arguments_array}
@@ -603,128 +981,139 @@ public class Tracer {
 		switch (op) {
 			case SQRT:
 				if (arguments_array.size() == 1) {
-					function_return_value = new SquareRoot(s, arguments_array.get(0));
+					function_return_value = counted(new SquareRoot(s, fromValue(arguments_array.get(0))));
 				} else {
 					logger.critical("Arguments for Operation SQRT have the wrong size");
-					function_return_value = new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null);
+					function_return_value = counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null));
 				}
 				break;
 			case STR_TO_INT:
 				if (arguments_array.size() == 1) {
-					function_return_value = new StringToInt(s, arguments_array.get(0), new SymbolicConstant(s, ExpressionType.NUMBER_INTEGER, 10));
+					SymbolicNode radix = counted(new SymbolicConstant(s, ExpressionType.NUMBER_INTEGER, 10));
+					function_return_value = counted(new StringToInt(s, fromValue(arguments_array.get(0)), radix));
 				} else if (arguments_array.size() == 2) {
-					function_return_value = new StringToInt(s, arguments_array.get(0), arguments_array.get(1));
+					function_return_value = counted(new StringToInt(s, fromValue(arguments_array.get(0)), fromValue(arguments_array.get(1))));
 				} else {
 					logger.critical("Arguments for Operation STR_TO_INT have the wrong size");
-					function_return_value = new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null);
+					function_return_value = counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null));
 				}
 				break;
 			default:
 				logger.critical("Operation '" + op.name() + "' is not an internal method call");
+				return;
 		}
+		function_return_value_set = true;
 	}
 
-	public Integer getJSGlobalObjectId() {
-		return this.js_global_object_id;
+	public Object getJSGlobalObject() {
+		return this.js_global_object;
 	}
 
 	/**
 	 * Initializes all objects and functions that are provided by the VM by default.
+	 * The global context is an empty layer over a shared template, which is built only once.
 	 *
 	 * @param sem The language semantic
-	 * @param global_object_id The ID of the global variable context
+	 * @param global_object The global object
 	 */
-	public void initializeProgramContext(LanguageSemantic sem, Integer global_object_id) {
+	public void initializeProgramContext(LanguageSemantic sem, Object global_object) {
 		if (sem == LanguageSemantic.JAVASCRIPT) {
-			// Initialize JavaScript global objects
-			this.js_global_object_id = global_object_id;
-			VariableContext global_object_context = new VariableContext();
-			// TODO biggest todo ever
-			// output from jsglobalsearch.js
-			global_object_context.set("Object", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Function", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("String", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Date", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Number", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Boolean", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("RegExp", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Math", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("JSON", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("NaN", new SymbolicConstant(sem, ExpressionType.NUMBER_NAN, null));
-			global_object_context.set("Infinity", new SymbolicConstant(sem, ExpressionType.NUMBER_POS_INFINITY, null));
-			global_object_context.set("undefined", new SymbolicConstant(sem, ExpressionType.UNDEFINED, null));
-			global_object_context.set("isNaN", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("isFinite", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("parseFloat", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("parseInt", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("encodeURI", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("encodeURIComponent", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("decodeURI", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("decodeURIComponent", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("eval", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("escape", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("unescape", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Error", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("EvalError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("RangeError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("ReferenceError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("SyntaxError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("TypeError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("URIError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("ArrayBuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Int8Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Uint8Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Uint8ClampedArray", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Int16Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Uint16Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Int32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Uint32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Float32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Float64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("BigInt64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("BigUint64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("DataView", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("BigInt", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Polyglot", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Map", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Set", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("WeakMap", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("WeakSet", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Symbol", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Reflect", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Proxy", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Promise", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("SharedArrayBuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Atomics", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("globalThis", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Graal", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("quit", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("readline", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("read", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("readbuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("load", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("loadWithNewGlobal", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("console", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("print", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("printErr", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("performance", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Java", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("Packages", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("java", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("javafx", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("javax", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("com", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("org", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("edu", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			global_object_context.set("arguments", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
-			symbolic_program.put(global_object_id, global_object_context);
+			this.js_global_object = global_object;
+			if (js_global_template == null) {
+				js_global_template = createJSGlobalTemplate(sem);
+			}
+			putContext(global_object, new VariableContext(js_global_template));
 		} else {
 			logger.warning("Tracer::initializeProgramContext(): Cannot initialize context with semantic '" +
                                    sem.toString() + "'");
 		}
 	}
 
+	private static VariableContext createJSGlobalTemplate(LanguageSemantic sem) {
+		// Initialize JavaScript global objects
+		VariableContext global_object_context = new VariableContext();
+		// TODO biggest todo ever
+		// output from jsglobalsearch.js
+		global_object_context.set("Object", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Function", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("String", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Date", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Number", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Boolean", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("RegExp", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Math", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("JSON", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("NaN", new SymbolicConstant(sem, ExpressionType.NUMBER_NAN, null));
+		global_object_context.set("Infinity", new SymbolicConstant(sem, ExpressionType.NUMBER_POS_INFINITY, null));
+		global_object_context.set("undefined", new SymbolicConstant(sem, ExpressionType.UNDEFINED, null));
+		global_object_context.set("isNaN", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("isFinite", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("parseFloat", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("parseInt", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("encodeURI", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("encodeURIComponent", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("decodeURI", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("decodeURIComponent", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("eval", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("escape", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("unescape", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Error", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("EvalError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("RangeError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("ReferenceError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("SyntaxError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("TypeError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("URIError", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("ArrayBuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Int8Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Uint8Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Uint8ClampedArray", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Int16Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Uint16Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Int32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Uint32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Float32Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Float64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("BigInt64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("BigUint64Array", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("DataView", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("BigInt", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Polyglot", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Map", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Set", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("WeakMap", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("WeakSet", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Symbol", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Reflect", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Proxy", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Promise", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("SharedArrayBuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Atomics", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("globalThis", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Graal", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("quit", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("readline", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("read", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("readbuffer", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("load", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("loadWithNewGlobal", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("console", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("print", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("printErr", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("performance", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Java", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("Packages", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("java", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("javafx", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("javax", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("com", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("org", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("edu", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		global_object_context.set("arguments", new SymbolicConstant(sem, ExpressionType.OBJECT, null));
+		return global_object_context.freeze();
+	}
+
 	/**
 	 * Create a new Exception for non-allowed side effects that cannot be caught.
 	 *
@@ -26,35 +26,137 @@ import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Symbolic properties of an object or variables of a scope. A value is either a SymbolicNode or,
+ * if it does not depend on an input variable, the concrete value, which is converted on access.
+ * Concrete objects are replaced by an OBJECT constant, so that a context never keeps an object
+ * alive, e.g. the object that is its own key in the shadow heap.
+ * A context may be layered over an immutable base context, e.g. the shared global object
+ * template, properties are only written to the upper layer. Copies share their properties
+ * until one of them is modified (copy-on-write).
+ */
 public class VariableContext {
-	private final Map<String, SymbolicNode> properties;
+	private static final SymbolicConstant UNDEFINED = new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+	private static final SymbolicConstant OBJECT = new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+	private VariableContext base;
+	private Map<String, Object> properties;
+	private boolean properties_shared;
+	private boolean frozen = false;
 
 	public VariableContext() {
-		this.properties = new HashMap<>();
+		this(null, new HashMap<>(), false);
+	}
+
+	public VariableContext(Map<String, Object> map) {
+		this(null, map, false);
+	}
+
+	/**
+	 * Creates an empty context on top of a base context. The base context has to be frozen.
+	 *
+	 * @param base The underlying context
+	 */
+	public VariableContext(VariableContext base) {
+		this(base, new HashMap<>(), false);
+		assert base.frozen;
 	}
 
-	public VariableContext(Map<String, SymbolicNode> map) {
+	private VariableContext(VariableContext base, Map<String, Object> map, boolean shared) {
+		this.base = base;
 		this.properties = map;
+		this.properties_shared = shared;
 	}
 
 	public SymbolicNode get(Object key) {
-		return properties.getOrDefault(convertProperty(key), new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null));
+		return SymbolicConstant.fromValue(getValue(key));
+	}
+
+	/**
+	 * Returns a property without converting a concrete value.
+	 *
+	 * @param key The property key
+	 * @return A SymbolicNode or a concrete value
+	 */
+	public Object getValue(Object key) {
+		String property = convertProperty(key);
+		Object value = properties.get(property);
+		if (value != null) {
+			return value;
+		}
+		return base != null ? base.getValue(property) : UNDEFINED;
 	}
 
 	public void set(Object key, SymbolicNode value) {
+		setValue(key, value);
+	}
+
+	/**
+	 * Sets a property to a SymbolicNode or a concrete value. Concrete objects are stored as OBJECT constant.
+	 *
+	 * @param key   The property key
+	 * @param value A SymbolicNode or a concrete value
+	 */
+	public void setValue(Object key, Object value) {
+		if (frozen) {
+			throw new IllegalArgumentException("VariableContext.set(): Cannot modify frozen context");
+		}
+		if (properties_shared) {
+			this.properties = new HashMap<>(this.properties);
+			this.properties_shared = false;
+		}
+		if (value != null && !(value instanceof SymbolicNode) && !JSRuntime.isJSPrimitive(value)) {
+			value = OBJECT;
+		}
 		properties.put(convertProperty(key), value);
 	}
 
 	public boolean hasProperty(Object key) {
-		return properties.containsKey(convertProperty(key));
+		String property = convertProperty(key);
+		return properties.containsKey(property) || (base != null && base.hasProperty(property));
+	}
+
+	/**
+	 * @return true, if any property depends on an input variable
+	 */
+	public boolean anySymbolic() {
+		for (Object value: properties.values()) {
+			if (value instanceof SymbolicNode && ((SymbolicNode) value).isSymbolic()) {
+				return true;
+			}
+		}
+		return base != null && base.anySymbolic();
 	}
 
 	public void clear() {
-		properties.clear();
+		if (frozen) {
+			throw new IllegalArgumentException("VariableContext.clear(): Cannot modify frozen context");
+		}
+		this.base = null;
+		this.properties = new HashMap<>();
+		this.properties_shared = false;
 	}
 
+	/**
+	 * Makes this context immutable, so it can be used as a base for other contexts.
+	 *
+	 * @return This context
+	 */
+	public VariableContext freeze() {
+		this.frozen = true;
+		return this;
+	}
+
+	/**
+	 * Creates a copy of this context in constant time. The properties are shared
+	 * and copied when either context is modified for the first time.
+	 *
+	 * @return A mutable copy
+	 */
 	public VariableContext copy() {
-		return new VariableContext(new HashMap<>(this.properties));
+		if (!frozen) {
+			this.properties_shared = true;
+		}
+		return new VariableContext(this.base, this.properties, true);
 	}
 
 	private String convertProperty(Object key) {
@@ -33,6 +33,7 @@ public abstract class SymbolicNode {
 	private Pair<Expr, ExpressionType> cached_z3_expression = null;
 	private String cached_hr_string = null;
 	private String cached_smt_expression = null;
+	private Boolean cached_symbolic = null;
 
 	public static boolean partial_evaluation_on_cast = false;
 
@@ -90,6 +91,27 @@ public abstract class SymbolicNode {
 		System.arraycopy(nodes, 0, this.children, 0, nodes.length);
 	}
 
+	/**
+	 * Checks if the expression depends on an input variable.
+	 *
+	 * @return true, if the expression contains a {@link org.fuzzingtool.core.symbolic.basic.SymbolicVariable}
+	 */
+	public boolean isSymbolic() {
+		if (this.cached_symbolic == null) {
+			boolean symbolic = false;
+			if (this.children != null) {
+				for (SymbolicNode child: this.children) {
+					if (child.isSymbolic()) {
+						symbolic = true;
+						break;
+					}
+				}
+			}
+			this.cached_symbolic = symbolic;
+		}
+		return this.cached_symbolic;
+	}
+
 	/**
 	 * This method tries to convert an expression to a number format as in https://tc39.es/ecma262/2020/#sec-tonumber
 	 *
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.symbolic;
+
+import org.fuzzingtool.core.components.VariableIdentifier;
+import org.fuzzingtool.core.symbolic.arithmetic.Addition;
+import org.fuzzingtool.core.symbolic.arithmetic.Division;
+import org.fuzzingtool.core.symbolic.arithmetic.Modulo;
+import org.fuzzingtool.core.symbolic.arithmetic.Multiplication;
+import org.fuzzingtool.core.symbolic.arithmetic.SquareRoot;
+import org.fuzzingtool.core.symbolic.arithmetic.Subtraction;
+import org.fuzzingtool.core.symbolic.arithmetic.UnaryMinus;
+import org.fuzzingtool.core.symbolic.arithmetic.UnaryPlus;
+import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
+import org.fuzzingtool.core.symbolic.basic.SymbolicVariable;
+import org.fuzzingtool.core.symbolic.conversion.StringToInt;
+import org.fuzzingtool.core.symbolic.logical.And;
+import org.fuzzingtool.core.symbolic.logical.Equal;
+import org.fuzzingtool.core.symbolic.logical.GreaterEqual;
+import org.fuzzingtool.core.symbolic.logical.GreaterThan;
+import org.fuzzingtool.core.symbolic.logical.LessEqual;
+import org.fuzzingtool.core.symbolic.logical.LessThan;
+import org.fuzzingtool.core.symbolic.logical.Not;
+import org.fuzzingtool.core.symbolic.logical.Or;
+import org.fuzzingtool.core.symbolic.logical.StrictEqual;
+import org.fuzzingtool.core.symbolic.string.StringCharAt;
+import org.fuzzingtool.core.symbolic.string.StringIncludes;
+import org.fuzzingtool.core.symbolic.string.StringIndexOf;
+import org.fuzzingtool.core.symbolic.string.StringLength;
+import org.fuzzingtool.core.symbolic.string.StringSubstr;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of symbolic expressions, used for checkpoints.
+ * <p>
+ * Every node is written in pre-order as a tag byte, followed by the language semantic,
+ * the number of children and the children. Constants and variables additionally contain
+ * their type and value or identifier.
+ */
+public final class SymbolicNodeSerializer {
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_CONSTANT = 1;
+	private static final byte TAG_VARIABLE = 2;
+
+	// Order must not change, the index (+ 3) is the tag of the class
+	private static final Class<?>[] OPERATIONS = {
+			Addition.class, Division.class, Modulo.class, Multiplication.class, SquareRoot.class,
+			Subtraction.class, UnaryMinus.class, UnaryPlus.class, StringToInt.class, And.class,
+			Equal.class, GreaterEqual.class, GreaterThan.class, LessEqual.class, LessThan.class,
+			Not.class, Or.class, StrictEqual.class, StringCharAt.class, StringIncludes.class,
+			StringIndexOf.class, StringLength.class, StringSubstr.class
+	};
+	private static final Map<Class<?>, Byte> OPERATION_TAGS = new HashMap<>();
+
+	static {
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			OPERATION_TAGS.put(OPERATIONS[i], (byte) (i + 3));
+		}
+	}
+
+	// Value tags
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_BOOLEAN = 1;
+	private static final byte VALUE_STRING = 2;
+	private static final byte VALUE_INTEGER = 3;
+	private static final byte VALUE_LONG = 4;
+	private static final byte VALUE_DOUBLE = 5;
+
+	private SymbolicNodeSerializer() {
+	}
+
+	/**
+	 * Writes a symbolic expression.
+	 *
+	 * @param out  Output
+	 * @param node The expression, may be null
+	 * @throws IOException If the output fails or the expression contains an unknown node
+	 */
+	public static void write(DataOutput out, SymbolicNode node) throws IOException {
+		if (node == null) {
+			out.writeByte(TAG_NULL);
+			return;
+		}
+		if (node instanceof SymbolicConstant) {
+			SymbolicConstant constant = (SymbolicConstant) node;
+			out.writeByte(TAG_CONSTANT);
+			out.writeByte(node.language_semantic.ordinal());
+			out.writeByte(constant.getConstantType().ordinal());
+			writeValue(out, constant.getValue());
+		} else if (node instanceof SymbolicVariable) {
+			out.writeByte(TAG_VARIABLE);
+			out.writeByte(node.language_semantic.ordinal());
+			writeString(out, ((SymbolicVariable) node).getIdentifier().getIdentifierString());
+		} else {
+			Byte tag = OPERATION_TAGS.get(node.getClass());
+			if (tag == null) {
+				throw new IOException("Cannot serialize symbolic node " + node.getClass().getSimpleName());
+			}
+			out.writeByte(tag);
+			out.writeByte(node.language_semantic.ordinal());
+			out.writeByte(node.children.length);
+			for (SymbolicNode child: node.children) {
+				write(out, child);
+			}
+		}
+	}
+
+	/**
+	 * Reads a symbolic expression written by {@link #write(DataOutput, SymbolicNode)}.
+	 *
+	 * @param in Input
+	 * @return The expression, may be null
+	 * @throws IOException If the input fails or is malformed
+	 */
+	public static SymbolicNode read(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		if (tag == TAG_NULL) {
+			return null;
+		}
+		LanguageSemantic s = LanguageSemantic.values()[in.readUnsignedByte()];
+		if (tag == TAG_CONSTANT) {
+			ExpressionType type = ExpressionType.values()[in.readUnsignedByte()];
+			return new SymbolicConstant(s, type, readValue(in));
+		} else if (tag == TAG_VARIABLE) {
+			return new SymbolicVariable(s, VariableIdentifier.fromString(readString(in)));
+		}
+		if (tag < 3 || tag >= OPERATIONS.length + 3) {
+			throw new IOException("Unknown symbolic node tag " + tag);
+		}
+		SymbolicNode[] c = new SymbolicNode[in.readUnsignedByte()];
+		for (int i = 0; i < c.length; i++) {
+			c[i] = read(in);
+		}
+		Class<?> operation = OPERATIONS[tag - 3];
+		try {
+			if (operation == Addition.class) {
+				return new Addition(s, c[0], c[1]);
+			} else if (operation == Division.class) {
+				return new Division(s, c[0], c[1]);
+			} else if (operation == Modulo.class) {
+				return new Modulo(s, c[0], c[1]);
+			} else if (operation == Multiplication.class) {
+				return new Multiplication(s, c[0], c[1]);
+			} else if (operation == SquareRoot.class) {
+				return new SquareRoot(s, c[0]);
+			} else if (operation == Subtraction.class) {
+				return new Subtraction(s, c[0], c[1]);
+			} else if (operation == UnaryMinus.class) {
+				return new UnaryMinus(s, c[0]);
+			} else if (operation == UnaryPlus.class) {
+				return new UnaryPlus(s, c[0]);
+			} else if (operation == StringToInt.class) {
+				return new StringToInt(s, c[0], c[1]);
+			} else if (operation == And.class) {
+				return new And(s, c[0], c[1]);
+			} else if (operation == Equal.class) {
+				return new Equal(s, c[0], c[1]);
+			} else if (operation == GreaterEqual.class) {
+				return new GreaterEqual(s, c[0], c[1]);
+			} else if (operation == GreaterThan.class) {
+				return new GreaterThan(s, c[0], c[1]);
+			} else if (operation == LessEqual.class) {
+				return new LessEqual(s, c[0], c[1]);
+			} else if (operation == LessThan.class) {
+				return new LessThan(s, c[0], c[1]);
+			} else if (operation == Not.class) {
+				return new Not(s, c[0]);
+			} else if (operation == Or.class) {
+				return new Or(s, c[0], c[1]);
+			} else if (operation == StrictEqual.class) {
+				return new StrictEqual(s, c[0], c[1]);
+			} else if (operation == StringCharAt.class) {
+				return new StringCharAt(s, c[0], c[1]);
+			} else if (operation == StringIncludes.class) {
+				return c.length == 3 ? new StringIncludes(s, c[0], c[1], c[2]) : new StringIncludes(s, c[0], c[1]);
+			} else if (operation == StringIndexOf.class) {
+				return c.length == 3 ? new StringIndexOf(s, c[0], c[1], c[2]) : new StringIndexOf(s, c[0], c[1]);
+			} else if (operation == StringLength.class) {
+				return new StringLength(s, c[0]);
+			} else {
+				return c.length == 3 ? new StringSubstr(s, c[0], c[1], c[2]) : new StringSubstr(s, c[0], c[1]);
+			}
+		} catch (ArrayIndexOutOfBoundsException aioobe) {
+			throw new IOException("Wrong number of children for symbolic node " + operation.getSimpleName());
+		}
+	}
+
+	/**
+	 * Writes a concrete value (null, Boolean, String, Integer, Long or Double).
+	 *
+	 * @param out   Output
+	 * @param value The value
+	 * @throws IOException If the output fails or the value has an unsupported type
+	 */
+	public static void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(VALUE_NULL);
+		} else if (value instanceof Boolean) {
+			out.writeByte(VALUE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof String) {
+			out.writeByte(VALUE_STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(VALUE_INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(VALUE_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(VALUE_DOUBLE);
+			out.writeDouble((Double) value);
+		} else {
+			throw new IOException("Cannot serialize value of type " + value.getClass().getSimpleName());
+		}
+	}
+
+	public static Object readValue(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_BOOLEAN:
+				return in.readBoolean();
+			case VALUE_STRING:
+				return readString(in);
+			case VALUE_INTEGER:
+				return in.readInt();
+			case VALUE_LONG:
+				return in.readLong();
+			case VALUE_DOUBLE:
+				return in.readDouble();
+			default:
+				throw new IOException("Unknown value tag " + tag);
+		}
+	}
+
+	/**
+	 * Writes a string of arbitrary length, in contrast to {@link DataOutput#writeUTF(String)}.
+	 *
+	 * @param out Output
+	 * @param str The string
+	 * @throws IOException If the output fails
+	 */
+	public static void writeString(DataOutput out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
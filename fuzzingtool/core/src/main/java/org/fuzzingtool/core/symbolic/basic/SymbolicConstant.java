@@ -19,6 +19,8 @@ package org.fuzzingtool.core.symbolic.basic;
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Expr;
 import com.oracle.truffle.js.nodes.JSGuards;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.SafeInteger;
 import org.fuzzingtool.core.symbolic.ExpressionType;
 import org.fuzzingtool.core.symbolic.LanguageSemantic;
 import org.fuzzingtool.core.symbolic.SymbolicException;
@@ -79,6 +81,79 @@ public class SymbolicConstant extends SymbolicNode {
 		this.value = new_value;
 	}
 
+	public ExpressionType getConstantType() {
+		return this.constant_type;
+	}
+
+	public Object getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Returns a value that is either already symbolic or a concrete JavaScript value as symbolic node.
+	 *
+	 * @param value A SymbolicNode or a concrete JavaScript value
+	 * @return The symbolic node or a constant with the corresponding type
+	 */
+	public static SymbolicNode fromValue(Object value) {
+		if (value instanceof SymbolicNode) {
+			return (SymbolicNode) value;
+		}
+		return fromJSObject(value);
+	}
+
+	/**
+	 * Maps the additional number representations of GraalJS (SafeInteger, long) to an int
+	 * or, if the value is out of the int range, to a double. Other values are returned unchanged.
+	 *
+	 * @param value A concrete JavaScript value
+	 * @return The value as Integer or Double, if it is a number
+	 */
+	public static Object normalizeNumber(Object value) {
+		if (value instanceof SafeInteger || value instanceof Long) {
+			long l = ((Number) value).longValue();
+			if (JSGuards.isLongRepresentableAsInt32(l)) {
+				return (int) l;
+			} else {
+				return (double) l;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Converts a concrete JavaScript value to a symbolic constant.
+	 *
+	 * @param value The JavaScript value
+	 * @return A constant with the corresponding type
+	 */
+	public static SymbolicConstant fromJSObject(Object value) {
+		Object js_obj = normalizeNumber(value);
+		if (JSGuards.isBoolean(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.BOOLEAN, js_obj);
+		} else if (JSGuards.isString(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.STRING, js_obj);
+		} else if (JSGuards.isBigInt(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.BIGINT, js_obj);
+		} else if (JSGuards.isNumberInteger(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, js_obj);
+		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isNaN(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_NAN, null);
+		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isPositiveInfinity((double) js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_POS_INFINITY, null);
+		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isPositiveInfinity(-(double) js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_NEG_INFINITY, null);
+		} else if (JSGuards.isNumberDouble(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_REAL, js_obj);
+		} else if (JSGuards.isUndefined(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+		} else if (JSGuards.isJSNull(js_obj)) {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NULL, null);
+		} else {
+			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		}
+	}
+
 	@Override
 	public String toHRStringJS() {
 		switch (this.constant_type) {
@@ -127,13 +202,13 @@ public class SymbolicConstant extends SymbolicNode {
 				if (this.value instanceof Integer) {
 					return Pair.create(ctx.mkInt((Integer) this.value), ExpressionType.BIGINT);
 				} else {
-					return Pair.create(ctx.mkInt(((Long) this.value).intValue()), ExpressionType.BIGINT);
+					return Pair.create(ctx.mkInt((Long) this.value), ExpressionType.BIGINT);
 				}
 			case NUMBER_INTEGER:
 				if (this.value instanceof Integer) {
 					return Pair.create(ctx.mkInt((Integer) this.value), ExpressionType.NUMBER_INTEGER);
 				} else {
-					return Pair.create(ctx.mkInt(((Long) this.value).intValue()), ExpressionType.NUMBER_INTEGER);
+					return Pair.create(ctx.mkInt((Long) this.value), ExpressionType.NUMBER_INTEGER);
 				}
 			case NUMBER_REAL:
 				// https://stackoverflow.com/questions/11249894/precision-for-double-parsedouble-and-string-valueof
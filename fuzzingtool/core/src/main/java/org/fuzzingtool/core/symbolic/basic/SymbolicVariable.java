@@ -33,6 +33,15 @@ public class SymbolicVariable extends SymbolicNode {
 		this.identifier = var_id;
 	}
 
+	public VariableIdentifier getIdentifier() {
+		return this.identifier;
+	}
+
+	@Override
+	public boolean isSymbolic() {
+		return true;
+	}
+
 	@Override
 	public String toHRStringJS() {
 		return this.identifier.getIdentifierString();
@@ -22,8 +22,13 @@ import org.fuzzingtool.core.components.BranchingNode;
 import org.fuzzingtool.core.components.BranchingNodeAttribute;
 import org.graalvm.collections.Pair;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 
 public class DepthSearchTactic extends FuzzingTactic {
@@ -37,10 +42,12 @@ public class DepthSearchTactic extends FuzzingTactic {
 
 	protected ArrayList<Pair<BranchingNode, HashMap<Integer, Integer>>> findCandidates(BranchingNode current_node) {
 		BranchingNodeAttribute node_type = current_node.getBranchingNodeAttribute();
+		visited_nodes++;
 
 		incrementLoop(current_node);
 
-		if (nodeIsInvalid(current_node)) {
+		// Stored children form a closed subtree without candidates, do not materialize them
+		if (nodeIsInvalid(current_node) || current_node.hasStoredChildren()) {
 			decrementLoop(current_node);
 			return new ArrayList<>();
 		}
@@ -94,6 +101,37 @@ public class DepthSearchTactic extends FuzzingTactic {
 		}
 	}
 
+	@Override
+	public void writeState(DataOutput out, Map<BranchingNode, Integer> node_ids) throws IOException {
+		super.writeState(out, node_ids);
+		// Nodes that were moved to the store have no candidates left, their states are dropped
+		List<Pair<BranchingNode, HashMap<Integer, Integer>>> states = new ArrayList<>();
+		for (Pair<BranchingNode, HashMap<Integer, Integer>> state: last_max_nodes) {
+			if (node_ids.containsKey(state.getLeft())) {
+				states.add(state);
+			}
+		}
+		out.writeInt(states.size());
+		for (Pair<BranchingNode, HashMap<Integer, Integer>> state: states) {
+			out.writeInt(node_ids.get(state.getLeft()));
+			writeLoopUnrolls(out, state.getRight());
+		}
+	}
+
+	@Override
+	public void readState(DataInput in, List<BranchingNode> nodes) throws IOException {
+		super.readState(in, nodes);
+		last_max_nodes.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int node_id = in.readInt();
+			if (node_id < 0 || node_id >= nodes.size() || nodes.get(node_id) == null) {
+				throw new IOException("Invalid node identifier " + node_id + " in tactic state");
+			}
+			last_max_nodes.push(Pair.create(nodes.get(node_id), readLoopUnrolls(in)));
+		}
+	}
+
 	@Override
 	public void setOption(String option_name, Object value) {
 		switch (option_name) {
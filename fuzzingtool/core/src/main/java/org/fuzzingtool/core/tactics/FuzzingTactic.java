@@ -28,13 +28,19 @@ import com.microsoft.z3.Status;
 import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.components.BranchingNode;
 import org.fuzzingtool.core.components.BranchingNodeAttribute;
+import org.fuzzingtool.core.components.FlightRecorderEvents;
+import org.fuzzingtool.core.components.Metrics;
 import org.fuzzingtool.core.components.TimeProbe;
 import org.fuzzingtool.core.components.VariableIdentifier;
 import org.fuzzingtool.core.symbolic.SymbolicException;
 import org.graalvm.collections.Pair;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
@@ -42,6 +48,7 @@ public abstract class FuzzingTactic {
 	protected Context ctx = null;
 	protected Logger logger = null;
 	protected TimeProbe probe = null;
+	protected Metrics metrics = null;
 
 	// Results
 	protected boolean has_next_path = false;
@@ -54,6 +61,9 @@ public abstract class FuzzingTactic {
 
 	protected HashMap<Integer, Integer> loop_unrolls = new HashMap<>();
 
+	// Number of nodes visited by the current search, incremented by the tactics
+	protected long visited_nodes = 0;
+
 	/**
 	 * Set an option value.
 	 *
@@ -87,11 +97,15 @@ public abstract class FuzzingTactic {
 
 		boolean path_found = true;
 		while (path_found) {
+			Object find_event = FlightRecorderEvents.beginFindUnexplored();
+			visited_nodes = 0;
 			BranchingNode new_target = findUnexplored();
+			FlightRecorderEvents.endFindUnexplored(find_event, getTactic(), visited_nodes, new_target != null);
 			if (new_target == null) {
 				path_found = false;
 			} else {
 				BoolExpr expr;
+				long cache_misses = BranchingNode.getZ3CacheMisses();
 				try {
 					expr = new_target.getSymbolicPathZ3Expression(ctx);
 				} catch (SymbolicException.NotImplemented ni) {
@@ -104,9 +118,27 @@ public abstract class FuzzingTactic {
 				Solver s = ctx.mkSolver();
 				s.add(expr);
 				//logger.mesmerize(expr.getSExpr());
+				boolean cache_hit = BranchingNode.getZ3CacheMisses() == cache_misses;
 				probe.switchState(TimeProbe.ProgramState.SOLVE);
+				Object solve_event = FlightRecorderEvents.beginSolverQuery();
+				long solve_start = System.nanoTime();
 				Status status = s.check();
+				long solve_duration = System.nanoTime() - solve_start;
 				probe.switchState(TimeProbe.ProgramState.TACTIC);
+				if (solve_event != null) {
+					int num_variables = status == Status.SATISFIABLE ? s.getModel().getNumConsts() : 0;
+					FlightRecorderEvents.endSolverQuery(solve_event, new_target.getDepth(), num_variables,
+														String.valueOf(status), cache_hit);
+				}
+				if (metrics != null) {
+					if (status == Status.SATISFIABLE) {
+						metrics.solverCall(Metrics.SolverResult.SAT, solve_duration);
+					} else if (status == Status.UNSATISFIABLE) {
+						metrics.solverCall(Metrics.SolverResult.UNSAT, solve_duration);
+					} else {
+						metrics.solverCall(Metrics.SolverResult.UNKNOWN, solve_duration);
+					}
+				}
 				if (status == Status.SATISFIABLE) {
 					boolean casting_error = false;
 					try {
@@ -272,6 +304,45 @@ public abstract class FuzzingTactic {
 		return next_path;
 	}
 
+	/**
+	 * Writes the exploration state of the tactic for a checkpoint.
+	 *
+	 * @param out      Output
+	 * @param node_ids Identifiers of all nodes of the execution graph
+	 * @throws IOException If the output fails
+	 */
+	public void writeState(DataOutput out, Map<BranchingNode, Integer> node_ids) throws IOException {
+		writeLoopUnrolls(out, this.loop_unrolls);
+	}
+
+	/**
+	 * Restores the exploration state written by {@link #writeState(DataOutput, Map)}.
+	 *
+	 * @param in    Input
+	 * @param nodes All nodes of the restored execution graph, indexed by their identifier, null for nodes restored to the store
+	 * @throws IOException If the input fails or is malformed
+	 */
+	public void readState(DataInput in, List<BranchingNode> nodes) throws IOException {
+		this.loop_unrolls = readLoopUnrolls(in);
+	}
+
+	protected static void writeLoopUnrolls(DataOutput out, Map<Integer, Integer> unrolls) throws IOException {
+		out.writeInt(unrolls.size());
+		for (Map.Entry<Integer, Integer> entry: unrolls.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	protected static HashMap<Integer, Integer> readLoopUnrolls(DataInput in) throws IOException {
+		HashMap<Integer, Integer> unrolls = new HashMap<>();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			unrolls.put(in.readInt(), in.readInt());
+		}
+		return unrolls;
+	}
+
 	/**
 	 * Set the time probe
 	 *
@@ -280,4 +351,13 @@ public abstract class FuzzingTactic {
 	public void setTimeProbe(TimeProbe tp) {
 		this.probe = tp;
 	}
+
+	/**
+	 * Set the metrics, solver calls are recorded there
+	 *
+	 * @param m The metrics object
+	 */
+	public void setMetrics(Metrics m) {
+		this.metrics = m;
+	}
 }
@@ -32,10 +32,12 @@ public class InOrderSearchTactic extends FuzzingTactic {
 
 	protected BranchingNode findCandidate(BranchingNode current_node) {
 		BranchingNodeAttribute node_type = current_node.getBranchingNodeAttribute();
+		visited_nodes++;
 
 		incrementLoop(current_node);
 
-		if (nodeIsInvalid(current_node)) {
+		// Stored children form a closed subtree without candidates, do not materialize them
+		if (nodeIsInvalid(current_node) || current_node.hasStoredChildren()) {
 			decrementLoop(current_node);
 			return null;
 		}
@@ -21,6 +21,11 @@ import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.components.BranchingNode;
 import org.fuzzingtool.core.components.BranchingNodeAttribute;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 public class RandomSearchTactic extends FuzzingTactic {
@@ -36,10 +41,12 @@ public class RandomSearchTactic extends FuzzingTactic {
 
 	protected BranchingNode findCandidate(BranchingNode current_node) {
 		BranchingNodeAttribute node_type = current_node.getBranchingNodeAttribute();
+		visited_nodes++;
 
 		incrementLoop(current_node);
 
-		if (nodeIsInvalid(current_node)) {
+		// Stored children form a closed subtree without candidates, do not materialize them
+		if (nodeIsInvalid(current_node) || current_node.hasStoredChildren()) {
 			decrementLoop(current_node);
 			return null;
 		}
@@ -72,6 +79,24 @@ public class RandomSearchTactic extends FuzzingTactic {
 		return findCandidate(root_node);
 	}
 
+	/**
+	 * The state of {@link Random} cannot be read, therefore the generator is reseeded
+	 * with a value drawn from itself and the new seed is written.
+	 */
+	@Override
+	public void writeState(DataOutput out, Map<BranchingNode, Integer> node_ids) throws IOException {
+		super.writeState(out, node_ids);
+		long seed = generator.nextLong();
+		generator.setSeed(seed);
+		out.writeLong(seed);
+	}
+
+	@Override
+	public void readState(DataInput in, List<BranchingNode> nodes) throws IOException {
+		super.readState(in, nodes);
+		generator.setSeed(in.readLong());
+	}
+
 	@Override
 	public void setOption(String option_name, Object value) {
 		switch (option_name) {
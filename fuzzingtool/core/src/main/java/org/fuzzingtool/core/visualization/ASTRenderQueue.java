@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.visualization;
+
+import com.oracle.truffle.api.nodes.Node;
+import org.fuzzingtool.core.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Renders AST visualizations outside of the instrumentation.
+ * <p>
+ * The instrumentation only takes a structural snapshot of the AST, the graph is built and rendered
+ * either on a background thread or, in deferred mode, when the queue is closed after the campaign.
+ */
+public class ASTRenderQueue {
+	private final Logger logger;
+	private final Path directory;
+	private final boolean deferred;
+	private final Set<String> requested = new HashSet<>();
+
+	// Guarded by this
+	private final ArrayDeque<Request> queue = new ArrayDeque<>();
+	private boolean running = true;
+	private Thread renderer = null;
+
+	/**
+	 * @param directory Output directory of the images
+	 * @param deferred  Render all images when the queue is closed instead of on a background thread
+	 * @param l         Logger
+	 */
+	public ASTRenderQueue(Path directory, boolean deferred, Logger l) {
+		this.logger = l;
+		this.directory = directory;
+		this.deferred = deferred;
+	}
+
+	/**
+	 * Queues the visualization of an AST, unless a visualization with the same name was already requested.
+	 * Must be called on the thread that owns the AST.
+	 *
+	 * @param root_node Root of the AST
+	 * @param name      File name of the image
+	 */
+	public void submit(Node root_node, String name) {
+		if (!requested.add(name)) {
+			return;
+		}
+		Request request = new Request(ASTVisualizer.capture(root_node), name);
+		synchronized (this) {
+			if (!running) {
+				return;
+			}
+			queue.addLast(request);
+			if (!deferred && renderer == null) {
+				renderer = new Thread(this::renderLoop, "fuzzingtool-ast-renderer");
+				renderer.setDaemon(true);
+				renderer.start();
+			}
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Renders all queued visualizations and stops the background thread.
+	 */
+	public void close() {
+		Thread background;
+		synchronized (this) {
+			running = false;
+			background = renderer;
+			notifyAll();
+		}
+		if (background != null) {
+			try {
+				background.join();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		Request request;
+		while ((request = poll()) != null) {
+			render(request);
+		}
+	}
+
+	private synchronized Request poll() {
+		return queue.pollFirst();
+	}
+
+	private void renderLoop() {
+		while (true) {
+			Request request;
+			synchronized (this) {
+				while (queue.isEmpty() && running) {
+					try {
+						wait();
+					} catch (InterruptedException ie) {
+						return;
+					}
+				}
+				request = queue.pollFirst();
+			}
+			if (request == null) {
+				return;
+			}
+			render(request);
+		}
+	}
+
+	private void render(Request request) {
+		File save_path = directory.resolve(request.name).toFile();
+		if (save_path.exists()) {
+			return;
+		}
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException ioe) {
+			logger.critical("Cannot create directory '" + directory + "'");
+			return;
+		}
+		ASTVisualizer av = new ASTVisualizer(request.snapshot, logger);
+		av.saveImage(save_path);
+	}
+
+	private static final class Request {
+		final ASTVisualizer.Snapshot snapshot;
+		final String name;
+
+		Request(ASTVisualizer.Snapshot snapshot, String name) {
+			this.snapshot = snapshot;
+			this.name = name;
+		}
+	}
+}
@@ -35,6 +35,8 @@ import org.fuzzingtool.core.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static guru.nidi.graphviz.model.Factory.mutGraph;
 import static guru.nidi.graphviz.model.Factory.mutNode;
@@ -44,7 +46,13 @@ public class ASTVisualizer {
 
 	private final Logger logger;
 
-	public ASTVisualizer(Node root_node, Logger l) {
+	/**
+	 * Builds the visualization of a snapshot, may be called on any thread.
+	 *
+	 * @param snapshot Snapshot of the AST from {@link #capture(Node)}
+	 * @param l        Logger
+	 */
+	public ASTVisualizer(Snapshot snapshot, Logger l) {
 		this.logger = l;
 		vis_graph.graphAttrs().add("splines", "ortho");
 		vis_graph.graphAttrs().add("nodesep", 0.5);
@@ -53,14 +61,54 @@ public class ASTVisualizer {
 		vis_graph.graphAttrs().add("ranksep", 1.5);
 		vis_graph.graphAttrs().add("fontname", "LiberationSans");
 		vis_graph.graphAttrs().add("fontsize", 14);
-		String node_type = root_node.getClass().getSimpleName();
-		Integer node_hash = root_node.hashCode();
-		String visualization_node_name = String.valueOf(root_node.hashCode());
-		MutableNode root =
-				mutNode(visualization_node_name).add(getNodeContents(node_type, node_hash, root_node.getSourceSection()));
-		root.add(Shape.ELLIPSE, Style.FILLED, Color.rgb(0x72, 0x9f, 0xcf));
-		vis_graph.add(root);
-		buildVisualization(root_node, root);
+		MutableNode[] vis_nodes = new MutableNode[snapshot.size()];
+		for (int i = 0; i < snapshot.size(); i++) {
+			MutableNode vis_node = mutNode(String.valueOf(snapshot.node_hashes.get(i)));
+			if (i == 0) {
+				vis_node.add(Shape.ELLIPSE, Style.FILLED, Color.rgb(0x72, 0x9f, 0xcf));
+			} else if (snapshot.wrapped.get(i)) {
+				vis_node.add(Shape.BOX, Style.FILLED, Color.rgb(0x72, 0x9f, 0xcf));
+			} else {
+				vis_node.add(Shape.BOX, Style.FILLED, Color.rgb(0xfc, 0xaf, 0x3e));
+			}
+			vis_node.add(getNodeContents(snapshot.node_types.get(i), snapshot.node_hashes.get(i), snapshot.sources.get(i)));
+			vis_graph.add(vis_node);
+			if (i > 0) {
+				vis_nodes[snapshot.parents.get(i)].addLink(vis_node);
+			}
+			vis_nodes[i] = vis_node;
+		}
+	}
+
+	/**
+	 * Takes a structural snapshot of an AST. This is cheap compared to building and rendering
+	 * the graph, and the snapshot stays valid if the AST is rewritten later.
+	 *
+	 * @param root_node Root of the AST
+	 * @return The snapshot
+	 */
+	public static Snapshot capture(Node root_node) {
+		Snapshot snapshot = new Snapshot();
+		snapshot.add(root_node, false, -1);
+		captureChildren(snapshot, root_node, 0);
+		return snapshot;
+	}
+
+	// Parents created me and gave me my identity
+	private static void captureChildren(Snapshot snapshot, Node current_node, int current_index) {
+		for (Node n: current_node.getChildren()) {
+			Node realnode;
+			boolean wrapped;
+			if (n instanceof InstrumentableNode.WrapperNode) {
+				realnode = ((InstrumentableNode.WrapperNode) n).getDelegateNode();
+				wrapped = true;
+			} else {
+				realnode = n;
+				wrapped = false;
+			}
+			int index = snapshot.add(realnode, wrapped, current_index);
+			captureChildren(snapshot, realnode, index);
+		}
 	}
 
 	public void saveImage(File path) {
@@ -80,34 +128,15 @@ public class ASTVisualizer {
 		}
 	}
 
-    // Parents created me and gave me my identity
-	private void buildVisualization(Node current_node, MutableNode current_vis_node) {
-		for (Node n: current_node.getChildren()) {
-			Node realnode;
-			Color node_color;
-			try {
-				InstrumentableNode.WrapperNode wn = (InstrumentableNode.WrapperNode) n;
-				realnode = wn.getDelegateNode();
-				node_color = Color.rgb(0x72, 0x9f, 0xcf);
-			} catch (ClassCastException ex) {
-				realnode = n;
-				node_color = Color.rgb(0xfc, 0xaf, 0x3e);
-			}
-
-			String node_type = realnode.getClass().getSimpleName();
-			Integer node_hash = realnode.hashCode();
-			String visualization_node_name = String.valueOf(realnode.hashCode());
-
-			MutableNode child = mutNode(visualization_node_name);
-			child.add(Shape.BOX, Style.FILLED, node_color);
-			child.add(getNodeContents(node_type, node_hash, realnode.getSourceSection()));
-			vis_graph.add(child);
-			current_vis_node.addLink(child);
-			buildVisualization(realnode, child);
-		}
+	private Label getNodeContents(String node_type, Integer node_hash, String source) {
+		return Label.html("<table>" +
+								  "<tr><td balign='center'><font face='LiberationMono'><b>" + node_type + "</b></font></td></tr>" +
+								  "<tr><td balign='center'><font face='LiberationMono'><i>" + node_hash + "</i></font></td></tr>" +
+								  "<tr><td balign='left'><font face='LiberationMono'>" + source + "</font></td></tr>" +
+								  "</table>");
 	}
 
-	private Label getNodeContents(String node_type, Integer node_hash, SourceSection node_source) {
+	private static String getSourceString(SourceSection node_source) {
 		String source = "(NO SOURCE)";
 		if (node_source != null && node_source.isAvailable()) {
 			String characters = Logger.capBack(node_source.getCharacters().toString().replaceAll("\\s+", " "), 16);
@@ -125,10 +154,30 @@ public class ASTVisualizer {
 			}
 			source = line_numbering + StringEscapeUtils.escapeHtml4(characters);
 		}
-		return Label.html("<table>" +
-								  "<tr><td balign='center'><font face='LiberationMono'><b>" + node_type + "</b></font></td></tr>" +
-								  "<tr><td balign='center'><font face='LiberationMono'><i>" + node_hash + "</i></font></td></tr>" +
-								  "<tr><td balign='left'><font face='LiberationMono'>" + source + "</font></td></tr>" +
-								  "</table>");
+		return source;
+	}
+
+	/**
+	 * Structure of an AST in pre-order, without references to the Truffle nodes.
+	 */
+	public static final class Snapshot {
+		private final List<String> node_types = new ArrayList<>();
+		private final List<Integer> node_hashes = new ArrayList<>();
+		private final List<String> sources = new ArrayList<>();
+		private final List<Boolean> wrapped = new ArrayList<>();
+		private final List<Integer> parents = new ArrayList<>();
+
+		private int add(Node node, boolean is_wrapped, int parent) {
+			node_types.add(node.getClass().getSimpleName());
+			node_hashes.add(node.hashCode());
+			sources.add(getSourceString(node.getSourceSection()));
+			wrapped.add(is_wrapped);
+			parents.add(parent);
+			return node_types.size() - 1;
+		}
+
+		public int size() {
+			return node_types.size();
+		}
 	}
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.core.visualization;
+
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.engine.Graphviz;
+import guru.nidi.graphviz.engine.GraphvizCmdLineEngine;
+import guru.nidi.graphviz.engine.GraphvizException;
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.components.BranchingNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders the execution graph on a background thread.
+ * <p>
+ * The fuzzing thread only visits the nodes which were added or changed since the last frame and collects
+ * their DOT statements. The renderer thread appends them to a DOT file, which is a valid graph
+ * after every frame (later statements of a node override earlier ones), and renders the file with the
+ * command line engine. If the renderer falls behind, pending frames are merged and only the latest
+ * state is rendered, the images of the skipped frames are not written.
+ */
+public class BranchingRenderer {
+	private static final String HEADER = "digraph \"Program Decision Flow Visualization\" {\nnode [fontname=\"Ubuntu\"]\n";
+	private static final String FOOTER = "}\n";
+
+	private final Logger logger;
+	private final Path directory;
+	private final File dot_file;
+
+	// Fuzzing thread: position -> {identifier, last rendered state}. The position of a node is derived from
+	// the identifier of its parent and the branch, so a node that is evicted and materialized again keeps
+	// its identifier.
+	private final Map<Long, int[]> emitted = new HashMap<>();
+	private int next_id = 0;
+
+	// Renderer thread
+	private boolean dot_initialized = false;
+
+	// Shared state, guarded by this
+	private StringBuilder pending_statements = null;
+	private String pending_name = null;
+	private long submitted = 0;
+	private long rendered = 0;
+	private long skipped = 0;
+	private boolean running = true;
+	private final Thread renderer;
+
+	public BranchingRenderer(Path directory, String dot_name, Logger l) {
+		this.logger = l;
+		this.directory = directory;
+		this.dot_file = directory.resolve(dot_name).toFile();
+		this.renderer = new Thread(this::renderLoop, "fuzzingtool-branching-renderer");
+		this.renderer.setDaemon(true);
+		this.renderer.start();
+	}
+
+	/**
+	 * Collects the changes of the tree and queues a frame. Must be called on the thread that modifies the tree.
+	 *
+	 * @param root     Root of the execution graph
+	 * @param svg_name File name of the image in the output directory
+	 */
+	public void submit(BranchingNode root, String svg_name) {
+		StringBuilder statements = new StringBuilder();
+		collect(root, statements);
+		synchronized (this) {
+			if (pending_statements == null) {
+				pending_statements = statements;
+			} else {
+				pending_statements.append(statements);
+				skipped++;
+			}
+			pending_name = svg_name;
+			submitted++;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Queues a frame and waits until it is rendered.
+	 *
+	 * @param root     Root of the execution graph
+	 * @param svg_name File name of the image in the output directory
+	 */
+	public void submitAndWait(BranchingNode root, String svg_name) {
+		submit(root, svg_name);
+		synchronized (this) {
+			long frame = submitted;
+			while (rendered < frame && running) {
+				try {
+					wait();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Renders the pending frame and stops the renderer thread.
+	 */
+	public void close() {
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+		try {
+			renderer.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		if (skipped > 0) {
+			logger.info("Branching visualization skipped " + skipped + " of " + submitted + " frames");
+		}
+	}
+
+	/**
+	 * Walks the nodes that changed since the last frame (see {@link BranchingNode#isChanged()}) with an explicit
+	 * stack and clears their marks, unchanged subtrees are skipped.
+	 */
+	private void collect(BranchingNode root, StringBuilder statements) {
+		ArrayDeque<Pending> pending = new ArrayDeque<>();
+		if (root.isChanged()) {
+			pending.push(new Pending(root, -1, false));
+		}
+		while (!pending.isEmpty()) {
+			Pending current = pending.pop();
+			BranchingNode node = current.node;
+			int id = emit(node, current.parent_id, current.taken_flag, statements);
+			// Stored subtrees are closed and were rendered before they were evicted
+			if (!node.hasStoredChildren()) {
+				for (boolean child_flag: new boolean[]{false, true}) {
+					BranchingNode child_node = node.getChildBranch(child_flag);
+					if (child_node != null && child_node.isChanged()) {
+						pending.push(new Pending(child_node, id, child_flag));
+					}
+				}
+			}
+			node.clearChanged();
+		}
+	}
+
+	/**
+	 * Appends the edge to a new node and the label of a node whose state changed.
+	 *
+	 * @return The identifier of the node
+	 */
+	private int emit(BranchingNode node, int parent_id, boolean taken_flag, StringBuilder statements) {
+		int state = node.getBranchingNodeAttribute().ordinal() | (node.isUndecidable() ? 8 : 0) |
+				(node.isDiverging() ? 16 : 0) | (node.isExplored() ? 32 : 0);
+		long position = ((long) parent_id << 1) | (taken_flag ? 1 : 0);
+		int[] entry = emitted.get(position);
+		if (entry == null) {
+			entry = new int[]{next_id++, -1};
+			emitted.put(position, entry);
+			if (parent_id >= 0) {
+				statements.append('n').append(parent_id).append(" -> n").append(entry[0]);
+				if (taken_flag) {
+					statements.append(" [color=\"#4e9a06\", label=\"⊤\"]\n");
+				} else {
+					statements.append(" [color=\"#a40000\", label=\"⊥\"]\n");
+				}
+			}
+		}
+		if (entry[1] != state) {
+			entry[1] = state;
+			statements.append('n').append(entry[0]).append(" [label=\"").append(escape(BranchingVisualizer.getNodeLabel(node)))
+					.append("\", ").append(getNodeAttributes(node)).append("]\n");
+		}
+		return entry[0];
+	}
+
+	private static final class Pending {
+		final BranchingNode node;
+		final int parent_id;
+		final boolean taken_flag;
+
+		Pending(BranchingNode node, int parent_id, boolean taken_flag) {
+			this.node = node;
+			this.parent_id = parent_id;
+			this.taken_flag = taken_flag;
+		}
+	}
+
+	private static String getNodeAttributes(BranchingNode node) {
+		switch (node.getBranchingNodeAttribute()) {
+			case BRANCH:
+			case LOOP:
+				return "shape=diamond, style=filled, color=\"#eeeeec\", fontcolor=\"#1c1e1e\"";
+			case UNKNOWN:
+				return "shape=ellipse, style=filled, color=\"#ad7fa8\", fontcolor=\"#1c1e1e\"";
+			case UNREACHABLE:
+				return "shape=ellipse, style=filled, color=\"#729fcf\", fontcolor=\"#1c1e1e\"";
+			case TERMINATE:
+				return "shape=ellipse, style=filled, color=\"#babdb6\", fontcolor=\"#1c1e1e\"";
+			case ERROR:
+				return "shape=ellipse, style=filled, color=\"#cc0000\", fontcolor=\"#fafafa\"";
+			default:
+				return "";
+		}
+	}
+
+	private static String escape(String label) {
+		if (label == null) {
+			return "";
+		}
+		return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private void renderLoop() {
+		Graphviz.useEngine(new GraphvizCmdLineEngine());
+		while (true) {
+			StringBuilder statements;
+			String name;
+			long frame;
+			synchronized (this) {
+				while (pending_statements == null && running) {
+					try {
+						wait();
+					} catch (InterruptedException ie) {
+						return;
+					}
+				}
+				if (pending_statements == null) {
+					notifyAll();
+					return;
+				}
+				statements = pending_statements;
+				name = pending_name;
+				frame = submitted;
+				pending_statements = null;
+			}
+			render(statements, name);
+			synchronized (this) {
+				rendered = frame;
+				notifyAll();
+			}
+		}
+	}
+
+	private void render(StringBuilder statements, String svg_name) {
+		try {
+			Files.createDirectories(directory);
+			try (RandomAccessFile dot = new RandomAccessFile(dot_file, "rw")) {
+				if (!dot_initialized) {
+					dot.setLength(0);
+					dot_initialized = true;
+				}
+				if (dot.length() == 0) {
+					dot.write(HEADER.getBytes(StandardCharsets.UTF_8));
+				} else {
+					dot.seek(dot.length() - FOOTER.length());
+				}
+				dot.write(statements.toString().getBytes(StandardCharsets.UTF_8));
+				dot.write(FOOTER.getBytes(StandardCharsets.UTF_8));
+			}
+			File svg_file = directory.resolve(svg_name).toFile();
+			if (!svg_file.exists()) {
+				logger.info("Saving trace-visualization to file '" + Logger.capFront(svg_file.toString(), 32) + "'");
+				Graphviz.fromFile(dot_file).render(Format.SVG).toFile(svg_file);
+			}
+		} catch (GraphvizException | IOException ex) {
+			logger.critical("Cannot save trace-visualization to file '" + svg_name + "'");
+			logger.log(ex.getMessage());
+		}
+	}
+}
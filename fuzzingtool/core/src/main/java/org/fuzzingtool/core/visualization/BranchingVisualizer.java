@@ -90,6 +90,10 @@ public class BranchingVisualizer {
 	}
 
 	private Label getNodeContents(BranchingNode node) {
+		return Label.of(getNodeLabel(node));
+	}
+
+	static String getNodeLabel(BranchingNode node) {
 		String label_string;
 		switch (node.getBranchingNodeAttribute()) {
 			case BRANCH:
@@ -120,7 +124,7 @@ public class BranchingVisualizer {
 		if (node.isExplored()) {
 			label_string += " ↺";
 		}
-		return Label.of(label_string);
+		return label_string;
 	}
 
 	private void setNodeAttributes(MutableNode mut_node, BranchingNodeAttribute node_type) {
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder implementation of {@link FlightRecorderEvents.Recorder}. This class is compiled
+ * for Java 11 (profile "jfr" of the core module) and is only loaded reflectively by {@link FlightRecorderEvents}.
+ */
+final class JfrRecorder implements FlightRecorderEvents.Recorder {
+
+	@Override
+	public Object beginIteration() {
+		IterationEvent event = new IterationEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endIteration(Object handle, int iteration, int input_variables, long input_size, String outcome,
+							 long execution_time) {
+		IterationEvent event = (IterationEvent) handle;
+		event.end();
+		if (event.shouldCommit()) {
+			event.iteration = iteration;
+			event.input_variables = input_variables;
+			event.input_size = input_size;
+			event.outcome = outcome;
+			event.execution_time = execution_time;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginSolverQuery() {
+		SolverQueryEvent event = new SolverQueryEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endSolverQuery(Object handle, int constraint_size, int variables, String status, boolean cache_hit) {
+		SolverQueryEvent event = (SolverQueryEvent) handle;
+		event.end();
+		if (event.shouldCommit()) {
+			event.constraint_size = constraint_size;
+			event.variables = variables;
+			event.status = status;
+			event.cache_hit = cache_hit;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginFindUnexplored() {
+		FindUnexploredEvent event = new FindUnexploredEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void endFindUnexplored(Object handle, String tactic, long visited_nodes, boolean found) {
+		FindUnexploredEvent event = (FindUnexploredEvent) handle;
+		event.end();
+		if (event.shouldCommit()) {
+			event.tactic = tactic;
+			event.visited_nodes = visited_nodes;
+			event.found = found;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void coverageSnapshot(int iteration, double root, double statement, double branch, int edges,
+								 boolean novel) {
+		CoverageSnapshotEvent event = new CoverageSnapshotEvent();
+		if (event.shouldCommit()) {
+			event.iteration = iteration;
+			event.root_coverage = root / 100.0;
+			event.statement_coverage = statement / 100.0;
+			event.branch_coverage = branch / 100.0;
+			event.edges = edges;
+			event.novel = novel;
+			event.commit();
+		}
+	}
+
+	@Name("org.fuzzingtool.Iteration")
+	@Label("Fuzzing Iteration")
+	@Category({"Fuzzing Tool", "Execution"})
+	@Description("One execution of the program under test")
+	@StackTrace(false)
+	static final class IterationEvent extends Event {
+		@Label("Iteration")
+		int iteration;
+
+		@Label("Input Variables")
+		int input_variables;
+
+		@Label("Input Size")
+		@DataAmount(DataAmount.BYTES)
+		long input_size;
+
+		@Label("Outcome")
+		String outcome;
+
+		@Label("Execution Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long execution_time;
+	}
+
+	@Name("org.fuzzingtool.SolverQuery")
+	@Label("Solver Query")
+	@Category({"Fuzzing Tool", "Tactic"})
+	@Description("One satisfiability check of a path expression")
+	@StackTrace(false)
+	static final class SolverQueryEvent extends Event {
+		@Label("Constraint Size")
+		int constraint_size;
+
+		@Label("Variables")
+		int variables;
+
+		@Label("Status")
+		String status;
+
+		@Label("Expression Cache Hit")
+		boolean cache_hit;
+	}
+
+	@Name("org.fuzzingtool.FindUnexplored")
+	@Label("Find Unexplored Node")
+	@Category({"Fuzzing Tool", "Tactic"})
+	@Description("Search of the execution graph for the next unexplored node")
+	@StackTrace(false)
+	static final class FindUnexploredEvent extends Event {
+		@Label("Tactic")
+		String tactic;
+
+		@Label("Visited Nodes")
+		long visited_nodes;
+
+		@Label("Found")
+		boolean found;
+	}
+
+	@Name("org.fuzzingtool.CoverageSnapshot")
+	@Label("Coverage Snapshot")
+	@Category({"Fuzzing Tool", "Coverage"})
+	@Description("Coverage after an iteration")
+	@StackTrace(false)
+	static final class CoverageSnapshotEvent extends Event {
+		@Label("Iteration")
+		int iteration;
+
+		@Label("Root Coverage")
+		@Percentage
+		double root_coverage;
+
+		@Label("Statement Coverage")
+		@Percentage
+		double statement_coverage;
+
+		@Label("Branch Coverage")
+		@Percentage
+		double branch_coverage;
+
+		@Label("Edges")
+		int edges;
+
+		@Label("Novel")
+		boolean novel;
+	}
+}
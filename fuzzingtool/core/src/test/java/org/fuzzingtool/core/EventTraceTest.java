@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventTraceTest {
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("event-trace");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		File[] files = directory.toFile().listFiles();
+		if (files != null) {
+			for (File file: files) {
+				Files.delete(file.toPath());
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void ringBufferKeepsMostRecentRecords() {
+		EventTrace trace = new EventTrace(4);
+		trace.registerNode(1, "IfNode");
+		trace.registerNode(2, "JSAddNode");
+		trace.setIteration(7);
+		for (int i = 0; i < 3; i++) {
+			trace.record(1, EventTrace.EventKind.ENTER);
+			trace.record(2, EventTrace.EventKind.RETURN_VALUE);
+		}
+		assertEquals(6, trace.getNumRecords());
+
+		List<String> events = trace.lastEvents(Integer.MAX_VALUE);
+		assertEquals(4, events.size());
+		for (int i = 0; i < events.size(); i++) {
+			String event = events.get(i);
+			assertTrue(event, event.startsWith("7 "));
+			if (i % 2 == 0) {
+				assertTrue(event, event.endsWith(" IfNode " + EventTrace.EventKind.ENTER.getSymbol()));
+			} else {
+				assertTrue(event, event.endsWith(" JSAddNode " + EventTrace.EventKind.RETURN_VALUE.getSymbol()));
+			}
+		}
+		assertEquals(events.subList(2, 4), trace.lastEvents(2));
+	}
+
+	@Test
+	public void decodeMappedFile() throws IOException {
+		Path path = directory.resolve("events.bin");
+		EventTrace trace = EventTrace.mapFile(path, 8);
+		trace.registerNode(3, "WritePropertyNode");
+		trace.registerNode(4, "JSTaggedExecutionNode");
+		EventTrace.EventKind[] kinds = EventTrace.EventKind.values();
+		for (int i = 0; i < 11; i++) {
+			trace.setIteration(i / 4);
+			trace.record(3 + i % 2, kinds[i % kinds.length]);
+		}
+		trace.close();
+
+		List<String> expected = trace.lastEvents(Integer.MAX_VALUE);
+		assertEquals(8, expected.size());
+		assertEquals(expected, EventTraceDecoder.decodeFile(path, Integer.MAX_VALUE));
+		assertEquals(expected.subList(5, 8), EventTraceDecoder.decodeFile(path, 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeOtherFile() throws IOException {
+		Path path = directory.resolve("other.bin");
+		Files.write(path, new byte[64]);
+		EventTraceDecoder.decodeFile(path, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void capacityExceedsBuffer() {
+		new EventTrace(EventTrace.MAX_CAPACITY + 1);
+	}
+}
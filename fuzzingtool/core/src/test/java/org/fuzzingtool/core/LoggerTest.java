@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoggerTest {
+	@Test(timeout = 60000)
+	public void asyncFlushWritesAllMessages() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Logger logger = new Logger(bytes);
+		logger.enableAsync();
+		for (int i = 0; i < 1000; i++) {
+			logger.log("message " + i);
+		}
+		logger.flush();
+		String[] lines = bytes.toString().split("\n");
+		assertEquals(1000, lines.length);
+		assertEquals("message 0", lines[0]);
+		assertEquals("message 999", lines[999]);
+		logger.close();
+	}
+
+	@Test(timeout = 60000)
+	public void closeKeepsConcurrentMessages() throws InterruptedException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Logger logger = new Logger(bytes);
+		logger.enableAsync();
+		int num_threads = 4;
+		// More messages than the queue holds, the producers also have to write them themselves
+		int num_messages = 40000;
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < num_threads; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < num_messages; i++) {
+					logger.log("message " + i);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		Thread.sleep(5);
+		logger.close();
+		for (Thread thread: threads) {
+			thread.join();
+		}
+		logger.flush();
+		int lines = 0;
+		for (String line: new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+			if (line.startsWith("message ")) {
+				lines++;
+			}
+		}
+		assertEquals(num_threads * num_messages, lines);
+	}
+}
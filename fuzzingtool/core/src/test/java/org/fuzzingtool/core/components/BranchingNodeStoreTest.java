@@ -0,0 +1,244 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.symbolic.ExpressionType;
+import org.fuzzingtool.core.symbolic.LanguageSemantic;
+import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.SymbolicNodeSerializer;
+import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
+import org.fuzzingtool.core.symbolic.basic.SymbolicVariable;
+import org.fuzzingtool.core.symbolic.logical.GreaterThan;
+import org.fuzzingtool.core.symbolic.logical.LessThan;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BranchingNodeStoreTest {
+	private static final LanguageSemantic JS = LanguageSemantic.JAVASCRIPT;
+	private static final SymbolicNode X = new SymbolicVariable(JS, new VariableIdentifier(ExpressionType.NUMBER_INTEGER, "1"));
+
+	private Path directory;
+	private BranchingNodeStore store;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("branching-node-store");
+		// A cache of one predicate forces reads from the predicate file
+		store = new BranchingNodeStore(directory.resolve("execution_tree.bin"), 1);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		store.close();
+		File[] files = directory.toFile().listFiles();
+		if (files != null) {
+			for (File file: files) {
+				Files.delete(file.toPath());
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void evictAndMaterialize() throws Exception {
+		BranchingNode root = createClosedTree(store);
+		String expected = describe(root);
+		assertEquals(5, store.getHeapNodes());
+
+		root.evictClosed();
+		assertTrue(root.hasStoredChildren());
+		assertEquals(1, store.getHeapNodes());
+
+		assertEquals(expected, describe(root));
+		assertFalse(root.hasStoredChildren());
+		assertEquals(5, store.getHeapNodes());
+	}
+
+	@Test
+	public void flagsOfStoredSubtree() throws Exception {
+		BranchingNode root = createClosedTree(store);
+		root.evictClosed();
+		root.setExplored();
+		assertTrue(root.hasStoredChildren());
+		assertTrue(root.getChildBranch(false).getChildBranch(true).isExplored());
+		assertTrue(root.getChildBranch(true).isExplored());
+	}
+
+	@Test
+	public void writeTreeWithStoredSubtree() throws Exception {
+		BranchingNode heap_root = createClosedTree(null);
+		BranchingNode stored_root = createClosedTree(store);
+		stored_root.evictClosed();
+		assertTrue(stored_root.hasStoredChildren());
+
+		byte[] expected = writeTree(stored_root);
+		// Writing a checkpoint does not materialize the stored subtree
+		assertTrue(stored_root.hasStoredChildren());
+
+		// Without a store, the stored subtree is restored on the heap
+		BranchingNode read_root = new BranchingNode();
+		List<BranchingNode> order = new ArrayList<>();
+		read_root.readTree(new DataInputStream(new ByteArrayInputStream(expected)), order);
+		assertEquals(5, order.size());
+		assertFalse(read_root.hasStoredChildren());
+		assertEquals(describe(heap_root), describe(read_root));
+		assertArrayEquals(writeTree(heap_root), writeTree(read_root));
+	}
+
+	@Test
+	public void readTreeIntoStore() throws Exception {
+		BranchingNode heap_root = createClosedTree(null);
+		BranchingNode stored_root = createClosedTree(store);
+		stored_root.evictClosed();
+		byte[] expected = writeTree(stored_root);
+
+		BranchingNode read_root = new BranchingNode();
+		read_root.setStore(store);
+		List<BranchingNode> order = new ArrayList<>();
+		read_root.readTree(new DataInputStream(new ByteArrayInputStream(expected)), order);
+		assertEquals(5, order.size());
+		assertSame(read_root, order.get(0));
+		assertNull(order.get(1));
+		assertTrue(read_root.hasStoredChildren());
+		// Only the two roots are on the heap
+		assertEquals(2, store.getHeapNodes());
+		assertArrayEquals(expected, writeTree(read_root));
+		assertEquals(describe(heap_root), describe(read_root));
+	}
+
+	@Test
+	public void readDeepTree() throws Exception {
+		int height = 100000;
+		byte[] heap_checkpoint = writeChain(height, false);
+		BranchingNode heap_root = new BranchingNode();
+		List<BranchingNode> order = new ArrayList<>();
+		heap_root.readTree(new DataInputStream(new ByteArrayInputStream(heap_checkpoint)), order);
+		assertEquals(2 * height + 1, order.size());
+		BranchingNode node = heap_root;
+		while (node.getChildBranch(true) != null) {
+			node = node.getChildBranch(true);
+		}
+		assertEquals(height, (int) node.getDepth());
+		assertEquals(BranchingNodeAttribute.TERMINATE, node.getBranchingNodeAttribute());
+
+		byte[] stored_checkpoint = writeChain(height, true);
+		BranchingNode stored_root = new BranchingNode();
+		stored_root.setStore(store);
+		order.clear();
+		stored_root.readTree(new DataInputStream(new ByteArrayInputStream(stored_checkpoint)), order);
+		assertEquals(2 * height + 1, order.size());
+		assertTrue(stored_root.hasStoredChildren());
+		assertEquals(1, store.getHeapNodes());
+		assertEquals(height, stored_root.getTreeHeight());
+		assertEquals(2 * height + 1, stored_root.getTreeSize());
+		assertArrayEquals(stored_checkpoint, writeTree(stored_root));
+	}
+
+	/**
+	 * Writes the checkpoint of a tree of branches in which every branch takes the next branch
+	 * and terminates otherwise, with the given height.
+	 */
+	private static byte[] writeChain(int height, boolean stored) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int i = 0; i <= height; i++) {
+			BranchingNodeAttribute attribute = i < height ? BranchingNodeAttribute.BRANCH : BranchingNodeAttribute.TERMINATE;
+			writeNode(out, attribute, i);
+			out.writeByte(i == height ? 0 : (i == 0 && stored ? 2 : 1));
+		}
+		for (int i = height - 1; i >= 0; i--) {
+			writeNode(out, BranchingNodeAttribute.TERMINATE, 0);
+			out.writeByte(0);
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void writeNode(DataOutputStream out, BranchingNodeAttribute attribute, int branch_identifier) throws IOException {
+		out.writeByte(attribute.ordinal());
+		out.writeByte(0);
+		out.writeInt(branch_identifier);
+		out.writeBoolean(false);
+		SymbolicNodeSerializer.write(out, null);
+	}
+
+	/**
+	 * Creates the closed tree of "if (x < 3) {} else if (x > 5) {throw} else {}".
+	 */
+	private static BranchingNode createClosedTree(BranchingNodeStore node_store) {
+		BranchingNode root = new BranchingNode();
+		if (node_store != null) {
+			root.setStore(node_store);
+		}
+		root.setProperties(new LessThan(JS, X, new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, 3)), 11, BranchingNodeAttribute.BRANCH);
+		root.setSourceCodeExpression("x < 3");
+		root.initializeChildren();
+		root.getChildBranch(true).setBranchingNodeAttribute(BranchingNodeAttribute.TERMINATE);
+
+		BranchingNode inner = root.getChildBranch(false);
+		inner.setProperties(new GreaterThan(JS, X, new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, 5)), 12, BranchingNodeAttribute.BRANCH);
+		inner.setSourceCodeExpression("x > 5");
+		inner.initializeChildren();
+		inner.getChildBranch(true).setBranchingNodeAttribute(BranchingNodeAttribute.ERROR);
+		inner.getChildBranch(false).setBranchingNodeAttribute(BranchingNodeAttribute.TERMINATE);
+		inner.getChildBranch(false).setUndecidable();
+		return root;
+	}
+
+	private static byte[] writeTree(BranchingNode root) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		root.writeTree(new DataOutputStream(bytes), 0, new IdentityHashMap<>());
+		return bytes.toByteArray();
+	}
+
+	private static String describe(BranchingNode node) throws Exception {
+		StringBuilder description = new StringBuilder();
+		description.append(node.getBranchingNodeAttribute()).append(' ').append(node.getBranchIdentifier()).append(' ')
+				.append(node.getDepth()).append(' ').append(node.isUndecidable()).append(node.isDiverging())
+				.append(node.isExplored()).append(' ').append(node.getSourceCodeExpression());
+		if (node.getBranchingNodeAttribute() == BranchingNodeAttribute.BRANCH) {
+			description.append(' ').append(node.getLocalSMTExpression(true));
+		}
+		BranchingNode taken = node.getChildBranch(true);
+		BranchingNode not_taken = node.getChildBranch(false);
+		if (taken != null && not_taken != null) {
+			description.append(" (").append(describe(taken)).append(") (").append(describe(not_taken)).append(')');
+		}
+		return description.toString();
+	}
+}
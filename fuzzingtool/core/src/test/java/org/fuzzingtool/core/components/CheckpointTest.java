@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.symbolic.ExpressionType;
+import org.fuzzingtool.core.symbolic.LanguageSemantic;
+import org.fuzzingtool.core.symbolic.Operation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointTest {
+	private static final LanguageSemantic JS = LanguageSemantic.JAVASCRIPT;
+
+	private Path directory;
+	private final List<Amygdala> instances = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("checkpoint");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (Amygdala amygdala: instances) {
+			amygdala.close();
+		}
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.collect(Collectors.toList());
+		}
+		Collections.reverse(paths);
+		for (Path path: paths) {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void resumeRestoresState() throws IOException {
+		Amygdala amygdala = createAmygdala(false);
+		assertFalse(amygdala.isResumed());
+		VariableIdentifier x = amygdala.getInputNodeConfiguration(1).getRight();
+
+		// Execution with the sample value, the branch "x < 3" is not taken
+		amygdala.tracer.addVariable(1, JS, x);
+		amygdala.tracer.addConstant(2, JS, ExpressionType.NUMBER_INTEGER, 3);
+		amygdala.tracer.addOperation(3, JS, Operation.LESS_THAN, 1, 2, false);
+		amygdala.branchingEvent(42, BranchingNodeAttribute.BRANCH, 3, false, "x < 3");
+		amygdala.terminateEvent(1000L);
+		assertTrue(amygdala.calculateNextPath());
+		amygdala.saveCheckpoint();
+		byte[] checkpoint = readCheckpoint();
+
+		Amygdala resumed = createAmygdala(true);
+		assertTrue(resumed.isResumed());
+		assertEquals(amygdala.getIteration(), resumed.getIteration());
+		assertEquals(amygdala.getVariableValues(), resumed.getVariableValues());
+		assertEquals(x, resumed.getInputNodeConfiguration(1).getRight());
+		assertNotEquals(5, resumed.getNextInputValue(x));
+
+		resumed.saveCheckpoint();
+		assertArrayEquals(checkpoint, readCheckpoint());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void resumeFromInvalidCheckpoint() throws IOException {
+		Files.write(directory.resolve("checkpoint.bin"), new byte[]{1, 2, 3});
+		createAmygdala(true);
+	}
+
+	private Amygdala createAmygdala(boolean resume) {
+		Map<String, Object> variable = new HashMap<>();
+		variable.put("line_num", 1);
+		variable.put("name", "x");
+		variable.put("type", "INTEGER");
+		variable.put("sample", 5);
+		List<Map<String, Object>> variables = new ArrayList<>();
+		variables.add(variable);
+
+		Map<String, Object> fuzzing_parameters = new HashMap<>();
+		fuzzing_parameters.put("max_iterations", 10);
+		fuzzing_parameters.put("tactic", "DEPTH_SEARCH");
+
+		Map<String, Object> checkpoint = new HashMap<>();
+		checkpoint.put("interval", 1);
+		checkpoint.put("resume", resume);
+
+		Map<String, Object> options = new HashMap<>();
+		options.put("program_path", "program.js");
+		options.put("results", directory.toString());
+		options.put("variables", variables);
+		options.put("fuzzing_parameters", fuzzing_parameters);
+		options.put("checkpoint", checkpoint);
+
+		Amygdala amygdala = new Amygdala(new Logger(new ByteArrayOutputStream()));
+		instances.add(amygdala);
+		amygdala.setTimeProbe(new TimeProbe(false));
+		amygdala.loadOptions(options, directory.toString());
+		return amygdala;
+	}
+
+	private byte[] readCheckpoint() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve("checkpoint.bin")))) {
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, length);
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CorpusTest {
+	private Path directory;
+	private Logger logger;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("corpus");
+		logger = new Logger(new ByteArrayOutputStream());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.collect(Collectors.toList());
+		}
+		Collections.reverse(paths);
+		for (Path path: paths) {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void saveAndLoad() {
+		Corpus corpus = new Corpus(logger, directory);
+		Map<Integer, Object> first = assignment(5, "+");
+		assertTrue(corpus.save(first, 1));
+		assertFalse(corpus.save(assignment(5, "+"), 2));
+		assertTrue(corpus.save(assignment(7, "-"), 3));
+		assertEquals(2, corpus.getNumSaved());
+
+		Corpus reloaded = new Corpus(logger, directory);
+		List<Map<Integer, Object>> loaded = reloaded.loadDirectory();
+		assertEquals(2, loaded.size());
+		assertTrue(loaded.contains(first));
+		assertTrue(loaded.contains(assignment(7, "-")));
+		// Loaded assignments are known and not saved again
+		assertFalse(reloaded.save(first, 4));
+	}
+
+	@Test
+	public void loadResultsFileSkipsDuplicates() throws IOException {
+		Path results = directory.resolve("result.yaml");
+		List<String> lines = new ArrayList<>();
+		lines.add("---");
+		lines.add("iteration: 1");
+		lines.add("assignments:");
+		lines.add("  - line: 1");
+		lines.add("    value: 5");
+		lines.add("  - line: 3");
+		lines.add("    value: \"+\"");
+		lines.add("---");
+		lines.add("coverage:");
+		lines.add("  root: 50.0");
+		lines.add("---");
+		lines.add("iteration: 2");
+		lines.add("assignments:");
+		lines.add("  - line: 3");
+		lines.add("    value: \"+\"");
+		lines.add("  - line: 1");
+		lines.add("    value: 5");
+		lines.add("---");
+		lines.add("iteration: 3");
+		lines.add("assignments:");
+		lines.add("  - line: 1");
+		lines.add("    value: 6");
+		lines.add("  - line: 3");
+		lines.add("    value: \"+\"");
+		Files.write(results, lines, StandardCharsets.UTF_8);
+
+		Corpus corpus = new Corpus(logger, null);
+		List<Map<Integer, Object>> loaded = corpus.loadFile(results);
+		assertEquals(2, loaded.size());
+		assertEquals(assignment(5, "+"), loaded.get(0));
+		assertEquals(assignment(6, "+"), loaded.get(1));
+		assertTrue(corpus.loadFile(results).isEmpty());
+		// Without a directory nothing is saved
+		assertFalse(corpus.save(assignment(8, "+"), 4));
+	}
+
+	private static Map<Integer, Object> assignment(int a, String operation) {
+		Map<Integer, Object> assignment = new HashMap<>();
+		assignment.put(1, a);
+		assignment.put(3, operation);
+		return assignment;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageTest {
+	private static final double DELTA = 1e-9;
+
+	private Coverage coverage;
+
+	@Before
+	public void setUp() {
+		coverage = new Coverage(new Logger(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	public void indicesAreDense() {
+		assertEquals(-1, coverage.getStatementIndex(0));
+		assertEquals(0, coverage.getStatementIndex(1234));
+		assertEquals(1, coverage.getStatementIndex(-99));
+		assertEquals(0, coverage.getStatementIndex(1234));
+		// Every kind of element has its own indices
+		assertEquals(0, coverage.getBranchIndex(1234));
+		assertEquals(0, coverage.getRootIndex(-99));
+	}
+
+	@Test
+	public void percentages() {
+		coverage.registerStatement(10);
+		coverage.registerStatement(20);
+		coverage.registerBranch(30);
+		coverage.addStatementCovered(coverage.getStatementIndex(10));
+		coverage.addStatementCovered(coverage.getStatementIndex(10));
+		assertEquals(50.0, coverage.getStatementPercentage(), DELTA);
+		assertTrue(coverage.isStatementCovered(coverage.getStatementIndex(10)));
+		assertFalse(coverage.isStatementCovered(coverage.getStatementIndex(20)));
+
+		// A branch has two directions
+		int branch = coverage.getBranchIndex(30);
+		coverage.addBranchTaken(branch, false);
+		assertEquals(50.0, coverage.getBranchPercentage(), DELTA);
+		assertFalse(coverage.isBranchTaken(branch, true));
+		assertTrue(coverage.isBranchTaken(branch, false));
+		coverage.addBranchTaken(branch, true);
+		assertEquals(100.0, coverage.getBranchPercentage(), DELTA);
+
+		// Covering an unregistered element registers it
+		coverage.addStatementCovered(coverage.getStatementIndex(40));
+		assertEquals(2.0 / 3.0 * 100.0, coverage.getStatementPercentage(), DELTA);
+	}
+
+	@Test
+	public void coverageNotReachedBeforeFirstSnapshot() {
+		coverage.addStatementCovered(coverage.getStatementIndex(1));
+		coverage.addRootCovered(coverage.getRootIndex(2));
+		coverage.addBranchTaken(coverage.getBranchIndex(3), true);
+		assertFalse(coverage.coverageReached(0, 0, 0));
+		coverage.saveSnapshot();
+		assertTrue(coverage.coverageReached(100, 100, 50));
+		assertFalse(coverage.coverageReached(100, 100, 100));
+	}
+
+	@Test
+	public void edgeBitmap() {
+		int first = coverage.getBranchIndex(1);
+		int second = coverage.getBranchIndex(2);
+
+		coverage.addBranchTaken(first, true);
+		coverage.addBranchTaken(second, false);
+		assertTrue(coverage.finishExecution());
+		assertEquals(2, coverage.getNumEdges());
+
+		// The same path again is not novel
+		coverage.addBranchTaken(first, true);
+		coverage.addBranchTaken(second, false);
+		assertFalse(coverage.finishExecution());
+
+		// Repeating the path hits the known edges again and adds the transition back to the first branch
+		coverage.addBranchTaken(first, true);
+		coverage.addBranchTaken(second, false);
+		coverage.addBranchTaken(first, true);
+		coverage.addBranchTaken(second, false);
+		assertTrue(coverage.finishExecution());
+
+		assertEquals(3, coverage.getNumEdges());
+
+		// A new transition is a new edge
+		coverage.addBranchTaken(first, true);
+		coverage.addBranchTaken(coverage.getBranchIndex(3), true);
+		assertTrue(coverage.finishExecution());
+		assertEquals(4, coverage.getNumEdges());
+	}
+
+	@Test
+	public void hitCountBuckets() {
+		// The location of index 0 is 0, its self-loop would collide with the entry edge
+		coverage.getBranchIndex(1);
+		int loop = coverage.getBranchIndex(2);
+		coverage.addBranchTaken(loop, true);
+		coverage.addBranchTaken(loop, true);
+		assertTrue(coverage.finishExecution());
+		assertEquals(2, coverage.getNumEdges());
+
+		// The loop edge is taken twice instead of once, a new bucket but no new edge
+		for (int i = 0; i < 3; i++) {
+			coverage.addBranchTaken(loop, true);
+		}
+		assertTrue(coverage.finishExecution());
+		assertEquals(2, coverage.getNumEdges());
+		for (int i = 0; i < 3; i++) {
+			coverage.addBranchTaken(loop, true);
+		}
+		assertFalse(coverage.finishExecution());
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageTraceTest {
+	private Coverage coverage;
+	private int statement;
+	private int branch;
+
+	@Before
+	public void setUp() {
+		coverage = new Coverage(new Logger(new ByteArrayOutputStream()));
+		statement = coverage.getStatementIndex(17);
+		branch = coverage.getBranchIndex(23);
+		coverage.registerStatement(17);
+		coverage.registerBranch(23);
+	}
+
+	@Test
+	public void novelAgainstGlobalCoverage() {
+		CoverageTrace trace = new CoverageTrace();
+		CoverageTrace pending = new CoverageTrace();
+		assertFalse(trace.isNovel(coverage, pending));
+
+		trace.addStatementCovered(statement);
+		assertTrue(trace.isNovel(coverage, pending));
+		coverage.addStatementCovered(statement);
+		assertFalse(trace.isNovel(coverage, pending));
+
+		// The other direction of a covered branch is still new
+		coverage.addBranchTaken(branch, true);
+		trace.addBranchTaken(branch, true);
+		assertFalse(trace.isNovel(coverage, pending));
+		trace.addBranchTaken(branch, false);
+		assertTrue(trace.isNovel(coverage, pending));
+	}
+
+	@Test
+	public void novelAgainstPendingCoverage() {
+		CoverageTrace queued = new CoverageTrace();
+		queued.addBranchTaken(branch, false);
+		CoverageTrace pending = new CoverageTrace();
+		assertTrue(queued.isNovel(coverage, pending));
+		queued.copy().mergeInto(pending);
+
+		CoverageTrace trace = new CoverageTrace();
+		trace.addBranchTaken(branch, false);
+		assertFalse(trace.isNovel(coverage, pending));
+
+		// Once the queued input is consumed, its coverage is no longer pending
+		pending.clear();
+		assertTrue(trace.isNovel(coverage, pending));
+	}
+
+	@Test
+	public void writeAndReadState() throws IOException {
+		CoverageTrace trace = new CoverageTrace();
+		trace.addStatementCovered(statement);
+		trace.addBranchTaken(branch, false);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		trace.writeState(new DataOutputStream(bytes));
+
+		CoverageTrace read = new CoverageTrace();
+		read.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		CoverageTrace pending = new CoverageTrace();
+		read.mergeInto(pending);
+		assertFalse(trace.isNovel(coverage, pending));
+		assertTrue(trace.isNovel(coverage, new CoverageTrace()));
+	}
+}
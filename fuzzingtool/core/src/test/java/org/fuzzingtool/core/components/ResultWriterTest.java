@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package org.fuzzingtool.core.components;
+
+import org.fuzzingtool.core.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultWriterTest {
+	private Path directory;
+	private Path path;
+	private Logger logger;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("results");
+		path = directory.resolve("result.yaml");
+		logger = new Logger(new ByteArrayOutputStream());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(path);
+		Files.delete(directory);
+	}
+
+	@Test
+	public void replacesExistingFile() throws IOException {
+		Files.write(path, "old".getBytes(StandardCharsets.UTF_8));
+		ResultWriter writer = new ResultWriter(logger, path);
+		writer.write(Collections.singletonMap("iteration", 1));
+		writer.close();
+
+		String content = read();
+		assertFalse(content.contains("old"));
+		assertEquals(Files.size(path), writer.getLength());
+	}
+
+	@Test
+	public void resumeDropsDocumentsAfterOffset() throws IOException {
+		ResultWriter writer = new ResultWriter(logger, path);
+		writer.write(Collections.singletonMap("iteration", 1));
+		long offset = writer.getLength();
+		writer.write(Collections.singletonMap("iteration", 2));
+		writer.close();
+
+		ResultWriter resumed = new ResultWriter(logger, path, offset);
+		assertEquals(offset, resumed.getLength());
+		resumed.write(Collections.singletonMap("iteration", 3));
+		resumed.close();
+
+		String content = read();
+		assertTrue(content.contains("iteration: 1"));
+		assertFalse(content.contains("iteration: 2"));
+		assertTrue(content.contains("iteration: 3"));
+		assertEquals(Files.size(path), resumed.getLength());
+	}
+
+	@Test
+	public void resumeAppendsToShorterFile() throws IOException {
+		ResultWriter writer = new ResultWriter(logger, path);
+		writer.write(Collections.singletonMap("iteration", 1));
+		writer.close();
+
+		ResultWriter resumed = new ResultWriter(logger, path, writer.getLength() + 100);
+		resumed.write(Collections.singletonMap("iteration", 2));
+		resumed.close();
+
+		String content = read();
+		assertTrue(content.contains("iteration: 1"));
+		assertTrue(content.contains("iteration: 2"));
+		assertEquals(Files.size(path), resumed.getLength());
+	}
+
+	private String read() throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+}
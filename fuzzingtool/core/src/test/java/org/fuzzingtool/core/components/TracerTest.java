@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.components;
+
+import com.oracle.truffle.js.runtime.SafeInteger;
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.symbolic.ExpressionType;
+import org.fuzzingtool.core.symbolic.LanguageSemantic;
+import org.fuzzingtool.core.symbolic.Operation;
+import org.fuzzingtool.core.symbolic.SymbolicNode;
+import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+	private static final LanguageSemantic JS = LanguageSemantic.JAVASCRIPT;
+
+	private Tracer tracer;
+
+	@Before
+	public void setUp() {
+		tracer = new Tracer(new Logger(new ByteArrayOutputStream()));
+		tracer.addVariable(1, JS, new VariableIdentifier(ExpressionType.NUMBER_INTEGER, "1"));
+	}
+
+	@Test
+	public void safeIntegerOperandInIntRange() {
+		tracer.addConcrete(2, SafeInteger.valueOf(42));
+		tracer.addOperation(3, JS, Operation.ADDITION, 1, 2, SafeInteger.valueOf(43));
+
+		SymbolicNode constant = tracer.getIntermediate(2);
+		assertTrue(constant instanceof SymbolicConstant);
+		assertEquals(ExpressionType.NUMBER_INTEGER, ((SymbolicConstant) constant).getConstantType());
+		assertEquals(42, ((SymbolicConstant) constant).getValue());
+		assertTrue(tracer.isSymbolic(3));
+	}
+
+	@Test
+	public void safeIntegerOperandOutOfIntRange() {
+		tracer.addConcrete(2, SafeInteger.valueOf(5000000000L));
+		tracer.addOperation(3, JS, Operation.ADDITION, 1, 2, SafeInteger.valueOf(5000000001L));
+
+		SymbolicNode constant = tracer.getIntermediate(2);
+		assertTrue(constant instanceof SymbolicConstant);
+		assertEquals(ExpressionType.NUMBER_REAL, ((SymbolicConstant) constant).getConstantType());
+		assertEquals(5000000000.0, ((SymbolicConstant) constant).getValue());
+		assertTrue(tracer.isSymbolic(3));
+	}
+
+	@Test
+	public void concreteResultIsNormalized() {
+		tracer.addConcrete(2, 7L);
+		tracer.addConcrete(4, SafeInteger.valueOf(3));
+		tracer.addOperation(5, JS, Operation.ADDITION, 2, 4, SafeInteger.valueOf(10));
+
+		assertEquals(7, tracer.getIntermediateValue(2));
+		assertEquals(10, tracer.getIntermediateValue(5));
+	}
+
+	@Test
+	public void selectiveInstrumentationRecordsSymbolicNames() {
+		tracer.setSelectiveInstrumentation(true);
+		Object scope = new Object();
+		tracer.initializeFunctionScope(scope);
+		tracer.addConcrete(2, 3);
+		tracer.intermediateToFrameSlot(scope, "symbolic", 1);
+		tracer.intermediateToFrameSlot(scope, "concrete", 2);
+
+		assertTrue(tracer.isSymbolicName("symbolic"));
+		assertFalse(tracer.isSymbolicName("concrete"));
+	}
+
+	@Test
+	public void pendingArgumentsAreConsumedOnce() {
+		ArrayList<Object> arguments = new ArrayList<>();
+		arguments.add(tracer.getIntermediateValue(1));
+		tracer.setArgumentsArray(arguments);
+
+		assertTrue(tracer.hasPendingArguments());
+		assertTrue(tracer.hasSymbolicArguments());
+		assertTrue(tracer.consumeArguments());
+		assertFalse(tracer.hasPendingArguments());
+		assertFalse(tracer.consumeArguments());
+	}
+
+	@Test
+	public void builtinReturnValueIsSymbolic() {
+		ArrayList<Object> arguments = new ArrayList<>();
+		arguments.add(tracer.getIntermediateValue(1));
+		tracer.setArgumentsArray(arguments);
+		tracer.resetFunctionReturnValue();
+		tracer.performSingularMethodInvocation(JS, Operation.SQRT);
+
+		assertTrue(tracer.hasFunctionReturnValue());
+		assertTrue(tracer.isFunctionReturnValueSymbolic());
+	}
+
+	@Test
+	public void contextsDoNotKeepObjects() {
+		Object scope = new Object();
+		tracer.initializeFunctionScope(scope);
+		tracer.addConcrete(2, scope);
+		tracer.addConcrete(3, "text");
+		tracer.intermediateToFrameSlot(scope, "self", 2);
+		tracer.intermediateToFrameSlot(scope, "text", 3);
+		tracer.frameSlotToIntermediate(scope, "self", 4);
+		tracer.frameSlotToIntermediate(scope, "text", 5);
+
+		assertTrue(tracer.getIntermediateValue(4) instanceof SymbolicConstant);
+		assertEquals(ExpressionType.OBJECT, ((SymbolicConstant) tracer.getIntermediateValue(4)).getConstantType());
+		assertEquals("text", tracer.getIntermediateValue(5));
+	}
+
+	@Test
+	public void slotsAreDense() {
+		int first = tracer.newSlot();
+		int second = tracer.newSlot();
+		assertTrue(first > Tracer.EMPTY_SLOT);
+		assertEquals(first + 1, second);
+
+		// Slots beyond the initial capacity grow the arrays
+		tracer.addConcrete(5000, 17);
+		assertEquals(17, tracer.getIntermediateValue(5000));
+		assertTrue(tracer.isSymbolic(1));
+	}
+
+	@Test
+	public void clearAllStartsNewGeneration() {
+		tracer.addConcrete(2, 7);
+		tracer.passThroughIntermediate(3, 1);
+		tracer.clearAll();
+
+		assertFalse(tracer.isSymbolic(1));
+		assertFalse(tracer.isSymbolic(3));
+		SymbolicNode missing = tracer.getIntermediate(2);
+		assertEquals(ExpressionType.INTERNAL_ERROR, ((SymbolicConstant) missing).getConstantType());
+
+		// Results of the new generation are valid again
+		tracer.addConcrete(2, 8);
+		assertEquals(8, tracer.getIntermediateValue(2));
+	}
+
+	@Test
+	public void removeIntermediate() {
+		tracer.addConcrete(2, 7);
+		tracer.removeIntermediate(2);
+		assertEquals(ExpressionType.INTERNAL_ERROR, ((SymbolicConstant) tracer.getIntermediate(2)).getConstantType());
+		// Removing a slot that was never used is allowed
+		tracer.removeIntermediate(100000);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.fuzzingtool.core.symbolic;
+
+import org.fuzzingtool.core.components.VariableIdentifier;
+import org.fuzzingtool.core.symbolic.arithmetic.Addition;
+import org.fuzzingtool.core.symbolic.arithmetic.Multiplication;
+import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
+import org.fuzzingtool.core.symbolic.basic.SymbolicVariable;
+import org.fuzzingtool.core.symbolic.logical.And;
+import org.fuzzingtool.core.symbolic.logical.LessThan;
+import org.fuzzingtool.core.symbolic.logical.Not;
+import org.fuzzingtool.core.symbolic.logical.StrictEqual;
+import org.fuzzingtool.core.symbolic.string.StringLength;
+import org.fuzzingtool.core.symbolic.string.StringSubstr;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SymbolicNodeSerializerTest {
+	private static final LanguageSemantic JS = LanguageSemantic.JAVASCRIPT;
+
+	@Test
+	public void roundTripExpression() throws Exception {
+		SymbolicNode x = new SymbolicVariable(JS, new VariableIdentifier(ExpressionType.NUMBER_INTEGER, "1"));
+		SymbolicNode s = new SymbolicVariable(JS, new VariableIdentifier(ExpressionType.STRING, "2"));
+		SymbolicNode sum = new Addition(JS, new Multiplication(JS, x, new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, 3)),
+										new SymbolicConstant(JS, ExpressionType.NUMBER_REAL, 1.5));
+		SymbolicNode substr = new StringSubstr(JS, s, new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, 1),
+											   new SymbolicConstant(JS, ExpressionType.NUMBER_INTEGER, 2));
+		SymbolicNode expression = new And(JS, new LessThan(JS, sum, new StringLength(JS, s)),
+										  new Not(JS, new StrictEqual(JS, substr, new SymbolicConstant(JS, ExpressionType.STRING, "ab"))));
+
+		byte[] bytes = serialize(expression);
+		SymbolicNode read = deserialize(bytes);
+
+		assertEquals(expression.toSMTExpr(), read.toSMTExpr());
+		assertEquals(expression.toHRString(), read.toHRString());
+		assertArrayEquals(bytes, serialize(read));
+	}
+
+	@Test
+	public void roundTripNull() throws Exception {
+		assertNull(deserialize(serialize(null)));
+	}
+
+	@Test
+	public void roundTripValues() throws Exception {
+		Object[] values = {null, true, "", "text with ümlauts", 42, Long.MAX_VALUE, -0.25};
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (Object value: values) {
+			SymbolicNodeSerializer.writeValue(out, value);
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (Object value: values) {
+			assertEquals(value, SymbolicNodeSerializer.readValue(in));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void unknownTag() throws Exception {
+		deserialize(new byte[]{127, 0, 0});
+	}
+
+	private static byte[] serialize(SymbolicNode node) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SymbolicNodeSerializer.write(new DataOutputStream(bytes), node);
+		return bytes.toByteArray();
+	}
+
+	private static SymbolicNode deserialize(byte[] bytes) throws IOException {
+		return SymbolicNodeSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import org.fuzzingtool.core.components.Amygdala;
+import org.fuzzingtool.core.components.CustomError;
+import org.fuzzingtool.core.components.VariableIdentifier;
+
+/**
+ * Execution event node of the {@link CoverageTool}. Records statement, root and branch coverage
+ * and replaces input values, nothing else.
+ */
+class CoverageNode extends ExecutionEventNode {
+	private final Amygdala amygdala;
+	private final EventContext event_context;
+	private final boolean is_statement_tag;
+	private final boolean is_root_tag;
+	private final boolean is_branch;
+	// Dense indices in the coverage bitmaps
+	private final int coverage_statement_index;
+	private final int coverage_root_index;
+	private final int coverage_branch_index;
+	private final VariableIdentifier input_variable_identifier;
+
+	CoverageNode(Amygdala amy, EventContext ec, boolean is_statement, boolean is_root, boolean is_branch,
+				 VariableIdentifier input_identifier) {
+		this.amygdala = amy;
+		this.event_context = ec;
+		int source_relative_identifier = FuzzingNode.getSourceRelativeIdentifier(ec.getInstrumentedSourceSection(),
+																				 ec.getInstrumentedNode());
+		this.is_statement_tag = is_statement;
+		this.is_root_tag = is_root;
+		this.is_branch = is_branch;
+		this.coverage_statement_index = is_statement ? amygdala.coverage.getStatementIndex(source_relative_identifier) : -1;
+		this.coverage_root_index = is_root ? amygdala.coverage.getRootIndex(source_relative_identifier) : -1;
+		this.coverage_branch_index = is_branch ? amygdala.coverage.getBranchIndex(source_relative_identifier) : -1;
+		this.input_variable_identifier = input_identifier;
+	}
+
+	@Override
+	public void onEnter(VirtualFrame frame) {
+		if (is_statement_tag || is_root_tag) {
+			recordCovered();
+		}
+		if (amygdala.timeoutReached()) {
+			throw createTimeoutError();
+		}
+	}
+
+	@Override
+	public void onInputValue(VirtualFrame frame, EventContext input_context, int input_index, Object input_value) {
+		if (is_branch && input_index == 0) {
+			recordBranchTaken(JSRuntime.toBoolean(input_value));
+		}
+	}
+
+	@Override
+	public void onReturnValue(VirtualFrame frame, Object result) {
+		if (input_variable_identifier != null) {
+			throw createInputUnwind();
+		}
+	}
+
+	@TruffleBoundary
+	private void recordCovered() {
+		if (is_statement_tag) {
+			amygdala.coverage_trace.addStatementCovered(coverage_statement_index);
+		}
+		if (is_root_tag) {
+			amygdala.coverage_trace.addRootCovered(coverage_root_index);
+		}
+	}
+
+	@TruffleBoundary
+	private void recordBranchTaken(boolean taken) {
+		amygdala.coverage_trace.addBranchTaken(coverage_branch_index, taken);
+	}
+
+	@TruffleBoundary
+	private ThreadDeath createInputUnwind() {
+		return event_context.createUnwind(amygdala.getMutantInputValue(input_variable_identifier));
+	}
+
+	@TruffleBoundary
+	private RuntimeException createTimeoutError() {
+		return event_context.createError(CustomError.createException("Timeout reached"));
+	}
+
+	@Override
+	public Object onUnwind(VirtualFrame frame, Object info) {
+		return info;
+	}
+}
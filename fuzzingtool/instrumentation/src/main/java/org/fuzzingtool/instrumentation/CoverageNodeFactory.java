@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.js.nodes.access.JSConstantNode;
+import com.oracle.truffle.js.nodes.control.IfNode;
+import com.oracle.truffle.js.nodes.control.WhileNode;
+import org.fuzzingtool.core.components.Amygdala;
+import org.fuzzingtool.core.components.VariableIdentifier;
+import org.graalvm.collections.Pair;
+
+class CoverageNodeFactory implements ExecutionEventNodeFactory {
+	private final Amygdala amygdala;
+
+	CoverageNodeFactory(Amygdala amy) {
+		this.amygdala = amy;
+	}
+
+	@Override
+	public ExecutionEventNode create(final EventContext ec) {
+		final Node node = ec.getInstrumentedNode();
+		final boolean is_statement = ec.hasTag(StandardTags.StatementTag.class);
+		final boolean is_root = ec.hasTag(StandardTags.RootTag.class);
+		// for-in-loop has only one child and no condition
+		final boolean is_branch = node instanceof IfNode
+				|| (node instanceof WhileNode && FuzzingNode.getInstrumentableChildren(node).size() == 2);
+		VariableIdentifier input_identifier = null;
+		if (node instanceof JSConstantNode && ec.getInstrumentedSourceSection() != null) {
+			Pair<Boolean, VariableIdentifier> input_node_configuration =
+					amygdala.getInputNodeConfiguration(ec.getInstrumentedSourceSection().getStartLine());
+			input_identifier = input_node_configuration.getRight();
+		}
+		if (!is_statement && !is_root && !is_branch && input_identifier == null) {
+			// Nodes without coverage or input semantics are not instrumented at all
+			return null;
+		}
+		return new CoverageNode(amygdala, ec, is_statement, is_root, is_branch, input_identifier);
+	}
+}
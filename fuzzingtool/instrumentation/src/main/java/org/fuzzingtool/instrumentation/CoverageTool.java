@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import com.oracle.truffle.api.Option;
+import com.oracle.truffle.api.instrumentation.EventBinding;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument.Registration;
+import org.fuzzingtool.core.components.Amygdala;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionValues;
+
+/**
+ * Lightweight instrument for the hybrid mode. It only records coverage into
+ * {@link Amygdala#coverage_trace} and replaces input values with the current mutant,
+ * no symbolic information is traced.
+ */
+@Registration(id = CoverageTool.ID, name = "Fuzzing Coverage Tool", version = "1.0-SNAPSHOT", services = CoverageTool.class)
+public final class CoverageTool extends TruffleInstrument {
+	@Option(name = "", help = "Enable coverage-only instrumentation (default: false).", category = OptionCategory.USER, stability =
+			OptionStability.STABLE)
+	static final OptionKey<Boolean> optionCoverageEnabled = new OptionKey<>(false);
+
+	public static final String ID = "fuzzingtool-coverage";
+
+	@Override
+	protected OptionDescriptors getOptionDescriptors() {
+		return new CoverageToolOptionDescriptors();
+	}
+
+	private Env env;
+	private EventBinding<?> binding = null;
+
+	@Override
+	protected void onCreate(final Env env) {
+		final OptionValues options = env.getOptions();
+		if (optionCoverageEnabled.getValue(options)) {
+			this.env = env;
+			env.registerService(this);
+		}
+	}
+
+	/**
+	 * Attaches the coverage instrumentation, has to be called before any source is evaluated.
+	 *
+	 * @param amygdala The Amygdala object of the concolic execution
+	 */
+	public void attach(Amygdala amygdala) {
+		if (this.binding == null) {
+			final SourceSectionFilter filter = SourceSectionFilter.newBuilder().includeInternal(false).build();
+			this.binding = env.getInstrumenter().attachExecutionEventFactory(filter, filter, new CoverageNodeFactory(amygdala));
+		}
+	}
+}
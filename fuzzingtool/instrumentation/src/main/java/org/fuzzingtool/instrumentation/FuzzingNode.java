@@ -16,10 +16,18 @@
 
 package org.fuzzingtool.instrumentation;
 
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Scope;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventBinding;
 import com.oracle.truffle.api.instrumentation.EventContext;
 import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
 import com.oracle.truffle.api.instrumentation.InstrumentableNode;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.instrumentation.TruffleInstrument;
@@ -46,14 +54,17 @@ import com.oracle.truffle.js.nodes.arguments.AccessIndexedArgumentNode;
 import com.oracle.truffle.js.nodes.binary.DualNode;
 import com.oracle.truffle.js.nodes.control.IfNode;
 import com.oracle.truffle.js.nodes.control.WhileNode;
+import com.oracle.truffle.js.runtime.JSArguments;
 import com.oracle.truffle.js.runtime.JSFrameUtil;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.SafeInteger;
 import com.oracle.truffle.js.runtime.truffleinterop.InteropList;
+import org.fuzzingtool.core.EventTrace;
 import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.components.Amygdala;
 import org.fuzzingtool.core.components.BranchingNodeAttribute;
 import org.fuzzingtool.core.components.CustomError;
+import org.fuzzingtool.core.components.InstrumentationProfiler;
 import org.fuzzingtool.core.components.TimeProbe;
 import org.fuzzingtool.core.components.Tracer;
 import org.fuzzingtool.core.components.VariableContext;
@@ -65,13 +76,10 @@ import org.fuzzingtool.core.symbolic.SymbolicNode;
 import org.fuzzingtool.core.symbolic.arithmetic.Addition;
 import org.fuzzingtool.core.symbolic.arithmetic.Subtraction;
 import org.fuzzingtool.core.symbolic.basic.SymbolicConstant;
-import org.fuzzingtool.core.visualization.ASTVisualizer;
 import org.graalvm.collections.Pair;
 
-import java.io.File;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -93,20 +101,51 @@ public class FuzzingNode extends ExecutionEventNode {
 	private final SourceSection source_section;
 	private final Node instrumented_node;
 	private final String instrumented_node_type;
-	private final int instrumented_node_hash;
+	private final NodeKind instrumented_node_kind;
+	// Identifier of the node type in the time probe
+	private final int probe_node_type;
+	// Dense index of the node, used as key for intermediate results
+	private final int instrumented_node_slot;
 	private final int source_relative_identifier;
 
 	// Coverage
 	private final boolean is_root_tag;
 	private final boolean is_statement_tag;
-	private boolean covered = false;
+	// Dense indices in the coverage bitmaps, -1 if the node is no statement, root or branch
+	private final int coverage_statement_index;
+	private final int coverage_root_index;
+	private final int coverage_branch_index;
+	@CompilationFinal private boolean covered = false;
+
+	// Fast path guards, the options are fixed before the first node is created.
+	// Everything behind these guards is a TruffleBoundary.
+	private final boolean event_logging;
+	private final EventTrace event_trace;
+	private final boolean custom_errors_enabled;
+	private final boolean escalate_exceptions;
+	private final boolean enter_slow_path;
+	private final boolean input_value_slow_path;
+	private final boolean return_value_slow_path;
+	private final boolean return_exceptional_slow_path;
+	private final boolean selective_instrumentation;
+	private final boolean profiling;
+	// Selective instrumentation: valid while the function of the node is not reached by symbolic values,
+	// null if the node is always traced
+	private final TaintedRoots tainted_roots;
+	private final Assumption untainted;
+	private final boolean is_call;
+	private final boolean is_name_read;
+	@CompilationFinal private boolean unwind_recorded = false;
 
 	// Input node config
 	private final boolean is_input_node;
 	private final VariableIdentifier input_variable_identifier;
 
-	// Hash-Codes of all instrumentable direct children, in-order
-	ArrayList<Pair<Integer, String>> child_hashes;
+	// Slots of all instrumentable direct children, in-order. A slot is resolved on the first input
+	// event of the child, children without FuzzingNode keep the empty slot.
+	@CompilationFinal(dimensions = 1) private final int[] child_slots;
+	@CompilationFinal(dimensions = 1) private final boolean[] child_slot_resolved;
+	private final EventBinding<? extends ExecutionEventNodeFactory> binding;
 
 	// Various save spots
 	// used by PropertyNode and WritePropertyNode to save the context of the operation
@@ -114,7 +153,7 @@ public class FuzzingNode extends ExecutionEventNode {
 	// used by ReadElementNode and WriteElementNode to determine the array index
 	private Object element_access = null;
 	// used by Call1..NNodes to construct the arguments array
-	private final ArrayList<SymbolicNode> arguments_array = new ArrayList<>();
+	private final ArrayList<Object> arguments_array = new ArrayList<>();
 	// used by JSEqualNodeGen to compare the types if the custom error class "equal_is_strict_equal" is enabled
 	private String type_of_first_equal_input = "";
 	// used by all nodes to cache a custom error exception because it cannot be thrown at onInputValue
@@ -126,27 +165,48 @@ public class FuzzingNode extends ExecutionEventNode {
 	// behavior for DualNode
 	boolean dual_node_is_increment;
 	boolean dual_node_is_decrement;
+	// name of the called method for InvokeNodes, e.g. "charAt", null if it cannot be extracted
+	private final String invoked_method_name;
+	// PropertyNode reads Math.PI
+	private final boolean is_math_pi;
+	// operator of JSAddSubNumericUnitNodeGen, '+' or '-', 0 if it cannot be determined
+	private final char add_sub_operator;
+	// text representation of the node for log messages, created on first use
+	private String signature_string = null;
 	// cached symbolic array for ConstantArrayLiteralNode
 	VariableContext cached_constant_array = null;
+	// scope of frame slot nodes, number of enclosing functions between the node and the scope of the variable
+	private int scope_depth = SCOPE_UNRESOLVED;
+	private static final int SCOPE_UNRESOLVED = -1;
+	private static final int SCOPE_DYNAMIC = -2;
+	private static final int MAX_SCOPE_DEPTH = 64;
 	// function argument index for AccessIndexedArgumentNode
-	Integer argument_index;
+	int argument_index;
 	// oh no
 	public Integer and_or_full_expression = 42;
 
-	public FuzzingNode(TruffleInstrument.Env env, Amygdala amy, EventContext ec) {
+	public FuzzingNode(TruffleInstrument.Env env, Amygdala amy, EventContext ec,
+					   EventBinding<? extends ExecutionEventNodeFactory> binding, TaintedRoots roots) {
 		this.amygdala = amy;
+		this.binding = binding;
 		this.environment = env;
 		this.event_context = ec;
+		this.tainted_roots = roots;
 
 		this.source_section = ec.getInstrumentedSourceSection();
 		this.instrumented_node = ec.getInstrumentedNode();
 		this.instrumented_node_type = instrumented_node.getClass().getSimpleName();
-		this.instrumented_node_hash = instrumented_node.hashCode();
+		this.instrumented_node_kind = NodeKind.fromNodeType(instrumented_node_type);
+		this.probe_node_type = amygdala.probe.registerNodeType(instrumented_node_type);
+		this.instrumented_node_slot = amygdala.tracer.newSlot();
 		this.source_relative_identifier = getSourceRelativeIdentifier(source_section, instrumented_node);
 
-		this.child_hashes = getChildHashes(instrumented_node);
+		ArrayList<Node> children = getInstrumentableChildren(instrumented_node);
+		this.child_slots = new int[children.size()];
+		this.child_slot_resolved = new boolean[children.size()];
+		Arrays.fill(this.child_slots, Tracer.EMPTY_SLOT);
 
-		if (amygdala.isFunctionVisEnabled() && instrumented_node_type.equals("MaterializedFunctionBodyNode")) {
+		if (amygdala.isFunctionVisEnabled() && instrumented_node_kind == NodeKind.MATERIALIZED_FUNCTION_BODY_NODE) {
 			StringBuilder save_name = new StringBuilder();
 			save_name.append("function_");
 			save_name.append(source_section.getStartLine()).append("-");
@@ -158,11 +218,7 @@ public class FuzzingNode extends ExecutionEventNode {
 				save_name.append("(unknown)");
 			}
 			save_name.append(".svg");
-			File save_path = new File(Paths.get(amygdala.getResultsPath(), "ast", save_name.toString()).toString());
-			if (!save_path.exists()) {
-				ASTVisualizer av = new ASTVisualizer(instrumented_node, amygdala.logger);
-				av.saveImage(save_path);
-			}
+			amygdala.visualizeFunction(instrumented_node, save_name.toString());
 		}
 
 		if (instrumented_node instanceof JSConstantNode) {
@@ -173,12 +229,32 @@ public class FuzzingNode extends ExecutionEventNode {
 			is_input_node = false;
 			input_variable_identifier = null;
 		}
+		if (tainted_roots != null) {
+			if (is_input_node) {
+				tainted_roots.taint(instrumented_node, "input variable in line " + source_section.getStartLine());
+			}
+			this.untainted = tainted_roots.getUntaintedAssumption(instrumented_node);
+		} else {
+			this.untainted = null;
+		}
+		this.is_call = isCallKind(instrumented_node_kind);
+		this.is_name_read = isNameReadKind(instrumented_node_kind);
 
 		this.is_root_tag = ec.hasTag(StandardTags.RootTag.class);
 		this.is_statement_tag = ec.hasTag(StandardTags.StatementTag.class);
+		this.coverage_statement_index = is_statement_tag ? amygdala.coverage.getStatementIndex(source_relative_identifier) : -1;
+		this.coverage_root_index = is_root_tag ? amygdala.coverage.getRootIndex(source_relative_identifier) : -1;
+		if (instrumented_node instanceof IfNode || instrumented_node instanceof WhileNode) {
+			this.coverage_branch_index = amygdala.coverage.getBranchIndex(source_relative_identifier);
+		} else {
+			this.coverage_branch_index = -1;
+		}
 
-		if (!amygdala.node_type_instrumented.containsKey(instrumented_node_type)) {
-			amygdala.node_type_instrumented.put(instrumented_node_type, new BitSet(7));
+		if (source_section != null) {
+			String characters = source_section.getCharacters().toString().replace('\n', ' ');
+			amygdala.profiler.registerLocation(instrumented_node_slot, instrumented_node_type, source_section.getStartLine(), Logger.capBack(characters, 80));
+		} else {
+			amygdala.profiler.registerLocation(instrumented_node_slot, instrumented_node_type, -1, null);
 		}
 
 		if (instrumented_node instanceof WhileNode || instrumented_node instanceof IfNode) {
@@ -186,23 +262,59 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 
 		if (instrumented_node instanceof DualNode) {
-			Matcher inc_matcher = INCREMENT_PATTERN.matcher(source_section.getCharacters().toString());
-			Matcher dec_matcher = DECREMENT_PATTERN.matcher(source_section.getCharacters().toString());
+			String characters = source_section.getCharacters().toString();
+			Matcher inc_matcher = INCREMENT_PATTERN.matcher(characters);
+			Matcher dec_matcher = DECREMENT_PATTERN.matcher(characters);
 			this.dual_node_is_increment = inc_matcher.matches();
 			this.dual_node_is_decrement = dec_matcher.matches();
 		}
 
+		if (instrumented_node_kind == NodeKind.INVOKE0_NODE || instrumented_node_kind == NodeKind.INVOKE1_NODE ||
+				instrumented_node_kind == NodeKind.INVOKE_N_NODE) {
+			this.invoked_method_name = extractMethodName();
+		} else {
+			this.invoked_method_name = null;
+		}
+		this.is_math_pi = instrumented_node_kind == NodeKind.PROPERTY_NODE && source_section != null &&
+				source_section.isAvailable() && source_section.getCharacters().toString().equals("Math.PI");
+		if (instrumented_node_kind == NodeKind.JS_ADD_SUB_NUMERIC_UNIT_NODE_GEN) {
+			this.add_sub_operator = extractAddSubOperator();
+		} else {
+			this.add_sub_operator = 0;
+		}
+
 		if (instrumented_node instanceof AccessIndexedArgumentNode) {
 			AccessIndexedArgumentNode aian = (AccessIndexedArgumentNode) instrumented_node;
 			this.argument_index = aian.getIndex();
 		}
 
-		this.attribute_name = getAttributeName();
+		this.attribute_name = getAttributeName(instrumented_node);
+
+		this.event_trace = amygdala.getEventTrace();
+		this.event_logging = amygdala.isEventLoggingEnabled() && event_trace != null;
+		if (event_logging) {
+			event_trace.registerNode(instrumented_node_slot, getSignatureString());
+		}
+		this.custom_errors_enabled = amygdala.custom_error.someEnabled();
+		this.escalate_exceptions = amygdala.custom_error.escalateExceptionsEnabled();
+		this.selective_instrumentation = amygdala.isSelectiveInstrumentationEnabled();
+		this.profiling = amygdala.profiler.isEnabled();
+		this.enter_slow_path = instrumented_node_kind.hasEnterBehavior() || event_logging;
+		this.input_value_slow_path = instrumented_node_kind.hasInputValueBehavior() || event_logging || custom_errors_enabled;
+		this.return_value_slow_path = instrumented_node_kind.hasReturnBehavior() || event_logging || custom_errors_enabled;
+		this.return_exceptional_slow_path = instrumented_node_kind == NodeKind.FRAME_RETURN_NODE || event_logging || escalate_exceptions;
 	}
 
 	private String getSignatureString() {
+		if (signature_string == null) {
+			signature_string = createSignatureString();
+		}
+		return signature_string;
+	}
+
+	private String createSignatureString() {
 		String node_type_padded = String.format("%1$-" + 36 + "s", instrumented_node_type);
-		String hash_padded = String.format("%1$-" + 12 + "s", instrumented_node_hash);
+		String slot_padded = String.format("%1$-" + 12 + "s", instrumented_node_slot);
 		if (source_section != null && source_section.isAvailable()) {
 			int start_line = source_section.getStartLine();
 			String line_padded;
@@ -213,9 +325,9 @@ public class FuzzingNode extends ExecutionEventNode {
 			}
 			String characters = source_section.getCharacters().toString().replace("\n", "");
 			String characters_cropped = Logger.capBack(characters, 16);
-			return "[" + node_type_padded + " " + hash_padded + " " + line_padded + ":" + characters_cropped + "]";
+			return "[" + node_type_padded + " " + slot_padded + " " + line_padded + ":" + characters_cropped + "]";
 		} else {
-			return "[" + node_type_padded + " " + hash_padded + "     (NO SOURCE)]";
+			return "[" + node_type_padded + " " + slot_padded + "     (NO SOURCE)]";
 		}
 	}
 
@@ -297,143 +409,246 @@ public class FuzzingNode extends ExecutionEventNode {
 	}
 
 	/**
-	 * Returns the hash-code of the current receiver object instance (aka. "this" in JavaScript)
+	 * Returns the current receiver object instance (aka. "this" in JavaScript)
 	 *
 	 * @param frame The current frame
-	 * @return The corresponding hash-code, or 0 if an error occurs
+	 * @return The receiver object, or null if an error occurs
 	 */
-	private Integer getThisObjectHash(VirtualFrame frame) {
+	private Object getThisObject(VirtualFrame frame) {
 		Iterable<Scope> localScopes = environment.findLocalScopes(instrumented_node, frame);
 		if (localScopes != null && localScopes.iterator().hasNext()) {
 			Scope innermost_scope = localScopes.iterator().next();
 			try {
-				return System.identityHashCode(innermost_scope.getReceiver());
+				return innermost_scope.getReceiver();
 			} catch (java.lang.Exception ex) {
-				amygdala.logger.critical("ExecutionEventNode.getThisObjectHash(): Node " + getSignatureString() + " has no Receiver-Object");
-				return 0;
+				amygdala.logger.critical("ExecutionEventNode.getThisObject(): Node " + getSignatureString() + " has no Receiver-Object");
+				return null;
 			}
 		}
-		amygdala.logger.critical("ExecutionEventNode.getThisObjectHash(): Node " + getSignatureString() + " has no local scopes");
-		return 0;
+		amygdala.logger.critical("ExecutionEventNode.getThisObject(): Node " + getSignatureString() + " has no local scopes");
+		return null;
 	}
 
 	@Override
 	public void onEnter(VirtualFrame frame) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[32m→\033[0m");
-		}
-
-		if (amygdala.tracer.noSideeffectsAllowed()) {
-			if (instrumented_node_type.equals("WritePropertyNode")
-					|| instrumented_node_type.equals("WriteElementNode")
-					|| instrumented_node_type.equals("CompoundWriteElementNode")
-					|| instrumented_node_type.equals("JSWriteCurrentFrameSlotNodeGen")
-					|| instrumented_node_type.equals("JSWriteScopeFrameSlotNodeGen")
-					|| instrumented_node_type.equals("JSGlobalPrintNodeGen")) {
-				throw event_context.createError(Tracer.createException("no side effects allowed"));
+		if (profiling) {
+			amygdala.profiler.countEvent(instrumented_node_slot);
+		}
+		if (instrumented_node_kind.hasSideEffects() && amygdala.tracer.noSideeffectsAllowed()) {
+			throw createSideEffectError();
+		}
+		if (untainted != null && untainted.isValid()) {
+			if (!(is_root_tag || is_call) || !onEnterUntraced()) {
+				// The function is not reached by symbolic values, only coverage is recorded
+				if (!covered) {
+					CompilerDirectives.transferToInterpreterAndInvalidate();
+					markCovered();
+				}
+				return;
 			}
+			if (instrumented_node_kind != NodeKind.MATERIALIZED_FUNCTION_BODY_NODE) {
+				onTaintedWithinCall(frame.materialize());
+			}
+		}
+		if (!covered) {
+			CompilerDirectives.transferToInterpreterAndInvalidate();
+			markCovered();
+			onEnterSlowPath(materializeIfNeeded(frame));
+		} else if (enter_slow_path) {
+			onEnterSlowPath(materializeIfNeeded(frame));
+		}
+		this.cached_exception = null;
+	}
+
+	@TruffleBoundary
+	private void onEnterSlowPath(MaterializedFrame frame) {
+		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION, probe_node_type);
+		amygdala.profiler.begin(instrumented_node_slot);
+		if (event_logging) {
+			event_trace.record(instrumented_node_slot, EventTrace.EventKind.ENTER);
 		}
 
 		boolean was_instrumented_on_enter = true;
-		switch (instrumented_node_type) {
-			case "Call0Node":
-			case "Call1Node":
-			case "CallNNode":
+		switch (instrumented_node_kind) {
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
 				onEnterBehaviorCallNode(frame);
 				break;
-			case "Invoke0Node":
-			case "Invoke1Node":
-			case "InvokeNNode":
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
 				onEnterBehaviorInvokeNode(frame);
 				break;
-			case "JSNewNodeGen":
+			case JS_NEW_NODE_GEN:
 				onEnterBehaviorJSNewNodeGen(frame);
 				break;
-			case "MaterializedFunctionBodyNode":
+			case MATERIALIZED_FUNCTION_BODY_NODE:
 				onEnterBehaviorFunctionBodyNode(frame);
 				break;
-			case "JSStringIndexOfNodeGen":
-			case "JSStringConcatNodeGen":
-			case "JSStringSubstrNodeGen":
-			case "DeclareProviderNode":
-			case "BreakNode":
-			case "JSArrayJoinNodeGen":
-			case "EchoTargetValueNode": //TODO verify...
-			case "MaterializedTargetablePropertyNode": //TODO verify...
-			case "ForInIteratorPrototypeNextNodeGen":
+			case JS_STRING_INDEX_OF_NODE_GEN:
+			case JS_STRING_CONCAT_NODE_GEN:
+			case JS_STRING_SUBSTR_NODE_GEN:
+			case DECLARE_PROVIDER_NODE:
+			case BREAK_NODE:
+			case JS_ARRAY_JOIN_NODE_GEN:
+			case ECHO_TARGET_VALUE_NODE: //TODO verify...
+			case MATERIALIZED_TARGETABLE_PROPERTY_NODE: //TODO verify...
+			case FOR_IN_ITERATOR_PROTOTYPE_NEXT_NODE_GEN:
 				// Do nothing. These nodes should not have any behavior or are instrumented otherwise.
 				break;
 			default:
 				was_instrumented_on_enter = false;
 		}
 
-		if (!covered) {
-			if (is_statement_tag) {
-				amygdala.coverage.addStatementCovered(source_relative_identifier);
-			}
-			if (is_root_tag) {
-				amygdala.coverage.addRootCovered(source_relative_identifier);
+		// node was executed
+		amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_EXECUTED);
+		if (was_instrumented_on_enter) {
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_ENTER);
+		}
+		amygdala.profiler.end(instrumented_node_slot, amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION, probe_node_type));
+	}
+
+	/**
+	 * Enter event of a node whose function is not traced (selective instrumentation).
+	 * A function is tainted if it receives symbolic arguments.
+	 *
+	 * @return true, if the function is tainted and the node has to be traced from now on
+	 */
+	@TruffleBoundary
+	private boolean onEnterUntraced() {
+		if (is_call) {
+			// The arguments are collected if the function is tainted before the call
+			this.arguments_array.clear();
+		}
+		if (is_root_tag) {
+			if (amygdala.tracer.hasPendingArguments() && amygdala.tracer.hasSymbolicArguments()) {
+				tainted_roots.taint(instrumented_node, "symbolic argument");
+				return true;
 			}
-			covered = true;
+			amygdala.tracer.consumeArguments();
 		}
+		return false;
+	}
 
-		// node was executed
-		amygdala.node_type_instrumented.get(instrumented_node_type).set(0);
-		if (was_instrumented_on_enter) {
-			amygdala.node_type_instrumented.get(instrumented_node_type).set(1);
+	/**
+	 * Coverage is cumulative over all iterations, so it has to be recorded only at the first execution of the node.
+	 */
+	private void markCovered() {
+		if (is_statement_tag) {
+			amygdala.coverage.addStatementCovered(coverage_statement_index);
+		}
+		if (is_root_tag) {
+			amygdala.coverage.addRootCovered(coverage_root_index);
 		}
+		covered = true;
+	}
 
-		this.cached_exception = null;
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
+	private MaterializedFrame materializeIfNeeded(VirtualFrame frame) {
+		if (instrumented_node_kind.needsFrame()) {
+			return frame.materialize();
+		}
+		return null;
+	}
+
+	@TruffleBoundary
+	private RuntimeException createSideEffectError() {
+		return event_context.createError(Tracer.createException("no side effects allowed"));
+	}
+
+	@TruffleBoundary
+	private RuntimeException createTimeoutError() {
+		return event_context.createError(CustomError.createException("Timeout reached"));
 	}
 
 	@Override
 	public void onInputValue(VirtualFrame frame, EventContext input_context, int input_index,
 								Object input_value) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[34m•\033[0m");
+		if (profiling) {
+			amygdala.profiler.countEvent(instrumented_node_slot);
+		}
+		if (input_index < child_slot_resolved.length && !child_slot_resolved[input_index]) {
+			CompilerDirectives.transferToInterpreterAndInvalidate();
+			resolveChildSlot(input_context, input_index);
+		}
+		if (untainted != null && untainted.isValid()) {
+			if (input_index == 0) {
+				if (coverage_branch_index >= 0 && (instrumented_node_kind == NodeKind.IF_NODE || child_slots.length == 2)) {
+					recordBranchTaken(JSRuntime.toBoolean(input_value));
+				}
+				// Read and invoke nodes need the context object if the function is tainted before they return
+				context_object = input_value;
+			}
+			return;
+		}
+		if (input_value_slow_path) {
+			onInputValueSlowPath(materializeIfNeeded(frame), input_context, input_index, input_value);
+		}
+	}
+
+	@TruffleBoundary
+	private void recordBranchTaken(boolean taken) {
+		amygdala.coverage.addBranchTaken(coverage_branch_index, taken);
+	}
+
+	/**
+	 * Looks up the slot of a child, its instrumentation node exists because it has just returned.
+	 */
+	private void resolveChildSlot(EventContext input_context, int input_index) {
+		ExecutionEventNode child_node = input_context.lookupExecutionEventNode(binding);
+		if (child_node instanceof FuzzingNode) {
+			child_slots[input_index] = ((FuzzingNode) child_node).instrumented_node_slot;
+		}
+		child_slot_resolved[input_index] = true;
+	}
+
+	@TruffleBoundary
+	private void onInputValueSlowPath(MaterializedFrame frame, EventContext input_context, int input_index,
+									  Object input_value) {
+		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION, probe_node_type);
+		amygdala.profiler.begin(instrumented_node_slot);
+		if (event_logging) {
+			event_trace.record(instrumented_node_slot, EventTrace.EventKind.INPUT_VALUE);
 		}
 
 		boolean was_instrumented_on_input_value = true;
-		switch (instrumented_node_type) {
-			case "IfNode":
+		switch (instrumented_node_kind) {
+			case IF_NODE:
 				onInputValueBehaviorIfNode(frame, input_context, input_index, input_value);
 				break;
-			case "WhileNode":
+			case WHILE_NODE:
 				onInputValueBehaviorWhileNode(frame, input_context, input_index, input_value);
 				break;
-			case "GlobalPropertyNode":
-			case "PropertyNode":
-			case "WritePropertyNode":
+			case GLOBAL_PROPERTY_NODE:
+			case PROPERTY_NODE:
+			case WRITE_PROPERTY_NODE:
 				onInputValueBehaviorPropertyNode(frame, input_context, input_index, input_value);
 				break;
-			case "ReadElementNode":
-			case "WriteElementNode":
-			case "CompoundWriteElementNode":
+			case READ_ELEMENT_NODE:
+			case WRITE_ELEMENT_NODE:
+			case COMPOUND_WRITE_ELEMENT_NODE:
 				onInputValueBehaviorReadWriteElementNode(frame, input_context, input_index, input_value);
 				break;
-			case "Call0Node":
-			case "Call1Node":
-			case "CallNNode":
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
 				onInputValueBehaviorCallNode(frame, input_context, input_index, input_value);
 				break;
-			case "Invoke0Node":
-			case "Invoke1Node":
-			case "InvokeNNode":
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
 				onInputValueBehaviorInvokeNode(frame, input_context, input_index, input_value);
 				break;
-			case "JSNewNodeGen":
+			case JS_NEW_NODE_GEN:
 				onInputValueBehaviorJSNewNodeGen(frame, input_context, input_index, input_value);
 				break;
-			case "JSEqualNodeGen":
+			case JS_EQUAL_NODE_GEN:
 				onInputValueBehaviorJSEqualNodeGen(frame, input_context, input_index, input_value);
 				break;
-			case "JSAndNode":
+			case JS_AND_NODE:
 				onInputValueBehaviorAndNode(frame, input_context, input_index, input_value);
 				break;
-			case "JSOrNode":
+			case JS_OR_NODE:
 				onInputValueBehaviorOrNode(frame, input_context, input_index, input_value);
 				break;
 			default:
@@ -441,10 +656,10 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 
 		if (was_instrumented_on_input_value) {
-			amygdala.node_type_instrumented.get(instrumented_node_type).set(2);
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_INPUT_VALUE);
 		}
 
-		if (amygdala.custom_error.someEnabled() && source_section != null) {
+		if (custom_errors_enabled && source_section != null) {
 			try {
 				amygdala.custom_error.inspectInputValue(instrumented_node_type, input_value, input_index, source_section.getStartLine());
 			} catch (CustomError.EscalatedException ee) {
@@ -452,203 +667,260 @@ public class FuzzingNode extends ExecutionEventNode {
 				this.cached_exception = ee;
 			}
 		}
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
+		amygdala.profiler.end(instrumented_node_slot, amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION, probe_node_type));
 	}
 
 	@Override
 	public void onReturnValue(VirtualFrame frame, Object result) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[31m↵\033[0m");
+		if (profiling) {
+			amygdala.profiler.countEvent(instrumented_node_slot);
+		}
+		if (untainted != null && untainted.isValid()) {
+			if (!onReturnValueUntraced(result)) {
+				if (amygdala.timeoutReached()) {
+					throw createTimeoutError();
+				}
+				return;
+			}
+			onTaintedWithinCall(frame.materialize());
+		}
+		if (return_value_slow_path) {
+			onReturnValueSlowPath(materializeIfNeeded(frame), result);
+		}
+		if (amygdala.timeoutReached()) {
+			throw createTimeoutError();
+		}
+	}
+
+	/**
+	 * Return event of a node whose function is not traced (selective instrumentation). A function is tainted
+	 * if it gets a symbolic return value from a traced callee or reads a property or scoped variable that
+	 * was assigned a symbolic value.
+	 *
+	 * @param result The concrete return value of the node
+	 * @return true, if the function is tainted and the node has to be traced from now on
+	 */
+	@TruffleBoundary
+	private boolean onReturnValueUntraced(Object result) {
+		if (is_call) {
+			if (amygdala.tracer.isFunctionReturnValueSymbolic()) {
+				tainted_roots.taint(instrumented_node, "symbolic return value");
+				return true;
+			}
+			amygdala.tracer.resetFunctionReturnValue();
+			amygdala.tracer.consumeArguments();
+		} else if (is_name_read && amygdala.tracer.isSymbolicName(attribute_name)) {
+			tainted_roots.taint(instrumented_node, "symbolic value in '" + attribute_name + "'");
+			return true;
+		}
+		// The parent node uses the concrete value if the function is tainted before the parent returns
+		amygdala.tracer.addConcrete(instrumented_node_slot, result);
+		return false;
+	}
+
+	/**
+	 * The function was not traced when the current call started, its scope is created now.
+	 */
+	@TruffleBoundary
+	private void onTaintedWithinCall(MaterializedFrame frame) {
+		initializeFunctionScope(frame);
+	}
+
+	@TruffleBoundary
+	private void onReturnValueSlowPath(MaterializedFrame frame, Object result) {
+		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION, probe_node_type);
+		amygdala.profiler.begin(instrumented_node_slot);
+		if (event_logging) {
+			event_trace.record(instrumented_node_slot, EventTrace.EventKind.RETURN_VALUE);
 		}
 
 		boolean was_instrumented_on_return_value = true;
-		switch (instrumented_node_type) {
+		switch (instrumented_node_kind) {
 			// ===== JavaScript Read/Write =====
-			case "GlobalPropertyNode":
+			case GLOBAL_PROPERTY_NODE:
 				onReturnBehaviorGlobalPropertyNode(frame, result);
 				break;
-			case "GlobalObjectNode":
+			case GLOBAL_OBJECT_NODE:
 				onReturnBehaviorGlobalObjectNode(frame, result);
 				break;
-			case "PropertyNode":
+			case PROPERTY_NODE:
 				onReturnBehaviorPropertyNode(frame, result);
 				break;
-			case "WritePropertyNode":
+			case WRITE_PROPERTY_NODE:
 				onReturnBehaviorWritePropertyNode(frame, result);
 				break;
-			case "JSReadCurrentFrameSlotNodeGen":
+			case JS_READ_CURRENT_FRAME_SLOT_NODE_GEN:
 				onReturnBehaviorJSReadCurrentFrameSlotNodeGen(frame, result);
 				break;
-			case "JSWriteCurrentFrameSlotNodeGen":
+			case JS_WRITE_CURRENT_FRAME_SLOT_NODE_GEN:
 				onReturnBehaviorJSWriteCurrentFrameSlotNodeGen(frame, result);
 				break;
-			case "JSReadScopeFrameSlotNodeGen":
-			case "JSReadScopeFrameSlotWithTDZNodeGen":
+			case JS_READ_SCOPE_FRAME_SLOT_NODE_GEN:
+			case JS_READ_SCOPE_FRAME_SLOT_WITH_TDZ_NODE_GEN:
 				onReturnBehaviorJSReadScopeFrameSlotNodeGen(frame, result);
 				break;
-			case "JSWriteScopeFrameSlotNodeGen":
+			case JS_WRITE_SCOPE_FRAME_SLOT_NODE_GEN:
 				onReturnBehaviorJSWriteScopeFrameSlotNodeGen(frame, result);
 				break;
 
 
 			// ===== JavaScript Function Handling =====
-			case "Call0Node":
-			case "Call1Node":
-			case "CallNNode":
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
 				onReturnBehaviorCallNode(frame, result);
 				break;
-			case "Invoke0Node":
-			case "Invoke1Node":
-			case "InvokeNNode":
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
 				onReturnBehaviorInvokeNode(frame, result);
 				break;
-			case "JSNewNodeGen":
+			case JS_NEW_NODE_GEN:
 				onReturnBehaviorJSNewNodeGen(frame, result);
 				break;
-			case "AccessIndexedArgumentNode":
+			case ACCESS_INDEXED_ARGUMENT_NODE:
 				onReturnBehaviorAccessIndexedArgumentNode(frame, result);
 				break;
-			case "TerminalPositionReturnNode":
+			case TERMINAL_POSITION_RETURN_NODE:
 				behaviorFrameReturnTerminalPositionReturnNode();
 				break;
 
 			// ===== JavaScript Arithmetic Nodes =====
-			case "JSAddNodeGen":
+			case JS_ADD_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.ADDITION);
 				break;
-			case "JSSubtractNodeGen":
+			case JS_SUBTRACT_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.SUBTRACTION);
 				break;
-			case "JSMultiplyNodeGen":
+			case JS_MULTIPLY_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.MULTIPLICATION);
 				break;
-			case "JSDivideNodeGen":
+			case JS_DIVIDE_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.DIVISION);
 				break;
-			case "JSUnaryMinusNodeGen":
+			case JS_UNARY_MINUS_NODE_GEN:
 				onReturnBehaviorUnaryOperation(frame, result, Operation.UNARY_MINUS);
 				break;
-			case "JSUnaryPlusNodeGen":
+			case JS_UNARY_PLUS_NODE_GEN:
 				onReturnBehaviorUnaryOperation(frame, result, Operation.UNARY_PLUS);
 				break;
-			case "JSModuloNodeGen":
+			case JS_MODULO_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.MODULO);
 				break;
-			case "JSAddSubNumericUnitNodeGen":
+			case JS_ADD_SUB_NUMERIC_UNIT_NODE_GEN:
 				onReturnBehaviorJSAddSubNumericUnitNodeGen(frame, result);
 				break;
-			case "SqrtNodeGen":
+			case SQRT_NODE_GEN:
 				onReturnBehaviorInternalInvokedFunction(frame, result, Operation.SQRT);
 				break;
 
 
 			// ===== JavaScript Constant Nodes =====
-			case "JSConstantBooleanNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.BOOLEAN);
+			case JS_CONSTANT_BOOLEAN_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "JSConstantSafeIntegerNode":
+			case JS_CONSTANT_SAFE_INTEGER_NODE:
 				result = ((SafeInteger) result).intValue();
-			case "JSConstantIntegerNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.NUMBER_INTEGER);
+			case JS_CONSTANT_INTEGER_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "JSConstantDoubleNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.NUMBER_REAL);
+			case JS_CONSTANT_DOUBLE_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "JSConstantStringNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.STRING);
+			case JS_CONSTANT_STRING_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "JSConstantNullNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.NULL);
+			case JS_CONSTANT_NULL_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "JSConstantUndefinedNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.UNDEFINED);
+			case JS_CONSTANT_UNDEFINED_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
 
 
 			// ===== JavaScript Object/Function Creation Nodes
-			case "DefaultFunctionExpressionNode":
-			case "AutonomousFunctionExpressionNode":
-				onReturnBehaviorConstant(frame, result, ExpressionType.OBJECT);
+			case DEFAULT_FUNCTION_EXPRESSION_NODE:
+			case AUTONOMOUS_FUNCTION_EXPRESSION_NODE:
+				onReturnBehaviorConstant(frame, result);
 				break;
-			case "ObjectLiteralNode":
+			case OBJECT_LITERAL_NODE:
 				onReturnBehaviorObjectLiteralNode(frame, result);
 				break;
 
 			// ===== JavaScript Arrays =====
-			case "DefaultArrayLiteralNode":
+			case DEFAULT_ARRAY_LITERAL_NODE:
 				onReturnBehaviorDefaultArrayLiteralNode(frame, result);
 				break;
-			case "ConstantEmptyArrayLiteralNode":
-			case "ConstantArrayLiteralNode":
+			case CONSTANT_EMPTY_ARRAY_LITERAL_NODE:
+			case CONSTANT_ARRAY_LITERAL_NODE:
 				onReturnBehaviorConstantArrayLiteralNode(frame, result);
 				break;
-			case "ConstructArrayNodeGen":
+			case CONSTRUCT_ARRAY_NODE_GEN:
 				onReturnBehaviorConstructArrayNodeGen(frame, result);
 				break;
-			case "ReadElementNode":
+			case READ_ELEMENT_NODE:
 				onReturnBehaviorReadElementNode(frame, result);
 				break;
-			case "WriteElementNode":
-			case "CompoundWriteElementNode":
+			case WRITE_ELEMENT_NODE:
+			case COMPOUND_WRITE_ELEMENT_NODE:
 				onReturnBehaviorWriteElementNode(frame, result);
 				break;
 
 			// ===== JavaScript Logic Nodes =====
-			case "JSLessThanNodeGen":
+			case JS_LESS_THAN_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.LESS_THAN);
 				break;
-			case "JSLessOrEqualNodeGen":
+			case JS_LESS_OR_EQUAL_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.LESS_EQUAL);
 				break;
-			case "JSGreaterThanNodeGen":
+			case JS_GREATER_THAN_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.GREATER_THAN);
 				break;
-			case "JSGreaterOrEqualNodeGen":
+			case JS_GREATER_OR_EQUAL_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.GREATER_EQUAL);
 				break;
-			case "JSEqualNodeGen":
+			case JS_EQUAL_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.EQUAL);
 				break;
-			case "JSIdenticalNodeGen":
+			case JS_IDENTICAL_NODE_GEN:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.STRICT_EQUAL);
 				break;
-			case "JSAndNode":
+			case JS_AND_NODE:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.AND);
 				break;
-			case "JSOrNode":
+			case JS_OR_NODE:
 				onReturnBehaviorBinaryOperation(frame, result, Operation.OR);
 				break;
-			case "JSNotNodeGen":
+			case JS_NOT_NODE_GEN:
 				/*FuzzingNode fn = (FuzzingNode) this.getParent().getParent();
 				amygdala.logger.mesmerize(fn.and_or_full_expression.toString());*/
 				onReturnBehaviorUnaryOperation(frame, result, Operation.NOT);
 				break;
 
 			// ===== JavaScript Buildins =====
-			case "JSGlobalParseIntNodeGen":
+			case JS_GLOBAL_PARSE_INT_NODE_GEN:
 				onReturnBehaviorJSGlobalParseIntNodeGen(frame, result);
 				break;
 
 			// ===== JavaScript Miscellaneous =====
-			case "DualNode":
+			case DUAL_NODE:
 				onReturnBehaviorDualNode(frame, result);
 				break;
-			case "JSGlobalPrintNodeGen":
-			case "IfNode":
-			case "WhileNode":
-			case "VoidBlockNode":
-			case "ExprBlockNode":
-			case "EmptyNode":
+			case JS_GLOBAL_PRINT_NODE_GEN:
+			case IF_NODE:
+			case WHILE_NODE:
+			case VOID_BLOCK_NODE:
+			case EXPR_BLOCK_NODE:
+			case EMPTY_NODE:
 				onReturnBehaviorAddUndefined(frame, result);
 				break;
-			case "DiscardResultNode":
+			case DISCARD_RESULT_NODE:
 				onReturnBehaviorDiscardResultNode(frame, result);
 				break;
-			case "JSInputGeneratingNodeWrapper":
-			case "JSTaggedExecutionNode":
-			case "LocalVarPostfixIncMaterializedNode": // "Dec" node does not exist
-			case "LocalVarPrefixIncMaterializedNode": // TODO wie DualNode?
+			case JS_INPUT_GENERATING_NODE_WRAPPER:
+			case JS_TAGGED_EXECUTION_NODE:
+			case LOCAL_VAR_POSTFIX_INC_MATERIALIZED_NODE: // "Dec" node does not exist
+			case LOCAL_VAR_PREFIX_INC_MATERIALIZED_NODE: // TODO wie DualNode?
 				onReturnBehaviorPassthrough(frame, result);
 				break;
 			default:
@@ -656,10 +928,10 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 
 		if (was_instrumented_on_return_value) {
-			amygdala.node_type_instrumented.get(instrumented_node_type).set(3);
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_RETURN_VALUE);
 		}
 
-		if (amygdala.custom_error.someEnabled() && source_section != null) {
+		if (custom_errors_enabled && source_section != null) {
 			if (this.cached_exception != null) {
 				throw event_context.createError(this.cached_exception);
 			}
@@ -669,17 +941,25 @@ public class FuzzingNode extends ExecutionEventNode {
 				throw event_context.createError(ee);
 			}
 		}
-		if (amygdala.timeoutReached()) {
-			throw event_context.createError(CustomError.createException("Timeout reached"));
-		}
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
+		amygdala.profiler.end(instrumented_node_slot, amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION, probe_node_type));
 	}
 
 	@Override
 	protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[33m↯\033[0m");
+		if (profiling) {
+			amygdala.profiler.countEvent(instrumented_node_slot);
+		}
+		if (return_exceptional_slow_path) {
+			onReturnExceptionalSlowPath(exception);
+		}
+	}
+
+	@TruffleBoundary
+	private void onReturnExceptionalSlowPath(Throwable exception) {
+		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION, probe_node_type);
+		amygdala.profiler.begin(instrumented_node_slot);
+		if (event_logging) {
+			event_trace.record(instrumented_node_slot, EventTrace.EventKind.RETURN_EXCEPTIONAL);
 		}
 
 		// Exception should only be escalated if it is not already an escalated exception
@@ -687,15 +967,15 @@ public class FuzzingNode extends ExecutionEventNode {
 		if (!(exception instanceof CustomError.EscalatedException)
 				&& !(exception instanceof ControlFlowException)
 				&& !(exception instanceof Tracer.SideEffectException)) {
-			if (amygdala.custom_error.escalateExceptionsEnabled()) {
+			if (escalate_exceptions) {
 				amygdala.logger.info("Escalating exception with message: '" + exception.getMessage() + "' (escalate_exceptions)");
 				throw event_context.createError(CustomError.createException(exception.getMessage()));
 			}
 		}
 
 		boolean was_instrumented_on_return_exceptional = true;
-		switch (instrumented_node_type) {
-			case "FrameReturnNode":
+		switch (instrumented_node_kind) {
+			case FRAME_RETURN_NODE:
 				// FrameReturnNode has no onReturnValue event, instead it throws a ControlFlowException
 				// should only be instrumented if called properly
 				if (exception instanceof ControlFlowException) {
@@ -707,43 +987,81 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 
 		if (was_instrumented_on_return_exceptional) {
-			amygdala.node_type_instrumented.get(instrumented_node_type).set(4);
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_RETURN_EXCEPTIONAL);
 		}
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
+		amygdala.profiler.end(instrumented_node_slot, amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION, probe_node_type));
 	}
 
 	@Override
 	public Object onUnwind(VirtualFrame frame, Object info) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[35m↺\033[0m");
+		if (!unwind_recorded) {
+			CompilerDirectives.transferToInterpreterAndInvalidate();
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_UNWIND);
+			unwind_recorded = true;
+		}
+		if (event_logging) {
+			recordEvent(EventTrace.EventKind.UNWIND);
 		}
-
-		amygdala.node_type_instrumented.get(instrumented_node_type).set(5);
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
 		return info;
 	}
 
+	@TruffleBoundary
+	private void recordEvent(EventTrace.EventKind kind) {
+		event_trace.record(instrumented_node_slot, kind);
+	}
+
 	@Override
 	protected void onDispose(VirtualFrame frame) {
-		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		if (amygdala.isEventLoggingEnabled()) {
-			amygdala.logger.event(getSignatureString() + " \033[36m×\033[0m");
+		onDisposeSlowPath();
+	}
+
+	@TruffleBoundary
+	private void onDisposeSlowPath() {
+		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION, probe_node_type);
+		amygdala.profiler.begin(instrumented_node_slot);
+		if (event_logging) {
+			event_trace.record(instrumented_node_slot, EventTrace.EventKind.DISPOSE);
 		}
 
-		amygdala.node_type_instrumented.get(instrumented_node_type).set(6);
-		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
+		amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_DISPOSE);
+		amygdala.profiler.end(instrumented_node_slot, amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION, probe_node_type));
+	}
+
+	private static boolean isCallKind(NodeKind kind) {
+		switch (kind) {
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
+			case JS_NEW_NODE_GEN:
+				return true;
+			default:
+				return false;
+		}
 	}
 
-	private ArrayList<Pair<Integer, String>> getChildHashes(Node base_node) {
-		ArrayList<Pair<Integer, String>> children = new ArrayList<>();
+	private static boolean isNameReadKind(NodeKind kind) {
+		switch (kind) {
+			case GLOBAL_PROPERTY_NODE:
+			case PROPERTY_NODE:
+			case JS_READ_SCOPE_FRAME_SLOT_NODE_GEN:
+			case JS_READ_SCOPE_FRAME_SLOT_WITH_TDZ_NODE_GEN:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static ArrayList<Node> getInstrumentableChildren(Node base_node) {
+		ArrayList<Node> children = new ArrayList<>();
 		for (Node n: base_node.getChildren()) {
 			try {
 				InstrumentableNode.WrapperNode wn = (InstrumentableNode.WrapperNode) n;
-				Node real_node = wn.getDelegateNode();
-				children.add(Pair.create(real_node.hashCode(), real_node.getClass().getSimpleName()));
+				children.add(wn.getDelegateNode());
 			} catch (ClassCastException ex) {
-				children.addAll(getChildHashes(n));
+				children.addAll(getInstrumentableChildren(n));
 			}
 		}
 		return children;
@@ -775,35 +1093,56 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 		// If the function is the main function (":program"), reset tracer.
 		if (function_name.equals(":program")) {
-			amygdala.tracer.reset(LanguageSemantic.JAVASCRIPT, getThisObjectHash(frame));
+			amygdala.tracer.reset(LanguageSemantic.JAVASCRIPT, getThisObject(frame));
 		}
 
+		initializeFunctionScope(frame);
+		// With selective instrumentation the caller may not be instrumented, the arguments are then unknown
+		if (selective_instrumentation && !amygdala.tracer.consumeArguments()) {
+			amygdala.tracer.discardArguments();
+		}
+		amygdala.tracer.resetFunctionReturnValue();
+	}
+
+	/**
+	 * Creates the variable context of the called function and of its receiver object.
+	 */
+	private void initializeFunctionScope(VirtualFrame frame) {
 		Iterator<Scope> local_scopes = environment.findLocalScopes(instrumented_node, frame).iterator();
 		if (local_scopes.hasNext()) {
 			Scope innermost_scope = local_scopes.next();
 			Object root_instance = innermost_scope.getRootInstance();
 			if (root_instance != null) {
-				amygdala.tracer.initializeFunctionScope(System.identityHashCode(root_instance));
+				amygdala.tracer.initializeFunctionScope(root_instance);
 			} else {
-				amygdala.logger.critical("onEnterBehaviorFunctionBodyNode(): Cannot get root instance");
+				amygdala.logger.critical("initializeFunctionScope(): Cannot get root instance");
 			}
-			amygdala.tracer.initializeIfAbsent(getThisObjectHash(frame));
+			amygdala.tracer.initializeIfAbsent(getThisObject(frame));
 		} else {
-			amygdala.logger.critical("onEnterBehaviorFunctionBodyNode(): Cannot find any local scopes");
+			amygdala.logger.critical("initializeFunctionScope(): Cannot find any local scopes");
 		}
-		amygdala.tracer.resetFunctionReturnValue();
 	}
 
 	private void onInputValueBehaviorIfNode(VirtualFrame frame, EventContext input_context, int input_index,
 										   Object input_value) {
 		if (input_index == 0) {
 			Boolean taken = JSRuntime.toBoolean(input_value);
-			amygdala.branchingEvent(source_relative_identifier, BranchingNodeAttribute.BRANCH, child_hashes.get(0).getLeft(),
-									taken, branch_predicate);
-			amygdala.coverage.addBranchTaken(source_relative_identifier, taken);
+			if (isSymbolicBranch()) {
+				amygdala.branchingEvent(source_relative_identifier, BranchingNodeAttribute.BRANCH, child_slots[0],
+										taken, branch_predicate);
+			}
+			amygdala.coverage.addBranchTaken(coverage_branch_index, taken);
 		}
 	}
 
+	/**
+	 * With selective instrumentation, only branches depending on input variables are part of the execution tree,
+	 * otherwise all branches are.
+	 */
+	private boolean isSymbolicBranch() {
+		return !selective_instrumentation || amygdala.tracer.getIntermediate(child_slots[0]).isSymbolic();
+	}
+
 	private void onInputValueBehaviorAndNode(VirtualFrame frame, EventContext input_context, int input_index,
 											Object input_value) {
 		if (input_index == 0
@@ -847,11 +1186,13 @@ public class FuzzingNode extends ExecutionEventNode {
 	private void onInputValueBehaviorWhileNode(VirtualFrame frame, EventContext input_context, int input_index,
 											  Object input_value) {
 		// for-in-loop has only one child
-		if (input_index == 0 && child_hashes.size() == 2) {
+		if (input_index == 0 && child_slots.length == 2) {
 			Boolean taken = JSRuntime.toBoolean(input_value);
-			amygdala.branchingEvent(source_relative_identifier, BranchingNodeAttribute.LOOP, child_hashes.get(0).getLeft(),
-									taken, branch_predicate);
-			amygdala.coverage.addBranchTaken(source_relative_identifier, taken);
+			if (isSymbolicBranch()) {
+				amygdala.branchingEvent(source_relative_identifier, BranchingNodeAttribute.LOOP, child_slots[0],
+										taken, branch_predicate);
+			}
+			amygdala.coverage.addBranchTaken(coverage_branch_index, taken);
 		}
 	}
 
@@ -880,7 +1221,7 @@ public class FuzzingNode extends ExecutionEventNode {
 		// 0 is ? node, 1 is the function object to call
 		// TODO a bit hacky
 		if (input_index >= 2) {
-			this.arguments_array.add(amygdala.tracer.getIntermediate(child_hashes.get(input_index).getLeft()));
+			this.arguments_array.add(amygdala.tracer.getIntermediateValue(child_slots[input_index]));
 		}
 		// Every call to onInput (or onEnter if Call0Node!)
 		// inside a call node could
@@ -897,7 +1238,7 @@ public class FuzzingNode extends ExecutionEventNode {
 		// 0 is object node, 1 is the function object to call (?)
 		// TODO a bit hacky
 		if (input_index >= 2) {
-			this.arguments_array.add(amygdala.tracer.getIntermediate(child_hashes.get(input_index).getLeft()));
+			this.arguments_array.add(amygdala.tracer.getIntermediateValue(child_slots[input_index]));
 		}
 		// Every call to onInput (or onEnter if Invoke0Node!)
 		// inside a call node could
@@ -910,7 +1251,7 @@ public class FuzzingNode extends ExecutionEventNode {
 		// 0 is object to create, others are arguments (?)
 		// TODO a bit hacky
 		if (input_index >= 1) {
-			this.arguments_array.add(amygdala.tracer.getIntermediate(child_hashes.get(input_index).getLeft()));
+			this.arguments_array.add(amygdala.tracer.getIntermediateValue(child_slots[input_index]));
 		}
 		// Every call to onInput
 		// inside a call node could
@@ -933,6 +1274,37 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 	}
 
+	private String extractMethodName() {
+		if (source_section != null && source_section.isAvailable()) {
+			Matcher method_matcher = METHOD_PATTERN.matcher(source_section.getCharacters().toString());
+			if (method_matcher.matches()) {
+				return method_matcher.group(1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * JSAddSubNumericUnitNodeGen covers only the operand of "++" or "--", the operator is next to the source section.
+	 *
+	 * @return '+' or '-', 0 if the operator cannot be found
+	 */
+	private char extractAddSubOperator() {
+		if (source_section != null && source_section.isAvailable()) {
+			CharSequence characters = source_section.getSource().getCharacters();
+			int before_index = source_section.getCharIndex() - 1;
+			int after_index = source_section.getCharEndIndex();
+			char before = before_index >= 0 ? characters.charAt(before_index) : 0;
+			char after = after_index < characters.length() ? characters.charAt(after_index) : 0;
+			if (before == '+' || after == '+') {
+				return '+';
+			} else if (before == '-' || after == '-') {
+				return '-';
+			}
+		}
+		return 0;
+	}
+
 	private String extractPredicate() {
 		if (source_section != null && source_section.isAvailable()) {
 			Matcher branch_matcher = BRANCH_PATTERN.matcher(source_section.getCharacters().toString());
@@ -951,8 +1323,8 @@ public class FuzzingNode extends ExecutionEventNode {
 	// Default Behavior is to just pass through any symbolic flow
 	private void onReturnBehaviorPassthrough(VirtualFrame frame, Object result) {
 		// Cannot determine behavior from several children
-		if (child_hashes.size() == 1) {
-			amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hashes.get(0).getLeft());
+		if (child_slots.length == 1) {
+			amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_slots[0]);
 		}
 	}
 
@@ -962,18 +1334,18 @@ public class FuzzingNode extends ExecutionEventNode {
 	private void onReturnBehaviorAddUnknown(VirtualFrame frame, Object result) {
 		amygdala.logger.alert("added internal error " + instrumented_node_type);
 		amygdala.logger.log(result.toString());
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.INTERNAL_ERROR, null);
 	}
 
 	// Some nodes return a value that is never used
 	// if these values are queried, an error should be thrown
 	private void onReturnBehaviorAddUndefined(VirtualFrame frame, Object result) {
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
 	}
 
 	// ===== JavaScript Read/Write =====
 
-	private String getAttributeName() {
+	static String getAttributeName(Node instrumented_node) {
 		if (instrumented_node instanceof GlobalPropertyNode) {
 			GlobalPropertyNode gpnode = (GlobalPropertyNode) instrumented_node;
 			return gpnode.getPropertyKey();
@@ -998,40 +1370,56 @@ public class FuzzingNode extends ExecutionEventNode {
 	}
 
 	private void onReturnBehaviorGlobalPropertyNode(VirtualFrame frame, Object result) {
+		boolean read_successful;
 		if (context_object != null) {
-			amygdala.tracer.propertyToIntermediate(System.identityHashCode(context_object),
-												   attribute_name,
-												   instrumented_node_hash);
+			read_successful = amygdala.tracer.propertyToIntermediate(context_object,
+																	 attribute_name,
+																	 instrumented_node_slot);
 		} else {
-			amygdala.tracer.propertyToIntermediate(amygdala.tracer.getJSGlobalObjectId(),
-												   attribute_name,
-												   instrumented_node_hash);
+			read_successful = amygdala.tracer.propertyToIntermediate(amygdala.tracer.getJSGlobalObject(),
+																	 attribute_name,
+																	 instrumented_node_slot);
 		}
+		concretizeIfMissing(read_successful, result);
 		enforceExistingProperties(context_object, attribute_name);
 	}
 
 	private void onReturnBehaviorGlobalObjectNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
 	}
 
 	private void onReturnBehaviorPropertyNode(VirtualFrame frame, Object result) {
 		if (JSGuards.isString(context_object) && attribute_name.equals("length")) {
 			onReturnBehaviorUnaryOperation(frame, result, Operation.STR_LENGTH);
 		} else if (JSRuntime.isArray(context_object) && attribute_name.equals("length")) {
-			amygdala.tracer.addArrayOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-											  System.identityHashCode(context_object), new ArrayList<>(),
-											  Operation.ARR_LENGTH, getJSArraySize((DynamicObject) context_object));
-		} else if (source_section.getCharacters().toString().equals("Math.PI")) {
-			amygdala.tracer.setIntermediate(instrumented_node_hash,
-											new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_REAL, Math.PI));
+			amygdala.tracer.addArrayOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+											  context_object, new ArrayList<>(),
+											  Operation.ARR_LENGTH, getJSArraySize((DynamicObject) context_object), result);
+		} else if (is_math_pi) {
+			amygdala.tracer.setIntermediate(instrumented_node_slot,
+											amygdala.tracer.counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_REAL, Math.PI)));
 		} else {
-			amygdala.tracer.propertyToIntermediate(System.identityHashCode(context_object),
-												   attribute_name,
-												   instrumented_node_hash);
+			boolean read_successful = amygdala.tracer.propertyToIntermediate(context_object,
+																			 attribute_name,
+																			 instrumented_node_slot);
+			concretizeIfMissing(read_successful, result);
 		}
 		enforceExistingProperties(context_object, attribute_name);
 	}
 
+	/**
+	 * With selective instrumentation, values written by uninstrumented functions are unknown to the tracer.
+	 * In this case the concrete value is used.
+	 *
+	 * @param read_successful true, if the tracer found a symbolic value
+	 * @param result          The concrete value
+	 */
+	private void concretizeIfMissing(boolean read_successful, Object result) {
+		if (!read_successful && selective_instrumentation) {
+			amygdala.tracer.addConcrete(instrumented_node_slot, result);
+		}
+	}
+
 	private void enforceExistingProperties(Object js_object, Object key) {
 		if (amygdala.custom_error.enforceExistingPropertiesEnabled() && JSRuntime.isObject(js_object)) {
 			DynamicObject js_dynamic_object = (DynamicObject) js_object;
@@ -1047,162 +1435,228 @@ public class FuzzingNode extends ExecutionEventNode {
 	}
 
 	private void onReturnBehaviorWritePropertyNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.intermediateToProperty(System.identityHashCode(context_object),
+		amygdala.tracer.intermediateToProperty(context_object,
 											   attribute_name,
-											   child_hashes.get(1).getLeft());
-		amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hashes.get(1).getLeft());
+											   child_slots[1]);
+		amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_slots[1]);
 	}
 
-	private int getScopeHashCurrent(VirtualFrame frame) {
-		if (amygdala.tracer.cached_scopes.containsKey(instrumented_node_hash)) {
-			return amygdala.tracer.cached_scopes.get(instrumented_node_hash);
+	private Object getScopeCurrent(VirtualFrame frame) {
+		if (scope_depth >= 0) {
+			return getFunctionObjectAtDepth(frame, scope_depth);
+		}
+		Iterator<Scope> local_scopes = environment.findLocalScopes(instrumented_node, frame).iterator();
+		if (local_scopes.hasNext()) {
+			Scope innermost_scope = local_scopes.next();
+			Object root_instance = innermost_scope.getRootInstance();
+			if (root_instance != null) {
+				resolveScopeDepth(frame, root_instance);
+				return root_instance;
+			} else {
+				amygdala.logger.critical("getScopeCurrent(): Cannot get root instance");
+			}
 		} else {
-			Iterator<Scope> local_scopes = environment.findLocalScopes(instrumented_node, frame).iterator();
-			if (local_scopes.hasNext()) {
-				Scope innermost_scope = local_scopes.next();
-				Object root_instance = innermost_scope.getRootInstance();
+			amygdala.logger.critical("getScopeCurrent(): Cannot find any local scopes");
+		}
+		return null;
+	}
+
+	private Object getScopeScoped(VirtualFrame frame, String variable_name) {
+		if (scope_depth >= 0) {
+			return getFunctionObjectAtDepth(frame, scope_depth);
+		}
+		Iterator<Scope> local_scopes = environment.findLocalScopes(instrumented_node, frame).iterator();
+		if (local_scopes.hasNext()) {
+			while (local_scopes.hasNext()) {
+				Scope curr_scope = local_scopes.next();
+				Object root_instance = curr_scope.getRootInstance();
 				if (root_instance != null) {
-					int scope_hash = System.identityHashCode(root_instance);
-					amygdala.tracer.cached_scopes.put(instrumented_node_hash, scope_hash);
-					return scope_hash;
+					if (amygdala.tracer.containsVariable(root_instance, variable_name)) {
+						resolveScopeDepth(frame, root_instance);
+						return root_instance;
+					}
 				} else {
-					amygdala.logger.critical("getScopeHashCurrent(): Cannot get root instance, returning -1");
+					amygdala.logger.critical("getScopeScoped(): Cannot get root instance");
 				}
-			} else {
-				amygdala.logger.critical("getScopeHashCurrent(): Cannot find any local scopes, returning -1");
 			}
+			amygdala.logger.critical("getScopeScoped(): No scope with variable '" + variable_name + "' found");
+		} else {
+			amygdala.logger.critical("getScopeScoped(): Cannot find any local scopes");
 		}
-		return -1;
+		return null;
 	}
 
-	private int getScopeHashScoped(VirtualFrame frame, String variable_name) {
-		if (amygdala.tracer.cached_scopes.containsKey(instrumented_node_hash)) {
-			return amygdala.tracer.cached_scopes.get(instrumented_node_hash);
-		} else {
-			Iterator<Scope> local_scopes = environment.findLocalScopes(instrumented_node, frame).iterator();
-			if (local_scopes.hasNext()) {
-				while (local_scopes.hasNext()) {
-					Scope curr_scope = local_scopes.next();
-					Object root_instance = curr_scope.getRootInstance();
-					if (root_instance != null) {
-						int scope_hash = System.identityHashCode(root_instance);
-						if (amygdala.tracer.containsVariable(scope_hash, variable_name)) {
-							amygdala.tracer.cached_scopes.put(instrumented_node_hash, scope_hash);
-							return scope_hash;
-						}
-					} else {
-						amygdala.logger.critical("getScopeHashScoped(): Cannot get root instance");
-					}
-				}
-				amygdala.logger.critical("getScopeHashScoped(): No scope with variable '" + variable_name + "' found, returning -1");
-			} else {
-				amygdala.logger.critical("getScopeHashScoped(): Cannot find any local scopes, returning -1");
+	/**
+	 * Determines how many function frames the scope of a frame slot node is away from the current frame.
+	 * The depth is a static property of the node, so the scope can be computed from the frame afterwards.
+	 * If the scope cannot be found in the chain of enclosing frames, the node keeps using the Truffle scope API.
+	 *
+	 * @param frame The current frame
+	 * @param root_instance The function object of the scope, found by the Truffle scope API
+	 */
+	private void resolveScopeDepth(VirtualFrame frame, Object root_instance) {
+		if (scope_depth != SCOPE_UNRESOLVED) {
+			return;
+		}
+		scope_depth = SCOPE_DYNAMIC;
+		for (int depth = 0; depth < MAX_SCOPE_DEPTH; depth++) {
+			Object function_object = getFunctionObjectAtDepth(frame, depth);
+			if (function_object == null) {
+				break;
+			}
+			if (function_object == root_instance) {
+				scope_depth = depth;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Follows the enclosing frames of the current function and returns the function object at the given depth,
+	 * this is the same object that the Truffle scope API returns as root instance.
+	 *
+	 * @param frame The current frame
+	 * @param depth Number of enclosing functions to skip
+	 * @return The function object, or null if the chain of frames is shorter than depth
+	 */
+	private static Object getFunctionObjectAtDepth(Frame frame, int depth) {
+		Frame current = getFunctionFrame(frame);
+		for (int i = 0; i < depth; i++) {
+			if (current.getArguments().length < JSArguments.RUNTIME_ARGUMENT_COUNT) {
+				return null;
+			}
+			MaterializedFrame parent = JSFrameUtil.getParentFrame(current);
+			if (parent == null || parent == JSFrameUtil.NULL_MATERIALIZED_FRAME) {
+				return null;
 			}
+			current = getFunctionFrame(parent);
 		}
-		return -1;
+		if (current.getArguments().length < JSArguments.RUNTIME_ARGUMENT_COUNT) {
+			return null;
+		}
+		return JSArguments.getFunctionObject(current.getArguments());
+	}
+
+	private static Frame getFunctionFrame(Frame frame) {
+		Object[] arguments = frame.getArguments();
+		if (arguments.length > 0 && arguments[0] instanceof MaterializedFrame) {
+			return (MaterializedFrame) arguments[0];
+		}
+		return frame;
 	}
 
 	private void onReturnBehaviorJSReadCurrentFrameSlotNodeGen(VirtualFrame frame, Object result) {
-		boolean read_successful = amygdala.tracer.frameSlotToIntermediate(getScopeHashCurrent(frame),
+		boolean read_successful = amygdala.tracer.frameSlotToIntermediate(getScopeCurrent(frame),
 																		  attribute_name,
-																		  instrumented_node_hash);
+																		  instrumented_node_slot);
+		concretizeIfMissing(read_successful, result);
 		if (!read_successful && Amygdala.EXPERIMENTAL_FRAMESLOT_FILL_IN_NONEXISTENT) {
-			amygdala.tracer.setIntermediate(instrumented_node_hash, jsObjectToSymbolic(result));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, SymbolicConstant.fromJSObject(result));
 			amygdala.logger.warning("onReturnBehaviorJSReadCurrentFrameSlotNodeGen(): Experimental option frameslot_fill_in_nonexistent is enabled, filling in value '" + result.toString() + "'");
 		}
 	}
 
 	private void onReturnBehaviorJSWriteCurrentFrameSlotNodeGen(VirtualFrame frame, Object result) {
-		amygdala.tracer.intermediateToFrameSlot(getScopeHashCurrent(frame),
+		amygdala.tracer.intermediateToFrameSlot(getScopeCurrent(frame),
 												attribute_name,
-												child_hashes.get(0).getLeft());
-		amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hashes.get(0).getLeft());
+												child_slots[0]);
+		amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_slots[0]);
 	}
 
 	private void onReturnBehaviorJSReadScopeFrameSlotNodeGen(VirtualFrame frame, Object result) {
-		boolean read_successful = amygdala.tracer.frameSlotToIntermediate(getScopeHashScoped(frame, attribute_name),
+		boolean read_successful = amygdala.tracer.frameSlotToIntermediate(getScopeScoped(frame, attribute_name),
 																		  attribute_name,
-																		  instrumented_node_hash);
+																		  instrumented_node_slot);
+		concretizeIfMissing(read_successful, result);
 		if (!read_successful && Amygdala.EXPERIMENTAL_FRAMESLOT_FILL_IN_NONEXISTENT) {
-			amygdala.tracer.setIntermediate(instrumented_node_hash, jsObjectToSymbolic(result));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, SymbolicConstant.fromJSObject(result));
 			amygdala.logger.warning("onReturnBehaviorJSReadScopeFrameSlotNodeGen(): Experimental option frameslot_fill_in_nonexistent is enabled, filling in value '" + result.toString() + "'");
 		}
 	}
 
 	private void onReturnBehaviorJSWriteScopeFrameSlotNodeGen(VirtualFrame frame, Object result) {
-		amygdala.tracer.intermediateToFrameSlot(getScopeHashScoped(frame, attribute_name),
+		amygdala.tracer.intermediateToFrameSlot(getScopeScoped(frame, attribute_name),
 												attribute_name,
-												child_hashes.get(0).getLeft());
-		amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hashes.get(0).getLeft());
+												child_slots[0]);
+		amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_slots[0]);
 	}
 
 	// ===== JavaScript Function Handling =====
 
 	private void onReturnBehaviorCallNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.functionReturnValueToIntermediate(instrumented_node_hash);
+		functionReturnValueToIntermediate(result);
+	}
+
+	private void functionReturnValueToIntermediate(Object result) {
+		if (selective_instrumentation) {
+			// The callee is not instrumented or a builtin function
+			if (!amygdala.tracer.hasFunctionReturnValue()) {
+				amygdala.tracer.addConcrete(instrumented_node_slot, result);
+			} else {
+				amygdala.tracer.functionReturnValueToIntermediate(instrumented_node_slot);
+			}
+			amygdala.tracer.consumeArguments();
+		} else {
+			amygdala.tracer.functionReturnValueToIntermediate(instrumented_node_slot);
+		}
 		amygdala.tracer.resetFunctionReturnValue();
 	}
 
 	private void onReturnBehaviorInvokeNode(VirtualFrame frame, Object result) {
 		if (JSGuards.isString(context_object)) {
-			Matcher method_matcher = METHOD_PATTERN.matcher(source_section.getCharacters().toString());
-			if (method_matcher.matches()) {
-				String method_name = method_matcher.group(1);
-				switch (method_name) {
+			if (invoked_method_name != null) {
+				switch (invoked_method_name) {
 					case "concat":
-						amygdala.tracer.addStringOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														   child_hashes.get(0).getLeft(), arguments_array, Operation.STR_CONCAT);
+						amygdala.tracer.addStringOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														   child_slots[0], arguments_array, Operation.STR_CONCAT, result);
 						break;
 					case "charAt":
-						amygdala.tracer.addStringOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														   child_hashes.get(0).getLeft(), arguments_array, Operation.STR_CHAR_AT);
+						amygdala.tracer.addStringOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														   child_slots[0], arguments_array, Operation.STR_CHAR_AT, result);
 						break;
 					case "substr":
-						amygdala.tracer.addStringOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														   child_hashes.get(0).getLeft(), arguments_array, Operation.STR_SUBSTR);
+						amygdala.tracer.addStringOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														   child_slots[0], arguments_array, Operation.STR_SUBSTR, result);
 						break;
 					case "includes":
-						amygdala.tracer.addStringOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														   child_hashes.get(0).getLeft(), arguments_array, Operation.STR_INCLUDES);
+						amygdala.tracer.addStringOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														   child_slots[0], arguments_array, Operation.STR_INCLUDES, result);
 						break;
 					case "indexOf":
-						amygdala.tracer.addStringOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														   child_hashes.get(0).getLeft(), arguments_array, Operation.STR_INDEXOF);
+						amygdala.tracer.addStringOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														   child_slots[0], arguments_array, Operation.STR_INDEXOF, result);
 						break;
 					default:
 						amygdala.logger.critical(
-								"onReturnBehaviorInvokeNode(): String method '" + method_name + "' not implemented");
+								"onReturnBehaviorInvokeNode(): String method '" + invoked_method_name + "' not implemented");
 				}
 			} else {
 				amygdala.logger.critical(
 						"onReturnBehaviorInvokeNode(): Trying to compute string operation, but cannot extract name");
 			}
 		} else if (JSRuntime.isArray(context_object)) {
-			Matcher method_matcher = METHOD_PATTERN.matcher(source_section.getCharacters().toString());
-			if (method_matcher.matches()) {
-				String method_name = method_matcher.group(1);
-				switch (method_name) {
+			if (invoked_method_name != null) {
+				switch (invoked_method_name) {
 					case "push":
-						amygdala.tracer.addArrayOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														  System.identityHashCode(context_object), arguments_array, Operation.ARR_PUSH,
-														  getJSArraySize((DynamicObject) context_object));
+						amygdala.tracer.addArrayOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														  context_object, arguments_array, Operation.ARR_PUSH,
+														  getJSArraySize((DynamicObject) context_object), result);
 						break;
 					case "join":
-						amygdala.tracer.addArrayOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT,
-														  System.identityHashCode(context_object), arguments_array, Operation.ARR_JOIN,
-														  getJSArraySize((DynamicObject) context_object));
+						amygdala.tracer.addArrayOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT,
+														  context_object, arguments_array, Operation.ARR_JOIN,
+														  getJSArraySize((DynamicObject) context_object), result);
 						break;
 					default:
 						amygdala.logger.critical(
-								"onReturnBehaviorInvokeNode(): Array method '" + method_name + "' not implemented");
+								"onReturnBehaviorInvokeNode(): Array method '" + invoked_method_name + "' not implemented");
 				}
 			} else {
 				amygdala.logger.critical(
 						"onReturnBehaviorInvokeNode(): Trying to compute array operation, but cannot extract name");
 			}
 		} else {
-			amygdala.tracer.functionReturnValueToIntermediate(instrumented_node_hash);
-			amygdala.tracer.resetFunctionReturnValue();
+			functionReturnValueToIntermediate(result);
 		}
 	}
 
@@ -1222,21 +1676,25 @@ public class FuzzingNode extends ExecutionEventNode {
 
 	private void onReturnBehaviorJSNewNodeGen(VirtualFrame frame, Object result) {
 		//TODO always an object, never a basic type?
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
 		amygdala.tracer.resetFunctionReturnValue();
+		if (selective_instrumentation) {
+			amygdala.tracer.consumeArguments();
+		}
 	}
 
 	private void onReturnBehaviorAccessIndexedArgumentNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.argumentToIntermediate(argument_index, instrumented_node_hash);
+		boolean read_successful = amygdala.tracer.argumentToIntermediate(argument_index, instrumented_node_slot);
+		concretizeIfMissing(read_successful, result);
 	}
 
 	private void behaviorFrameReturnTerminalPositionReturnNode() {
-		if (child_hashes.size() > 0) {
-			Integer child_hash = child_hashes.get(0).getLeft();
-			amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hash);
+		if (child_slots.length > 0) {
+			Integer child_hash = child_slots[0];
+			amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_hash);
 			amygdala.tracer.intermediateToFunctionReturnValue(child_hash);
 		} else {
-			amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+			amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
 			amygdala.tracer.resetFunctionReturnValue();
 		}
 	}
@@ -1244,8 +1702,8 @@ public class FuzzingNode extends ExecutionEventNode {
 	// ===== JavaScript General Nodes =====
 
 	private void onReturnBehaviorBinaryOperation(VirtualFrame frame, Object result, Operation op) {
-		amygdala.tracer.addOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, op,
-									 child_hashes.get(0).getLeft(), child_hashes.get(1).getLeft());
+		amygdala.tracer.addOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, op,
+									 child_slots[0], child_slots[1], result);
 	}
 
 	private void onReturnBehaviorInternalInvokedFunction(VirtualFrame frame, Object result, Operation op) {
@@ -1255,34 +1713,37 @@ public class FuzzingNode extends ExecutionEventNode {
 
 	// TODO
 	private void onReturnBehaviorJSAddSubNumericUnitNodeGen(VirtualFrame frame, Object result) {
-		String before = String.valueOf(
-				source_section.getSource().getCharacters().charAt(source_section.getCharIndex() - 1));
-		String after = String.valueOf(source_section.getSource().getCharacters().charAt(source_section.getCharEndIndex()));
-		if (before.equals("+") || after.equals("+")) {
-			SymbolicNode pre_add = amygdala.tracer.getIntermediate(child_hashes.get(0).getLeft());
-			SymbolicNode add_result = new Addition(LanguageSemantic.JAVASCRIPT, pre_add, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
-			amygdala.tracer.setIntermediate(instrumented_node_hash, add_result);
-		} else if (before.equals("-") || after.equals("-")) {
-			SymbolicNode pre_sub = amygdala.tracer.getIntermediate(child_hashes.get(0).getLeft());
-			SymbolicNode sub_result = new Subtraction(LanguageSemantic.JAVASCRIPT, pre_sub, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
-			amygdala.tracer.setIntermediate(instrumented_node_hash, sub_result);
+		if (!amygdala.tracer.isSymbolic(child_slots[0])) {
+			amygdala.tracer.addConcrete(instrumented_node_slot, result);
+			return;
+		}
+		if (add_sub_operator == '+') {
+			SymbolicNode pre_add = amygdala.tracer.getIntermediate(child_slots[0]);
+			SymbolicNode one = amygdala.tracer.counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
+			SymbolicNode add_result = amygdala.tracer.counted(new Addition(LanguageSemantic.JAVASCRIPT, pre_add, one));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, add_result);
+		} else if (add_sub_operator == '-') {
+			SymbolicNode pre_sub = amygdala.tracer.getIntermediate(child_slots[0]);
+			SymbolicNode one = amygdala.tracer.counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
+			SymbolicNode sub_result = amygdala.tracer.counted(new Subtraction(LanguageSemantic.JAVASCRIPT, pre_sub, one));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, sub_result);
 		} else {
 			amygdala.logger.critical("onReturnBehaviorJSAddSubNumericUnitNodeGen(): Cannot determine operation from source code");
 		}
 	}
 
 	private void onReturnBehaviorUnaryOperation(VirtualFrame frame, Object result, Operation op) {
-		amygdala.tracer.addOperation(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, op, child_hashes.get(0).getLeft());
+		amygdala.tracer.addOperation(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, op, child_slots[0], result);
 	}
 
-	private void onReturnBehaviorConstant(VirtualFrame frame, Object result, ExpressionType type) {
+	private void onReturnBehaviorConstant(VirtualFrame frame, Object result) {
 		if (this.is_input_node) {
 			Object next_input = amygdala.getNextInputValue(this.input_variable_identifier);
-			amygdala.tracer.addVariable(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, this.input_variable_identifier);
-			amygdala.node_type_instrumented.get(instrumented_node_type).set(3);
+			amygdala.tracer.addVariable(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, this.input_variable_identifier);
+			amygdala.profiler.markEvent(instrumented_node_slot, InstrumentationProfiler.EVENT_RETURN_VALUE);
 			throw this.event_context.createUnwind(next_input);
 		} else {
-			amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, type, result);
+			amygdala.tracer.addConcrete(instrumented_node_slot, result);
 		}
 	}
 
@@ -1296,27 +1757,26 @@ public class FuzzingNode extends ExecutionEventNode {
 		}
 		Shape obj_shape = dobj.getShape();
 		List<Object> keys = obj_shape.getKeyList();
-		if (keys.size() != child_hashes.size()) {
+		if (keys.size() != child_slots.length) {
 			amygdala.logger.critical("onReturnBehaviorObjectLiteralNode(): Resulting object has not the same number of keys as the child nodes");
 			return;
 		}
 		VariableContext obj_ctx = new VariableContext();
 		for (int ch_index = 0; ch_index < keys.size(); ch_index++) {
 			//TODO toString()?
-			obj_ctx.set(keys.get(ch_index).toString(), amygdala.tracer.getIntermediate(child_hashes.get(ch_index).getLeft()));
+			obj_ctx.setValue(keys.get(ch_index).toString(), amygdala.tracer.getIntermediateValue(child_slots[ch_index]));
 		}
-		amygdala.tracer.setSymbolicContext(System.identityHashCode(result), obj_ctx);
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.setSymbolicContext(result, obj_ctx);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
 	}
 
 	private void onReturnBehaviorDefaultArrayLiteralNode(VirtualFrame frame, Object result) {
 		VariableContext new_array = new VariableContext();
-		for (int i = 0; i < child_hashes.size(); i++) {
-			Pair<Integer, String> child = child_hashes.get(i);
-			new_array.set(i, amygdala.tracer.getIntermediate(child.getLeft()));
+		for (int i = 0; i < child_slots.length; i++) {
+			new_array.setValue(i, amygdala.tracer.getIntermediateValue(child_slots[i]));
 		}
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
-		amygdala.tracer.setSymbolicContext(System.identityHashCode(result), new_array);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.setSymbolicContext(result, new_array);
 	}
 
 	private void onReturnBehaviorConstantArrayLiteralNode(VirtualFrame frame, Object result) {
@@ -1327,37 +1787,39 @@ public class FuzzingNode extends ExecutionEventNode {
 				amygdala.logger.critical("onReturnBehaviorConstantArrayLiteralNode(): Cannot cast result to DynamicObject");
 			}
 		}
-		amygdala.tracer.setSymbolicContext(System.identityHashCode(result), this.cached_constant_array.copy());
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.setSymbolicContext(result, this.cached_constant_array.copy());
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
 	}
 
 	private void onReturnBehaviorConstructArrayNodeGen(VirtualFrame frame, Object result) {
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
-		amygdala.tracer.initializeIfAbsent(System.identityHashCode(result));
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
+		amygdala.tracer.initializeIfAbsent(result);
 	}
 
 	private void onReturnBehaviorReadElementNode(VirtualFrame frame, Object result) {
 		if (JSGuards.isString(context_object)) {
-			ArrayList<SymbolicNode> arg = new ArrayList<>();
-			arg.add(amygdala.tracer.getIntermediate(child_hashes.get(1).getLeft()));
-			amygdala.tracer.addStringOperation(instrumented_node_hash,
+			ArrayList<Object> arg = new ArrayList<>();
+			arg.add(amygdala.tracer.getIntermediateValue(child_slots[1]));
+			amygdala.tracer.addStringOperation(instrumented_node_slot,
 											   LanguageSemantic.JAVASCRIPT,
-											   child_hashes.get(0).getLeft(),
+											   child_slots[0],
 											   arg,
-											   Operation.STR_CHAR_AT);
+											   Operation.STR_CHAR_AT,
+											   result);
 		} else {
-			amygdala.tracer.propertyToIntermediate(System.identityHashCode(context_object),
-												   element_access,
-												   instrumented_node_hash);
+			boolean read_successful = amygdala.tracer.propertyToIntermediate(context_object,
+																			 element_access,
+																			 instrumented_node_slot);
+			concretizeIfMissing(read_successful, result);
 		}
 		enforceExistingProperties(context_object, element_access);
 	}
 
 	private void onReturnBehaviorWriteElementNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.intermediateToProperty(System.identityHashCode(context_object),
+		amygdala.tracer.intermediateToProperty(context_object,
 											   element_access,
-											   child_hashes.get(2).getLeft());
-		amygdala.tracer.passThroughIntermediate(instrumented_node_hash, child_hashes.get(2).getLeft());
+											   child_slots[2]);
+		amygdala.tracer.passThroughIntermediate(instrumented_node_slot, child_slots[2]);
 	}
 
 	private void onReturnBehaviorJSGlobalParseIntNodeGen(VirtualFrame frame, Object result) {
@@ -1368,19 +1830,23 @@ public class FuzzingNode extends ExecutionEventNode {
 	//TODO extremely hacky
 	private void onReturnBehaviorDualNode(VirtualFrame frame, Object result) {
 		// if DualNode is part of an increment/decrement operation
-		if (dual_node_is_increment) {
-			SymbolicNode pre = amygdala.tracer.getIntermediate(child_hashes.get(0).getLeft());
-			SymbolicNode revert_increment = new Subtraction(LanguageSemantic.JAVASCRIPT, pre, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
-			amygdala.tracer.setIntermediate(instrumented_node_hash, revert_increment);
+		if ((dual_node_is_increment || dual_node_is_decrement) && !amygdala.tracer.isSymbolic(child_slots[0])) {
+			amygdala.tracer.addConcrete(instrumented_node_slot, result);
+		} else if (dual_node_is_increment) {
+			SymbolicNode pre = amygdala.tracer.getIntermediate(child_slots[0]);
+			SymbolicNode one = amygdala.tracer.counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
+			SymbolicNode revert_increment = amygdala.tracer.counted(new Subtraction(LanguageSemantic.JAVASCRIPT, pre, one));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, revert_increment);
 		} else if (dual_node_is_decrement) {
-			SymbolicNode pre = amygdala.tracer.getIntermediate(child_hashes.get(0).getLeft());
-			SymbolicNode revert_decrement = new Addition(LanguageSemantic.JAVASCRIPT, pre, new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
-			amygdala.tracer.setIntermediate(instrumented_node_hash, revert_decrement);
+			SymbolicNode pre = amygdala.tracer.getIntermediate(child_slots[0]);
+			SymbolicNode one = amygdala.tracer.counted(new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, 1));
+			SymbolicNode revert_decrement = amygdala.tracer.counted(new Addition(LanguageSemantic.JAVASCRIPT, pre, one));
+			amygdala.tracer.setIntermediate(instrumented_node_slot, revert_decrement);
 		}
 	}
 
 	private void onReturnBehaviorDiscardResultNode(VirtualFrame frame, Object result) {
-		amygdala.tracer.addConstant(instrumented_node_hash, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
+		amygdala.tracer.addConstant(instrumented_node_slot, LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
 	}
 
 	private VariableContext arrayToSymbolic(DynamicObject dyn_obj) {
@@ -1395,7 +1861,7 @@ public class FuzzingNode extends ExecutionEventNode {
 					amygdala.logger.critical("arrayToSymbolic(): Object is an array, but we cannot read the element with index" + i);
 					return new VariableContext();
 				}
-				array_ctx.set(i, jsObjectToSymbolic(array_elem));
+				array_ctx.setValue(i, array_elem);
 			}
 			return array_ctx;
 		} else {
@@ -1403,30 +1869,4 @@ public class FuzzingNode extends ExecutionEventNode {
 			return new VariableContext();
 		}
 	}
-
-	private SymbolicNode jsObjectToSymbolic(Object js_obj) {
-		if (JSGuards.isBoolean(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.BOOLEAN, js_obj);
-		} else if (JSGuards.isString(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.STRING, js_obj);
-		} else if (JSGuards.isBigInt(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.BIGINT, js_obj);
-		} else if (JSGuards.isNumberInteger(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_INTEGER, js_obj);
-		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isNaN(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_NAN, null);
-		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isPositiveInfinity((double) js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_POS_INFINITY, null);
-		} else if (JSGuards.isNumberDouble(js_obj) && JSRuntime.isPositiveInfinity(-(double) js_obj)) {
-				return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_NEG_INFINITY, null);
-		} else if (JSGuards.isNumberDouble(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NUMBER_REAL, js_obj);
-		} else if (JSGuards.isUndefined(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.UNDEFINED, null);
-		} else if (JSGuards.isJSNull(js_obj)) {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.NULL, null);
-		} else {
-			return new SymbolicConstant(LanguageSemantic.JAVASCRIPT, ExpressionType.OBJECT, null);
-		}
-	}
 }
@@ -16,6 +16,7 @@
 
 package org.fuzzingtool.instrumentation;
 
+import com.oracle.truffle.api.instrumentation.EventBinding;
 import com.oracle.truffle.api.instrumentation.EventContext;
 import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
 import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
@@ -26,16 +27,25 @@ import org.fuzzingtool.core.components.TimeProbe;
 class FuzzingNodeFactory implements ExecutionEventNodeFactory {
 	private final TruffleInstrument.Env env;
 	private final Amygdala amygdala;
+	// null if every node is traced
+	private final TaintedRoots tainted_roots;
+	// Binding of this factory, used by the nodes to find the instrumentation nodes of their children
+	private EventBinding<FuzzingNodeFactory> binding = null;
 
-	FuzzingNodeFactory(final TruffleInstrument.Env env, Amygdala amy) {
+	FuzzingNodeFactory(final TruffleInstrument.Env env, Amygdala amy, TaintedRoots roots) {
 		this.env = env;
 		this.amygdala = amy;
+		this.tainted_roots = roots;
+	}
+
+	void setBinding(EventBinding<FuzzingNodeFactory> binding) {
+		this.binding = binding;
 	}
 
 	@Override
 	public ExecutionEventNode create(final EventContext ec) {
 		amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
-		FuzzingNode wrapper_node = new FuzzingNode(this.env, this.amygdala, ec);
+		ExecutionEventNode wrapper_node = new FuzzingNode(this.env, this.amygdala, ec, this.binding, this.tainted_roots);
 		amygdala.probe.switchState(TimeProbe.ProgramState.EXECUTION);
 		return wrapper_node;
 	}
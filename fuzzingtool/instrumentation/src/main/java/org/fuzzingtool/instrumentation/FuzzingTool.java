@@ -17,6 +17,7 @@
 package org.fuzzingtool.instrumentation;
 
 import com.oracle.truffle.api.Option;
+import com.oracle.truffle.api.instrumentation.EventBinding;
 import com.oracle.truffle.api.instrumentation.Instrumenter;
 import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
 import com.oracle.truffle.api.instrumentation.StandardTags;
@@ -45,6 +46,10 @@ public final class FuzzingTool extends TruffleInstrument {
 
 	private Logger logger;
 	private Amygdala amygdala;
+	private Env env;
+	private EventBinding<?> execution_binding = null;
+	// null if every node is instrumented
+	private TaintedRoots tainted_roots = null;
 
 	@Override
 	protected void onCreate(final Env env) {
@@ -58,11 +63,11 @@ public final class FuzzingTool extends TruffleInstrument {
 	}
 
 	private void init(final Env env) {
+		this.env = env;
 		final Instrumenter instrumenter = env.getInstrumenter();
 
 		// Variable execution tracing
-		final SourceSectionFilter execution_filter = SourceSectionFilter.newBuilder().includeInternal(true).build();
-		instrumenter.attachExecutionEventFactory(execution_filter, execution_filter, new FuzzingNodeFactory(env, this.amygdala));
+		attachExecutionInstrumentation();
 
 		// Coverage information
 		SourceSectionFilter branch_coverage_filter = SourceSectionFilter.newBuilder().includeInternal(false).build(); // Apparently WhileNode is not a statement...
@@ -73,6 +78,41 @@ public final class FuzzingTool extends TruffleInstrument {
 		instrumenter.attachLoadSourceSectionListener(root_coverage_filter, new RootSourceSectionListener(amygdala), false);
 	}
 
+	private void attachExecutionInstrumentation() {
+		if (this.execution_binding != null) {
+			this.execution_binding.dispose();
+		}
+		final SourceSectionFilter execution_filter = SourceSectionFilter.newBuilder().includeInternal(true).build();
+		final FuzzingNodeFactory factory = new FuzzingNodeFactory(env, this.amygdala, this.tainted_roots);
+		final EventBinding<FuzzingNodeFactory> binding = env.getInstrumenter().attachExecutionEventFactory(execution_filter,
+				execution_filter, factory);
+		factory.setBinding(binding);
+		this.execution_binding = binding;
+	}
+
+	/**
+	 * Restricts the symbolic tracing to functions which are reached by symbolic values. All other functions
+	 * only record coverage. Has to be called after the options are loaded and before any source is evaluated.
+	 */
+	public void enableSelectiveInstrumentation() {
+		if (this.tainted_roots == null) {
+			this.tainted_roots = new TaintedRoots(this.logger);
+			final SourceSectionFilter seed_filter = SourceSectionFilter.newBuilder().includeInternal(false).build();
+			env.getInstrumenter().attachLoadSourceSectionListener(seed_filter, new TaintSeedListener(amygdala, tainted_roots), false);
+			attachExecutionInstrumentation();
+		}
+	}
+
+	/**
+	 * Reports the number of traced functions if new functions were reached by symbolic values.
+	 * Should be called between two iterations.
+	 */
+	public void reportInstrumentation() {
+		if (this.tainted_roots != null && this.tainted_roots.consumeChanged()) {
+			logger.info("Selective instrumentation: " + tainted_roots.size() + " function(s) traced");
+		}
+	}
+
 	public Amygdala getAmygdala() {
 		return this.amygdala;
 	}
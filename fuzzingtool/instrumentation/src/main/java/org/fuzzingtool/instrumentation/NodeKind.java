@@ -0,0 +1,253 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * All Truffle node types known to the {@link FuzzingNode}. The kind is resolved
+ * once from the class name of the instrumented node, events dispatch on the enum.
+ */
+public enum NodeKind {
+	// ===== Function handling =====
+	CALL0_NODE("Call0Node", false),
+	CALL1_NODE("Call1Node", false),
+	CALL_N_NODE("CallNNode", false),
+	INVOKE0_NODE("Invoke0Node", false),
+	INVOKE1_NODE("Invoke1Node", false),
+	INVOKE_N_NODE("InvokeNNode", false),
+	JS_NEW_NODE_GEN("JSNewNodeGen", false),
+	MATERIALIZED_FUNCTION_BODY_NODE("MaterializedFunctionBodyNode", false),
+	ACCESS_INDEXED_ARGUMENT_NODE("AccessIndexedArgumentNode", false),
+	TERMINAL_POSITION_RETURN_NODE("TerminalPositionReturnNode", false),
+	FRAME_RETURN_NODE("FrameReturnNode", false),
+
+	// ===== Read/Write =====
+	GLOBAL_PROPERTY_NODE("GlobalPropertyNode", false),
+	GLOBAL_OBJECT_NODE("GlobalObjectNode", false),
+	PROPERTY_NODE("PropertyNode", false),
+	WRITE_PROPERTY_NODE("WritePropertyNode", true),
+	READ_ELEMENT_NODE("ReadElementNode", false),
+	WRITE_ELEMENT_NODE("WriteElementNode", true),
+	COMPOUND_WRITE_ELEMENT_NODE("CompoundWriteElementNode", true),
+	JS_READ_CURRENT_FRAME_SLOT_NODE_GEN("JSReadCurrentFrameSlotNodeGen", false),
+	JS_WRITE_CURRENT_FRAME_SLOT_NODE_GEN("JSWriteCurrentFrameSlotNodeGen", true),
+	JS_READ_SCOPE_FRAME_SLOT_NODE_GEN("JSReadScopeFrameSlotNodeGen", false),
+	JS_READ_SCOPE_FRAME_SLOT_WITH_TDZ_NODE_GEN("JSReadScopeFrameSlotWithTDZNodeGen", false),
+	JS_WRITE_SCOPE_FRAME_SLOT_NODE_GEN("JSWriteScopeFrameSlotNodeGen", true),
+
+	// ===== Arithmetic =====
+	JS_ADD_NODE_GEN("JSAddNodeGen", false),
+	JS_SUBTRACT_NODE_GEN("JSSubtractNodeGen", false),
+	JS_MULTIPLY_NODE_GEN("JSMultiplyNodeGen", false),
+	JS_DIVIDE_NODE_GEN("JSDivideNodeGen", false),
+	JS_MODULO_NODE_GEN("JSModuloNodeGen", false),
+	JS_UNARY_MINUS_NODE_GEN("JSUnaryMinusNodeGen", false),
+	JS_UNARY_PLUS_NODE_GEN("JSUnaryPlusNodeGen", false),
+	JS_ADD_SUB_NUMERIC_UNIT_NODE_GEN("JSAddSubNumericUnitNodeGen", false),
+	SQRT_NODE_GEN("SqrtNodeGen", false),
+
+	// ===== Constants =====
+	JS_CONSTANT_BOOLEAN_NODE("JSConstantBooleanNode", false),
+	JS_CONSTANT_SAFE_INTEGER_NODE("JSConstantSafeIntegerNode", false),
+	JS_CONSTANT_INTEGER_NODE("JSConstantIntegerNode", false),
+	JS_CONSTANT_DOUBLE_NODE("JSConstantDoubleNode", false),
+	JS_CONSTANT_STRING_NODE("JSConstantStringNode", false),
+	JS_CONSTANT_NULL_NODE("JSConstantNullNode", false),
+	JS_CONSTANT_UNDEFINED_NODE("JSConstantUndefinedNode", false),
+
+	// ===== Object/Function creation =====
+	DEFAULT_FUNCTION_EXPRESSION_NODE("DefaultFunctionExpressionNode", false),
+	AUTONOMOUS_FUNCTION_EXPRESSION_NODE("AutonomousFunctionExpressionNode", false),
+	OBJECT_LITERAL_NODE("ObjectLiteralNode", false),
+
+	// ===== Arrays =====
+	DEFAULT_ARRAY_LITERAL_NODE("DefaultArrayLiteralNode", false),
+	CONSTANT_EMPTY_ARRAY_LITERAL_NODE("ConstantEmptyArrayLiteralNode", false),
+	CONSTANT_ARRAY_LITERAL_NODE("ConstantArrayLiteralNode", false),
+	CONSTRUCT_ARRAY_NODE_GEN("ConstructArrayNodeGen", false),
+
+	// ===== Logic =====
+	JS_LESS_THAN_NODE_GEN("JSLessThanNodeGen", false),
+	JS_LESS_OR_EQUAL_NODE_GEN("JSLessOrEqualNodeGen", false),
+	JS_GREATER_THAN_NODE_GEN("JSGreaterThanNodeGen", false),
+	JS_GREATER_OR_EQUAL_NODE_GEN("JSGreaterOrEqualNodeGen", false),
+	JS_EQUAL_NODE_GEN("JSEqualNodeGen", false),
+	JS_IDENTICAL_NODE_GEN("JSIdenticalNodeGen", false),
+	JS_AND_NODE("JSAndNode", false),
+	JS_OR_NODE("JSOrNode", false),
+	JS_NOT_NODE_GEN("JSNotNodeGen", false),
+
+	// ===== Builtins =====
+	JS_GLOBAL_PARSE_INT_NODE_GEN("JSGlobalParseIntNodeGen", false),
+	JS_GLOBAL_PRINT_NODE_GEN("JSGlobalPrintNodeGen", true),
+
+	// ===== Miscellaneous =====
+	IF_NODE("IfNode", false),
+	WHILE_NODE("WhileNode", false),
+	DUAL_NODE("DualNode", false),
+	VOID_BLOCK_NODE("VoidBlockNode", false),
+	EXPR_BLOCK_NODE("ExprBlockNode", false),
+	EMPTY_NODE("EmptyNode", false),
+	DISCARD_RESULT_NODE("DiscardResultNode", false),
+	JS_INPUT_GENERATING_NODE_WRAPPER("JSInputGeneratingNodeWrapper", false),
+	JS_TAGGED_EXECUTION_NODE("JSTaggedExecutionNode", false),
+	LOCAL_VAR_POSTFIX_INC_MATERIALIZED_NODE("LocalVarPostfixIncMaterializedNode", false),
+	LOCAL_VAR_PREFIX_INC_MATERIALIZED_NODE("LocalVarPrefixIncMaterializedNode", false),
+
+	// ===== Known nodes without behavior =====
+	JS_STRING_INDEX_OF_NODE_GEN("JSStringIndexOfNodeGen", false),
+	JS_STRING_CONCAT_NODE_GEN("JSStringConcatNodeGen", false),
+	JS_STRING_SUBSTR_NODE_GEN("JSStringSubstrNodeGen", false),
+	JS_ARRAY_JOIN_NODE_GEN("JSArrayJoinNodeGen", false),
+	DECLARE_PROVIDER_NODE("DeclareProviderNode", false),
+	BREAK_NODE("BreakNode", false),
+	ECHO_TARGET_VALUE_NODE("EchoTargetValueNode", false),
+	MATERIALIZED_TARGETABLE_PROPERTY_NODE("MaterializedTargetablePropertyNode", false),
+	FOR_IN_ITERATOR_PROTOTYPE_NEXT_NODE_GEN("ForInIteratorPrototypeNextNodeGen", false),
+
+	// Every other node type
+	UNKNOWN(null, false);
+
+	private static final Map<String, NodeKind> BY_NODE_TYPE = new HashMap<>();
+
+	static {
+		for (NodeKind kind: values()) {
+			if (kind.node_type != null) {
+				BY_NODE_TYPE.put(kind.node_type, kind);
+			}
+		}
+	}
+
+	private final String node_type;
+	private final boolean has_side_effects;
+
+	NodeKind(String node_type, boolean has_side_effects) {
+		this.node_type = node_type;
+		this.has_side_effects = has_side_effects;
+	}
+
+	/**
+	 * Resolves the kind of a node.
+	 *
+	 * @param node_type Simple class name of the Truffle node
+	 * @return The corresponding kind, {@link #UNKNOWN} if the node type is not known
+	 */
+	public static NodeKind fromNodeType(String node_type) {
+		return BY_NODE_TYPE.getOrDefault(node_type, UNKNOWN);
+	}
+
+	/**
+	 * @return true, if {@link FuzzingNode#onEnter} has to leave the fast path for this kind
+	 */
+	public boolean hasEnterBehavior() {
+		switch (this) {
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
+			case JS_NEW_NODE_GEN:
+			case MATERIALIZED_FUNCTION_BODY_NODE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return true, if {@link FuzzingNode#onInputValue} has to leave the fast path for this kind
+	 */
+	public boolean hasInputValueBehavior() {
+		switch (this) {
+			case IF_NODE:
+			case WHILE_NODE:
+			case GLOBAL_PROPERTY_NODE:
+			case PROPERTY_NODE:
+			case WRITE_PROPERTY_NODE:
+			case READ_ELEMENT_NODE:
+			case WRITE_ELEMENT_NODE:
+			case COMPOUND_WRITE_ELEMENT_NODE:
+			case CALL0_NODE:
+			case CALL1_NODE:
+			case CALL_N_NODE:
+			case INVOKE0_NODE:
+			case INVOKE1_NODE:
+			case INVOKE_N_NODE:
+			case JS_NEW_NODE_GEN:
+			case JS_EQUAL_NODE_GEN:
+			case JS_AND_NODE:
+			case JS_OR_NODE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return true, if {@link FuzzingNode#onReturnValue} has to leave the fast path for this kind
+	 */
+	public boolean hasReturnBehavior() {
+		switch (this) {
+			case MATERIALIZED_FUNCTION_BODY_NODE:
+			case FRAME_RETURN_NODE:
+			case JS_STRING_INDEX_OF_NODE_GEN:
+			case JS_STRING_CONCAT_NODE_GEN:
+			case JS_STRING_SUBSTR_NODE_GEN:
+			case JS_ARRAY_JOIN_NODE_GEN:
+			case DECLARE_PROVIDER_NODE:
+			case BREAK_NODE:
+			case ECHO_TARGET_VALUE_NODE:
+			case MATERIALIZED_TARGETABLE_PROPERTY_NODE:
+			case FOR_IN_ITERATOR_PROTOTYPE_NEXT_NODE_GEN:
+			case UNKNOWN:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * @return true, if the behavior of this kind reads the frame (local scopes or re-execution of a subtree),
+	 * only these nodes materialize the frame
+	 */
+	public boolean needsFrame() {
+		switch (this) {
+			case MATERIALIZED_FUNCTION_BODY_NODE:
+			case JS_READ_CURRENT_FRAME_SLOT_NODE_GEN:
+			case JS_WRITE_CURRENT_FRAME_SLOT_NODE_GEN:
+			case JS_READ_SCOPE_FRAME_SLOT_NODE_GEN:
+			case JS_READ_SCOPE_FRAME_SLOT_WITH_TDZ_NODE_GEN:
+			case JS_WRITE_SCOPE_FRAME_SLOT_NODE_GEN:
+			case JS_AND_NODE:
+			case JS_OR_NODE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return true, if the node writes to variables, properties or the output and must not be executed
+	 * during the evaluation of a short-circuit subtree
+	 */
+	public boolean hasSideEffects() {
+		return this.has_side_effects;
+	}
+}
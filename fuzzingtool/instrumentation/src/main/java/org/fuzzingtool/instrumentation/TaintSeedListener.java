@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import com.oracle.truffle.api.instrumentation.LoadSourceSectionEvent;
+import com.oracle.truffle.api.instrumentation.LoadSourceSectionListener;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.js.nodes.access.JSConstantNode;
+import org.fuzzingtool.core.components.Amygdala;
+import org.fuzzingtool.core.components.TimeProbe;
+
+/**
+ * Taints every function which contains an input node as soon as it is loaded,
+ * before any of its nodes is executed.
+ */
+class TaintSeedListener implements LoadSourceSectionListener {
+	private final Amygdala amygdala;
+	private final TaintedRoots tainted_roots;
+
+	TaintSeedListener(Amygdala amy, TaintedRoots roots) {
+		this.amygdala = amy;
+		this.tainted_roots = roots;
+	}
+
+	@Override
+	public void onLoad(LoadSourceSectionEvent event) {
+		final SourceSection source_section = event.getSourceSection();
+		if (event.getNode() instanceof JSConstantNode && source_section != null && source_section.isAvailable()) {
+			amygdala.probe.switchState(TimeProbe.ProgramState.INSTRUMENTATION);
+			if (amygdala.getInputNodeConfiguration(source_section.getStartLine()).getLeft()) {
+				tainted_roots.taint(event.getNode(), "input variable in line " + source_section.getStartLine());
+			}
+			amygdala.probe.switchState(TimeProbe.ProgramState.MANAGE);
+		}
+	}
+}
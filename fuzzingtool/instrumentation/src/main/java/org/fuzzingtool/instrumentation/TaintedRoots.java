@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 Robert Delhougne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fuzzingtool.instrumentation;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.js.nodes.JSNodeUtil;
+import org.fuzzingtool.core.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Functions (identified by the source section of their root node) which are reached by symbolic values.
+ * Only these functions are traced if selective instrumentation is enabled, the nodes of all other functions
+ * only record coverage. Every function has an assumption that it is not tainted, which is invalidated as soon
+ * as symbolic values reach the function, so the nodes switch to tracing within the current iteration.
+ * The main function, builtin and internal functions are always traced.
+ */
+class TaintedRoots {
+	private final Logger logger;
+	private final Map<SourceSection, Assumption> untainted = new HashMap<>();
+	private int num_tainted = 0;
+	private boolean changed = false;
+
+	TaintedRoots(Logger lgr) {
+		this.logger = lgr;
+	}
+
+	/**
+	 * Returns the assumption that the function containing the node is not reached by symbolic values.
+	 *
+	 * @param node A node of the function
+	 * @return The assumption, or null if the function is always traced or already tainted
+	 */
+	Assumption getUntaintedAssumption(Node node) {
+		SourceSection root_section = getRootSection(node);
+		if (root_section == null) {
+			return null;
+		}
+		Assumption assumption = getAssumption(root_section);
+		return assumption.isValid() ? assumption : null;
+	}
+
+	/**
+	 * Marks the function containing the node as tainted, its nodes start tracing immediately.
+	 *
+	 * @param node   A node of the function
+	 * @param reason Reason for the log message
+	 */
+	void taint(Node node, String reason) {
+		SourceSection root_section = getRootSection(node);
+		if (root_section == null) {
+			return;
+		}
+		Assumption assumption = getAssumption(root_section);
+		if (assumption.isValid()) {
+			assumption.invalidate();
+			num_tainted++;
+			changed = true;
+			logger.info("Function '" + JSNodeUtil.resolveName(node.getRootNode()) + "' (line " + root_section.getStartLine() +
+								"-" + root_section.getEndLine() + ") is reached by symbolic values (" + reason + ")");
+		}
+	}
+
+	private Assumption getAssumption(SourceSection root_section) {
+		Assumption assumption = untainted.get(root_section);
+		if (assumption == null) {
+			assumption = Truffle.getRuntime().createAssumption("untainted");
+			untainted.put(root_section, assumption);
+		}
+		return assumption;
+	}
+
+	/**
+	 * Returns the source section that identifies the function of a node.
+	 *
+	 * @param node A node of the function
+	 * @return The source section of the root node, or null if the function is always traced
+	 */
+	private static SourceSection getRootSection(Node node) {
+		RootNode rn = node.getRootNode();
+		if (rn == null || rn.getSourceSection() == null || rn.getSourceSection().getSource().isInternal()) {
+			// Builtin and internal functions, e.g. Math.sqrt() or parseInt()
+			return null;
+		}
+		if (JSNodeUtil.resolveName(rn).equals(":program")) {
+			return null;
+		}
+		return rn.getSourceSection();
+	}
+
+	/**
+	 * @return true, if functions were tainted since the last call
+	 */
+	boolean consumeChanged() {
+		boolean was_changed = this.changed;
+		this.changed = false;
+		return was_changed;
+	}
+
+	int size() {
+		return num_tainted;
+	}
+}
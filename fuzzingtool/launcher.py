@@ -14,7 +14,6 @@
 # See the License for the specific language governing permissions and
 # limitations under the License.
 
-import time
 import signal
 import argparse
 import subprocess
@@ -24,13 +23,12 @@ import yaml
 import testgenerator
 
 
-MEASURE_TIME = False
-NUM_SAMPLES = 10
 GRAAL_INSTALL_DIR = "/opt/graalvm"
 MAVEN_REPOSITORY_DIR = "/home/foo/.m2/repository"
 
 
 MAIN_CLASS = "org.fuzzingtool.wrapper.Wrapper"
+BENCHMARK_CLASS = "org.fuzzingtool.wrapper.TimeMeasurement"
 BUILD_DIRECTORY = "build"
 WRAPPER = "wrapper-1.0-SNAPSHOT.jar"
 INSTRUMENTATION = "instrumentation-1.0-SNAPSHOT.jar"
@@ -93,7 +91,8 @@ def main():
 	parser = argparse.ArgumentParser(description="Run fuzzing tool")
 	parser.add_argument("-v", "--verbose", action="store_true", help="increases verbosity.")
 	parser.add_argument("-g", "--generate", action="store_true", help="Generate the program.")
-	parser.add_argument("configuration", metavar="PROGRAM", help="The Program configuration file (yaml) to test.")
+	parser.add_argument("-b", "--benchmark", action="store_true", help="Measure the instrumentation overhead, CONFIGURATION is a benchmark suite.")
+	parser.add_argument("configuration", metavar="CONFIGURATION", help="The Program configuration file (yaml) to test.")
 	args = parser.parse_args()
 
 	environ_java_home = os.getenv("JAVA_HOME")
@@ -103,18 +102,17 @@ def main():
 
 	fuzzing_configuration = args.configuration
 	generate = args.generate
+	benchmark = args.benchmark
 
 	program_path = ""
-	runtime_fractional_output = ""
 
 	# check if configuration exists
 	try:
 		with open(fuzzing_configuration, "r") as cfile:
 			try:
 				yaml_dict = yaml.safe_load(cfile)
-				program_path = yaml_dict["program_path"]
-				if "runtime_fractional_output" in yaml_dict:
-					runtime_fractional_output = yaml_dict["runtime_fractional_output"]
+				if not benchmark:
+					program_path = yaml_dict["program_path"]
 			except yaml.YAMLError:
 				print("ERROR: Cannot parse " + fuzzing_configuration + ".")
 				exit(1)
@@ -125,11 +123,11 @@ def main():
 		print("ERROR: Cannot open file " + fuzzing_configuration + ".")
 		exit(1)
 
-	if not os.path.isabs(program_path):
+	if not benchmark and not os.path.isabs(program_path):
 		working_dir, source_file_name = os.path.split(fuzzing_configuration)
 		program_path = os.path.join(working_dir, program_path)
 
-	if generate:
+	if generate and not benchmark:
 		if os.path.exists(program_path):
 			choice = str(input("The program file already exists, overwrite? [y|N]: "))
 			if choice == "Y" or choice == "y":
@@ -137,7 +135,7 @@ def main():
 		else:
 			generate_test_program(program_path)
 
-	if not os.path.exists(program_path):
+	if not benchmark and not os.path.exists(program_path):
 		print("ERROR: File not found: " + program_path)
 		exit(1)
 
@@ -160,26 +158,12 @@ def main():
 		"-Dgraalvm.locatorDisabled=true",
 		"-Dtruffle.class.path.append=" + dtruffle_classpaths,
 		"-cp", java_classpaths,
-		MAIN_CLASS,
+		BENCHMARK_CLASS if benchmark else MAIN_CLASS,
 		fuzzing_configuration
 	]
 
-	if MEASURE_TIME:
-		for sample in range(NUM_SAMPLES):
-			print(f"Sample {sample + 1}/{NUM_SAMPLES}")
-			iter_start = time.perf_counter_ns()
-			subprocess.run(args, capture_output=True)
-			iter_end = time.perf_counter_ns()
-			total_duration = iter_end - iter_start
-			if runtime_fractional_output != "":
-				with open(runtime_fractional_output, 'a+') as outfile:
-					outfile.seek(0)
-					outfile_contents = outfile.read()
-					last_line = outfile_contents.split('\n')[-1].split(',')
-					total_probed_duration = sum([int(x) for x in last_line])
-					vm_duration = total_duration - total_probed_duration
-					measure_string = f",{vm_duration},{total_duration}\n"
-					outfile.write(measure_string)
+	if benchmark:
+		subprocess.run(args)
 	else:
 		fuzzing_process = subprocess.Popen(args, preexec_fn=os.setpgrp)
 		fuzzing_process.wait()
@@ -18,28 +18,22 @@ package org.fuzzingtool.wrapper;
 
 import org.fuzzingtool.core.Logger;
 import org.fuzzingtool.core.components.Amygdala;
+import org.fuzzingtool.core.components.FlightRecorderEvents;
 import org.fuzzingtool.core.components.TimeProbe;
+import org.fuzzingtool.core.components.VariableIdentifier;
+import org.fuzzingtool.instrumentation.CoverageTool;
 import org.fuzzingtool.instrumentation.FuzzingTool;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Source;
-import org.snakeyaml.engine.v2.api.Dump;
-import org.snakeyaml.engine.v2.api.DumpSettings;
 import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
-import org.snakeyaml.engine.v2.common.FlowStyle;
-import org.snakeyaml.engine.v2.common.ScalarStyle;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Paths;
-import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -47,6 +41,9 @@ import java.util.TimerTask;
 public class Fuzzer {
 	private Engine engine;
 	private Context context;
+	private FuzzingTool fuzzing_instrument = null;
+	private Engine coverage_engine = null;
+	private Context coverage_context = null;
 	private Source source = null;
 	private Amygdala amygdala = null;
 	private Logger logger = null;
@@ -55,8 +52,6 @@ public class Fuzzer {
 	private final Timer timeout_timer;
 
 	private static final String TERMINATE_FILE_NAME = "terminate-1bfa427b-a460-4088-b578-e388a6bce94d";
-	private String runtime_complete_output = null;
-	private String runtime_fractional_output = null;
 
 	public Fuzzer(String fuzzing_config) {
 		this.probe = new TimeProbe(false);
@@ -76,7 +71,7 @@ public class Fuzzer {
 			throw new Exception("JS Language context not available");
 		}
 		this.context = Context.newBuilder("js").engine(this.engine).build();
-		FuzzingTool fuzzing_instrument = context.getEngine().getInstruments().get(FuzzingTool.ID).lookup(FuzzingTool.class);
+		this.fuzzing_instrument = context.getEngine().getInstruments().get(FuzzingTool.ID).lookup(FuzzingTool.class);
 		if (fuzzing_instrument == null) {
 			throw new Exception("Cannot communicate with Truffle Instrument, perhaps classpath-isolation is enabled");
 		}
@@ -89,12 +84,30 @@ public class Fuzzer {
 
 		this.source = loadSource(amygdala.getProgramPath());
 
-		if (configuration.containsKey("runtime_complete_output") && configuration.get("runtime_complete_output") instanceof String) {
-			this.runtime_complete_output = (String) configuration.get("runtime_complete_output");
+		if (amygdala.isSelectiveInstrumentationEnabled()) {
+			fuzzing_instrument.enableSelectiveInstrumentation();
 		}
-		if (configuration.containsKey("runtime_fractional_output") && configuration.get("runtime_fractional_output") instanceof String) {
-			this.runtime_fractional_output = (String) configuration.get("runtime_fractional_output");
+
+		if (amygdala.isHybridModeEnabled()) {
+			initCoverageContext();
+		}
+
+		if (configuration.containsKey("runtime_sampling_period") && configuration.get("runtime_sampling_period") instanceof Integer) {
+			this.probe.startSampling((Integer) configuration.get("runtime_sampling_period"));
+		}
+	}
+
+	/**
+	 * Creates a second context with coverage-only instrumentation for the hybrid mode.
+	 */
+	private void initCoverageContext() throws Exception {
+		this.coverage_engine = Engine.newBuilder().option(CoverageTool.ID, "true").build();
+		this.coverage_context = Context.newBuilder("js").engine(this.coverage_engine).build();
+		CoverageTool coverage_instrument = coverage_context.getEngine().getInstruments().get(CoverageTool.ID).lookup(CoverageTool.class);
+		if (coverage_instrument == null) {
+			throw new Exception("Cannot communicate with coverage instrument, perhaps classpath-isolation is enabled");
 		}
+		coverage_instrument.attach(this.amygdala);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -136,6 +149,8 @@ public class Fuzzer {
 			String error_reason = "UNKNOWN";
 			TimeoutTask task = new TimeoutTask(amygdala);
 			this.timeout_timer.schedule(task, amygdala.getTimeoutMillis());
+			amygdala.metrics.executionStarted();
+			Object iteration_event = FlightRecorderEvents.beginIteration();
 			try {
 				probe.switchStateAndStartIteration(TimeProbe.ProgramState.EXECUTION);
 				context.eval(source);
@@ -147,6 +162,7 @@ public class Fuzzer {
 					error_reason = message.replace("org.fuzzingtool.core.components.CustomError$EscalatedException: ", "");
 				} else if (message.startsWith("SyntaxError")) {
 					timeout_timer.cancel();
+					amygdala.metrics.executionFinished();
 					logger.critical("Syntax error found, cannot proceed. Message:");
 					logger.log(message);
 					return;
@@ -156,6 +172,8 @@ public class Fuzzer {
 				run_successful = false;
 			}
 			task.cancel();
+			amygdala.metrics.executionFinished();
+			boolean timed_out = amygdala.timeoutReached();
 			amygdala.setTimeoutReached(false);
 
 			if (run_successful) {
@@ -163,8 +181,19 @@ public class Fuzzer {
 			} else {
 				amygdala.errorEvent(error_reason, probe.getIterationDuration());
 			}
+			if (iteration_event != null) {
+				Map<VariableIdentifier, Object> input = amygdala.getLastInput();
+				long input_size = 0;
+				for (Object value: input.values()) {
+					input_size += String.valueOf(value).length();
+				}
+				String outcome = run_successful ? "TERMINATE" : (timed_out ? "TIMEOUT" : "ERROR");
+				FlightRecorderEvents.endIteration(iteration_event, amygdala.getIteration(), input.size(), input_size,
+												  outcome, probe.getIterationDuration());
+			}
 
 			amygdala.snapshot();
+			fuzzing_instrument.reportInstrumentation();
 
 			// TODO hackyyy...
 			File f = new File(TERMINATE_FILE_NAME);
@@ -178,11 +207,46 @@ public class Fuzzer {
 				return;
 			}
 
+			if (amygdala.isHybridModeEnabled()) {
+				mutate();
+			}
+
 			one_more = amygdala.calculateNextPath();
+			if (one_more) {
+				amygdala.checkpoint();
+			}
 		}
 		timeout_timer.cancel();
 	}
 
+	/**
+	 * Executes mutated inputs in the coverage-only context. Inputs which reach
+	 * new coverage are queued for a concolic execution.
+	 */
+	private void mutate() {
+		probe.switchState(TimeProbe.ProgramState.MUTATION);
+		int novel_inputs = 0;
+		for (int i = 0; i < amygdala.getHybridMutations(); i++) {
+			amygdala.nextMutant();
+			TimeoutTask task = new TimeoutTask(amygdala);
+			this.timeout_timer.schedule(task, amygdala.getTimeoutMillis());
+			amygdala.metrics.executionStarted();
+			try {
+				coverage_context.eval(source);
+			} catch (PolyglotException pe) {
+				// Errors are only relevant for the concolic execution
+			}
+			amygdala.metrics.executionFinished();
+			task.cancel();
+			amygdala.setTimeoutReached(false);
+			if (amygdala.submitMutant()) {
+				novel_inputs++;
+			}
+		}
+		logger.info("Executed " + amygdala.getHybridMutations() + " mutations, " + novel_inputs + " with new coverage");
+		probe.switchState(TimeProbe.ProgramState.MANAGE);
+	}
+
 	public void printResults() {
 		logger.info("Printing results\n");
 		amygdala.printStatistics();
@@ -196,70 +260,36 @@ public class Fuzzer {
 	}
 
 	public void saveResults() {
+		amygdala.closeEventTrace();
+		amygdala.saveProfile();
+
 		if (amygdala.isBranchingVisEnabled()) {
 			amygdala.visualizeProgramFlow("trace_tree_explored.svg");
 		}
 
-		Map<String, Object> map = amygdala.getResults();
-		DumpSettings settings =
-				DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).setDefaultScalarStyle(ScalarStyle.PLAIN)
-						.setExplicitStart(true).setExplicitEnd(true).build();
-		Dump dump = new Dump(settings);
-		String result_yaml_path = Paths.get(amygdala.getResultsPath(), "result.yaml").toString();
-		try {
-			FileWriter file_writer = new FileWriter(result_yaml_path);
-			file_writer.write(dump.dumpToString(map));
-			file_writer.close();
-			logger.info("Results written to '" + result_yaml_path + "'");
-		} catch (IOException ioe) {
-			logger.critical("Cannot write results to " + result_yaml_path + ". Reason: " + ioe.getMessage());
-		}
+		amygdala.finishResults();
 	}
 
-	public void saveAndPrintRuntimeInformation() {
-		if (this.runtime_complete_output != null) {
-			String type = "instrumentation";
-			List<Long> durations = amygdala.getRuntimes();
-			Collection<Object> values = amygdala.getVariableValues().get(0).values();
-
-			if (values.size() == 1) {
-				String input_val = String.valueOf(values.iterator().next());
-				try {
-					FileWriter fw = new FileWriter(this.runtime_complete_output, true);
-					BufferedWriter bw = new BufferedWriter(fw);
-					for (int i = 0; i < durations.size(); i++) {
-						String measure_string = type + "," + input_val + "," + (i + 1) + "," + durations.get(i);
-						bw.write(measure_string);
-						bw.newLine();
-					}
-					bw.close();
-				} catch (IOException e) {
-					logger.critical("Cannot write runtime information to file '" + this.runtime_complete_output + "'");
-				}
-			} else {
-				logger.critical("Cannot obtain locked input value");
-			}
-		}
+	/**
+	 * Prints the time spent in each program state, see {@link TimeMeasurement} for overhead measurements.
+	 */
+	public void printRuntimeInformation() {
 		probe.switchState(TimeProbe.ProgramState.STOP);
-		if (this.runtime_fractional_output != null) {
-			try {
-				FileWriter fw = new FileWriter(this.runtime_fractional_output, true);
-				BufferedWriter bw = new BufferedWriter(fw);
-				String measure_string = probe.getDuration(TimeProbe.ProgramState.MANAGE) + "," +
-										probe.getDuration(TimeProbe.ProgramState.EXECUTION) + "," +
-										probe.getDuration(TimeProbe.ProgramState.INSTRUMENTATION) + "," +
-										probe.getDuration(TimeProbe.ProgramState.SOLVE) + "," +
-										probe.getDuration(TimeProbe.ProgramState.TACTIC);
-										// vm measurement and linebreak will be added by python script
-				bw.write(measure_string);
-				bw.close();
-			} catch (IOException e) {
-				logger.critical("Cannot write runtime information to file '" + this.runtime_fractional_output + "'");
-			}
-		}
 		logger.log(probe.toString());
 	}
 
+	/**
+	 * Writes all pending log messages and releases the log sinks.
+	 */
+	public void close() {
+		if (amygdala != null) {
+			amygdala.close();
+		}
+		if (logger != null) {
+			logger.close();
+		}
+	}
+
 	class TimeoutTask extends TimerTask {
 		private final Amygdala amygdala;
 
@@ -14,93 +14,441 @@
  * limitations under the License.
  */
 
+
 package org.fuzzingtool.wrapper;
 
+import org.fuzzingtool.core.Logger;
+import org.fuzzingtool.core.components.Amygdala;
+import org.fuzzingtool.core.components.ResultWriter;
+import org.fuzzingtool.core.components.TimeProbe;
+import org.fuzzingtool.instrumentation.CoverageTool;
+import org.fuzzingtool.instrumentation.FuzzingTool;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Source;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Measures the overhead of the instrumentation. Every program of a benchmark suite is executed
+ * uninstrumented, with the coverage-only instrumentation ({@link CoverageTool}) and with the
+ * complete concolic instrumentation ({@link FuzzingTool}). Each mode runs in a fresh engine, every
+ * execution in a new context of it. The first executions are a warm-up and are not measured.
+ * <p>
+ * The result is a YAML report with the runtimes, the slowdown factors relative to the
+ * uninstrumented execution and the time spent in each {@link TimeProbe.ProgramState}.
+ * The suite is a YAML file of the form:
+ * <pre>
+ * warmup: 3             # unmeasured executions per mode
+ * repetitions: 10       # measured executions per mode
+ * timeout: 600          # seconds per execution, the mode is aborted if exceeded
+ * report: "overhead.yaml"
+ * programs:
+ *   - "benchmarksgame/fasta.js"
+ *   - program: "benchmarksgame/nbody.js"
+ *     name: nbody
+ *     repetitions: 3
+ * </pre>
+ * Relative paths are resolved against the directory of the suite file. Output of the programs is discarded.
+ */
 public class TimeMeasurement {
+	private static final int DEFAULT_WARMUP = 3;
+	private static final int DEFAULT_REPETITIONS = 10;
+	private static final int DEFAULT_TIMEOUT_SECONDS = 600;
+	private static final TimeProbe.ProgramState[] STATES = {
+			TimeProbe.ProgramState.MANAGE, TimeProbe.ProgramState.EXECUTION, TimeProbe.ProgramState.INSTRUMENTATION
+	};
+
+	public enum Mode {
+		UNINSTRUMENTED,
+		COVERAGE,
+		FULL
+	}
+
+	private final Path suite_directory;
+	private final int warmup;
+	private final int repetitions;
+	private final long timeout_millis;
+	private final Path report_path;
+	private final List<Map<String, Object>> programs = new ArrayList<>();
+	private final Timer timeout_timer = new Timer(true);
+	private final Logger logger = new Logger(System.out);
+
 	public static void main(String[] args) {
-		/* Options
-		 * 0: program path
-		 * 1: num iterations
-		 * 2: input value
-		 * 3: type
-		 * 4: output path
-		 */
-		if (args.length != 5) {
+		if (args.length != 1) {
 			System.out.println("ERROR: Wrong number of options");
+			System.out.println("Usage: TimeMeasurement <benchmark suite (yaml)>");
 			return;
 		}
+		TimeMeasurement measurement;
+		try {
+			measurement = new TimeMeasurement(args[0]);
+		} catch (Exception e) {
+			System.out.println("ERROR: Cannot load benchmark suite. Reason: " + e.getMessage());
+			return;
+		}
+		measurement.run();
+	}
+
+	@SuppressWarnings("unchecked")
+	public TimeMeasurement(String suite_path) throws IOException {
+		Path suite_file = Paths.get(suite_path).toAbsolutePath().normalize();
+		this.suite_directory = suite_file.getParent();
+		Map<String, Object> suite;
+		try (InputStream is = new FileInputStream(suite_file.toFile())) {
+			Load load = new Load(LoadSettings.builder().build());
+			suite = (Map<String, Object>) load.loadFromInputStream(is);
+		}
+		if (suite == null) {
+			throw new IOException("Benchmark suite '" + suite_path + "' is empty");
+		}
+		this.warmup = getInteger(suite, "warmup", DEFAULT_WARMUP);
+		this.repetitions = Math.max(1, getInteger(suite, "repetitions", DEFAULT_REPETITIONS));
+		this.timeout_millis = getInteger(suite, "timeout", DEFAULT_TIMEOUT_SECONDS) * 1000L;
+		this.report_path = resolve(suite.getOrDefault("report", "overhead_report.yaml").toString());
+
+		if (!(suite.get("programs") instanceof List)) {
+			throw new IOException("No attribute 'programs' in benchmark suite");
+		}
+		for (Object entry: (List<Object>) suite.get("programs")) {
+			Map<String, Object> program = new HashMap<>();
+			if (entry instanceof String) {
+				program.put("program", entry);
+			} else if (entry instanceof Map && ((Map<String, Object>) entry).get("program") instanceof String) {
+				program.putAll((Map<String, Object>) entry);
+			} else {
+				logger.warning("Ignoring invalid program entry '" + entry + "'");
+				continue;
+			}
+			Path program_path = resolve((String) program.get("program"));
+			program.put("program", program_path);
+			if (!program.containsKey("name")) {
+				String file_name = program_path.getFileName().toString();
+				program.put("name", file_name.endsWith(".js") ? file_name.substring(0, file_name.length() - 3) : file_name);
+			}
+			programs.add(program);
+		}
+	}
 
-		Engine engine = Engine.newBuilder().build();
-		Context context = Context.newBuilder("js").engine(engine).build();
-		Source source = loadSource(args[0]);
+	private Path resolve(String path) {
+		return suite_directory.resolve(path).normalize();
+	}
 
-		int num_iterations = Integer.parseInt(args[1]);
-		String input_val = args[2];
-		String type = args[3];
+	private static int getInteger(Map<String, Object> map, String key, int default_value) {
+		Object value = map.get(key);
+		return value instanceof Integer ? (Integer) value : default_value;
+	}
 
-		// Measure
-		List<Long> durations = new ArrayList<>();
+	public void run() {
+		List<Object> program_reports = new ArrayList<>();
+		StringBuilder summary = new StringBuilder();
+		summary.append("===INSTRUMENTATION OVERHEAD===\n");
+		summary.append(String.format(Locale.US, "%-30s %14s %14s %10s %14s %10s\n", "Program", "Plain (ms)",
+									 "Coverage (ms)", "Slowdown", "Full (ms)", "Slowdown"));
 
-		for (int i = 0; i < num_iterations; i++) {
-			System.out.println("Iteration " + (i + 1) + "/" + num_iterations);
-			long start_time = 0;
-			long end_time = 0;
-			try {
-				start_time = System.nanoTime();
-				context.eval(source);
-				end_time = System.nanoTime();
-			} catch (PolyglotException pe) {
-				pe.printStackTrace();
-				end_time = System.nanoTime();
+		for (Map<String, Object> program: programs) {
+			String name = (String) program.get("name");
+			Path program_path = (Path) program.get("program");
+			int program_warmup = getInteger(program, "warmup", warmup);
+			int program_repetitions = Math.max(1, getInteger(program, "repetitions", repetitions));
+
+			Map<Mode, Measurement> measurements = new EnumMap<>(Mode.class);
+			for (Mode mode: Mode.values()) {
+				logger.info("Measuring " + name + " (" + mode + ")");
+				Measurement measurement = new Measurement();
+				try {
+					measure(program_path, name, mode, program_warmup, program_repetitions, measurement);
+				} catch (Exception e) {
+					logger.critical("Cannot measure " + name + " (" + mode + "). Reason: " + e.getMessage());
+					measurement.failure = e.getMessage();
+				}
+				measurements.put(mode, measurement);
+			}
+
+			double baseline = measurements.get(Mode.UNINSTRUMENTED).median();
+			Map<String, Object> program_report = new LinkedHashMap<>();
+			program_report.put("name", name);
+			program_report.put("program", program_path.toString());
+			program_report.put("warmup", program_warmup);
+			program_report.put("repetitions", program_repetitions);
+			Map<String, Object> mode_reports = new LinkedHashMap<>();
+			for (Map.Entry<Mode, Measurement> entry: measurements.entrySet()) {
+				mode_reports.put(entry.getKey().name().toLowerCase(), entry.getValue().toReport(baseline));
 			}
-			durations.add(end_time - start_time);
+			program_report.put("modes", mode_reports);
+			program_reports.add(program_report);
+
+			Measurement coverage = measurements.get(Mode.COVERAGE);
+			Measurement full = measurements.get(Mode.FULL);
+			summary.append(String.format(Locale.US, "%-30s %14s %14s %10s %14s %10s\n", name,
+										 formatMillis(baseline), formatMillis(coverage.median()),
+										 formatFactor(coverage.median(), baseline), formatMillis(full.median()),
+										 formatFactor(full.median(), baseline)));
 		}
+		timeout_timer.cancel();
 
-		/*System.out.println("===DURATIONS===");
-		for (int i = 0; i < num_iterations; i++) {
-			System.out.println(durations.get(i));
-		}*/
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("java_version", System.getProperty("java.version"));
+		report.put("vm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+		report.put("timeout", timeout_millis / 1000);
+		report.put("programs", program_reports);
+		ResultWriter writer = new ResultWriter(logger, report_path);
+		writer.write(report);
+		writer.close();
+
+		logger.log(summary.toString());
+		logger.info("Report written to '" + report_path + "'");
+		logger.close();
+	}
+
+	/**
+	 * Executes a program repeatedly in a fresh engine with the given instrumentation, every execution in a new context.
+	 *
+	 * @param program_path Path of the program
+	 * @param name         Name of the program, used for the results directory of the concolic instrumentation
+	 * @param mode         Instrumentation
+	 * @param num_warmup   Number of unmeasured executions
+	 * @param num_measured Number of measured executions
+	 * @param measurement  Receives the runtimes
+	 */
+	private void measure(Path program_path, String name, Mode mode, int num_warmup, int num_measured,
+						 Measurement measurement) throws Exception {
+		Source source = Source.newBuilder("js", program_path.toFile()).build();
+		Engine.Builder engine_builder = Engine.newBuilder().out(DISCARD);
+		if (mode == Mode.COVERAGE) {
+			engine_builder.option(CoverageTool.ID, "true");
+		} else if (mode == Mode.FULL) {
+			engine_builder.option(FuzzingTool.ID, "true");
+		}
+		Engine engine = engine_builder.build();
+
+		final TimeProbe probe = new TimeProbe(false);
+		Amygdala amygdala = null;
+		FuzzingTool fuzzing_instrument = null;
+		if (mode == Mode.COVERAGE) {
+			CoverageTool coverage_instrument = engine.getInstruments().get(CoverageTool.ID).lookup(CoverageTool.class);
+			if (coverage_instrument == null) {
+				throw new Exception("Cannot communicate with coverage instrument, perhaps classpath-isolation is enabled");
+			}
+			amygdala = new Amygdala(new Logger(DISCARD));
+			coverage_instrument.attach(amygdala);
+		} else if (mode == Mode.FULL) {
+			fuzzing_instrument = engine.getInstruments().get(FuzzingTool.ID).lookup(FuzzingTool.class);
+			if (fuzzing_instrument == null) {
+				throw new Exception("Cannot communicate with Truffle Instrument, perhaps classpath-isolation is enabled");
+			}
+			amygdala = fuzzing_instrument.getAmygdala();
+			Map<String, Object> configuration = new HashMap<>();
+			configuration.put("program_path", program_path.toString());
+			configuration.put("results", report_path.resolveSibling("overhead_results").resolve(name).toString());
+			configuration.put("logging", Collections.singletonMap("level", "OFF"));
+			amygdala.loadOptions(configuration, suite_directory.toString());
+		}
+		if (amygdala != null) {
+			amygdala.setTimeProbe(probe);
+		}
 
+		Context context = null;
 		try {
-			FileWriter fw = new FileWriter(args[4], true);
-			BufferedWriter bw = new BufferedWriter(fw);
-			for (int i = 0; i < num_iterations; i++) {
-				String measure_string = type + "," + input_val + "," + (i + 1) + "," + durations.get(i);
-				bw.write(measure_string);
-				bw.newLine();
+			for (int i = 0; i < num_warmup + num_measured; i++) {
+				if (i == num_warmup) {
+					// The instrumentation keeps node type identifiers of the probe, so the warm-up is subtracted instead
+					for (TimeProbe.ProgramState state: STATES) {
+						measurement.state_durations.put(state, -probe.getDuration(state));
+					}
+				}
+				// Every execution gets a fresh context, a context closed by the timeout cannot be reused
+				context = Context.newBuilder("js").engine(engine).build();
+				CancelTask task = new CancelTask(context);
+				timeout_timer.schedule(task, timeout_millis);
+				boolean successful = true;
+				String error_reason = "";
+				probe.switchStateAndStartIteration(TimeProbe.ProgramState.EXECUTION);
+				try {
+					context.eval(source);
+				} catch (PolyglotException pe) {
+					successful = false;
+					error_reason = pe.getMessage();
+				}
+				probe.switchStateAndEndIteration(TimeProbe.ProgramState.MANAGE);
+				if (!task.finish()) {
+					logger.warning(name + " (" + mode + ") exceeded the timeout of " + timeout_millis / 1000 + "s");
+					measurement.timed_out = true;
+					return;
+				}
+				context.close();
+				context = null;
+
+				if (mode == Mode.FULL) {
+					if (successful) {
+						amygdala.terminateEvent(probe.getIterationDuration());
+					} else {
+						amygdala.errorEvent(error_reason, probe.getIterationDuration());
+					}
+					fuzzing_instrument.reportInstrumentation();
+				} else if (mode == Mode.COVERAGE) {
+					amygdala.coverage_trace.clear();
+				}
+				if (i >= num_warmup) {
+					measurement.runtimes.add(probe.getIterationDuration());
+					if (!successful) {
+						measurement.errors++;
+					}
+				}
+			}
+		} finally {
+			probe.switchState(TimeProbe.ProgramState.STOP);
+			for (TimeProbe.ProgramState state: STATES) {
+				measurement.state_durations.merge(state, probe.getDuration(state), Long::sum);
+			}
+			if (amygdala != null) {
+				amygdala.close();
+			}
+			if (context != null && !measurement.timed_out) {
+				context.close();
 			}
-			bw.close();
-		} catch (IOException e) {
-			e.printStackTrace();
+			engine.close();
 		}
 	}
 
-	private static Source loadSource(String source_path) {
-		File source_file = new File(source_path);
-		String language = null;
-		Source source = null;
-		try {
-			language = Source.findLanguage(source_file);
-		} catch (IOException e) {
-			e.printStackTrace();
+	private static String formatMillis(double nanos) {
+		return Double.isNaN(nanos) ? "-" : String.format(Locale.US, "%.2f", nanos / 1000000.0);
+	}
+
+	private static String formatFactor(double nanos, double baseline) {
+		return Double.isNaN(nanos) || Double.isNaN(baseline) ? "-" : String.format(Locale.US, "%.2fx", nanos / baseline);
+	}
+
+	/**
+	 * Runtimes of one program in one mode.
+	 */
+	static class Measurement {
+		final List<Long> runtimes = new ArrayList<>();
+		int errors = 0;
+		boolean timed_out = false;
+		String failure = null;
+		final Map<TimeProbe.ProgramState, Long> state_durations = new EnumMap<>(TimeProbe.ProgramState.class);
+
+		/**
+		 * @return Median runtime in nanoseconds, NaN if the measurement is incomplete
+		 */
+		double median() {
+			if (runtimes.isEmpty() || timed_out || failure != null) {
+				return Double.NaN;
+			}
+			List<Long> sorted = new ArrayList<>(runtimes);
+			Collections.sort(sorted);
+			int middle = sorted.size() / 2;
+			if (sorted.size() % 2 == 0) {
+				return (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+			}
+			return sorted.get(middle);
 		}
-		try {
-			source = Source.newBuilder(language, source_file).build();
-		} catch (IOException e) {
-			e.printStackTrace();
+
+		Map<String, Object> toReport(double baseline) {
+			Map<String, Object> report = new LinkedHashMap<>();
+			if (failure != null) {
+				report.put("failure", failure);
+				return report;
+			}
+			report.put("timed_out", timed_out);
+			report.put("errors", errors);
+			if (!runtimes.isEmpty()) {
+				long min = Long.MAX_VALUE;
+				long max = Long.MIN_VALUE;
+				double sum = 0;
+				for (long runtime: runtimes) {
+					min = Math.min(min, runtime);
+					max = Math.max(max, runtime);
+					sum += runtime;
+				}
+				double mean = sum / runtimes.size();
+				double squares = 0;
+				for (long runtime: runtimes) {
+					squares += (runtime - mean) * (runtime - mean);
+				}
+				report.put("min_ns", min);
+				report.put("max_ns", max);
+				report.put("mean_ns", Math.round(mean));
+				report.put("stddev_ns", Math.round(Math.sqrt(squares / runtimes.size())));
+			}
+			double median = median();
+			if (!Double.isNaN(median)) {
+				report.put("median_ns", Math.round(median));
+				if (!Double.isNaN(baseline)) {
+					report.put("slowdown", median / baseline);
+				}
+			}
+			report.put("runtimes_ns", new ArrayList<Object>(runtimes));
+			if (!runtimes.isEmpty()) {
+				// Average time per measured execution, INSTRUMENTATION is only distinguished by the concolic instrumentation
+				Map<String, Object> states = new LinkedHashMap<>();
+				for (Map.Entry<TimeProbe.ProgramState, Long> entry: state_durations.entrySet()) {
+					states.put(entry.getKey().name(), entry.getValue() / runtimes.size());
+				}
+				report.put("states_ns", states);
+			}
+			return report;
 		}
-		return source;
 	}
+
+	/**
+	 * Closes the context of an execution that exceeds the timeout. The end of the execution and the
+	 * timeout are decided by a single flag, so the context is either closed by the task or left to the
+	 * measurement, never both.
+	 */
+	private static class CancelTask extends TimerTask {
+		private final Context context;
+		private final AtomicBoolean decided = new AtomicBoolean(false);
+
+		CancelTask(Context ctx) {
+			this.context = ctx;
+		}
+
+		@Override
+		public void run() {
+			if (decided.compareAndSet(false, true)) {
+				context.close(true);
+			}
+		}
+
+		/**
+		 * Called at the end of the execution.
+		 *
+		 * @return false, if the timeout was reached first and the context is closed
+		 */
+		boolean finish() {
+			cancel();
+			return decided.compareAndSet(false, true);
+		}
+	}
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
 }
@@ -35,7 +35,8 @@ public class Wrapper {
 			fuzzer.fuzz();
 			fuzzer.saveResults();
 			fuzzer.printResults();
-			fuzzer.saveAndPrintRuntimeInformation();
+			fuzzer.printRuntimeInformation();
 		}
+		fuzzer.close();
 	}
 }